@@ -16,8 +16,11 @@ import io.lighty.netconf.device.NetconfDeviceServices;
 import io.lighty.netconf.device.action.actions.ResetAction;
 import io.lighty.netconf.device.action.actions.StartAction;
 import io.lighty.netconf.device.requests.BaseRequestProcessor;
+import io.lighty.netconf.device.requests.RequestContext;
 import io.lighty.netconf.device.response.Response;
+import io.lighty.netconf.device.utils.NormalizedNodeDomWriter;
 import io.lighty.netconf.device.utils.RPCUtil;
+import io.lighty.netconf.device.utils.XmlLogUtil;
 import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collections;
@@ -34,6 +37,7 @@ import org.opendaylight.netconf.api.xml.XmlElement;
 import org.opendaylight.yang.gen.v1.urn.example.data.center.rev180807.device.Start;
 import org.opendaylight.yang.gen.v1.urn.example.data.center.rev180807.server.Reset;
 import org.opendaylight.yangtools.yang.common.QName;
+import org.opendaylight.yangtools.yang.data.api.schema.ContainerNode;
 import org.opendaylight.yangtools.yang.data.api.schema.NormalizedNode;
 import org.opendaylight.yangtools.yang.model.api.ActionDefinition;
 import org.opendaylight.yangtools.yang.model.api.ActionNodeContainer;
@@ -55,7 +59,6 @@ public class ActionServiceDeviceProcessor extends BaseRequestProcessor {
     private static final Logger LOG = LoggerFactory.getLogger(ActionServiceDeviceProcessor.class);
     private AdapterContext adapterContext;
     private ImmutableMap<Absolute, ActionDefinition> actions;
-    private ActionServiceDeviceProcessor actionProcessor;
 
     @Override
     public void init(final NetconfDeviceServices netconfDeviceServices) {
@@ -69,32 +72,50 @@ public class ActionServiceDeviceProcessor extends BaseRequestProcessor {
         return QName.create("urn:ietf:params:xml:ns:yang:1", "action");
     }
 
+    /**
+     * Processes the whole request by a new processor of the requested action, the output of the action is written
+     * by the same processor. This processor is shared by the sessions, so it does not keep the action it processes.
+     */
     @Override
-    protected CompletableFuture<Response> execute(final Element requestXmlElement) {
+    public Document processRequest(final Element requestXmlElement, final RequestContext context) {
+        return createActionProcessor(requestXmlElement).processAction(requestXmlElement, context);
+    }
+
+    @Override
+    protected CompletableFuture<Response> execute(final Element requestXmlElement, final RequestContext context) {
+        return createActionProcessor(requestXmlElement).execute(requestXmlElement, context);
+    }
+
+    private Document processAction(final Element requestXmlElement, final RequestContext context) {
+        return super.processRequest(requestXmlElement, context);
+    }
+
+    private ActionServiceDeviceProcessor createActionProcessor(final Element requestXmlElement) {
         final XmlElement fromDomElement = XmlElement.fromDomElement(requestXmlElement);
         final Optional<Entry<Absolute, ActionDefinition>> actionEntry = findActionInElement(fromDomElement);
 
         Preconditions.checkState(actionEntry.isPresent(), "Action is not present on the device.");
 
+        ActionServiceDeviceProcessor actionProcessor = null;
         if (actionEntry.get().getValue().getQName().equals(Start.QNAME)) {
-            this.actionProcessor = new StartActionProcessor(new StartAction(), actionEntry.get().getKey(),
+            actionProcessor = new StartActionProcessor(new StartAction(), actionEntry.get().getKey(),
                     actionEntry.get().getValue(), this.adapterContext.currentSerializer());
         }
         if (actionEntry.get().getValue().getQName().equals(Reset.QNAME)) {
-            this.actionProcessor = new ResetActionProcessor(new ResetAction(), actionEntry.get().getKey(),
+            actionProcessor = new ResetActionProcessor(new ResetAction(), actionEntry.get().getKey(),
                     actionEntry.get().getValue(), this.adapterContext.currentSerializer());
         }
 
-        Preconditions.checkState(this.actionProcessor != null, "Action is not implemented on the device.");
+        Preconditions.checkState(actionProcessor != null, "Action is not implemented on the device.");
 
-        this.actionProcessor.init(getNetconfDeviceServices());
-        return this.actionProcessor.execute(requestXmlElement);
+        actionProcessor.init(getNetconfDeviceServices());
+        return actionProcessor;
     }
 
     @Override
-    protected Document wrapToFinalDocumentReply(final List<NormalizedNode> responseOutput)
-            throws ParserConfigurationException {
-        final DocumentBuilder builder = getDocumentBuilderFactory().newDocumentBuilder();
+    protected Document wrapToFinalDocumentReply(final List<NormalizedNode> responseOutput,
+            final RequestContext context) throws ParserConfigurationException {
+        final DocumentBuilder builder = newDocumentBuilder();
         final Document newDocument = builder.newDocument();
         if (!responseOutput.isEmpty()) {
             // convert normalized nodes to xml nodes
@@ -103,7 +124,7 @@ public class ActionServiceDeviceProcessor extends BaseRequestProcessor {
             final NodeList nodeList = outputNodes.get(0).getChildNodes();
             for (int i = 0; i < nodeList.getLength(); i++) {
                 final Node node = nodeList.item(i);
-                final Element data = newDocument.createElementNS(this.actionProcessor.getActionDefinition().getQName()
+                final Element data = newDocument.createElementNS(getActionDefinition().getQName()
                         .getNamespace()
                         .toString(), node.getNodeName());
                 final int length = node.getChildNodes().getLength();
@@ -112,10 +133,8 @@ public class ActionServiceDeviceProcessor extends BaseRequestProcessor {
                 }
                 outputNodesData.add(data);
             }
-            // wrap nodes to final document
-            final List<Node> wrappedOutputNodes = new ArrayList<>();
-            outputNodesData.forEach(outputNode -> wrappedOutputNodes.add(newDocument.importNode(outputNode, true)));
-            newDocument.appendChild(wrapReplyResponse(newDocument, wrappedOutputNodes));
+            // wrap nodes to final document, they are already owned by the new document
+            newDocument.appendChild(wrapReplyResponse(newDocument, outputNodesData));
         } else {
             // convert normalized nodes to xml nodes
             final List<Node> outputNodes = Collections.singletonList(RPCUtil.createOkNode(newDocument));
@@ -123,19 +142,29 @@ public class ActionServiceDeviceProcessor extends BaseRequestProcessor {
             outputNodes.forEach(outputNode -> wrappedOutputNodes.add(newDocument.importNode(outputNode, true)));
             newDocument.appendChild(wrapReplyResponse(newDocument, wrappedOutputNodes));
         }
-        final String formattedResponse = RPCUtil.formatXml(newDocument.getDocumentElement());
-        LOG.debug("Response: {}.", formattedResponse);
+        XmlLogUtil.debug(LOG, "Response: {}.", newDocument);
         return newDocument;
     }
 
     @Override
     protected String convertNormalizedNodeToXmlString(final NormalizedNode normalizedNode)
             throws SerializationException {
-        final Absolute actionOutput = getActionOutput(actionProcessor.getActionPath(),
-                actionProcessor.getActionDefinition());
+        final Absolute actionOutput = getActionOutput(getActionPath(), getActionDefinition());
         return getNetconfDeviceServices().getXmlNodeConverter().serializeRpc(actionOutput, normalizedNode).toString();
     }
 
+    @Override
+    protected void writeNormalizedNode(final NormalizedNode normalizedNode, final Node parent,
+            final DocumentBuilder builder) throws SerializationException {
+        if (normalizedNode instanceof ContainerNode) {
+            final Absolute actionOutput = getActionOutput(getActionPath(), getActionDefinition());
+            NormalizedNodeDomWriter.writeOperationContainer(adapterContext.currentSerializer().getRuntimeContext()
+                    .modelContext(), actionOutput, (ContainerNode) normalizedNode, parent);
+        } else {
+            super.writeNormalizedNode(normalizedNode, parent, builder);
+        }
+    }
+
     protected static Absolute getActionInput(final Absolute path, final ActionDefinition action) {
         final var inputPath = new ArrayList<>(path.getNodeIdentifiers());
         inputPath.add(action.getInput().getQName());
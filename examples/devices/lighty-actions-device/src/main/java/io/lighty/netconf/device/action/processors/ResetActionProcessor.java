@@ -13,6 +13,7 @@ import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
 import io.lighty.codecs.util.XmlNodeConverter;
 import io.lighty.codecs.util.exception.DeserializationException;
+import io.lighty.netconf.device.requests.RequestContext;
 import io.lighty.netconf.device.response.Response;
 import io.lighty.netconf.device.response.ResponseData;
 import io.lighty.netconf.device.utils.RPCUtil;
@@ -63,7 +64,7 @@ public final class ResetActionProcessor extends ActionServiceDeviceProcessor {
 
     @SuppressWarnings({"rawtypes", "unchecked", "checkstyle:IllegalCatch"})
     @Override
-    protected CompletableFuture<Response> execute(final Element requestXmlElement) {
+    protected CompletableFuture<Response> execute(final Element requestXmlElement, final RequestContext context) {
         final XmlNodeConverter xmlNodeConverter = getNetconfDeviceServices().getXmlNodeConverter();
         try {
             final XmlElement xmlElement = XmlElement.fromDomElement(requestXmlElement);
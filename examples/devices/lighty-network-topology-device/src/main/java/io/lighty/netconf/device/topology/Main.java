@@ -11,6 +11,8 @@ import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 import io.lighty.core.common.models.ModuleId;
 import io.lighty.netconf.device.NetconfDevice;
 import io.lighty.netconf.device.NetconfDeviceBuilder;
+import io.lighty.netconf.device.metrics.DefaultRequestMetrics;
+import io.lighty.netconf.device.metrics.PrometheusMetricsEndpoint;
 import io.lighty.netconf.device.topology.datastore.DataTreeChangeListenerActivator;
 import io.lighty.netconf.device.topology.processors.NetworkTopologyServiceAddNodeToTopologyProcessor;
 import io.lighty.netconf.device.topology.processors.NetworkTopologyServiceCreateTopologyProcessor;
@@ -25,6 +27,8 @@ import io.lighty.netconf.device.topology.rpcs.NetworkTopologyServiceImpl;
 import io.lighty.netconf.device.utils.ArgumentParser;
 import io.lighty.netconf.device.utils.ModelUtils;
 import java.io.File;
+import java.io.IOException;
+import java.net.InetSocketAddress;
 import java.util.List;
 import java.util.Set;
 import net.sourceforge.argparse4j.inf.Namespace;
@@ -95,7 +99,7 @@ public final class Main {
         NetworkTopologyServiceImpl networkTopologyService = new NetworkTopologyServiceImpl();
 
         //4. Initialize Netconf device
-        NetconfDevice netconfDevice = new NetconfDeviceBuilder()
+        final NetconfDeviceBuilder netconfDeviceBuilder = new NetconfDeviceBuilder()
                 .setCredentials("admin", "admin")
                 .setBindingPort(port)
                 .withModels(modules)
@@ -112,9 +116,19 @@ public final class Main {
                 .withRequestProcessor(new NetworkTopologyServiceRemoveTopologyProcessor(networkTopologyService))
                 .withRequestProcessor(new NetworkTopologyServiceRemoveAllTopologiesProcessor(networkTopologyService))
                 .withRequestProcessor(new NetworkTopologyServiceRemoveNodeProcessor(networkTopologyService))
-                .withDefaultNotificationProcessor()
-                .build();
-        netconfDevice.start();
+                .withDefaultNotificationProcessor();
+        final Integer metricsPort = parseArguments.getInt("metrics-port");
+        PrometheusMetricsEndpoint metricsEndpoint = null;
+        if (metricsPort != null) {
+            final DefaultRequestMetrics requestMetrics = new DefaultRequestMetrics();
+            netconfDeviceBuilder.withRequestMetrics(requestMetrics);
+            try {
+                metricsEndpoint = new PrometheusMetricsEndpoint(requestMetrics, new InetSocketAddress(metricsPort));
+            } catch (IOException e) {
+                throw new IllegalStateException("Unable to start metrics endpoint on port " + metricsPort, e);
+            }
+        }
+        final NetconfDevice netconfDevice = startDevice(netconfDeviceBuilder, metricsEndpoint);
         final DataBroker dataBroker = netconfDevice.getNetconfDeviceServices().getDataBroker();
         networkTopologyService.setDataBrokerService(dataBroker);
         DataTreeChangeListenerActivator listenerActivator =
@@ -130,12 +144,28 @@ public final class Main {
         networkTopologyService.setEffectiveModelContext(effectiveModelContext);
 
         //5. Register shutdown hook
-        this.shutdownHook = new ShutdownHook(netconfDevice, networkTopologyService, listenerActivator);
+        this.shutdownHook = new ShutdownHook(netconfDevice, networkTopologyService, listenerActivator,
+            metricsEndpoint);
         if (registerShutdownHook) {
             Runtime.getRuntime().addShutdownHook(this.shutdownHook);
         }
     }
 
+    @SuppressWarnings("checkstyle:IllegalCatch")
+    private static NetconfDevice startDevice(final NetconfDeviceBuilder netconfDeviceBuilder,
+            final PrometheusMetricsEndpoint metricsEndpoint) {
+        try {
+            final NetconfDevice netconfDevice = netconfDeviceBuilder.build();
+            netconfDevice.start();
+            return netconfDevice;
+        } catch (RuntimeException e) {
+            if (metricsEndpoint != null) {
+                metricsEndpoint.close();
+            }
+            throw e;
+        }
+    }
+
     public void shutdown() {
         if (shutdownHook != null) {
             shutdownHook.execute();
@@ -147,12 +177,14 @@ public final class Main {
         private final NetconfDevice netConfDevice;
         private final NetworkTopologyServiceImpl networkTopologyService;
         private final DataTreeChangeListenerActivator listener;
+        private final PrometheusMetricsEndpoint metricsEndpoint;
 
         ShutdownHook(final NetconfDevice netConfDevice, final NetworkTopologyServiceImpl networkTopologyService,
-                     final DataTreeChangeListenerActivator listener) {
+                     final DataTreeChangeListenerActivator listener, final PrometheusMetricsEndpoint metricsEndpoint) {
             this.netConfDevice = netConfDevice;
             this.networkTopologyService = networkTopologyService;
             this.listener = listener;
+            this.metricsEndpoint = metricsEndpoint;
         }
 
         @Override
@@ -169,6 +201,9 @@ public final class Main {
             if (listener != null) {
                 listener.close();
             }
+            if (metricsEndpoint != null) {
+                metricsEndpoint.close();
+            }
             if (netConfDevice != null) {
                 try {
                     netConfDevice.close();
@@ -10,9 +10,11 @@ package io.lighty.netconf.device.topology;
 import static io.lighty.netconf.device.topology.TestUtils.xmlFileToInputStream;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import io.lighty.netconf.device.utils.ModelUtils;
 import io.lighty.netconf.device.utils.TimeoutUtil;
 import java.io.IOException;
 import java.io.InputStream;
@@ -71,6 +73,11 @@ public class DeviceTest {
     private static final String GET_CONFIG_REQUEST_XML = "get_config_request.xml";
     private static final String DELETE_TOPOLOGY_CONFIG_REQUEST_XML = "delete_topology_config_request.xml";
     private static final String GET_SCHEMAS_REQUEST_XML = "get_schemas_request.xml";
+    private static final String GET_NETCONF_STATE_REQUEST_XML = "get_netconf_state_request.xml";
+    private static final String GET_SCHEMA_REQUEST_XML = "get_schema_request.xml";
+    private static final String EDIT_CANDIDATE_CONFIG_REQUEST_XML = "edit_candidate_config_request.xml";
+    private static final String DELETE_CANDIDATE_CONFIG_REQUEST_XML = "delete_candidate_config_request.xml";
+    private static final String COMMIT_REQUEST_XML = "commit_request.xml";
     private static Main deviceSimulator;
     private static NetconfClientFactory dispatcher;
 
@@ -180,6 +187,26 @@ public class DeviceTest {
         }
     }
 
+    @Test
+    public void candidateAliasOfRunningTest() throws InterruptedException, ExecutionException, IOException,
+            TimeoutException, URISyntaxException, SAXException, UnsupportedConfigurationException {
+        final SimpleNetconfClientSessionListener sessionListener = new SimpleNetconfClientSessionListener();
+        try (NetconfClientSession session =
+                dispatcher.createClient(createSHHConfig(sessionListener))
+                        .get(TimeoutUtil.TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+            // the device does not enable the candidate datastore, the advertised candidate is an alias of running
+            assertTrue(containsOkElement(sendRequestToDevice(EDIT_CANDIDATE_CONFIG_REQUEST_XML, sessionListener)));
+            assertTrue(containsOkElement(sendRequestToDevice(COMMIT_REQUEST_XML, sessionListener)));
+            assertTrue(sendRequestToDevice(GET_CONFIG_REQUEST_XML, sessionListener).toString()
+                .contains("test-candidate-topology"));
+
+            assertTrue(containsOkElement(sendRequestToDevice(DELETE_CANDIDATE_CONFIG_REQUEST_XML, sessionListener)));
+            assertTrue(containsOkElement(sendRequestToDevice(COMMIT_REQUEST_XML, sessionListener)));
+            assertFalse(sendRequestToDevice(GET_CONFIG_REQUEST_XML, sessionListener).toString()
+                .contains("test-candidate-topology"));
+        }
+    }
+
     private boolean containsOkElement(final NetconfMessage responseMessage) {
         return responseMessage.getDocument().getElementsByTagName("ok").getLength() > 0;
     }
@@ -209,6 +236,91 @@ public class DeviceTest {
         }
     }
 
+    @Test
+    public void netconfStateStatisticsTest() throws IOException, URISyntaxException, SAXException,
+            InterruptedException, ExecutionException, TimeoutException, UnsupportedConfigurationException {
+        final SimpleNetconfClientSessionListener sessionListener = new SimpleNetconfClientSessionListener();
+
+        try (NetconfClientSession session =
+                dispatcher.createClient(createSHHConfig(sessionListener))
+                        .get(TimeoutUtil.TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+            sendRequestToDevice(GET_CONFIG_REQUEST_XML, sessionListener);
+            sendRequestToDevice(GET_CONFIG_REQUEST_XML, sessionListener);
+            final NetconfMessage stateResponse = sendRequestToDevice(GET_NETCONF_STATE_REQUEST_XML, sessionListener);
+
+            final Element sessions = (Element) stateResponse.getDocument().getDocumentElement()
+                .getElementsByTagName("sessions").item(0);
+            assertNotNull(sessions);
+            Element ownSession = null;
+            final NodeList sessionList = sessions.getElementsByTagName("session");
+            for (int i = 0; i < sessionList.getLength(); i++) {
+                final Element item = (Element) sessionList.item(i);
+                if (String.valueOf(session.sessionId().getValue())
+                        .equals(item.getElementsByTagName("session-id").item(0).getTextContent())) {
+                    ownSession = item;
+                }
+            }
+            assertNotNull(ownSession);
+            // the get itself is counted once it is replied
+            assertEquals(2, Long.parseLong(ownSession.getElementsByTagName("in-rpcs").item(0).getTextContent()));
+
+            final Element statistics = (Element) stateResponse.getDocument().getDocumentElement()
+                .getElementsByTagName("statistics").item(0);
+            assertNotNull(statistics);
+            assertTrue(Long.parseLong(statistics.getElementsByTagName("in-rpcs").item(0).getTextContent()) >= 2);
+            assertTrue(Long.parseLong(statistics.getElementsByTagName("in-sessions").item(0).getTextContent()) >= 1);
+            assertNotNull(statistics.getElementsByTagName("netconf-start-time").item(0));
+        }
+    }
+
+    @Test
+    public void netconfStateDroppedSessionTest() throws IOException, URISyntaxException, SAXException,
+            InterruptedException, ExecutionException, TimeoutException, UnsupportedConfigurationException {
+        final SimpleNetconfClientSessionListener sessionListener = new SimpleNetconfClientSessionListener();
+        try (NetconfClientSession session =
+                dispatcher.createClient(createSHHConfig(sessionListener))
+                        .get(TimeoutUtil.TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+            final long inSessions = readStatistic(sessionListener, "in-sessions");
+            final long droppedSessions = readStatistic(sessionListener, "dropped-sessions");
+
+            final SimpleNetconfClientSessionListener droppedListener = new SimpleNetconfClientSessionListener();
+            final NetconfClientSession droppedSession = dispatcher.createClient(createSHHConfig(droppedListener))
+                .get(TimeoutUtil.TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+            sendRequestToDevice(GET_CONFIG_REQUEST_XML, droppedListener);
+            // the client closes its connection without close-session
+            droppedSession.close();
+
+            final long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(REQUEST_TIMEOUT_MILLIS);
+            while (readStatistic(sessionListener, "dropped-sessions") == droppedSessions
+                    && System.nanoTime() < deadline) {
+                Thread.sleep(50);
+            }
+            final NetconfMessage stateResponse = sendRequestToDevice(GET_NETCONF_STATE_REQUEST_XML, sessionListener);
+            assertTrue(readStatistic(stateResponse, "dropped-sessions") > droppedSessions);
+            assertEquals(inSessions + 1, readStatistic(stateResponse, "in-sessions"));
+            final NodeList sessionIds = stateResponse.getDocument().getElementsByTagName("session-id");
+            for (int i = 0; i < sessionIds.getLength(); i++) {
+                assertNotEquals(String.valueOf(droppedSession.sessionId().getValue()),
+                    sessionIds.item(i).getTextContent());
+            }
+        }
+    }
+
+    @Test
+    public void testCapabilitiesAreAdvertised() throws InterruptedException, ExecutionException, TimeoutException,
+            UnsupportedConfigurationException {
+        final SimpleNetconfClientSessionListener sessionListener = new SimpleNetconfClientSessionListener();
+
+        try (NetconfClientSession session =
+                dispatcher.createClient(createSHHConfig(sessionListener))
+                        .get(TimeoutUtil.TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+            // :xpath supported by the default processors must not keep the base capabilities from the server
+            assertTrue(session.getServerCapabilities().contains(ModelUtils.DEFAULT_NOTIFICATION_CAPABILITY));
+            assertTrue(session.getServerCapabilities().contains(ModelUtils.INTERLEAVE_CAPABILITY));
+            assertTrue(session.getServerCapabilities().contains(ModelUtils.CANDIDATE_CAPABILITY));
+        }
+    }
+
     @Test
     public void testCapabilitiesFormat() throws IOException, URISyntaxException, SAXException, InterruptedException,
             ExecutionException, TimeoutException, UnsupportedConfigurationException {
@@ -237,6 +349,24 @@ public class DeviceTest {
         }
     }
 
+    @Test
+    public void getSchemaSourceTest() throws IOException, URISyntaxException, SAXException, InterruptedException,
+            ExecutionException, TimeoutException, UnsupportedConfigurationException {
+        final SimpleNetconfClientSessionListener sessionListener = new SimpleNetconfClientSessionListener();
+
+        try (NetconfClientSession session =
+                dispatcher.createClient(createSHHConfig(sessionListener))
+                        .get(TimeoutUtil.TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+            final NetconfMessage schemaResponse = sendRequestToDevice(GET_SCHEMA_REQUEST_XML, sessionListener);
+
+            final Element data = (Element) schemaResponse.getDocument().getDocumentElement()
+                .getElementsByTagNameNS("urn:ietf:params:xml:ns:yang:ietf-netconf-monitoring", "data").item(0);
+            assertNotNull(data, schemaResponse.toString());
+            assertTrue(data.getTextContent().contains("module ietf-netconf-monitoring"));
+            assertTrue(data.getTextContent().contains("2010-10-04"));
+        }
+    }
+
     private NetconfMessage sendRequestToDevice(String requestFileName,
                                                SimpleNetconfClientSessionListener sessionListener)
             throws SAXException, IOException, URISyntaxException,
@@ -249,6 +379,18 @@ public class DeviceTest {
                 .get(REQUEST_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
     }
 
+    private long readStatistic(final SimpleNetconfClientSessionListener sessionListener, final String counter)
+            throws SAXException, IOException, URISyntaxException, InterruptedException, ExecutionException,
+            TimeoutException {
+        return readStatistic(sendRequestToDevice(GET_NETCONF_STATE_REQUEST_XML, sessionListener), counter);
+    }
+
+    private static long readStatistic(final NetconfMessage stateResponse, final String counter) {
+        final Element statistics = (Element) stateResponse.getDocument().getDocumentElement()
+            .getElementsByTagName("statistics").item(0);
+        return Long.parseLong(statistics.getElementsByTagName(counter).item(0).getTextContent());
+    }
+
     private void assertResponseIsIdentical(final NetconfMessage response, final InputStream comparedResponse) {
         assertNotNull(response);
         final var actual = Input.fromString(response.toString()).build();
@@ -19,8 +19,10 @@ import org.slf4j.LoggerFactory;
 public class Main {
     private static final Logger LOG = LoggerFactory.getLogger(Main.class);
     private static final Set<YangModuleInfo> NOTIFICATION_MODEL_PATHS = ImmutableSet.of(
-            org.opendaylight.yang.svc.v1.yang.lighty.test.notifications.rev180820.YangModuleInfoImpl.getInstance()
+            org.opendaylight.yang.svc.v1.yang.lighty.test.notifications.rev261017.YangModuleInfoImpl.getInstance()
     );
+    private static final int REPLAYED_NOTIFICATIONS = 10_000;
+    private static final long REPLAYED_NOTIFICATIONS_BYTES = 16 * 1024 * 1024;
 
     private ShutdownHook shutdownHook;
 
@@ -44,10 +46,11 @@ public class Main {
                 .withDefaultCapabilities()
                 .withRequestProcessor(triggerNotificationProcessor)
                 .withDefaultNotificationProcessor()
+                .withNotificationReplay(REPLAYED_NOTIFICATIONS, REPLAYED_NOTIFICATIONS_BYTES, false)
                 .build();
         triggerNotificationProcessor.init(netconfDevice.getNetconfDeviceServices().getNotificationPublishService());
         netconfDevice.start();
-        this.shutdownHook = new ShutdownHook(netconfDevice);
+        this.shutdownHook = new ShutdownHook(netconfDevice, triggerNotificationProcessor);
         if (registerShutdownHook) {
             Runtime.getRuntime().addShutdownHook(this.shutdownHook);
         }
@@ -62,9 +65,12 @@ public class Main {
     private static class ShutdownHook extends Thread {
 
         private final NetconfDevice netConfDevice;
+        private final TriggerNotificationProcessor triggerNotificationProcessor;
 
-        ShutdownHook(final NetconfDevice netConfDevice) {
+        ShutdownHook(final NetconfDevice netConfDevice,
+                final TriggerNotificationProcessor triggerNotificationProcessor) {
             this.netConfDevice = netConfDevice;
+            this.triggerNotificationProcessor = triggerNotificationProcessor;
         }
 
         @Override
@@ -75,6 +81,9 @@ public class Main {
         @SuppressWarnings("checkstyle:IllegalCatch")
         public void execute() {
             LOG.info("Shutting down Lighty-Notification device.");
+            if (this.triggerNotificationProcessor != null) {
+                this.triggerNotificationProcessor.close();
+            }
             if (this.netConfDevice != null) {
                 try {
                     this.netConfDevice.close();
@@ -0,0 +1,130 @@
+/*
+ * Copyright (c) 2020 PANTHEON.tech s.r.o. All Rights Reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at https://www.eclipse.org/legal/epl-v10.html
+ */
+package io.lighty.netconf.device.notification.processors;
+
+import com.google.common.base.Strings;
+import io.lighty.netconf.device.requests.notification.NotificationPublishService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.opendaylight.yang.gen.v1.yang.lighty.test.notifications.rev261017.DataNotification;
+import org.opendaylight.yang.gen.v1.yang.lighty.test.notifications.rev261017.DataNotificationBuilder;
+import org.opendaylight.yang.gen.v1.yang.lighty.test.notifications.rev261017.TriggerDataNotificationInput;
+import org.opendaylight.yangtools.yang.common.Uint16;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Publishes notifications requested by one triggerDataNotification RPC. Bursts of notifications are sent at fixed
+ * rate, each burst is scheduled relative to the start of the run instead of the end of the previous burst, so time
+ * spent by publishing does not accumulate into the period. A late burst is sent immediately. Once all notifications
+ * are sent, achieved rate is logged along with the requested one.
+ */
+final class NotificationGenerator implements Runnable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(NotificationGenerator.class);
+    private static final char PAYLOAD_FILLER = 'x';
+
+    private final ScheduledExecutorService executor;
+    private final NotificationPublishService notificationPublishService;
+    private final Uint16 clientId;
+    private final int count;
+    private final int burstSize;
+    private final long periodNanos;
+    private final String payload;
+    private final String payloadFiller;
+    private long startNanos;
+    private long bursts;
+    private int sent;
+
+    NotificationGenerator(final ScheduledExecutorService executor,
+            final NotificationPublishService notificationPublishService, final TriggerDataNotificationInput input) {
+        this.executor = executor;
+        this.notificationPublishService = notificationPublishService;
+        this.clientId = input.getClientId();
+        this.count = input.getCount().intValue();
+        this.burstSize = input.getBurstSize() == null ? 1 : input.getBurstSize().intValue();
+        this.periodNanos = TimeUnit.MILLISECONDS.toNanos(input.getDelay().longValue());
+        this.payload = input.getPayload();
+        final int fillerLength = input.getMaxPayloadLength() == null ? 0
+                : (int) Math.min(Integer.MAX_VALUE, input.getMaxPayloadLength().longValue()) - payload.length();
+        this.payloadFiller = Strings.repeat(String.valueOf(PAYLOAD_FILLER), Math.max(0, fillerLength));
+    }
+
+    /**
+     * Sends the first burst, the following ones are scheduled by the executor.
+     */
+    void start() {
+        LOG.info("triggering notifications: clientId={} count={} burst={} delay={}ms, requested rate {}",
+                clientId, count, burstSize, TimeUnit.NANOSECONDS.toMillis(periodNanos), formatRate(requestedRate()));
+        startNanos = System.nanoTime();
+        executor.execute(this);
+    }
+
+    @Override
+    @SuppressWarnings("checkstyle:IllegalCatch")
+    public void run() {
+        try {
+            final int burstEnd = Math.min(count, sent + burstSize);
+            while (sent < burstEnd) {
+                sent++;
+                notificationPublishService.publish(createNotification(sent), DataNotification.QNAME);
+            }
+            bursts++;
+            if (sent < count) {
+                scheduleAt(startNanos + bursts * periodNanos, this);
+            } else {
+                // the last burst takes its period as the others do, achieved rate is measured at its end
+                scheduleAt(startNanos + bursts * periodNanos, this::report);
+            }
+        } catch (final RejectedExecutionException e) {
+            LOG.info("Device is closing, stopped sending notifications of clientId={} at {}/{}", clientId, sent,
+                    count);
+        } catch (final RuntimeException e) {
+            LOG.error("Failed to send notification of clientId={} {}/{}", clientId, sent, count, e);
+        }
+    }
+
+    private void scheduleAt(final long deadlineNanos, final Runnable task) {
+        executor.schedule(task, Math.max(0, deadlineNanos - System.nanoTime()), TimeUnit.NANOSECONDS);
+    }
+
+    private void report() {
+        final long elapsedNanos = System.nanoTime() - startNanos;
+        final double achievedRate = elapsedNanos == 0 ? Double.POSITIVE_INFINITY
+                : sent * (double) TimeUnit.SECONDS.toNanos(1) / elapsedNanos;
+        LOG.info("sent {} notifications of clientId={} in {}ms, requested rate {}, achieved rate {}", sent, clientId,
+                TimeUnit.NANOSECONDS.toMillis(elapsedNanos), formatRate(requestedRate()), formatRate(achievedRate));
+    }
+
+    private double requestedRate() {
+        return periodNanos == 0 ? Double.POSITIVE_INFINITY
+                : burstSize * (double) TimeUnit.SECONDS.toNanos(1) / periodNanos;
+    }
+
+    private DataNotification createNotification(final int ordinal) {
+        LOG.debug("sending notification clientId={} {}/{}", clientId, ordinal, count);
+        return new DataNotificationBuilder()
+                .setClientId(clientId)
+                .setOrdinal(Uint16.valueOf(ordinal))
+                .setPayload(randomizePayload())
+                .build();
+    }
+
+    private String randomizePayload() {
+        if (payloadFiller.isEmpty()) {
+            return payload;
+        }
+        return payload + payloadFiller.substring(ThreadLocalRandom.current().nextInt(payloadFiller.length() + 1));
+    }
+
+    private static String formatRate(final double rate) {
+        return Double.isInfinite(rate) ? "unlimited" : String.format("%.1f/s", rate);
+    }
+}
@@ -7,8 +7,10 @@
  */
 package io.lighty.netconf.device.notification.processors;
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import io.lighty.codecs.util.XmlNodeConverter;
 import io.lighty.codecs.util.exception.DeserializationException;
+import io.lighty.netconf.device.requests.RequestContext;
 import io.lighty.netconf.device.requests.RpcOutputRequestProcessor;
 import io.lighty.netconf.device.requests.notification.NotificationPublishService;
 import io.lighty.netconf.device.response.Response;
@@ -18,12 +20,12 @@ import java.io.IOException;
 import java.io.Reader;
 import java.util.Collections;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
 import javax.xml.transform.TransformerException;
 import org.opendaylight.mdsal.binding.dom.adapter.ConstantAdapterContext;
 import org.opendaylight.mdsal.binding.dom.adapter.CurrentAdapterSerializer;
-import org.opendaylight.yang.gen.v1.yang.lighty.test.notifications.rev180820.DataNotification;
-import org.opendaylight.yang.gen.v1.yang.lighty.test.notifications.rev180820.DataNotificationBuilder;
-import org.opendaylight.yang.gen.v1.yang.lighty.test.notifications.rev180820.TriggerDataNotificationInput;
+import org.opendaylight.yang.gen.v1.yang.lighty.test.notifications.rev261017.TriggerDataNotificationInput;
 import org.opendaylight.yangtools.binding.DataObject;
 import org.opendaylight.yangtools.yang.common.QName;
 import org.opendaylight.yangtools.yang.data.api.schema.ContainerNode;
@@ -35,15 +37,17 @@ import org.w3c.dom.Element;
 
 /**
  * Class is processing rpc requests, currently its looking for triggerDataNotification rpc only.
- * When the rpc is triggered execute method is called. Using device notification publish service to pass to
- * LightyTriggerNotificationsImpl.
+ * When the rpc is triggered execute method is called. Requested notifications are published by
+ * {@link NotificationGenerator} on a scheduler thread, so the rpc reply is sent without waiting for them.
  */
 @SuppressWarnings("checkstyle:MemberName")
-public class TriggerNotificationProcessor extends RpcOutputRequestProcessor {
+public class TriggerNotificationProcessor extends RpcOutputRequestProcessor implements AutoCloseable {
 
     private static final Logger LOG = LoggerFactory.getLogger(TriggerNotificationProcessor.class);
 
     private final QName qName = QName.create("yang:lighty:test:notifications", "triggerDataNotification");
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(
+            new ThreadFactoryBuilder().setNameFormat("notification-generator-%d").setDaemon(true).build());
     private NotificationPublishService notificationPublishService;
     private CurrentAdapterSerializer adapterSerializer;
 
@@ -56,13 +60,13 @@ public class TriggerNotificationProcessor extends RpcOutputRequestProcessor {
 
     /**
      * Converts Xml input element into TriggerDataNotificationInput using DataCodec
-     * and publish notification.
+     * and starts publishing of the requested notifications.
      *
      * @param requestXmlElement XML RPC request element
      * @return The future result of RPC processing
      */
     @Override
-    protected CompletableFuture<Response> execute(final Element requestXmlElement) {
+    protected CompletableFuture<Response> execute(final Element requestXmlElement, final RequestContext context) {
         try (Reader readerFromElement = RPCUtil.createReaderFromElement(requestXmlElement)) {
             final XmlNodeConverter xmlNodeConverter = getNetconfDeviceServices().getXmlNodeConverter();
             final NormalizedNode deserializedNode = xmlNodeConverter.deserialize(
@@ -72,9 +76,7 @@ public class TriggerNotificationProcessor extends RpcOutputRequestProcessor {
                     .fromNormalizedNodeRpcData(getRpcDefInputAbsolutePath(), (ContainerNode) deserializedNode);
             if (dataObject instanceof TriggerDataNotificationInput) {
                 final TriggerDataNotificationInput input = (TriggerDataNotificationInput) dataObject;
-                final DataNotification notification = createNotification(input);
-                LOG.info("sending notification clientId={} {}/{}", input.getClientId(), 1, input.getCount());
-                this.notificationPublishService.publish(notification, DataNotification.QNAME);
+                new NotificationGenerator(this.executor, this.notificationPublishService, input).start();
                 return CompletableFuture.completedFuture(new ResponseData(Collections.emptyList()));
             } else {
                 return CompletableFuture.failedFuture(new NotificationProcessorException(
@@ -87,21 +89,19 @@ public class TriggerNotificationProcessor extends RpcOutputRequestProcessor {
         }
     }
 
-    private DataNotification createNotification(final TriggerDataNotificationInput input) {
-        LOG.info("triggering notifications: clientId={} {} delay={}ms, payload={}",
-                input.getClientId(), input.getCount(), input.getDelay(), input.getPayload());
-        return new DataNotificationBuilder()
-                .setClientId(input.getClientId())
-                .setOrdinal(input.getCount())
-                .setPayload(input.getPayload())
-                .build();
-    }
-
     @Override
     public QName getIdentifier() {
         return this.qName;
     }
 
+    /**
+     * Stops publishing of notifications which are not sent yet.
+     */
+    @Override
+    public void close() {
+        this.executor.shutdownNow();
+    }
+
     public static class NotificationProcessorException extends Exception {
 
         public NotificationProcessorException(String message) {
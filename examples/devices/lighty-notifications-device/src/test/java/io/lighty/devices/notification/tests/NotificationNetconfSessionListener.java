@@ -7,34 +7,69 @@
  */
 package io.lighty.devices.notification.tests;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
 import org.opendaylight.netconf.api.messages.NetconfMessage;
 import org.opendaylight.netconf.client.NetconfClientSession;
 import org.opendaylight.netconf.client.SimpleNetconfClientSessionListener;
+import org.w3c.dom.Node;
 
 public class NotificationNetconfSessionListener  extends SimpleNetconfClientSessionListener {
 
+    private final CountDownLatch replayCompleteLatch = new CountDownLatch(1);
+    private final List<String> receivedMessages = new ArrayList<>();
     private CountDownLatch countDownLatch;
-    private String expectedPayload;
+    private Predicate<String> payloadMatcher;
 
     public NotificationNetconfSessionListener(CountDownLatch countDownLatch, String expectedPayload) {
+        this(countDownLatch, expectedPayload::equals);
+    }
+
+    private NotificationNetconfSessionListener(CountDownLatch countDownLatch, Predicate<String> payloadMatcher) {
         this.countDownLatch = countDownLatch;
-        this.expectedPayload = expectedPayload;
+        this.payloadMatcher = payloadMatcher;
+    }
+
+    // payload padded by the device up to MaxPayloadLength
+    public static NotificationNetconfSessionListener withPaddedPayload(CountDownLatch countDownLatch,
+            String expectedPayload, int maxPayloadLength) {
+        return new NotificationNetconfSessionListener(countDownLatch,
+            payload -> payload.startsWith(expectedPayload) && payload.length() <= maxPayloadLength);
     }
 
     @Override
     public synchronized void onMessage(final NetconfClientSession session, final NetconfMessage message) {
         super.onMessage(session, message);
+        this.receivedMessages.add(isReplayComplete(message) ? "replayComplete"
+            : message.getDocument().getDocumentElement().getLocalName());
         if (isNotification(message)) {
             if (checkNotificationPayload(message)) {
                 this.countDownLatch.countDown();
+            } else if (isReplayComplete(message)) {
+                this.replayCompleteLatch.countDown();
             }
         }
     }
 
+    public boolean awaitReplayComplete(final long timeout, final TimeUnit unit) throws InterruptedException {
+        return this.replayCompleteLatch.await(timeout, unit);
+    }
+
+    // local names of the received messages in the order of their arrival, replayComplete notification by its name
+    public synchronized List<String> getReceivedMessages() {
+        return List.copyOf(this.receivedMessages);
+    }
+
     private boolean checkNotificationPayload(NetconfMessage message) {
-        return message.getDocument().getDocumentElement().getElementsByTagName("Payload")
-                .item(0).getTextContent().equals(this.expectedPayload);
+        final Node payload = message.getDocument().getDocumentElement().getElementsByTagName("Payload").item(0);
+        return payload != null && this.payloadMatcher.test(payload.getTextContent());
+    }
+
+    private boolean isReplayComplete(NetconfMessage message) {
+        return message.getDocument().getDocumentElement().getElementsByTagName("replayComplete").getLength() > 0;
     }
 
     private boolean isNotification(NetconfMessage message) {
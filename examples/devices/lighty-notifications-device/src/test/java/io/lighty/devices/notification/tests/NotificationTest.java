@@ -7,6 +7,7 @@
  */
 package io.lighty.devices.notification.tests;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import io.lighty.netconf.device.notification.Main;
@@ -17,6 +18,8 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.net.URISyntaxException;
 import java.net.URL;
+import java.util.Collections;
+import java.util.List;
 import java.util.Objects;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutionException;
@@ -59,9 +62,18 @@ public class NotificationTest {
     private static final int DEVICE_SIMULATOR_PORT = 9090;
     private static final String SUBCRIBE_TO_NOTIFICATIONS_REQUEST_XML = "subcribe_to_notifications_request.xml";
     private static final String TRIGGER_DATA_NOTIFICATION_REQUEST_XML = "trigger_data_notification_request.xml";
+    private static final String TRIGGER_NOTIFICATION_BURST_REQUEST_XML = "trigger_notification_burst_request.xml";
+    private static final int BURST_NOTIFICATION_COUNT = 10;
+    private static final int BURST_MAX_PAYLOAD_LENGTH = 64;
+    private static final String TRIGGER_REPLAYED_NOTIFICATION_REQUEST_XML =
+        "trigger_replayed_notification_request.xml";
+    private static final String REPLAY_NOTIFICATIONS_REQUEST_XML = "replay_notifications_request.xml";
+    private static final String SUBSCRIBE_WITH_STOP_TIME_REQUEST_XML = "subscribe_with_stop_time_request.xml";
+    private static final String EXPECTED_REPLAYED_PAYLOAD = "Replayed Notification";
     private static final String SUBSCRIBE_MSG_TAG = "m-2";
     private static final String EXPECTED_NOTIFICATION_PAYLOAD = "Test Notification";
     private static final String GET_SCHEMAS_REQUEST_XML = "get_schemas_request.xml";
+    private static final String GET_STREAMS_REQUEST_XML = "get_streams_request.xml";
     private static Main deviceSimulator;
     private static NetconfClientFactory dispatcher;
 
@@ -162,6 +174,88 @@ public class NotificationTest {
         }
     }
 
+    @Test
+    public void triggerNotificationBurstsTest() throws IOException, URISyntaxException, SAXException,
+            InterruptedException, ExecutionException, TimeoutException, UnsupportedConfigurationException {
+
+        final CountDownLatch countDownLatch = new CountDownLatch(BURST_NOTIFICATION_COUNT);
+        final NotificationNetconfSessionListener sessionListener = NotificationNetconfSessionListener
+                .withPaddedPayload(countDownLatch, EXPECTED_NOTIFICATION_PAYLOAD, BURST_MAX_PAYLOAD_LENGTH);
+
+        try (NetconfClientSession session =
+                dispatcher.createClient(createSHHConfig(sessionListener))
+                        .get(TimeoutUtil.TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+            sendRequesttoDevice(sessionListener, SUBCRIBE_TO_NOTIFICATIONS_REQUEST_XML);
+            sendRequesttoDevice(sessionListener, TRIGGER_NOTIFICATION_BURST_REQUEST_XML);
+
+            final boolean areNotificationsPublished =
+                    countDownLatch.await(REQUEST_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+            assertTrue(areNotificationsPublished);
+        }
+    }
+
+    @Test
+    public void replayNotificationsTest() throws IOException, URISyntaxException, SAXException,
+            InterruptedException, ExecutionException, TimeoutException, UnsupportedConfigurationException {
+        final CountDownLatch publishedLatch = new CountDownLatch(1);
+        final NotificationNetconfSessionListener publishingListener =
+                new NotificationNetconfSessionListener(publishedLatch, EXPECTED_REPLAYED_PAYLOAD);
+        try (NetconfClientSession session =
+                dispatcher.createClient(createSHHConfig(publishingListener))
+                        .get(TimeoutUtil.TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+            sendRequesttoDevice(publishingListener, SUBCRIBE_TO_NOTIFICATIONS_REQUEST_XML);
+            sendRequesttoDevice(publishingListener, TRIGGER_REPLAYED_NOTIFICATION_REQUEST_XML);
+            assertTrue(publishedLatch.await(REQUEST_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS));
+        }
+
+        // a session connected later receives the notification published before it subscribed
+        final CountDownLatch replayedLatch = new CountDownLatch(1);
+        final NotificationNetconfSessionListener replayListener =
+                new NotificationNetconfSessionListener(replayedLatch, EXPECTED_REPLAYED_PAYLOAD);
+        try (NetconfClientSession session =
+                dispatcher.createClient(createSHHConfig(replayListener))
+                        .get(TimeoutUtil.TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+            final NetconfMessage reply = sendRequesttoDevice(replayListener, REPLAY_NOTIFICATIONS_REQUEST_XML);
+            assertEquals("rpc-reply", reply.getDocument().getDocumentElement().getLocalName());
+            assertTrue(replayedLatch.await(REQUEST_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS));
+            assertTrue(replayListener.awaitReplayComplete(REQUEST_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS));
+            // RFC 5277 requires the reply to create-subscription to precede the replayed notifications
+            final List<String> received = replayListener.getReceivedMessages();
+            assertEquals("rpc-reply", received.get(0));
+            assertEquals("replayComplete", received.get(received.size() - 1));
+            assertEquals(1, Collections.frequency(received, "rpc-reply"));
+        }
+    }
+
+    @Test
+    public void getStreamsTest() throws IOException, URISyntaxException, SAXException, InterruptedException,
+            ExecutionException, TimeoutException, UnsupportedConfigurationException {
+        final SimpleNetconfClientSessionListener sessionListener = new SimpleNetconfClientSessionListener();
+        try (NetconfClientSession session =
+                dispatcher.createClient(createSHHConfig(sessionListener))
+                        .get(TimeoutUtil.TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+            final NetconfMessage response = sendRequesttoDevice(sessionListener, GET_STREAMS_REQUEST_XML);
+            final Element stream = (Element) response.getDocument().getElementsByTagName("stream").item(0);
+            assertEquals("NETCONF", stream.getElementsByTagName("name").item(0).getTextContent());
+            assertEquals("true", stream.getElementsByTagName("replaySupport").item(0).getTextContent());
+            assertEquals(1, stream.getElementsByTagName("replayLogCreationTime").getLength());
+        }
+    }
+
+    @Test
+    public void subscribeWithStopTimeOnlyTest() throws IOException, URISyntaxException, SAXException,
+            InterruptedException, ExecutionException, TimeoutException, UnsupportedConfigurationException {
+        final SimpleNetconfClientSessionListener sessionListener = new SimpleNetconfClientSessionListener();
+        try (NetconfClientSession session =
+                dispatcher.createClient(createSHHConfig(sessionListener))
+                        .get(TimeoutUtil.TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+            final NetconfMessage response = sendRequesttoDevice(sessionListener, SUBSCRIBE_WITH_STOP_TIME_REQUEST_XML);
+            final NodeList errorTag = response.getDocument().getElementsByTagName("error-tag");
+            assertEquals(1, errorTag.getLength());
+            assertEquals("missing-element", errorTag.item(0).getTextContent());
+        }
+    }
+
     private NetconfMessage sendRequesttoDevice(SimpleNetconfClientSessionListener sessionListener,
                                                String requestFileName)
             throws SAXException, IOException, URISyntaxException,
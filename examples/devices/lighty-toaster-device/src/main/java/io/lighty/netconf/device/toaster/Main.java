@@ -11,6 +11,8 @@ import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 import io.lighty.core.common.models.ModuleId;
 import io.lighty.netconf.device.NetconfDevice;
 import io.lighty.netconf.device.NetconfDeviceBuilder;
+import io.lighty.netconf.device.metrics.DefaultRequestMetrics;
+import io.lighty.netconf.device.metrics.PrometheusMetricsEndpoint;
 import io.lighty.netconf.device.toaster.processors.ToasterServiceCancelToastProcessor;
 import io.lighty.netconf.device.toaster.processors.ToasterServiceMakeToastProcessor;
 import io.lighty.netconf.device.toaster.processors.ToasterServiceRestockToasterProcessor;
@@ -18,6 +20,8 @@ import io.lighty.netconf.device.toaster.rpcs.ToasterServiceImpl;
 import io.lighty.netconf.device.utils.ArgumentParser;
 import io.lighty.netconf.device.utils.ModelUtils;
 import java.io.File;
+import java.io.IOException;
+import java.net.InetSocketAddress;
 import java.util.List;
 import java.util.Set;
 import net.sourceforge.argparse4j.inf.Namespace;
@@ -103,21 +107,46 @@ public class Main {
             configFile = new File(configDir, "initial-toaster-config-datastore.xml");
         }
 
-        NetconfDevice netconfDevice = netconfDeviceBuilder
+        netconfDeviceBuilder
             .setOperationalDatastore(operationalFile)
-            .setConfigDatastore(configFile)
-            .build();
+            .setConfigDatastore(configFile);
+        final Integer metricsPort = parseArguments.getInt("metrics-port");
+        PrometheusMetricsEndpoint metricsEndpoint = null;
+        if (metricsPort != null) {
+            final DefaultRequestMetrics requestMetrics = new DefaultRequestMetrics();
+            netconfDeviceBuilder.withRequestMetrics(requestMetrics);
+            try {
+                metricsEndpoint = new PrometheusMetricsEndpoint(requestMetrics, new InetSocketAddress(metricsPort));
+            } catch (IOException e) {
+                throw new IllegalStateException("Unable to start metrics endpoint on port " + metricsPort, e);
+            }
+        }
+        final NetconfDevice netconfDevice = startDevice(netconfDeviceBuilder, metricsEndpoint);
         toasterService.setNotificationPublishService(
                 netconfDevice.getNetconfDeviceServices().getNotificationPublishService());
 
-        netconfDevice.start();
         //5. Register shutdown hook
-        shutdownHook = new ShutdownHook(netconfDevice, toasterService);
+        shutdownHook = new ShutdownHook(netconfDevice, toasterService, metricsEndpoint);
         if (registerShutdownHook) {
             Runtime.getRuntime().addShutdownHook(shutdownHook);
         }
     }
 
+    @SuppressWarnings("checkstyle:IllegalCatch")
+    private static NetconfDevice startDevice(final NetconfDeviceBuilder netconfDeviceBuilder,
+            final PrometheusMetricsEndpoint metricsEndpoint) {
+        try {
+            final NetconfDevice netconfDevice = netconfDeviceBuilder.build();
+            netconfDevice.start();
+            return netconfDevice;
+        } catch (RuntimeException e) {
+            if (metricsEndpoint != null) {
+                metricsEndpoint.close();
+            }
+            throw e;
+        }
+    }
+
     public void shutdown() {
         if (shutdownHook != null) {
             shutdownHook.execute();
@@ -128,10 +157,13 @@ public class Main {
 
         private final NetconfDevice netConfDevice;
         private final ToasterServiceImpl toasterService;
+        private final PrometheusMetricsEndpoint metricsEndpoint;
 
-        ShutdownHook(NetconfDevice netConfDevice, ToasterServiceImpl toasterService) {
+        ShutdownHook(NetconfDevice netConfDevice, ToasterServiceImpl toasterService,
+                PrometheusMetricsEndpoint metricsEndpoint) {
             this.netConfDevice = netConfDevice;
             this.toasterService = toasterService;
+            this.metricsEndpoint = metricsEndpoint;
         }
 
         @Override
@@ -145,6 +177,9 @@ public class Main {
             if (toasterService != null) {
                 toasterService.close();
             }
+            if (metricsEndpoint != null) {
+                metricsEndpoint.close();
+            }
             if (netConfDevice != null) {
                 try {
                     netConfDevice.close();
@@ -11,6 +11,7 @@ import com.google.common.util.concurrent.ListenableFuture;
 import io.lighty.codecs.util.XmlNodeConverter;
 import io.lighty.codecs.util.exception.DeserializationException;
 import io.lighty.netconf.device.NetconfDeviceServices;
+import io.lighty.netconf.device.requests.RequestContext;
 import io.lighty.netconf.device.requests.RpcOutputRequestProcessor;
 import io.lighty.netconf.device.response.Response;
 import io.lighty.netconf.device.response.ResponseData;
@@ -51,7 +52,7 @@ public abstract class ToasterServiceAbstractProcessor<I extends RpcInput, O exte
     }
 
     @Override
-    protected CompletableFuture<Response> execute(final Element requestXmlElement) {
+    protected CompletableFuture<Response> execute(final Element requestXmlElement, final RequestContext context) {
         //1. convert XML input into NormalizedNode
         try (Reader readerFromElement = RPCUtil.createReaderFromElement(requestXmlElement);) {
             final XmlNodeConverter xmlNodeConverter = getNetconfDeviceServices().getXmlNodeConverter();
@@ -17,14 +17,14 @@ import org.opendaylight.yangtools.yang.common.RpcResult;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-@SuppressWarnings("checkstyle:MemberName")
 public class ToasterServiceCancelToastProcessor extends ToasterServiceAbstractProcessor<CancelToastInput,
         CancelToastOutput> implements CancelToast {
 
+    public static final QName CANCEL_TOAST = QName.create("http://netconfcentral.org/ns/toaster", "cancel-toast");
+
     private static final Logger LOG = LoggerFactory.getLogger(ToasterServiceCancelToastProcessor.class);
 
     private final ToasterServiceImpl toasterService;
-    private final QName qName = QName.create("http://netconfcentral.org/ns/toaster", "cancel-toast");
 
     public ToasterServiceCancelToastProcessor(final ToasterServiceImpl toasterService) {
         this.toasterService = toasterService;
@@ -32,7 +32,7 @@ public class ToasterServiceCancelToastProcessor extends ToasterServiceAbstractPr
 
     @Override
     public QName getIdentifier() {
-        return this.qName;
+        return CANCEL_TOAST;
     }
 
     @Override
@@ -17,14 +17,14 @@ import org.opendaylight.yangtools.yang.common.RpcResult;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-@SuppressWarnings("checkstyle:MemberName")
 public class ToasterServiceMakeToastProcessor extends ToasterServiceAbstractProcessor<MakeToastInput, MakeToastOutput>
         implements MakeToast {
 
+    public static final QName MAKE_TOAST = QName.create("http://netconfcentral.org/ns/toaster", "make-toast");
+
     private static final Logger LOG = LoggerFactory.getLogger(ToasterServiceMakeToastProcessor.class);
 
     private final ToasterServiceImpl toasterService;
-    private final QName qName = QName.create("http://netconfcentral.org/ns/toaster", "make-toast");
 
     public ToasterServiceMakeToastProcessor(final ToasterServiceImpl toasterService) {
         this.toasterService = toasterService;
@@ -32,7 +32,7 @@ public class ToasterServiceMakeToastProcessor extends ToasterServiceAbstractProc
 
     @Override
     public QName getIdentifier() {
-        return this.qName;
+        return MAKE_TOAST;
     }
 
     @Override
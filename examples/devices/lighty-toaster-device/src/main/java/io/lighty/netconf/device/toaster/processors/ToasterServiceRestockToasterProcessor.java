@@ -17,14 +17,15 @@ import org.opendaylight.yangtools.yang.common.RpcResult;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-@SuppressWarnings("checkstyle:MemberName")
 public class ToasterServiceRestockToasterProcessor extends ToasterServiceAbstractProcessor<RestockToasterInput,
         RestockToasterOutput> implements RestockToaster {
 
+    public static final QName RESTOCK_TOASTER =
+        QName.create("http://netconfcentral.org/ns/toaster", "restock-toaster");
+
     private static final Logger LOG = LoggerFactory.getLogger(ToasterServiceRestockToasterProcessor.class);
 
     private final ToasterServiceImpl toasterService;
-    private final QName qName = QName.create("http://netconfcentral.org/ns/toaster", "restock-toaster");
 
     public ToasterServiceRestockToasterProcessor(final ToasterServiceImpl toasterService) {
         this.toasterService = toasterService;
@@ -32,7 +33,7 @@ public class ToasterServiceRestockToasterProcessor extends ToasterServiceAbstrac
 
     @Override
     public QName getIdentifier() {
-        return this.qName;
+        return RESTOCK_TOASTER;
     }
 
     @Override
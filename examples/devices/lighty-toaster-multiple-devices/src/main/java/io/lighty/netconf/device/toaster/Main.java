@@ -11,12 +11,16 @@ import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 import io.lighty.core.common.models.ModuleId;
 import io.lighty.netconf.device.NetconfDevice;
 import io.lighty.netconf.device.NetconfDeviceBuilder;
+import io.lighty.netconf.device.metrics.DefaultRequestMetrics;
+import io.lighty.netconf.device.metrics.PrometheusMetricsEndpoint;
 import io.lighty.netconf.device.toaster.processors.ToasterServiceCancelToastProcessor;
 import io.lighty.netconf.device.toaster.processors.ToasterServiceMakeToastProcessor;
 import io.lighty.netconf.device.toaster.rpcs.ToasterServiceImpl;
 import io.lighty.netconf.device.utils.ArgumentParser;
 import io.lighty.netconf.device.utils.ModelUtils;
 import java.io.File;
+import java.io.IOException;
+import java.net.InetSocketAddress;
 import java.util.List;
 import java.util.Set;
 import net.sourceforge.argparse4j.inf.Namespace;
@@ -79,36 +83,61 @@ public final class Main {
 
         ToasterServiceImpl toasterService = new ToasterServiceImpl();
 
-        //parameters are stored as string list
-        final List<?> devicesList = parseArguments.get("port");
-        final int devicesCount = Integer.parseInt(String.valueOf(devicesList.getFirst()));
-        final List<?> threadList = parseArguments.get("port");
-        final int threadCount = Integer.parseInt(String.valueOf(threadList.getFirst()));
+        final int devicesCount = parseArguments.getInt("devices-count");
+        final int threadCount = parseArguments.getInt("thread-pool-size");
+        final boolean isolatedDatastores = parseArguments.getBoolean("isolated-datastores");
 
         //4. Initialize Netconf device
-        NetconfDevice netconfDevice = new NetconfDeviceBuilder()
+        final NetconfDeviceBuilder netconfDeviceBuilder = new NetconfDeviceBuilder()
                 .setCredentials("admin", "admin")
                 .setBindingPort(port)
                 .withModels(toasterModules)
                 .withDefaultRequestProcessors()
                 .withDefaultCapabilities()
-                .withRequestProcessor(new ToasterServiceMakeToastProcessor(toasterService))
-                .withRequestProcessor(new ToasterServiceCancelToastProcessor(toasterService))
+                .withRequestProcessorFactory(ToasterServiceMakeToastProcessor.MAKE_TOAST,
+                    () -> new ToasterServiceMakeToastProcessor(toasterService))
+                .withRequestProcessorFactory(ToasterServiceCancelToastProcessor.CANCEL_TOAST,
+                    () -> new ToasterServiceCancelToastProcessor(toasterService))
                 .setThreadPoolSize(threadCount)
                 .setDeviceCount(devicesCount)
+                .withIsolatedDatastores(isolatedDatastores)
                 .setOperationalDatastore(operationalFile)
-                .setConfigDatastore(configFile)
-                .build();
-
-        netconfDevice.start();
+                .setConfigDatastore(configFile);
+        final Integer metricsPort = parseArguments.getInt("metrics-port");
+        PrometheusMetricsEndpoint metricsEndpoint = null;
+        if (metricsPort != null) {
+            final DefaultRequestMetrics requestMetrics = new DefaultRequestMetrics();
+            netconfDeviceBuilder.withRequestMetrics(requestMetrics);
+            try {
+                metricsEndpoint = new PrometheusMetricsEndpoint(requestMetrics, new InetSocketAddress(metricsPort));
+            } catch (IOException e) {
+                throw new IllegalStateException("Unable to start metrics endpoint on port " + metricsPort, e);
+            }
+        }
+        final NetconfDevice netconfDevice = startDevice(netconfDeviceBuilder, metricsEndpoint);
 
         //5. Register shutdown hook
-        this.shutdownHook = new ShutdownHook(netconfDevice,toasterService);
+        this.shutdownHook = new ShutdownHook(netconfDevice, toasterService, metricsEndpoint);
         if (registerShutdownHook) {
             Runtime.getRuntime().addShutdownHook(this.shutdownHook);
         }
     }
 
+    @SuppressWarnings("checkstyle:IllegalCatch")
+    private static NetconfDevice startDevice(final NetconfDeviceBuilder netconfDeviceBuilder,
+            final PrometheusMetricsEndpoint metricsEndpoint) {
+        try {
+            final NetconfDevice netconfDevice = netconfDeviceBuilder.build();
+            netconfDevice.start();
+            return netconfDevice;
+        } catch (RuntimeException e) {
+            if (metricsEndpoint != null) {
+                metricsEndpoint.close();
+            }
+            throw e;
+        }
+    }
+
     public void shutdown() {
         if (shutdownHook != null) {
             shutdownHook.execute();
@@ -119,10 +148,13 @@ public final class Main {
 
         private final NetconfDevice netConfDevice;
         private final ToasterServiceImpl toasterService;
+        private final PrometheusMetricsEndpoint metricsEndpoint;
 
-        ShutdownHook(NetconfDevice netConfDevice, ToasterServiceImpl toasterService) {
+        ShutdownHook(NetconfDevice netConfDevice, ToasterServiceImpl toasterService,
+                PrometheusMetricsEndpoint metricsEndpoint) {
             this.netConfDevice = netConfDevice;
             this.toasterService = toasterService;
+            this.metricsEndpoint = metricsEndpoint;
         }
 
         @Override
@@ -136,6 +168,9 @@ public final class Main {
             if (toasterService != null) {
                 toasterService.close();
             }
+            if (metricsEndpoint != null) {
+                metricsEndpoint.close();
+            }
             if (netConfDevice != null) {
                 try {
                     netConfDevice.close();
@@ -0,0 +1,166 @@
+/*
+ * Copyright (c) 2024 PANTHEON.tech, s.r.o. and others. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at https://www.eclipse.org/legal/epl-v10.html
+ */
+package io.lighty.netconf.device.toaster;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.lighty.netconf.device.utils.TimeoutUtil;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.opendaylight.netconf.api.messages.NetconfMessage;
+import org.opendaylight.netconf.api.xml.XmlUtil;
+import org.opendaylight.netconf.client.NetconfClientFactory;
+import org.opendaylight.netconf.client.NetconfClientFactoryImpl;
+import org.opendaylight.netconf.client.NetconfClientSession;
+import org.opendaylight.netconf.client.NetconfClientSessionListener;
+import org.opendaylight.netconf.client.SimpleNetconfClientSessionListener;
+import org.opendaylight.netconf.client.conf.NetconfClientConfiguration;
+import org.opendaylight.netconf.client.conf.NetconfClientConfiguration.NetconfClientProtocol;
+import org.opendaylight.netconf.client.conf.NetconfClientConfigurationBuilder;
+import org.opendaylight.netconf.common.di.DefaultNetconfTimer;
+import org.opendaylight.netconf.nettyutil.AbstractNetconfSession;
+import org.opendaylight.netconf.transport.api.UnsupportedConfigurationException;
+import org.opendaylight.yang.gen.v1.urn.ietf.params.xml.ns.yang.ietf.crypto.types.rev241010.password.grouping.password.type.CleartextPasswordBuilder;
+import org.opendaylight.yang.gen.v1.urn.ietf.params.xml.ns.yang.ietf.inet.types.rev130715.Host;
+import org.opendaylight.yang.gen.v1.urn.ietf.params.xml.ns.yang.ietf.inet.types.rev130715.IpAddress;
+import org.opendaylight.yang.gen.v1.urn.ietf.params.xml.ns.yang.ietf.inet.types.rev130715.Ipv4Address;
+import org.opendaylight.yang.gen.v1.urn.ietf.params.xml.ns.yang.ietf.inet.types.rev130715.PortNumber;
+import org.opendaylight.yang.gen.v1.urn.ietf.params.xml.ns.yang.ietf.netconf.client.rev240814.netconf.client.initiate.stack.grouping.transport.ssh.ssh.SshClientParametersBuilder;
+import org.opendaylight.yang.gen.v1.urn.ietf.params.xml.ns.yang.ietf.netconf.client.rev240814.netconf.client.initiate.stack.grouping.transport.ssh.ssh.TcpClientParametersBuilder;
+import org.opendaylight.yang.gen.v1.urn.ietf.params.xml.ns.yang.ietf.ssh.client.rev241010.ssh.client.grouping.ClientIdentityBuilder;
+import org.opendaylight.yang.gen.v1.urn.ietf.params.xml.ns.yang.ietf.ssh.client.rev241010.ssh.client.grouping.client.identity.PasswordBuilder;
+import org.opendaylight.yangtools.yang.common.Uint16;
+import org.xml.sax.SAXException;
+
+public class IsolatedDatastoresDeviceTest {
+
+    private static final long REQUEST_TIMEOUT_MILLIS = 5_000;
+    private static final String USER = "admin";
+    private static final String PASS = "admin";
+    private static final int DEVICE_STARTING_PORT = 20100;
+    private static final int DEVICE_COUNT = 3;
+    private static final int THREAD_POOL_SIZE = 2;
+    private static final String EXPECTED_DARKNESS_FACTOR = "750";
+    private static final String CREATE_TOASTER_REQUEST_XML = "create_toaster_request.xml";
+    private static final String GET_TOASTER_DATA_REQUEST_XML = "get_toaster_data_request.xml";
+    private static final String MAKE_TOAST_REQUEST_XML = "make_toast_request.xml";
+    private static final String GET_SCHEMAS_REQUEST_XML = "get_schemas_request.xml";
+    private static final List<SimpleNetconfClientSessionListener> SESSION_LISTENERS = new ArrayList<>();
+    private static final List<NetconfClientSession> NETCONF_CLIENT_SESSIONS = new ArrayList<>();
+    private static Main deviceSimulator;
+
+    @BeforeAll
+    public static void setUpClass() throws InterruptedException, ExecutionException,
+            TimeoutException, UnsupportedConfigurationException {
+        deviceSimulator = new Main();
+        deviceSimulator.start(new String[]{ "--port", String.valueOf(DEVICE_STARTING_PORT),
+                                            "--thread-pool-size", String.valueOf(THREAD_POOL_SIZE),
+                                            "--devices-count", String.valueOf(DEVICE_COUNT),
+                                            "--isolated-datastores"},
+                false);
+        final NetconfClientFactory dispatcher = new NetconfClientFactoryImpl(new DefaultNetconfTimer());
+        for (int port = DEVICE_STARTING_PORT; port < DEVICE_STARTING_PORT + DEVICE_COUNT; port++) {
+            final SimpleNetconfClientSessionListener sessionListener = new SimpleNetconfClientSessionListener();
+            final NetconfClientSession session = dispatcher.createClient(createSshConfig(sessionListener, port))
+                    .get(TimeoutUtil.TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+            NETCONF_CLIENT_SESSIONS.add(session);
+            SESSION_LISTENERS.add(sessionListener);
+        }
+    }
+
+    @AfterAll
+    public static void cleanUpClass() {
+        NETCONF_CLIENT_SESSIONS.forEach(AbstractNetconfSession::close);
+        deviceSimulator.shutdown();
+    }
+
+    @Test
+    public void devicesOnSharedServerHaveIsolatedDatastoresTest() throws InterruptedException, ExecutionException,
+            TimeoutException, SAXException, IOException, URISyntaxException {
+        final NetconfMessage createToasterResponse =
+                sendRequestToDevice(CREATE_TOASTER_REQUEST_XML, SESSION_LISTENERS.get(1));
+        assertTrue(containsOkElement(createToasterResponse));
+        for (int i = 0; i < DEVICE_COUNT; i++) {
+            final NetconfMessage toasterData = sendRequestToDevice(GET_TOASTER_DATA_REQUEST_XML,
+                    SESSION_LISTENERS.get(i));
+            final int darknessFactors = toasterData.getDocument().getDocumentElement()
+                    .getElementsByTagName("darknessFactor").getLength();
+            if (i == 1) {
+                assertEquals(1, darknessFactors);
+                assertEquals(EXPECTED_DARKNESS_FACTOR, toasterData.getDocument().getDocumentElement()
+                        .getElementsByTagName("darknessFactor").item(0).getTextContent());
+            } else {
+                assertEquals(0, darknessFactors);
+            }
+        }
+    }
+
+    @Test
+    public void devicesOnSharedServerServeSchemasAndRpcsTest() throws IOException, URISyntaxException, SAXException,
+            InterruptedException, ExecutionException, TimeoutException {
+        for (SimpleNetconfClientSessionListener listener : SESSION_LISTENERS) {
+            final NetconfMessage schemaResponse = sendRequestToDevice(GET_SCHEMAS_REQUEST_XML, listener);
+            assertTrue(schemaResponse.getDocument().getDocumentElement().getElementsByTagName("schema")
+                    .getLength() > 0);
+            assertTrue(containsOkElement(sendRequestToDevice(MAKE_TOAST_REQUEST_XML, listener)));
+        }
+    }
+
+    private static NetconfClientConfiguration createSshConfig(final NetconfClientSessionListener sessionListener,
+                                                              final int port) {
+        return NetconfClientConfigurationBuilder.create()
+            .withTcpParameters(new TcpClientParametersBuilder()
+                .setRemoteAddress(new Host(new IpAddress(Ipv4Address.getDefaultInstance("127.0.0.1"))))
+                .setRemotePort(new PortNumber(Uint16.valueOf(port))).build())
+                .withSessionListener(sessionListener)
+                .withConnectionTimeoutMillis(NetconfClientConfigurationBuilder.DEFAULT_CONNECTION_TIMEOUT_MILLIS)
+                .withProtocol(NetconfClientProtocol.SSH)
+            .withSshParameters(new SshClientParametersBuilder().setClientIdentity(new ClientIdentityBuilder()
+                    .setUsername(USER)
+                    .setPassword(new PasswordBuilder()
+                        .setPasswordType(new CleartextPasswordBuilder()
+                            .setCleartextPassword(PASS)
+                            .build())
+                        .build())
+                    .build())
+                .build())
+            .build();
+    }
+
+    private boolean containsOkElement(final NetconfMessage responseMessage) {
+        return responseMessage.getDocument().getElementsByTagName("ok").getLength() > 0;
+    }
+
+    private NetconfMessage sendRequestToDevice(String requestFileName,
+                                               SimpleNetconfClientSessionListener sessionListener)
+            throws SAXException, IOException, URISyntaxException,
+            InterruptedException, ExecutionException, TimeoutException {
+        final NetconfMessage requestMessage =
+                new NetconfMessage(XmlUtil.readXmlToDocument(xmlFileToInputStream(requestFileName)));
+        return sessionListener.sendRequest(requestMessage).get(REQUEST_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    private InputStream xmlFileToInputStream(final String fileName) throws URISyntaxException, IOException {
+        final URL getRequest = IsolatedDatastoresDeviceTest.class.getClassLoader().getResource(fileName);
+        return new FileInputStream(new File(Objects.requireNonNull(getRequest).toURI()));
+    }
+}
@@ -0,0 +1,172 @@
+/*
+ * Copyright (c) 2020 PANTHEON.tech s.r.o. All Rights Reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at https://www.eclipse.org/legal/epl-v10.html
+ */
+package io.lighty.netconf.device.benchmarks;
+
+import io.lighty.core.common.models.ModuleId;
+import io.lighty.netconf.device.DataBrokerMode;
+import io.lighty.netconf.device.NetconfDeviceServices;
+import io.lighty.netconf.device.NetconfDeviceServicesImpl;
+import io.lighty.netconf.device.requests.EditConfigRequestProcessor;
+import io.lighty.netconf.device.requests.GetConfigRequestProcessor;
+import io.lighty.netconf.device.requests.GetRequestProcessor;
+import io.lighty.netconf.device.requests.RequestProcessor;
+import io.lighty.netconf.device.requests.RpcHandlerImpl;
+import io.lighty.netconf.device.utils.ModelUtils;
+import io.lighty.netconf.device.utils.TimeoutUtil;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.opendaylight.mdsal.binding.api.WriteTransaction;
+import org.opendaylight.mdsal.common.api.LogicalDatastoreType;
+import org.opendaylight.netconf.api.xml.XmlElement;
+import org.opendaylight.netconf.api.xml.XmlUtil;
+import org.opendaylight.yang.gen.v1.urn.tbd.params.xml.ns.yang.network.topology.rev131021.NetworkTopology;
+import org.opendaylight.yang.gen.v1.urn.tbd.params.xml.ns.yang.network.topology.rev131021.NodeId;
+import org.opendaylight.yang.gen.v1.urn.tbd.params.xml.ns.yang.network.topology.rev131021.TopologyId;
+import org.opendaylight.yang.gen.v1.urn.tbd.params.xml.ns.yang.network.topology.rev131021.network.topology.Topology;
+import org.opendaylight.yang.gen.v1.urn.tbd.params.xml.ns.yang.network.topology.rev131021.network.topology.TopologyBuilder;
+import org.opendaylight.yang.gen.v1.urn.tbd.params.xml.ns.yang.network.topology.rev131021.network.topology.topology.Node;
+import org.opendaylight.yang.gen.v1.urn.tbd.params.xml.ns.yang.network.topology.rev131021.network.topology.topology.NodeBuilder;
+import org.opendaylight.yangtools.binding.DataObjectIdentifier;
+import org.opendaylight.yangtools.binding.meta.YangModuleInfo;
+import org.opendaylight.yangtools.yang.common.QName;
+import org.w3c.dom.Document;
+import org.xml.sax.SAXException;
+
+/**
+ * Request pipeline of a simulated device without the SSH transport. Requests are handed to {@link RpcHandlerImpl}
+ * the same way the NETCONF server does it, the datastore holds network-topology data of requested size.
+ */
+public final class BenchmarkDevice implements AutoCloseable {
+
+    public static final String NT_NAMESPACE = "urn:TBD:params:xml:ns:yang:network-topology";
+    public static final String NTR_NAMESPACE = "urn:tech.pantheon.netconfdevice.network.topology.rpcs";
+    public static final int TOPOLOGY_COUNT = 10;
+
+    private static final Set<YangModuleInfo> MODELS = ModelUtils.getModelsFromClasspath(
+        ModuleId.from(NTR_NAMESPACE, "network-topology-rpcs", "2023-09-27"));
+
+    private final NetconfDeviceServicesImpl netconfDeviceServices;
+    private final RpcHandlerImpl rpcHandler;
+
+    public BenchmarkDevice(final DataBrokerMode dataBrokerMode) {
+        this.netconfDeviceServices = new NetconfDeviceServicesImpl(MODELS, null, dataBrokerMode);
+        final Map<QName, RequestProcessor> processors = new HashMap<>();
+        for (final RequestProcessor processor : List.of(new GetRequestProcessor(), new GetConfigRequestProcessor(),
+                new EditConfigRequestProcessor(), new GetTopologyIdsProcessor())) {
+            processors.put(processor.getIdentifier(), processor);
+        }
+        this.rpcHandler = new RpcHandlerImpl(netconfDeviceServices, processors);
+    }
+
+    public static Set<YangModuleInfo> getModels() {
+        return MODELS;
+    }
+
+    public NetconfDeviceServices getNetconfDeviceServices() {
+        return netconfDeviceServices;
+    }
+
+    /**
+     * Fills both datastores with {@value #TOPOLOGY_COUNT} topologies named {@code topology-<i>}, the nodes are
+     * spread evenly among them.
+     *
+     * @param nodeCount total number of nodes
+     */
+    public void populate(final int nodeCount) throws InterruptedException, ExecutionException, TimeoutException {
+        for (final LogicalDatastoreType datastoreType : LogicalDatastoreType.values()) {
+            // transactions are bound to a single datastore
+            final WriteTransaction writeTransaction = netconfDeviceServices.getDataBroker().newWriteOnlyTransaction();
+            for (int i = 0; i < TOPOLOGY_COUNT; i++) {
+                final Topology topology = createTopology("topology-" + i, nodeCount / TOPOLOGY_COUNT);
+                writeTransaction.put(datastoreType, DataObjectIdentifier.builder(NetworkTopology.class)
+                    .child(Topology.class, topology.key()).build(), topology);
+            }
+            writeTransaction.commit().get(TimeoutUtil.TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Writes topology with given number of nodes directly to the data broker, bypassing edit-config.
+     *
+     * @param datastoreType datastore to write to
+     * @param topologyId key of the topology
+     * @param nodeCount number of nodes
+     */
+    public void writeTopology(final LogicalDatastoreType datastoreType, final String topologyId,
+            final int nodeCount) throws InterruptedException, ExecutionException, TimeoutException {
+        final Topology topology = createTopology(topologyId, nodeCount);
+        final WriteTransaction writeTransaction = netconfDeviceServices.getDataBroker().newWriteOnlyTransaction();
+        writeTransaction.put(datastoreType, DataObjectIdentifier.builder(NetworkTopology.class)
+            .child(Topology.class, topology.key()).build(), topology);
+        writeTransaction.commit().get(TimeoutUtil.TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    private static Topology createTopology(final String topologyId, final int nodeCount) {
+        return new TopologyBuilder()
+            .setTopologyId(new TopologyId(topologyId))
+            .setNode(IntStream.range(0, nodeCount)
+                .mapToObj(i -> new NodeBuilder().setNodeId(new NodeId("node-" + i)).build())
+                .collect(Collectors.toMap(Node::key, node -> node)))
+            .build();
+    }
+
+    /**
+     * Processes the request the same way as the NETCONF server does.
+     *
+     * @param request operation element of the request, e.g. get-config
+     * @return reply document
+     */
+    public Document process(final XmlElement request) {
+        return rpcHandler.getResponse(request).orElseThrow();
+    }
+
+    /**
+     * Parses operation element of a request. Processors do not modify the request, so it can be processed
+     * repeatedly.
+     *
+     * @param xml operation element
+     * @return parsed element
+     */
+    public static XmlElement parseRequest(final String xml) throws SAXException, IOException {
+        return XmlElement.fromDomElement(XmlUtil.readXmlToElement(xml));
+    }
+
+    /**
+     * Builds XML of topology list entry with given number of nodes.
+     *
+     * @param topologyId key of the topology
+     * @param nodeCount number of nodes
+     * @param operation edit-config operation of the entry, null for default one
+     * @return topology element
+     */
+    public static String topologyXml(final String topologyId, final int nodeCount, final String operation) {
+        final StringBuilder xml = new StringBuilder("<topology");
+        if (operation != null) {
+            xml.append(" xmlns:nc=\"urn:ietf:params:xml:ns:netconf:base:1.0\" nc:operation=\"")
+                .append(operation).append('"');
+        }
+        xml.append("><topology-id>").append(topologyId).append("</topology-id>");
+        for (int i = 0; i < nodeCount; i++) {
+            xml.append("<node><node-id>node-").append(i).append("</node-id></node>");
+        }
+        return xml.append("</topology>").toString();
+    }
+
+    @Override
+    public void close() {
+        netconfDeviceServices.close();
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright (c) 2020 PANTHEON.tech s.r.o. All Rights Reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at https://www.eclipse.org/legal/epl-v10.html
+ */
+package io.lighty.netconf.device.benchmarks;
+
+import io.lighty.netconf.device.DataBrokerMode;
+import io.lighty.netconf.device.datastore.CandidateDatastore;
+import io.lighty.netconf.device.utils.TimeoutUtil;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import net.sourceforge.argparse4j.ArgumentParsers;
+import net.sourceforge.argparse4j.inf.ArgumentParser;
+import net.sourceforge.argparse4j.inf.Namespace;
+import org.opendaylight.mdsal.binding.dom.adapter.CurrentAdapterSerializer;
+import org.opendaylight.mdsal.common.api.LogicalDatastoreType;
+import org.opendaylight.mdsal.dom.api.DOMDataTreeReadWriteTransaction;
+import org.opendaylight.yang.gen.v1.urn.tbd.params.xml.ns.yang.network.topology.rev131021.NetworkTopology;
+import org.opendaylight.yang.gen.v1.urn.tbd.params.xml.ns.yang.network.topology.rev131021.NodeId;
+import org.opendaylight.yang.gen.v1.urn.tbd.params.xml.ns.yang.network.topology.rev131021.TopologyId;
+import org.opendaylight.yang.gen.v1.urn.tbd.params.xml.ns.yang.network.topology.rev131021.network.topology.Topology;
+import org.opendaylight.yang.gen.v1.urn.tbd.params.xml.ns.yang.network.topology.rev131021.network.topology.TopologyKey;
+import org.opendaylight.yang.gen.v1.urn.tbd.params.xml.ns.yang.network.topology.rev131021.network.topology.topology.Node;
+import org.opendaylight.yang.gen.v1.urn.tbd.params.xml.ns.yang.network.topology.rev131021.network.topology.topology.NodeKey;
+import org.opendaylight.yangtools.binding.DataObjectIdentifier;
+import org.opendaylight.yangtools.yang.data.api.schema.ContainerNode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Heap retained by the checkpoints of confirmed commits. Each checkpoint is taken by a commit deleting a single node
+ * of a large configuration, the heap retained by all of them is compared with the heap of the configuration. Like
+ * {@link DeviceGroupFootprint} it measures a footprint, so it runs once: used heap is compared after a full GC.
+ */
+public final class CheckpointFootprint {
+
+    private static final Logger LOG = LoggerFactory.getLogger(CheckpointFootprint.class);
+    private static final int GC_ROUNDS = 5;
+    private static final String TOPOLOGY_ID = "checkpoints";
+
+    private CheckpointFootprint() {
+        throw new UnsupportedOperationException("do not instantiate utility class");
+    }
+
+    public static void main(final String[] args) throws Exception {
+        final ArgumentParser parser = ArgumentParsers.newFor("checkpoint-footprint").build()
+            .description("Measures heap retained by checkpoints of confirmed commits.");
+        parser.addArgument("--nodes")
+            .type(Integer.class)
+            .setDefault(50_000)
+            .help("Number of nodes of the configuration")
+            .dest("nodes");
+        parser.addArgument("--checkpoints")
+            .type(Integer.class)
+            .setDefault(200)
+            .help("Number of checkpoints, each taken after deleting a single node")
+            .dest("checkpoints");
+        final Namespace namespace = parser.parseArgsOrFail(args);
+        final int nodeCount = namespace.getInt("nodes");
+        final int checkpointCount = Math.min(namespace.getInt("checkpoints"), nodeCount);
+
+        final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        try (BenchmarkDevice device = new BenchmarkDevice(DataBrokerMode.SERIALIZED)) {
+            final long emptyHeap = usedHeap(memory);
+            device.writeTopology(LogicalDatastoreType.CONFIGURATION, TOPOLOGY_ID, nodeCount);
+            final long storeBytes = usedHeap(memory) - emptyHeap;
+
+            final CandidateDatastore candidate = device.getNetconfDeviceServices().getCandidateDatastore();
+            final CurrentAdapterSerializer serializer =
+                device.getNetconfDeviceServices().getAdapterContext().currentSerializer();
+            final List<ContainerNode> checkpoints = new ArrayList<>();
+            for (int i = 0; i < checkpointCount; i++) {
+                final DOMDataTreeReadWriteTransaction transaction = candidate.newReadWriteTransaction();
+                transaction.delete(LogicalDatastoreType.CONFIGURATION,
+                    serializer.toYangInstanceIdentifier(nodePath("node-" + i)));
+                transaction.commit().get(TimeoutUtil.TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+                checkpoints.add(candidate.commitWithCheckpoint());
+            }
+            final long withCheckpoints = usedHeap(memory);
+            checkpoints.clear();
+            final long checkpointBytes = withCheckpoints - usedHeap(memory);
+            LOG.info("{} checkpoints of {} nodes retain {} KB ({} bytes/checkpoint), the configuration takes {} KB",
+                checkpointCount, nodeCount, checkpointBytes / 1024, checkpointBytes / checkpointCount,
+                storeBytes / 1024);
+        }
+    }
+
+    private static DataObjectIdentifier<Node> nodePath(final String nodeId) {
+        return DataObjectIdentifier.builder(NetworkTopology.class)
+            .child(Topology.class, new TopologyKey(new TopologyId(TOPOLOGY_ID)))
+            .child(Node.class, new NodeKey(new NodeId(nodeId)))
+            .build();
+    }
+
+    private static long usedHeap(final MemoryMXBean memory) throws InterruptedException {
+        for (int i = 0; i < GC_ROUNDS; i++) {
+            memory.gc();
+            Thread.sleep(100);
+        }
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+}
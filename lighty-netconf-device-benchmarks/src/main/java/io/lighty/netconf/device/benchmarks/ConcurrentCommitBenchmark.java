@@ -0,0 +1,108 @@
+/*
+ * Copyright (c) 2020 PANTHEON.tech s.r.o. All Rights Reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at https://www.eclipse.org/legal/epl-v10.html
+ */
+package io.lighty.netconf.device.benchmarks;
+
+import io.lighty.netconf.device.DataBrokerMode;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.opendaylight.mdsal.common.api.LogicalDatastoreType;
+import org.opendaylight.netconf.api.xml.XmlElement;
+import org.w3c.dom.Document;
+
+/**
+ * Throughput of commits issued by several threads at once, like sessions of a device do. Every thread edits its
+ * own topology, so the commits never conflict. The concurrent edits all go to the configuration datastore, which
+ * is a single commit lane in both modes. The mixed group pairs them with writes of the operational datastore,
+ * which get a lane of their own in the concurrent mode.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class ConcurrentCommitBenchmark {
+
+    private static final String EDIT_CONFIG = "<edit-config xmlns=\"urn:ietf:params:xml:ns:netconf:base:1.0\">"
+        + "<target><running/></target><config>"
+        + "<network-topology xmlns=\"" + BenchmarkDevice.NT_NAMESPACE + "\">%s</network-topology>"
+        + "</config></edit-config>";
+
+    @Param({"1000"})
+    private int datastoreSize;
+
+    @Param({"1", "100"})
+    private int payloadSize;
+
+    @Param({"SERIALIZED", "CONCURRENT"})
+    private DataBrokerMode dataBrokerMode;
+
+    private final AtomicInteger threadCounter = new AtomicInteger();
+    private BenchmarkDevice device;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        device = new BenchmarkDevice(dataBrokerMode);
+        device.populate(datastoreSize);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        device.close();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public Document concurrentEdits(final Session session) {
+        return device.process(session.editRequest);
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(2)
+    public Document mixedEdits(final Session session) {
+        return device.process(session.editRequest);
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(2)
+    public void mixedOperationalWrites(final Session session) throws Exception {
+        device.writeTopology(LogicalDatastoreType.OPERATIONAL, session.topologyId, payloadSize);
+    }
+
+    @State(Scope.Thread)
+    public static class Session {
+
+        private String topologyId;
+        private XmlElement editRequest;
+
+        @Setup(Level.Trial)
+        public void setUp(final ConcurrentCommitBenchmark benchmark) throws Exception {
+            topologyId = "session-" + benchmark.threadCounter.getAndIncrement();
+            editRequest = BenchmarkDevice.parseRequest(String.format(EDIT_CONFIG,
+                BenchmarkDevice.topologyXml(topologyId, benchmark.payloadSize, null)));
+        }
+    }
+}
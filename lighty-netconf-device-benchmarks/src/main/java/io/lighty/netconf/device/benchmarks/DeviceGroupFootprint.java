@@ -0,0 +1,101 @@
+/*
+ * Copyright (c) 2020 PANTHEON.tech s.r.o. All Rights Reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at https://www.eclipse.org/legal/epl-v10.html
+ */
+package io.lighty.netconf.device.benchmarks;
+
+import com.google.common.base.Stopwatch;
+import io.lighty.netconf.device.NetconfDevice;
+import io.lighty.netconf.device.NetconfDeviceBuilder;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.ThreadMXBean;
+import java.util.List;
+import net.sourceforge.argparse4j.ArgumentParsers;
+import net.sourceforge.argparse4j.inf.ArgumentParser;
+import net.sourceforge.argparse4j.inf.Namespace;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Heap and threads taken by each device of a group of simulated devices with isolated datastores. Unlike the JMH
+ * benchmarks it measures a footprint, not a time, so it runs the devices once: used heap and live threads are
+ * compared after a full GC before the group is built and after all of its devices were started. The model is held
+ * by a warm-up group, so the numbers do not include it.
+ */
+public final class DeviceGroupFootprint {
+
+    private static final Logger LOG = LoggerFactory.getLogger(DeviceGroupFootprint.class);
+    private static final int GC_ROUNDS = 5;
+    private static final int WARM_UP_DEVICES = 2;
+
+    private DeviceGroupFootprint() {
+        throw new UnsupportedOperationException("do not instantiate utility class");
+    }
+
+    public static void main(final String[] args) throws Exception {
+        final ArgumentParser parser = ArgumentParsers.newFor("device-group-footprint").build()
+            .description("Measures heap and threads per device of a group of devices with isolated datastores.");
+        parser.addArgument("--port")
+            .type(Integer.class)
+            .setDefault(17830)
+            .help("Port of the first device, devices listen on consecutive ports")
+            .dest("port");
+        parser.addArgument("--devices")
+            .type(Integer.class)
+            .nargs("+")
+            .setDefault(List.of(1000, 10000))
+            .help("Sizes of the measured groups, each size is measured by a group of its own")
+            .dest("devices");
+        final Namespace namespace = parser.parseArgsOrFail(args);
+        final int port = namespace.getInt("port");
+        // the warm-up group loads the classes and holds the model, so the measured groups share it
+        try (NetconfDevice warmUp = createGroup(port, WARM_UP_DEVICES)) {
+            warmUp.start();
+            for (final Integer deviceCount : namespace.<Integer>getList("devices")) {
+                measure(port + WARM_UP_DEVICES, deviceCount);
+            }
+        }
+    }
+
+    private static void measure(final int port, final int deviceCount) throws Exception {
+        final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        final long heapBefore = usedHeap(memory);
+        final int threadsBefore = threads.getThreadCount();
+        final Stopwatch stopwatch = Stopwatch.createStarted();
+        try (NetconfDevice group = createGroup(port, deviceCount)) {
+            group.start();
+            final long startMillis = stopwatch.elapsed().toMillis();
+            final long heap = usedHeap(memory) - heapBefore;
+            final int threadCount = threads.getThreadCount() - threadsBefore;
+            LOG.info("{} devices started in {} ms, heap {} KB ({} bytes/device), threads {} ({}/device)",
+                deviceCount, startMillis, heap / 1024, heap / deviceCount, threadCount,
+                String.format("%.3f", (double) threadCount / deviceCount));
+        }
+    }
+
+    private static NetconfDevice createGroup(final int port, final int deviceCount) {
+        return new NetconfDeviceBuilder()
+            .setCredentials("admin", "admin")
+            .setBindingPort(port)
+            .setDeviceCount(deviceCount)
+            .withIsolatedDatastores(true)
+            .withModels(BenchmarkDevice.getModels())
+            .withDefaultRequestProcessors()
+            .withDefaultNotificationProcessor()
+            .withNetconfMonitoringEnabled(true)
+            .build();
+    }
+
+    private static long usedHeap(final MemoryMXBean memory) throws InterruptedException {
+        for (int i = 0; i < GC_ROUNDS; i++) {
+            memory.gc();
+            Thread.sleep(100);
+        }
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+}
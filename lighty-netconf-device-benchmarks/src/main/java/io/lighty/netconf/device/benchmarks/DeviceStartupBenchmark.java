@@ -0,0 +1,103 @@
+/*
+ * Copyright (c) 2020 PANTHEON.tech s.r.o. All Rights Reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at https://www.eclipse.org/legal/epl-v10.html
+ */
+package io.lighty.netconf.device.benchmarks;
+
+import io.lighty.netconf.device.DataBrokerMode;
+import io.lighty.netconf.device.NetconfDeviceServicesImpl;
+import io.lighty.netconf.device.utils.CachingYangParserFactory;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.opendaylight.yangtools.yang.parser.api.YangParserFactory;
+import org.opendaylight.yangtools.yang.parser.impl.DefaultYangParserFactory;
+
+/**
+ * Time needed to create services of a device. The models are parsed from scratch, with parsed sources taken from
+ * the on-disk cache, or not at all when another device of the same models is running.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 10)
+@Measurement(iterations = 5, time = 10)
+@Fork(1)
+public class DeviceStartupBenchmark {
+
+    private final YangParserFactory defaultFactory = new DefaultYangParserFactory();
+    private Path cacheDirectory;
+    private YangParserFactory cachingFactory;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        cacheDirectory = Files.createTempDirectory("yang-cache");
+        cachingFactory = new CachingYangParserFactory(defaultFactory, cacheDirectory);
+        // fills the cache
+        createServices(cachingFactory).close();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(cacheDirectory)) {
+            for (final Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    @Benchmark
+    public void parseModels() {
+        createServices(defaultFactory).close();
+    }
+
+    @Benchmark
+    public void parseModelsWithCache() {
+        createServices(cachingFactory).close();
+    }
+
+    @Benchmark
+    public void shareModels(final RunningDevice runningDevice) {
+        createServices(defaultFactory).close();
+    }
+
+    private static NetconfDeviceServicesImpl createServices(final YangParserFactory factory) {
+        return new NetconfDeviceServicesImpl(BenchmarkDevice.getModels(), factory, null, DataBrokerMode.SERIALIZED);
+    }
+
+    /**
+     * Device holding adapter context of the models, devices created meanwhile share it.
+     */
+    @State(Scope.Benchmark)
+    public static class RunningDevice {
+        private NetconfDeviceServicesImpl services;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            services = createServices(new DefaultYangParserFactory());
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            services.close();
+        }
+    }
+}
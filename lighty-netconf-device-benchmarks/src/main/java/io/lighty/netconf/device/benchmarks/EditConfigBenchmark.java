@@ -0,0 +1,117 @@
+/*
+ * Copyright (c) 2020 PANTHEON.tech s.r.o. All Rights Reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at https://www.eclipse.org/legal/epl-v10.html
+ */
+package io.lighty.netconf.device.benchmarks;
+
+import io.lighty.netconf.device.DataBrokerMode;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.opendaylight.netconf.api.xml.XmlElement;
+import org.w3c.dom.Document;
+
+/**
+ * Throughput of edit-config requests, the payload is a topology with given number of nodes. Merge and replace
+ * rewrite the same topology in every invocation, create is paired with delete of the created topology, so the size
+ * of the datastore stays the same during the whole run. Nodes created and deleted one by one carry the operation
+ * attribute each, existence of every one of them is checked before the edit is applied.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class EditConfigBenchmark {
+
+    private static final String EDIT_CONFIG = "<edit-config xmlns=\"urn:ietf:params:xml:ns:netconf:base:1.0\">"
+        + "<target><running/></target><config>"
+        + "<network-topology xmlns=\"" + BenchmarkDevice.NT_NAMESPACE + "\">%s</network-topology>"
+        + "</config></edit-config>";
+
+    @Param({"1000", "100000"})
+    private int datastoreSize;
+
+    @Param({"1", "100"})
+    private int payloadSize;
+
+    @Param({"SERIALIZED", "CONCURRENT"})
+    private DataBrokerMode dataBrokerMode;
+
+    private BenchmarkDevice device;
+    private XmlElement mergeRequest;
+    private XmlElement replaceRequest;
+    private XmlElement createRequest;
+    private XmlElement deleteRequest;
+    private XmlElement createNodesRequest;
+    private XmlElement deleteNodesRequest;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        device = new BenchmarkDevice(dataBrokerMode);
+        device.populate(datastoreSize);
+        mergeRequest = editConfig(BenchmarkDevice.topologyXml("edited", payloadSize, null));
+        replaceRequest = editConfig(BenchmarkDevice.topologyXml("edited", payloadSize, "replace"));
+        createRequest = editConfig(BenchmarkDevice.topologyXml("created", payloadSize, "create"));
+        deleteRequest = editConfig(BenchmarkDevice.topologyXml("created", 0, "delete"));
+        createNodesRequest = editConfig(nodesXml("create"));
+        deleteNodesRequest = editConfig(nodesXml("delete"));
+    }
+
+    private static XmlElement editConfig(final String topology) throws Exception {
+        return BenchmarkDevice.parseRequest(String.format(EDIT_CONFIG, topology));
+    }
+
+    private String nodesXml(final String operation) {
+        final StringBuilder xml = new StringBuilder("<topology xmlns:nc=\"urn:ietf:params:xml:ns:netconf:base:1.0\">"
+            + "<topology-id>topology-0</topology-id>");
+        for (int i = 0; i < payloadSize; i++) {
+            xml.append("<node nc:operation=\"").append(operation).append("\"><node-id>created-").append(i)
+                .append("</node-id></node>");
+        }
+        return xml.append("</topology>").toString();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        device.close();
+    }
+
+    @Benchmark
+    public Document merge() {
+        return device.process(mergeRequest);
+    }
+
+    @Benchmark
+    public Document replace() {
+        return device.process(replaceRequest);
+    }
+
+    @Benchmark
+    public void createAndDelete(final Blackhole blackhole) {
+        blackhole.consume(device.process(createRequest));
+        blackhole.consume(device.process(deleteRequest));
+    }
+
+    @Benchmark
+    public void createAndDeleteNodes(final Blackhole blackhole) {
+        blackhole.consume(device.process(createNodesRequest));
+        blackhole.consume(device.process(deleteNodesRequest));
+    }
+}
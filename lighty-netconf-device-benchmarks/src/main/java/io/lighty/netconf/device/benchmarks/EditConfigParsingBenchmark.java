@@ -0,0 +1,80 @@
+/*
+ * Copyright (c) 2020 PANTHEON.tech s.r.o. All Rights Reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at https://www.eclipse.org/legal/epl-v10.html
+ */
+package io.lighty.netconf.device.benchmarks;
+
+import io.lighty.codecs.util.exception.DeserializationException;
+import io.lighty.netconf.device.DataBrokerMode;
+import io.lighty.netconf.device.NetconfDeviceServices;
+import io.lighty.netconf.device.utils.NormalizedNodeDomReader;
+import io.lighty.netconf.device.utils.RPCUtil;
+import java.io.StringReader;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.opendaylight.netconf.api.xml.XmlUtil;
+import org.opendaylight.yangtools.yang.data.api.schema.NormalizedNode;
+import org.w3c.dom.Element;
+
+/**
+ * Time spent by parsing the config element of edit-config into normalized nodes. The string round trip is how
+ * edit-config used to parse its payload, the config element was formatted by an indenting transformer and parsed
+ * again. Compare it with the traversal of the DOM element, allocation is reported by the GC profiler.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class EditConfigParsingBenchmark {
+
+    private static final String CONFIG = "<config xmlns=\"urn:ietf:params:xml:ns:netconf:base:1.0\">"
+        + "<network-topology xmlns=\"" + BenchmarkDevice.NT_NAMESPACE + "\">%s</network-topology></config>";
+
+    @Param({"1", "100", "10000"})
+    private int payloadSize;
+
+    private BenchmarkDevice device;
+    private NetconfDeviceServices services;
+    private Element config;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        device = new BenchmarkDevice(DataBrokerMode.SERIALIZED);
+        services = device.getNetconfDeviceServices();
+        config = XmlUtil.readXmlToElement(String.format(CONFIG,
+            BenchmarkDevice.topologyXml("edited", payloadSize, "replace")));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        device.close();
+    }
+
+    @Benchmark
+    public NormalizedNode stringRoundTrip() throws DeserializationException {
+        return services.getXmlNodeConverter().deserialize(services.getRootInference(),
+            new StringReader(RPCUtil.formatXml(config)));
+    }
+
+    @Benchmark
+    public NormalizedNode domTraversal() throws DeserializationException {
+        return NormalizedNodeDomReader.readData(services.getRootInference(), config);
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright (c) 2020 PANTHEON.tech s.r.o. All Rights Reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at https://www.eclipse.org/legal/epl-v10.html
+ */
+package io.lighty.netconf.device.benchmarks;
+
+import io.lighty.netconf.device.requests.RequestContext;
+import io.lighty.netconf.device.requests.RpcOutputRequestProcessor;
+import io.lighty.netconf.device.response.Response;
+import io.lighty.netconf.device.response.ResponseData;
+import io.lighty.netconf.device.utils.TimeoutUtil;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import org.opendaylight.mdsal.common.api.LogicalDatastoreType;
+import org.opendaylight.mdsal.dom.api.DOMDataTreeReadTransaction;
+import org.opendaylight.yang.gen.v1.urn.tbd.params.xml.ns.yang.network.topology.rev131021.NetworkTopology;
+import org.opendaylight.yang.gen.v1.urn.tbd.params.xml.ns.yang.network.topology.rev131021.network.topology.Topology;
+import org.opendaylight.yangtools.yang.common.QName;
+import org.opendaylight.yangtools.yang.data.api.YangInstanceIdentifier;
+import org.opendaylight.yangtools.yang.data.api.YangInstanceIdentifier.NodeIdentifier;
+import org.opendaylight.yangtools.yang.data.api.schema.LeafSetEntryNode;
+import org.opendaylight.yangtools.yang.data.api.schema.MapEntryNode;
+import org.opendaylight.yangtools.yang.data.api.schema.MapNode;
+import org.opendaylight.yangtools.yang.data.api.schema.NormalizedNode;
+import org.opendaylight.yangtools.yang.data.spi.node.ImmutableNodes;
+import org.w3c.dom.Element;
+
+/**
+ * Custom RPC processor working directly with the DOM datastore, it returns keys of all topologies.
+ */
+public final class GetTopologyIdsProcessor extends RpcOutputRequestProcessor {
+
+    private static final QName TOPOLOGY_ID = QName.create(Topology.QNAME, "topology-id");
+    private static final YangInstanceIdentifier TOPOLOGY_PATH =
+        YangInstanceIdentifier.of(NetworkTopology.QNAME, Topology.QNAME);
+
+    @Override
+    public QName getIdentifier() {
+        return QName.create(BenchmarkDevice.NTR_NAMESPACE, "get-topology-ids");
+    }
+
+    @Override
+    protected CompletableFuture<Response> execute(final Element requestXmlElement, final RequestContext context) {
+        final Optional<NormalizedNode> topologies;
+        try (DOMDataTreeReadTransaction readTransaction =
+                getNetconfDeviceServices().getDOMDataBroker().newReadOnlyTransaction()) {
+            topologies = readTransaction.read(LogicalDatastoreType.CONFIGURATION, TOPOLOGY_PATH)
+                .get(TimeoutUtil.TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException | TimeoutException e) {
+            return CompletableFuture.failedFuture(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return CompletableFuture.failedFuture(e);
+        }
+
+        final QName outputName = getRpcDefinition().getOutput().getQName();
+        final QName topologyIdsName = QName.create(outputName, "topology-ids");
+        final List<LeafSetEntryNode<Object>> topologyIds = new ArrayList<>();
+        topologies.ifPresent(list -> {
+            for (final MapEntryNode topology : ((MapNode) list).body()) {
+                topologyIds.add(ImmutableNodes.leafSetEntry(topologyIdsName, topology.name().getValue(TOPOLOGY_ID)));
+            }
+        });
+        return CompletableFuture.completedFuture(new ResponseData(List.of(ImmutableNodes.newContainerBuilder()
+            .withNodeIdentifier(new NodeIdentifier(outputName))
+            .withChild(ImmutableNodes.newSystemLeafSetBuilder()
+                .withNodeIdentifier(new NodeIdentifier(topologyIdsName))
+                .withValue(topologyIds)
+                .build())
+            .build())));
+    }
+}
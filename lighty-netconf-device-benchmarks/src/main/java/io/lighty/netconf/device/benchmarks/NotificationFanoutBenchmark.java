@@ -0,0 +1,130 @@
+/*
+ * Copyright (c) 2020 PANTHEON.tech s.r.o. All Rights Reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at https://www.eclipse.org/legal/epl-v10.html
+ */
+package io.lighty.netconf.device.benchmarks;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import io.lighty.netconf.device.requests.notification.NotificationFanout;
+import io.lighty.netconf.device.requests.notification.SlowConsumerPolicy;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.embedded.EmbeddedChannel;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.opendaylight.netconf.api.NetconfSession;
+import org.opendaylight.netconf.api.messages.NetconfMessage;
+import org.opendaylight.netconf.api.messages.NotificationMessage;
+import org.opendaylight.netconf.api.xml.XmlUtil;
+import org.opendaylight.yang.gen.v1.urn.ietf.params.xml.ns.netconf.base._1._0.rev110601.SessionIdType;
+import org.opendaylight.yangtools.yang.common.Uint32;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Notifications per second delivered to all subscribers by {@link NotificationFanout}. Each invocation publishes
+ * a burst of notifications and waits until every subscriber received all of them, sessions accept the messages
+ * without encoding them, so the score is the cost of queuing and draining only.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class NotificationFanoutBenchmark {
+
+    private static final int BURST = 1_000;
+    private static final String NOTIFICATION = "<topology-changed xmlns=\"" + BenchmarkDevice.NTR_NAMESPACE + "\"/>";
+
+    @Param({"1", "100", "1000"})
+    private int subscribers;
+
+    private final LongAdder delivered = new LongAdder();
+    private ExecutorService executor;
+    private EmbeddedChannel channel;
+    private NotificationFanout fanout;
+    private List<NetconfSession> sessions;
+    private NetconfMessage notification;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(),
+            new ThreadFactoryBuilder().setNameFormat("fanout-benchmark-%d").setDaemon(true).build());
+        channel = new EmbeddedChannel();
+        // queues hold the whole burst, so no notification is dropped
+        fanout = new NotificationFanout(executor, BURST, SlowConsumerPolicy.DROP_NEWEST);
+        sessions = IntStream.range(0, subscribers)
+            .mapToObj(i -> (NetconfSession) new CountingSession(i + 1))
+            .collect(Collectors.toList());
+        notification = NotificationMessage.ofNotificationContent(XmlUtil.readXmlToDocument(NOTIFICATION),
+            Instant.now());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        fanout.close();
+        executor.shutdownNow();
+        channel.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BURST)
+    public long publish() {
+        delivered.reset();
+        for (int i = 0; i < BURST; i++) {
+            fanout.publish(notification, sessions);
+        }
+        final long expected = (long) BURST * subscribers;
+        while (delivered.sum() < expected) {
+            LockSupport.parkNanos(1_000);
+        }
+        return fanout.getDroppedNotifications();
+    }
+
+    private final class CountingSession implements NetconfSession {
+
+        private final SessionIdType sessionId;
+
+        CountingSession(final long sessionId) {
+            this.sessionId = new SessionIdType(Uint32.valueOf(sessionId));
+        }
+
+        @Override
+        public SessionIdType sessionId() {
+            return sessionId;
+        }
+
+        @Override
+        public ChannelFuture sendMessage(final NetconfMessage message) {
+            delivered.increment();
+            return channel.newSucceededFuture();
+        }
+
+        @Override
+        public void close() {
+            // nothing to close
+        }
+    }
+}
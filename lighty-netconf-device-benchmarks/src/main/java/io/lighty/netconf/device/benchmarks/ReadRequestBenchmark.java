@@ -0,0 +1,106 @@
+/*
+ * Copyright (c) 2020 PANTHEON.tech s.r.o. All Rights Reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at https://www.eclipse.org/legal/epl-v10.html
+ */
+package io.lighty.netconf.device.benchmarks;
+
+import io.lighty.netconf.device.DataBrokerMode;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.opendaylight.netconf.api.xml.XmlElement;
+import org.w3c.dom.Document;
+
+/**
+ * Throughput of requests reading the datastore, from the parsed request element to the reply document. Filtered
+ * get-config requests select a single node, compare them with the full get-config to see the gain of targeted reads.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class ReadRequestBenchmark {
+
+    private static final String GET = "<get xmlns=\"urn:ietf:params:xml:ns:netconf:base:1.0\"/>";
+    private static final String GET_CONFIG = "<get-config xmlns=\"urn:ietf:params:xml:ns:netconf:base:1.0\">"
+        + "<source><running/></source>%s</get-config>";
+    private static final String SUBTREE_FILTER = "<filter type=\"subtree\">"
+        + "<network-topology xmlns=\"" + BenchmarkDevice.NT_NAMESPACE + "\"><topology>"
+        + "<topology-id>topology-0</topology-id><node><node-id>node-0</node-id></node>"
+        + "</topology></network-topology></filter>";
+    private static final String XPATH_FILTER = "<filter type=\"xpath\" xmlns:nt=\"" + BenchmarkDevice.NT_NAMESPACE
+        + "\" select=\"/nt:network-topology/nt:topology[nt:topology-id='topology-0']"
+        + "/nt:node[nt:node-id='node-0']\"/>";
+    private static final String GET_TOPOLOGY_IDS = "<get-topology-ids xmlns=\"" + BenchmarkDevice.NTR_NAMESPACE
+        + "\"/>";
+
+    @Param({"1000", "100000"})
+    private int datastoreSize;
+
+    @Param({"SERIALIZED", "CONCURRENT"})
+    private DataBrokerMode dataBrokerMode;
+
+    private BenchmarkDevice device;
+    private XmlElement getRequest;
+    private XmlElement getConfigRequest;
+    private XmlElement subtreeFilterRequest;
+    private XmlElement xpathFilterRequest;
+    private XmlElement customRpcRequest;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        device = new BenchmarkDevice(dataBrokerMode);
+        device.populate(datastoreSize);
+        getRequest = BenchmarkDevice.parseRequest(GET);
+        getConfigRequest = BenchmarkDevice.parseRequest(String.format(GET_CONFIG, ""));
+        subtreeFilterRequest = BenchmarkDevice.parseRequest(String.format(GET_CONFIG, SUBTREE_FILTER));
+        xpathFilterRequest = BenchmarkDevice.parseRequest(String.format(GET_CONFIG, XPATH_FILTER));
+        customRpcRequest = BenchmarkDevice.parseRequest(GET_TOPOLOGY_IDS);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        device.close();
+    }
+
+    @Benchmark
+    public Document get() {
+        return device.process(getRequest);
+    }
+
+    @Benchmark
+    public Document getConfig() {
+        return device.process(getConfigRequest);
+    }
+
+    @Benchmark
+    public Document getConfigSubtreeFilter() {
+        return device.process(subtreeFilterRequest);
+    }
+
+    @Benchmark
+    public Document getConfigXPathFilter() {
+        return device.process(xpathFilterRequest);
+    }
+
+    @Benchmark
+    public Document customRpc() {
+        return device.process(customRpcRequest);
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright (c) 2020 PANTHEON.tech s.r.o. All Rights Reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at https://www.eclipse.org/legal/epl-v10.html
+ */
+package io.lighty.netconf.device.benchmarks;
+
+import io.lighty.netconf.device.DataBrokerMode;
+import io.lighty.netconf.device.NetconfDeviceServices;
+import io.lighty.netconf.device.utils.NormalizedNodeDomWriter;
+import io.lighty.netconf.device.utils.RPCUtil;
+import io.lighty.netconf.device.utils.TimeoutUtil;
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.opendaylight.mdsal.common.api.LogicalDatastoreType;
+import org.opendaylight.mdsal.dom.api.DOMDataTreeReadTransaction;
+import org.opendaylight.netconf.api.xml.XmlUtil;
+import org.opendaylight.yang.gen.v1.urn.tbd.params.xml.ns.yang.network.topology.rev131021.NetworkTopology;
+import org.opendaylight.yangtools.util.xml.UntrustedXML;
+import org.opendaylight.yangtools.yang.data.api.YangInstanceIdentifier;
+import org.opendaylight.yangtools.yang.data.api.schema.NormalizedNode;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+
+/**
+ * Writing of the data of a get/get-config reply into the reply document. The string round trip is the former path,
+ * the data was serialized to a String, parsed into a document of its own and imported into the reply. The streamed
+ * path writes the data straight into the reply by {@link NormalizedNodeDomWriter}. Reading the datastore is not
+ * measured, the data is read once in the setup.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class ReplySerializationBenchmark {
+
+    @Param({"1000", "100000"})
+    private int datastoreSize;
+
+    private BenchmarkDevice device;
+    private NetconfDeviceServices services;
+    private NormalizedNode data;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        device = new BenchmarkDevice(DataBrokerMode.SERIALIZED);
+        device.populate(datastoreSize);
+        services = device.getNetconfDeviceServices();
+        try (DOMDataTreeReadTransaction transaction = services.getDOMDataBroker().newReadOnlyTransaction()) {
+            data = transaction.read(LogicalDatastoreType.CONFIGURATION,
+                    YangInstanceIdentifier.of(NetworkTopology.QNAME))
+                .get(TimeoutUtil.TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)
+                .orElseThrow();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        device.close();
+    }
+
+    @Benchmark
+    public Document stringRoundTrip() throws Exception {
+        final Document reply = newReply();
+        final String xml = services.getXmlNodeConverter().serializeData(services.getRootInference(), data)
+            .toString();
+        try (InputStream is = new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8))) {
+            final Node parsed = UntrustedXML.newDocumentBuilder().parse(is).getFirstChild();
+            reply.getDocumentElement().appendChild(reply.importNode(parsed, true));
+        }
+        return reply;
+    }
+
+    @Benchmark
+    public Document streamed() throws Exception {
+        final Document reply = newReply();
+        NormalizedNodeDomWriter.writeData(services.getRootInference(), data, reply.getDocumentElement());
+        return reply;
+    }
+
+    private static Document newReply() {
+        final Document reply = XmlUtil.newDocument();
+        final Element dataElement = reply.createElementNS(RPCUtil.NETCONF_BASE_NAMESPACE, "data");
+        reply.appendChild(dataElement);
+        return reply;
+    }
+}
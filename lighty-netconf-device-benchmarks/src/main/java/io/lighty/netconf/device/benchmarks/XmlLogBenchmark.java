@@ -0,0 +1,74 @@
+/*
+ * Copyright (c) 2020 PANTHEON.tech s.r.o. All Rights Reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at https://www.eclipse.org/legal/epl-v10.html
+ */
+package io.lighty.netconf.device.benchmarks;
+
+import io.lighty.netconf.device.utils.RPCUtil;
+import io.lighty.netconf.device.utils.XmlLogUtil;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.opendaylight.netconf.api.xml.XmlUtil;
+import org.slf4j.helpers.NOPLogger;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+
+/**
+ * Cost of logging a reply. The eager format is what the request processors used to pass to the logger, the whole
+ * reply was formatted even with debug level disabled. The lazy log with debug level disabled formats nothing,
+ * with debug level enabled the output is capped to {@link XmlLogUtil#getMaxPayloadLength()} characters.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class XmlLogBenchmark {
+
+    @Param({"10", "1000", "100000"})
+    private int payloadSize;
+
+    private Document reply;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        reply = XmlUtil.newDocument();
+        final Element data = reply.createElementNS(RPCUtil.NETCONF_BASE_NAMESPACE, "data");
+        for (int i = 0; i < payloadSize; i++) {
+            final Element node = reply.createElementNS(BenchmarkDevice.NT_NAMESPACE, "node");
+            node.setTextContent("node-" + i);
+            data.appendChild(node);
+        }
+        reply.appendChild(data);
+    }
+
+    @Benchmark
+    public String eagerFormat() {
+        return RPCUtil.formatXml(reply.getDocumentElement());
+    }
+
+    @Benchmark
+    public void lazyLogDisabled() {
+        XmlLogUtil.debug(NOPLogger.NOP_LOGGER, "Response: {}.", reply);
+    }
+
+    @Benchmark
+    public String lazyLogEnabled() {
+        return XmlLogUtil.lazyFormat(reply).toString();
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright (c) 2020 PANTHEON.tech s.r.o. All Rights Reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at https://www.eclipse.org/legal/epl-v10.html
+ */
+package io.lighty.netconf.device.benchmarks.load;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+/**
+ * Latency of the replies per request of the mix, recorded in nanoseconds. Recording is wait-free, so it can be done
+ * directly from the I/O threads of the sessions. Histograms are sampled in intervals, every sample contains only
+ * the values recorded since the previous one.
+ */
+final class LatencyRecorder {
+
+    private static final int SIGNIFICANT_DIGITS = 3;
+
+    private final Map<String, Recorder> recorders = new LinkedHashMap<>();
+    private final Map<String, LongAdder> errors = new LinkedHashMap<>();
+
+    LatencyRecorder(final Collection<String> requestNames) {
+        for (final String name : requestNames) {
+            recorders.put(name, new Recorder(SIGNIFICANT_DIGITS));
+            errors.put(name, new LongAdder());
+        }
+    }
+
+    /**
+     * Records the reply of a request.
+     *
+     * @param requestName name of the request in the mix
+     * @param latencyNanos time from sending the request to receiving the reply
+     * @param error true when the reply contains rpc-error
+     */
+    void recordReply(final String requestName, final long latencyNanos, final boolean error) {
+        recorders.get(requestName).recordValue(latencyNanos);
+        if (error) {
+            errors.get(requestName).increment();
+        }
+    }
+
+    /**
+     * Records request whose session went down before the reply came.
+     *
+     * @param requestName name of the request in the mix
+     */
+    void recordFailure(final String requestName) {
+        errors.get(requestName).increment();
+    }
+
+    /**
+     * Latency recorded since the previous sample. Histograms are tagged by name of the request.
+     *
+     * @return interval histograms per request name
+     */
+    Map<String, Histogram> sampleLatency() {
+        final Map<String, Histogram> sample = new LinkedHashMap<>();
+        for (final Map.Entry<String, Recorder> entry : recorders.entrySet()) {
+            final Histogram histogram = entry.getValue().getIntervalHistogram();
+            histogram.setTag(entry.getKey());
+            sample.put(entry.getKey(), histogram);
+        }
+        return sample;
+    }
+
+    /**
+     * Errors counted since the previous sample.
+     *
+     * @return error counts per request name
+     */
+    Map<String, Long> sampleErrors() {
+        final Map<String, Long> sample = new LinkedHashMap<>();
+        for (final Map.Entry<String, LongAdder> entry : errors.entrySet()) {
+            sample.put(entry.getKey(), entry.getValue().sumThenReset());
+        }
+        return sample;
+    }
+}
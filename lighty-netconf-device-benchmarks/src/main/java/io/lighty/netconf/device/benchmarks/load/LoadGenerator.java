@@ -0,0 +1,249 @@
+/*
+ * Copyright (c) 2020 PANTHEON.tech s.r.o. All Rights Reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at https://www.eclipse.org/legal/epl-v10.html
+ */
+package io.lighty.netconf.device.benchmarks.load;
+
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonObject;
+import io.lighty.netconf.device.utils.TimeoutUtil;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.HistogramLogWriter;
+import org.opendaylight.netconf.client.NetconfClientFactoryImpl;
+import org.opendaylight.netconf.client.NetconfClientSession;
+import org.opendaylight.netconf.client.conf.NetconfClientConfiguration;
+import org.opendaylight.netconf.client.conf.NetconfClientConfiguration.NetconfClientProtocol;
+import org.opendaylight.netconf.client.conf.NetconfClientConfigurationBuilder;
+import org.opendaylight.netconf.common.di.DefaultNetconfTimer;
+import org.opendaylight.netconf.transport.api.UnsupportedConfigurationException;
+import org.opendaylight.yang.gen.v1.urn.ietf.params.xml.ns.yang.ietf.crypto.types.rev241010.password.grouping.password.type.CleartextPasswordBuilder;
+import org.opendaylight.yang.gen.v1.urn.ietf.params.xml.ns.yang.ietf.inet.types.rev130715.IetfInetUtil;
+import org.opendaylight.yang.gen.v1.urn.ietf.params.xml.ns.yang.ietf.inet.types.rev130715.PortNumber;
+import org.opendaylight.yang.gen.v1.urn.ietf.params.xml.ns.yang.ietf.netconf.client.rev240814.netconf.client.initiate.stack.grouping.transport.ssh.ssh.SshClientParametersBuilder;
+import org.opendaylight.yang.gen.v1.urn.ietf.params.xml.ns.yang.ietf.netconf.client.rev240814.netconf.client.initiate.stack.grouping.transport.ssh.ssh.TcpClientParametersBuilder;
+import org.opendaylight.yang.gen.v1.urn.ietf.params.xml.ns.yang.ietf.ssh.client.rev241010.ssh.client.grouping.ClientIdentityBuilder;
+import org.opendaylight.yang.gen.v1.urn.ietf.params.xml.ns.yang.ietf.ssh.client.rev241010.ssh.client.grouping.client.identity.PasswordBuilder;
+import org.opendaylight.yangtools.yang.common.Uint16;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.xml.sax.SAXException;
+
+/**
+ * Drives running simulated devices over real NETCONF/SSH sessions. Sessions are spread among the devices listening
+ * on consecutive ports, every session keeps configured number of requests in flight. Latency of the replies is
+ * reported as JSON summary with percentiles and as HdrHistogram interval log, which can be processed by the usual
+ * HdrHistogram tools.
+ */
+public final class LoadGenerator {
+
+    private static final Logger LOG = LoggerFactory.getLogger(LoadGenerator.class);
+    private static final int SIGNIFICANT_DIGITS = 3;
+    private static final long SAMPLE_INTERVAL_MILLIS = 1000;
+    private static final double NANOS_PER_MICRO = 1_000.0;
+    private static final double NANOS_PER_SECOND = 1_000_000_000.0;
+    private static final double NANOS_PER_MILLI = 1_000_000.0;
+    private static final double[] PERCENTILES = {50.0, 90.0, 99.0, 99.9};
+    private static final String[] PERCENTILE_NAMES = {"p50", "p90", "p99", "p99.9"};
+
+    private final LoadGeneratorConfiguration configuration;
+
+    public LoadGenerator(final LoadGeneratorConfiguration configuration) {
+        this.configuration = configuration;
+    }
+
+    public static void main(final String[] args) throws Exception {
+        new LoadGenerator(LoadGeneratorConfiguration.parse(args)).run();
+    }
+
+    /**
+     * Connects the sessions, runs warmup and measured load and writes the reports.
+     *
+     * @return JSON report
+     */
+    public JsonObject run() throws IOException, SAXException, InterruptedException, ExecutionException,
+            TimeoutException, UnsupportedConfigurationException {
+        final RequestMix requestMix = RequestMix.parse(configuration.getMix());
+        final LatencyRecorder latencyRecorder = new LatencyRecorder(requestMix.getWeights().keySet());
+        final List<LoadSession> sessions = new ArrayList<>();
+        try (DefaultNetconfTimer timer = new DefaultNetconfTimer();
+                NetconfClientFactoryImpl clientFactory = new NetconfClientFactoryImpl(timer)) {
+            try {
+                for (int i = 0; i < configuration.getSessionCount(); i++) {
+                    final int port = configuration.getPort() + i % configuration.getDeviceCount();
+                    final LoadSession session = new LoadSession("session-" + i, requestMix, latencyRecorder,
+                        configuration.getPipelineDepth());
+                    final NetconfClientSession clientSession = clientFactory.createClient(
+                            createClientConfiguration(port, session))
+                        .get(TimeoutUtil.TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+                    sessions.add(session);
+                    session.start(clientSession);
+                }
+                LOG.info("{} sessions connected to {} devices, warming up for {} s", sessions.size(),
+                    configuration.getDeviceCount(), configuration.getWarmupSeconds());
+                Thread.sleep(TimeUnit.SECONDS.toMillis(configuration.getWarmupSeconds()));
+                // values recorded during the warmup are dropped
+                latencyRecorder.sampleLatency();
+                latencyRecorder.sampleErrors();
+
+                final JsonObject report = measure(requestMix, latencyRecorder, sessions);
+                try (Writer writer = Files.newBufferedWriter(configuration.getOutput(), StandardCharsets.UTF_8)) {
+                    new GsonBuilder().setPrettyPrinting().create().toJson(report, writer);
+                }
+                LOG.info("Report written to {}, histogram log to {}", configuration.getOutput(),
+                    configuration.getHistogramLog());
+                return report;
+            } finally {
+                for (final LoadSession session : sessions) {
+                    session.close();
+                }
+            }
+        }
+    }
+
+    private JsonObject measure(final RequestMix requestMix, final LatencyRecorder latencyRecorder,
+            final List<LoadSession> sessions) throws IOException, InterruptedException {
+        final Map<String, Histogram> latency = new LinkedHashMap<>();
+        final Map<String, Long> errors = new LinkedHashMap<>();
+        for (final String requestName : requestMix.getWeights().keySet()) {
+            latency.put(requestName, new Histogram(SIGNIFICANT_DIGITS));
+            errors.put(requestName, 0L);
+        }
+
+        final long startMillis = System.currentTimeMillis();
+        final long startNanos = System.nanoTime();
+        final long endNanos = startNanos + TimeUnit.SECONDS.toNanos(configuration.getDurationSeconds());
+        long sampleNanos = startNanos;
+        try (PrintStream logStream = new PrintStream(Files.newOutputStream(configuration.getHistogramLog()), false,
+                StandardCharsets.UTF_8)) {
+            final HistogramLogWriter logWriter = new HistogramLogWriter(logStream);
+            logWriter.outputLogFormatVersion();
+            logWriter.outputStartTime(startMillis);
+            logWriter.setBaseTime(startMillis);
+            logWriter.outputLegend();
+
+            while (sampleNanos < endNanos) {
+                Thread.sleep(Math.min(SAMPLE_INTERVAL_MILLIS,
+                    Math.max(1, TimeUnit.NANOSECONDS.toMillis(endNanos - sampleNanos))));
+                final long nowNanos = System.nanoTime();
+                long replies = 0;
+                for (final Histogram interval : latencyRecorder.sampleLatency().values()) {
+                    latency.get(interval.getTag()).add(interval);
+                    logWriter.outputIntervalHistogram(interval);
+                    replies += interval.getTotalCount();
+                }
+                long intervalErrors = 0;
+                for (final Map.Entry<String, Long> entry : latencyRecorder.sampleErrors().entrySet()) {
+                    errors.merge(entry.getKey(), entry.getValue(), Long::sum);
+                    intervalErrors += entry.getValue();
+                }
+                LOG.info("{} replies/s, {} errors", Math.round(replies * NANOS_PER_SECOND / (nowNanos - sampleNanos)),
+                    intervalErrors);
+                sampleNanos = nowNanos;
+                if (sessions.stream().allMatch(LoadSession::isDown)) {
+                    LOG.warn("All sessions are down, load is stopped before the end of the measurement");
+                    break;
+                }
+            }
+        }
+
+        for (final LoadSession session : sessions) {
+            if (!session.stop(TimeoutUtil.TIMEOUT_MILLIS)) {
+                LOG.warn("Session {} did not receive replies to all requests", session.getName());
+            }
+        }
+        // requests which could not be sent are not errors of the device, they are reported by their sessions
+        final long failedSessions = sessions.stream().filter(session -> session.getSendFailure() != null).count();
+        if (failedSessions > 0) {
+            LOG.warn("{} sessions stopped because they failed to send a request", failedSessions);
+        }
+        return createReport(requestMix, latency, errors, failedSessions, sampleNanos - startNanos);
+    }
+
+    private JsonObject createReport(final RequestMix requestMix, final Map<String, Histogram> latency,
+            final Map<String, Long> errors, final long failedSessions, final long elapsedNanos) {
+        final JsonObject report = new JsonObject();
+        final JsonObject configurationJson = new JsonObject();
+        configurationJson.addProperty("host", configuration.getHost());
+        configurationJson.addProperty("port", configuration.getPort());
+        configurationJson.addProperty("devices", configuration.getDeviceCount());
+        configurationJson.addProperty("sessions", configuration.getSessionCount());
+        configurationJson.addProperty("pipeline", configuration.getPipelineDepth());
+        configurationJson.addProperty("warmup-seconds", configuration.getWarmupSeconds());
+        configurationJson.addProperty("duration-seconds", configuration.getDurationSeconds());
+        report.add("configuration", configurationJson);
+        report.addProperty("elapsed-seconds", elapsedNanos / NANOS_PER_SECOND);
+        report.addProperty("failed-sessions", failedSessions);
+
+        final Histogram total = new Histogram(SIGNIFICANT_DIGITS);
+        long totalErrors = 0;
+        final JsonObject requests = new JsonObject();
+        for (final Map.Entry<String, Histogram> entry : latency.entrySet()) {
+            total.add(entry.getValue());
+            final long requestErrors = errors.get(entry.getKey());
+            totalErrors += requestErrors;
+            final JsonObject requestJson = createStatistics(entry.getValue(), requestErrors, elapsedNanos);
+            requestJson.addProperty("weight", requestMix.getWeights().get(entry.getKey()));
+            requests.add(entry.getKey(), requestJson);
+        }
+        report.add("total", createStatistics(total, totalErrors, elapsedNanos));
+        report.add("requests", requests);
+
+        LOG.info("{} replies/s, {} errors, latency p50 {} ms, p99 {} ms, p99.9 {} ms, max {} ms",
+            Math.round(total.getTotalCount() * NANOS_PER_SECOND / elapsedNanos), totalErrors,
+            total.getValueAtPercentile(50.0) / NANOS_PER_MILLI, total.getValueAtPercentile(99.0) / NANOS_PER_MILLI,
+            total.getValueAtPercentile(99.9) / NANOS_PER_MILLI, total.getMaxValue() / NANOS_PER_MILLI);
+        return report;
+    }
+
+    private static JsonObject createStatistics(final Histogram histogram, final long errorCount,
+            final long elapsedNanos) {
+        final JsonObject statistics = new JsonObject();
+        statistics.addProperty("replies", histogram.getTotalCount());
+        statistics.addProperty("errors", errorCount);
+        statistics.addProperty("throughput", histogram.getTotalCount() * NANOS_PER_SECOND / elapsedNanos);
+        final JsonObject latencyJson = new JsonObject();
+        for (int i = 0; i < PERCENTILES.length; i++) {
+            latencyJson.addProperty(PERCENTILE_NAMES[i],
+                histogram.getValueAtPercentile(PERCENTILES[i]) / NANOS_PER_MICRO);
+        }
+        latencyJson.addProperty("max", histogram.getMaxValue() / NANOS_PER_MICRO);
+        latencyJson.addProperty("mean", histogram.getMean() / NANOS_PER_MICRO);
+        statistics.add("latency-micros", latencyJson);
+        return statistics;
+    }
+
+    private NetconfClientConfiguration createClientConfiguration(final int port, final LoadSession session) {
+        return NetconfClientConfigurationBuilder.create()
+            .withTcpParameters(new TcpClientParametersBuilder()
+                .setRemoteAddress(IetfInetUtil.hostFor(configuration.getHost()))
+                .setRemotePort(new PortNumber(Uint16.valueOf(port))).build())
+            .withSessionListener(session)
+            .withConnectionTimeoutMillis(NetconfClientConfigurationBuilder.DEFAULT_CONNECTION_TIMEOUT_MILLIS)
+            .withProtocol(NetconfClientProtocol.SSH)
+            .withSshParameters(new SshClientParametersBuilder().setClientIdentity(new ClientIdentityBuilder()
+                    .setUsername(configuration.getUsername())
+                    .setPassword(new PasswordBuilder()
+                        .setPasswordType(new CleartextPasswordBuilder()
+                            .setCleartextPassword(configuration.getPassword())
+                            .build())
+                        .build())
+                    .build())
+                .build())
+            .build();
+    }
+}
@@ -0,0 +1,167 @@
+/*
+ * Copyright (c) 2020 PANTHEON.tech s.r.o. All Rights Reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at https://www.eclipse.org/legal/epl-v10.html
+ */
+package io.lighty.netconf.device.benchmarks.load;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import net.sourceforge.argparse4j.ArgumentParsers;
+import net.sourceforge.argparse4j.inf.ArgumentParser;
+import net.sourceforge.argparse4j.inf.Namespace;
+
+/**
+ * Command line options of the {@link LoadGenerator}.
+ */
+public final class LoadGeneratorConfiguration {
+
+    private final String host;
+    private final int port;
+    private final int deviceCount;
+    private final int sessionCount;
+    private final int pipelineDepth;
+    private final int warmupSeconds;
+    private final int durationSeconds;
+    private final String mix;
+    private final String username;
+    private final String password;
+    private final Path output;
+    private final Path histogramLog;
+
+    private LoadGeneratorConfiguration(final Namespace namespace) {
+        this.host = namespace.getString("host");
+        this.port = namespace.getInt("port");
+        this.deviceCount = namespace.getInt("devices");
+        this.sessionCount = namespace.getInt("sessions");
+        this.pipelineDepth = namespace.getInt("pipeline");
+        this.warmupSeconds = namespace.getInt("warmup");
+        this.durationSeconds = namespace.getInt("duration");
+        this.mix = namespace.getString("mix");
+        this.username = namespace.getString("user");
+        this.password = namespace.getString("password");
+        this.output = Paths.get(namespace.getString("output"));
+        this.histogramLog = Paths.get(namespace.getString("histogramLog"));
+        if (deviceCount < 1 || sessionCount < 1 || pipelineDepth < 1 || warmupSeconds < 0 || durationSeconds < 1) {
+            throw new IllegalArgumentException("Devices, sessions, pipeline and duration have to be positive, "
+                + "warmup must not be negative");
+        }
+    }
+
+    /**
+     * Parses command line arguments, prints help and exits when they are not valid.
+     *
+     * @param args command line arguments
+     * @return parsed configuration
+     */
+    public static LoadGeneratorConfiguration parse(final String[] args) {
+        final ArgumentParser parser = ArgumentParsers.newFor("load-generator").build()
+            .description("Drives simulated NETCONF devices over SSH and reports latency of the requests");
+        parser.addArgument("--host")
+            .setDefault("127.0.0.1")
+            .help("Address of the simulated devices")
+            .dest("host");
+        parser.addArgument("--port")
+            .type(Integer.class)
+            .setDefault(17830)
+            .help("Port of the first device, the other devices listen on the following ports")
+            .dest("port");
+        parser.addArgument("--devices")
+            .type(Integer.class)
+            .setDefault(1)
+            .help("Number of devices, sessions are spread among them evenly")
+            .dest("devices");
+        parser.addArgument("--sessions")
+            .type(Integer.class)
+            .setDefault(1)
+            .help("Number of concurrent NETCONF sessions")
+            .dest("sessions");
+        parser.addArgument("--pipeline")
+            .type(Integer.class)
+            .setDefault(1)
+            .help("Number of requests sent by a session without waiting for the replies")
+            .dest("pipeline");
+        parser.addArgument("--warmup")
+            .type(Integer.class)
+            .setDefault(10)
+            .help("Seconds of load which are not included in the results")
+            .dest("warmup");
+        parser.addArgument("--duration")
+            .type(Integer.class)
+            .setDefault(60)
+            .help("Seconds of the measured load")
+            .dest("duration");
+        parser.addArgument("--mix")
+            .setDefault("get-config=1")
+            .help("Comma separated weighted requests, e.g. get-config=70,get=20,edit.xml=10. Besides the built-in "
+                + "get and get-config requests, path to an XML file with the whole <rpc> element can be used")
+            .dest("mix");
+        parser.addArgument("--user")
+            .setDefault("admin")
+            .help("SSH user name")
+            .dest("user");
+        parser.addArgument("--password")
+            .setDefault("admin")
+            .help("SSH password")
+            .dest("password");
+        parser.addArgument("--output")
+            .setDefault("load-report.json")
+            .help("File the JSON report is written to")
+            .dest("output");
+        parser.addArgument("--histogram-log")
+            .setDefault("load-report.hlog")
+            .help("File the HdrHistogram interval log is written to")
+            .dest("histogramLog");
+        return new LoadGeneratorConfiguration(parser.parseArgsOrFail(args));
+    }
+
+    public String getHost() {
+        return host;
+    }
+
+    public int getPort() {
+        return port;
+    }
+
+    public int getDeviceCount() {
+        return deviceCount;
+    }
+
+    public int getSessionCount() {
+        return sessionCount;
+    }
+
+    public int getPipelineDepth() {
+        return pipelineDepth;
+    }
+
+    public int getWarmupSeconds() {
+        return warmupSeconds;
+    }
+
+    public int getDurationSeconds() {
+        return durationSeconds;
+    }
+
+    public String getMix() {
+        return mix;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public String getPassword() {
+        return password;
+    }
+
+    public Path getOutput() {
+        return output;
+    }
+
+    public Path getHistogramLog() {
+        return histogramLog;
+    }
+}
@@ -0,0 +1,199 @@
+/*
+ * Copyright (c) 2020 PANTHEON.tech s.r.o. All Rights Reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at https://www.eclipse.org/legal/epl-v10.html
+ */
+package io.lighty.netconf.device.benchmarks.load;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.eclipse.jdt.annotation.Nullable;
+import org.opendaylight.netconf.api.NamespaceURN;
+import org.opendaylight.netconf.api.NetconfTerminationReason;
+import org.opendaylight.netconf.api.messages.NetconfMessage;
+import org.opendaylight.netconf.api.xml.XmlNetconfConstants;
+import org.opendaylight.netconf.client.NetconfClientSession;
+import org.opendaylight.netconf.client.NetconfClientSessionListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.w3c.dom.Element;
+
+/**
+ * Session keeping fixed number of requests in flight. Replies are matched to the requests by message-id and
+ * every reply triggers the next request, so the session is closed-loop: when the device slows down, the session
+ * slows down with it.
+ */
+final class LoadSession implements NetconfClientSessionListener {
+
+    private static final Logger LOG = LoggerFactory.getLogger(LoadSession.class);
+    private static final long IDLE_POLL_MILLIS = 10;
+
+    private final String name;
+    private final RequestMix requestMix;
+    private final LatencyRecorder latencyRecorder;
+    private final int pipelineDepth;
+    private final Map<String, PendingRequest> pendingRequests = new ConcurrentHashMap<>();
+    private final AtomicLong messageIds = new AtomicLong();
+    private volatile NetconfClientSession session;
+    private volatile boolean running;
+    private volatile boolean down;
+    private volatile boolean closed;
+    private volatile Throwable sendFailure;
+
+    LoadSession(final String name, final RequestMix requestMix, final LatencyRecorder latencyRecorder,
+            final int pipelineDepth) {
+        this.name = name;
+        this.requestMix = requestMix;
+        this.latencyRecorder = latencyRecorder;
+        this.pipelineDepth = pipelineDepth;
+    }
+
+    String getName() {
+        return name;
+    }
+
+    /**
+     * Whether the session went down or stopped because it failed to send a request.
+     */
+    boolean isDown() {
+        return down || sendFailure != null;
+    }
+
+    /**
+     * Failure of the first request the session could not send.
+     *
+     * @return the failure, null when all requests were sent
+     */
+    @Nullable Throwable getSendFailure() {
+        return sendFailure;
+    }
+
+    /**
+     * Fills the pipeline of the established session.
+     *
+     * @param clientSession session this listener was registered to
+     */
+    void start(final NetconfClientSession clientSession) {
+        this.session = clientSession;
+        this.running = true;
+        for (int i = 0; i < pipelineDepth && running; i++) {
+            sendNext();
+        }
+    }
+
+    /**
+     * Stops sending new requests and waits for the replies of requests in flight.
+     *
+     * @param timeoutMillis maximal time to wait for the replies
+     * @return true when all replies came
+     */
+    boolean stop(final long timeoutMillis) throws InterruptedException {
+        running = false;
+        final long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        while (!pendingRequests.isEmpty() && !down && System.nanoTime() < deadline) {
+            Thread.sleep(IDLE_POLL_MILLIS);
+        }
+        return pendingRequests.isEmpty();
+    }
+
+    void close() {
+        running = false;
+        closed = true;
+        if (session != null) {
+            session.close();
+        }
+    }
+
+    private void sendNext() {
+        final RequestMix.RequestTemplate template = requestMix.next();
+        final String messageId = name + "-" + messageIds.incrementAndGet();
+        final NetconfMessage message = template.createMessage(messageId);
+        pendingRequests.put(messageId, new PendingRequest(template.getName(), System.nanoTime()));
+        session.sendMessage(message).addListener(future -> {
+            if (!future.isSuccess() && pendingRequests.remove(messageId) != null) {
+                sendFailed(messageId, future.cause());
+            }
+        });
+    }
+
+    /**
+     * Stops the session after its first request which could not be sent. The channel is most likely closed, so any
+     * further request would fail the same way. The request never reached the device, so it is not counted among
+     * the errors of the requests, the failure is kept by the session.
+     */
+    private synchronized void sendFailed(final String messageId, final Throwable cause) {
+        running = false;
+        if (sendFailure == null) {
+            sendFailure = cause;
+            LOG.warn("Session {} failed to send request {}, stopping the session", name, messageId, cause);
+        }
+    }
+
+    @Override
+    public void onMessage(final NetconfClientSession clientSession, final NetconfMessage message) {
+        final long receivedNanos = System.nanoTime();
+        final Element reply = message.getDocument().getDocumentElement();
+        final PendingRequest request = pendingRequests.remove(reply.getAttribute(XmlNetconfConstants.MESSAGE_ID));
+        if (request == null) {
+            LOG.debug("Session {} received message which is not reply to any request {}", name, message);
+            return;
+        }
+        final boolean error = reply.getElementsByTagNameNS(NamespaceURN.BASE, "rpc-error").getLength() > 0;
+        latencyRecorder.recordReply(request.requestName, receivedNanos - request.sentNanos, error);
+        if (running) {
+            sendNext();
+        }
+    }
+
+    @Override
+    public void onSessionUp(final NetconfClientSession clientSession) {
+        LOG.debug("Session {} is up", name);
+    }
+
+    @Override
+    public void onSessionDown(final NetconfClientSession clientSession, final Exception cause) {
+        if (!closed) {
+            LOG.warn("Session {} went down", name, cause);
+        }
+        sessionLost();
+    }
+
+    @Override
+    public void onSessionTerminated(final NetconfClientSession clientSession,
+            final NetconfTerminationReason reason) {
+        if (!closed) {
+            LOG.warn("Session {} was terminated: {}", name, reason.getErrorMessage());
+        }
+        sessionLost();
+    }
+
+    @Override
+    public void onError(final NetconfClientSession clientSession, final Exception failure) {
+        LOG.warn("Session {} failed to process message", name, failure);
+    }
+
+    private void sessionLost() {
+        running = false;
+        down = true;
+        for (final String messageId : pendingRequests.keySet()) {
+            final PendingRequest request = pendingRequests.remove(messageId);
+            if (request != null) {
+                latencyRecorder.recordFailure(request.requestName);
+            }
+        }
+    }
+
+    private static final class PendingRequest {
+        private final String requestName;
+        private final long sentNanos;
+
+        PendingRequest(final String requestName, final long sentNanos) {
+            this.requestName = requestName;
+            this.sentNanos = sentNanos;
+        }
+    }
+}
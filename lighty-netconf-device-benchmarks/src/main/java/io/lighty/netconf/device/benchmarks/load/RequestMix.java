@@ -0,0 +1,156 @@
+/*
+ * Copyright (c) 2020 PANTHEON.tech s.r.o. All Rights Reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at https://www.eclipse.org/legal/epl-v10.html
+ */
+package io.lighty.netconf.device.benchmarks.load;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import org.opendaylight.netconf.api.NamespaceURN;
+import org.opendaylight.netconf.api.messages.NetconfMessage;
+import org.opendaylight.netconf.api.xml.XmlNetconfConstants;
+import org.opendaylight.netconf.api.xml.XmlUtil;
+import org.w3c.dom.Document;
+import org.xml.sax.SAXException;
+
+/**
+ * Weighted set of requests the sessions pick from randomly.
+ */
+final class RequestMix {
+
+    private static final String RPC = "<rpc xmlns=\"" + NamespaceURN.BASE + "\">%s</rpc>";
+    private static final Map<String, String> BUILT_IN_REQUESTS = Map.of(
+        "get", String.format(RPC, "<get/>"),
+        "get-config", String.format(RPC, "<get-config><source><running/></source></get-config>"));
+
+    private final List<RequestTemplate> templates;
+    private final int[] cumulativeWeights;
+    private final Map<String, Integer> weights;
+
+    private RequestMix(final List<RequestTemplate> templates, final Map<String, Integer> weights) {
+        this.templates = templates;
+        this.weights = Collections.unmodifiableMap(weights);
+        this.cumulativeWeights = new int[templates.size()];
+        int sum = 0;
+        for (int i = 0; i < templates.size(); i++) {
+            sum += weights.get(templates.get(i).getName());
+            cumulativeWeights[i] = sum;
+        }
+    }
+
+    /**
+     * Parses mix of the requests, e.g. {@code get-config=70,get=20,edit.xml=10}. Weight can be omitted, it defaults
+     * to one.
+     *
+     * @param mix comma separated requests with weights
+     * @return request mix
+     * @throws IllegalArgumentException when the mix is not valid
+     */
+    static RequestMix parse(final String mix) throws IOException, SAXException {
+        final List<RequestTemplate> templates = new ArrayList<>();
+        final Map<String, Integer> weights = new LinkedHashMap<>();
+        for (final String item : mix.split(",")) {
+            final String trimmed = item.trim();
+            if (trimmed.isEmpty()) {
+                continue;
+            }
+            final int separator = trimmed.lastIndexOf('=');
+            final String name = separator < 0 ? trimmed : trimmed.substring(0, separator).trim();
+            final int weight;
+            try {
+                weight = separator < 0 ? 1 : Integer.parseInt(trimmed.substring(separator + 1).trim());
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Weight of request " + name + " is not a number", e);
+            }
+            if (weight < 1) {
+                throw new IllegalArgumentException("Weight of request " + name + " has to be positive");
+            }
+            if (weights.put(name, weight) != null) {
+                throw new IllegalArgumentException("Request " + name + " is used in the mix more than once");
+            }
+            templates.add(new RequestTemplate(name, loadRequest(name)));
+        }
+        if (templates.isEmpty()) {
+            throw new IllegalArgumentException("Request mix is empty");
+        }
+        return new RequestMix(templates, weights);
+    }
+
+    private static Document loadRequest(final String name) throws IOException, SAXException {
+        final String builtIn = BUILT_IN_REQUESTS.get(name);
+        if (builtIn != null) {
+            return XmlUtil.readXmlToDocument(builtIn);
+        }
+        final Path file = Paths.get(name);
+        if (!Files.isRegularFile(file)) {
+            throw new IllegalArgumentException("Request " + name + " is neither built-in request nor existing file");
+        }
+        final Document document;
+        try (InputStream inputStream = Files.newInputStream(file)) {
+            document = XmlUtil.readXmlToDocument(inputStream);
+        }
+        if (!"rpc".equals(document.getDocumentElement().getLocalName())) {
+            throw new IllegalArgumentException("Request in file " + name + " has to be an <rpc> element");
+        }
+        return document;
+    }
+
+    /**
+     * Weights of the requests in order they were specified.
+     */
+    Map<String, Integer> getWeights() {
+        return weights;
+    }
+
+    RequestTemplate next() {
+        if (templates.size() == 1) {
+            return templates.getFirst();
+        }
+        final int random = ThreadLocalRandom.current().nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+        for (int i = 0; i < cumulativeWeights.length; i++) {
+            if (random < cumulativeWeights[i]) {
+                return templates.get(i);
+            }
+        }
+        throw new IllegalStateException("Weights do not cover " + random);
+    }
+
+    /**
+     * Request of the mix, every message created from it gets its own message-id.
+     */
+    static final class RequestTemplate {
+        private final String name;
+        private final Document document;
+
+        RequestTemplate(final String name, final Document document) {
+            this.name = name;
+            this.document = document;
+        }
+
+        String getName() {
+            return name;
+        }
+
+        NetconfMessage createMessage(final String messageId) {
+            final Document copy;
+            // DOM implementation does not guarantee thread safety even for reads
+            synchronized (document) {
+                copy = (Document) document.cloneNode(true);
+            }
+            copy.getDocumentElement().setAttribute(XmlNetconfConstants.MESSAGE_ID, messageId);
+            return new NetconfMessage(copy);
+        }
+    }
+}
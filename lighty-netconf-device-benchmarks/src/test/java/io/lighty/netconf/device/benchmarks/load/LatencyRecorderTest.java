@@ -0,0 +1,56 @@
+/*
+ * Copyright (c) 2024 PANTHEON.tech, s.r.o. and others. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at https://www.eclipse.org/legal/epl-v10.html
+ */
+package io.lighty.netconf.device.benchmarks.load;
+
+import java.util.List;
+import java.util.Map;
+import org.HdrHistogram.Histogram;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class LatencyRecorderTest {
+
+    @Test
+    public void testRepliesAreRecordedPerRequest() {
+        final LatencyRecorder latencyRecorder = new LatencyRecorder(List.of("get-config", "get"));
+        latencyRecorder.recordReply("get-config", 1_000_000, false);
+        latencyRecorder.recordReply("get-config", 3_000_000, false);
+        latencyRecorder.recordReply("get", 2_000_000, true);
+
+        final Map<String, Histogram> latency = latencyRecorder.sampleLatency();
+        Assertions.assertEquals(List.of("get-config", "get"), List.copyOf(latency.keySet()));
+        Assertions.assertEquals("get-config", latency.get("get-config").getTag());
+        Assertions.assertEquals(2, latency.get("get-config").getTotalCount());
+        Assertions.assertTrue(latency.get("get-config").valuesAreEquivalent(3_000_000,
+            latency.get("get-config").getMaxValue()));
+        Assertions.assertEquals(1, latency.get("get").getTotalCount());
+        Assertions.assertEquals(Map.of("get-config", 0L, "get", 1L), latencyRecorder.sampleErrors());
+    }
+
+    @Test
+    public void testFailureIsCountedAsErrorWithoutLatency() {
+        final LatencyRecorder latencyRecorder = new LatencyRecorder(List.of("get"));
+        latencyRecorder.recordFailure("get");
+
+        Assertions.assertEquals(0, latencyRecorder.sampleLatency().get("get").getTotalCount());
+        Assertions.assertEquals(Map.of("get", 1L), latencyRecorder.sampleErrors());
+    }
+
+    @Test
+    public void testSampleContainsOnlyValuesSincePreviousOne() {
+        final LatencyRecorder latencyRecorder = new LatencyRecorder(List.of("get"));
+        latencyRecorder.recordReply("get", 1_000_000, true);
+        latencyRecorder.sampleLatency();
+        latencyRecorder.sampleErrors();
+
+        latencyRecorder.recordReply("get", 2_000_000, false);
+        Assertions.assertEquals(1, latencyRecorder.sampleLatency().get("get").getTotalCount());
+        Assertions.assertEquals(Map.of("get", 0L), latencyRecorder.sampleErrors());
+        Assertions.assertEquals(0, latencyRecorder.sampleLatency().get("get").getTotalCount());
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright (c) 2024 PANTHEON.tech, s.r.o. and others. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at https://www.eclipse.org/legal/epl-v10.html
+ */
+package io.lighty.netconf.device.benchmarks.load;
+
+import com.google.gson.JsonObject;
+import io.lighty.netconf.device.NetconfDevice;
+import io.lighty.netconf.device.NetconfDeviceBuilder;
+import io.lighty.netconf.device.benchmarks.BenchmarkDevice;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class LoadGeneratorTest {
+
+    private static final int DEVICE_PORT = 17850;
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void testDefaultConfiguration() {
+        final LoadGeneratorConfiguration configuration = LoadGeneratorConfiguration.parse(new String[0]);
+        Assertions.assertEquals("127.0.0.1", configuration.getHost());
+        Assertions.assertEquals(17830, configuration.getPort());
+        Assertions.assertEquals(1, configuration.getDeviceCount());
+        Assertions.assertEquals(1, configuration.getSessionCount());
+        Assertions.assertEquals(1, configuration.getPipelineDepth());
+        Assertions.assertEquals(10, configuration.getWarmupSeconds());
+        Assertions.assertEquals(60, configuration.getDurationSeconds());
+        Assertions.assertEquals("get-config=1", configuration.getMix());
+        Assertions.assertEquals(Paths.get("load-report.json"), configuration.getOutput());
+        Assertions.assertEquals(Paths.get("load-report.hlog"), configuration.getHistogramLog());
+    }
+
+    @Test
+    public void testConfigurationIsParsed() {
+        final LoadGeneratorConfiguration configuration = LoadGeneratorConfiguration.parse(new String[] {
+            "--host", "10.0.0.1", "--port", "20000", "--devices", "4", "--sessions", "16", "--pipeline", "8",
+            "--warmup", "0", "--duration", "5", "--mix", "get=1,get-config=3", "--user", "user",
+            "--password", "secret", "--output", "report.json", "--histogram-log", "report.hlog"});
+        Assertions.assertEquals("10.0.0.1", configuration.getHost());
+        Assertions.assertEquals(20000, configuration.getPort());
+        Assertions.assertEquals(4, configuration.getDeviceCount());
+        Assertions.assertEquals(16, configuration.getSessionCount());
+        Assertions.assertEquals(8, configuration.getPipelineDepth());
+        Assertions.assertEquals(0, configuration.getWarmupSeconds());
+        Assertions.assertEquals(5, configuration.getDurationSeconds());
+        Assertions.assertEquals("get=1,get-config=3", configuration.getMix());
+        Assertions.assertEquals("user", configuration.getUsername());
+        Assertions.assertEquals("secret", configuration.getPassword());
+        Assertions.assertEquals(Paths.get("report.json"), configuration.getOutput());
+        Assertions.assertEquals(Paths.get("report.hlog"), configuration.getHistogramLog());
+    }
+
+    @Test
+    public void testInvalidConfigurationIsRejected() {
+        for (final String option : new String[] {"--devices", "--sessions", "--pipeline", "--duration"}) {
+            Assertions.assertThrows(IllegalArgumentException.class,
+                () -> LoadGeneratorConfiguration.parse(new String[] {option, "0"}), option);
+        }
+        Assertions.assertThrows(IllegalArgumentException.class,
+            () -> LoadGeneratorConfiguration.parse(new String[] {"--warmup=-1"}));
+    }
+
+    @Test
+    public void testLoadIsReportedPerRequest() throws Exception {
+        final Path output = tempDir.resolve("report.json");
+        final Path histogramLog = tempDir.resolve("report.hlog");
+        try (NetconfDevice device = new NetconfDeviceBuilder()
+                .setCredentials("admin", "admin")
+                .setBindingPort(DEVICE_PORT)
+                .withModels(BenchmarkDevice.getModels())
+                .withDefaultRequestProcessors()
+                .build()) {
+            device.start();
+            final JsonObject report = new LoadGenerator(LoadGeneratorConfiguration.parse(new String[] {
+                "--port", String.valueOf(DEVICE_PORT), "--sessions", "2", "--pipeline", "2", "--warmup", "0",
+                "--duration", "2", "--mix", "get-config=3,get=1", "--output", output.toString(),
+                "--histogram-log", histogramLog.toString()})).run();
+
+            final JsonObject total = report.getAsJsonObject("total");
+            Assertions.assertTrue(total.get("replies").getAsLong() > 0, total::toString);
+            Assertions.assertEquals(0, total.get("errors").getAsLong(), total::toString);
+            final JsonObject requests = report.getAsJsonObject("requests");
+            Assertions.assertEquals(3, requests.getAsJsonObject("get-config").get("weight").getAsInt());
+            Assertions.assertEquals(1, requests.getAsJsonObject("get").get("weight").getAsInt());
+            Assertions.assertTrue(Files.size(output) > 0);
+            Assertions.assertTrue(Files.size(histogramLog) > 0);
+        }
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright (c) 2024 PANTHEON.tech, s.r.o. and others. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at https://www.eclipse.org/legal/epl-v10.html
+ */
+package io.lighty.netconf.device.benchmarks.load;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.opendaylight.netconf.api.messages.NetconfMessage;
+import org.opendaylight.netconf.api.xml.XmlNetconfConstants;
+import org.w3c.dom.Element;
+
+public class RequestMixTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void testWeightsAreParsedInOrder() throws Exception {
+        final RequestMix requestMix = RequestMix.parse(" get-config=70, get = 20 ");
+        Assertions.assertEquals(List.of("get-config", "get"), List.copyOf(requestMix.getWeights().keySet()));
+        Assertions.assertEquals(Map.of("get-config", 70, "get", 20), requestMix.getWeights());
+    }
+
+    @Test
+    public void testWeightDefaultsToOne() throws Exception {
+        Assertions.assertEquals(Map.of("get", 1), RequestMix.parse("get").getWeights());
+    }
+
+    @Test
+    public void testInvalidMixIsRejected() {
+        for (final String mix : List.of("", " , ", "get=0", "get=-1", "get=often", "get,get=2", "missing.xml")) {
+            Assertions.assertThrows(IllegalArgumentException.class, () -> RequestMix.parse(mix), mix);
+        }
+    }
+
+    @Test
+    public void testRequestIsLoadedFromFile() throws Exception {
+        final Path request = tempDir.resolve("lock.xml");
+        Files.writeString(request, "<rpc xmlns=\"urn:ietf:params:xml:ns:netconf:base:1.0\"><lock><target>"
+            + "<running/></target></lock></rpc>", StandardCharsets.UTF_8);
+        final RequestMix requestMix = RequestMix.parse(request + "=5");
+        Assertions.assertEquals(Map.of(request.toString(), 5), requestMix.getWeights());
+
+        final Element rpc = requestMix.next().createMessage("1").getDocument().getDocumentElement();
+        Assertions.assertEquals("lock", rpc.getFirstChild().getLocalName());
+    }
+
+    @Test
+    public void testFileWithoutRpcIsRejected() throws Exception {
+        final Path request = tempDir.resolve("get.xml");
+        Files.writeString(request, "<get xmlns=\"urn:ietf:params:xml:ns:netconf:base:1.0\"/>",
+            StandardCharsets.UTF_8);
+        Assertions.assertThrows(IllegalArgumentException.class, () -> RequestMix.parse(request.toString()));
+    }
+
+    @Test
+    public void testAllRequestsOfMixArePicked() throws Exception {
+        final RequestMix requestMix = RequestMix.parse("get-config=1,get=1");
+        final Set<String> picked = new HashSet<>();
+        for (int i = 0; i < 1_000 && picked.size() < 2; i++) {
+            picked.add(requestMix.next().getName());
+        }
+        Assertions.assertEquals(Set.of("get-config", "get"), picked);
+    }
+
+    @Test
+    public void testMessagesHaveOwnMessageId() throws Exception {
+        final RequestMix.RequestTemplate template = RequestMix.parse("get").next();
+        final NetconfMessage first = template.createMessage("session-0-1");
+        final NetconfMessage second = template.createMessage("session-0-2");
+
+        Assertions.assertEquals("session-0-1",
+            first.getDocument().getDocumentElement().getAttribute(XmlNetconfConstants.MESSAGE_ID));
+        Assertions.assertEquals("session-0-2",
+            second.getDocument().getDocumentElement().getAttribute(XmlNetconfConstants.MESSAGE_ID));
+        Assertions.assertEquals("get", first.getDocument().getDocumentElement().getFirstChild().getLocalName());
+    }
+}
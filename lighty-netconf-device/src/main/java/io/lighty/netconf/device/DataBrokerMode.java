@@ -0,0 +1,26 @@
+/*
+ * Copyright (c) 2020 PANTHEON.tech s.r.o. All Rights Reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at https://www.eclipse.org/legal/epl-v10.html
+ */
+package io.lighty.netconf.device;
+
+/**
+ * Commit coordination strategy of the device DOM data broker.
+ */
+public enum DataBrokerMode {
+
+    /**
+     * All commits are coordinated by single thread, one after another, regardless of the datastore they target.
+     */
+    SERIALIZED,
+
+    /**
+     * Commits targeting different datastores are coordinated concurrently, commits targeting the same datastore
+     * are still applied in the order of their submission. There are just two lanes, configuration commits are not
+     * split by subtree, as each datastore is a single in-memory data tree.
+     */
+    CONCURRENT
+}
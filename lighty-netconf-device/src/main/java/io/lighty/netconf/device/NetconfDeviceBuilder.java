@@ -7,45 +7,86 @@
  */
 package io.lighty.netconf.device;
 
+import com.google.common.base.Preconditions;
+import com.google.common.collect.Sets;
+import io.lighty.netconf.device.metrics.RequestMetrics;
+import io.lighty.netconf.device.requests.CancelCommitRequestProcessor;
 import io.lighty.netconf.device.requests.CommitRequestProcessor;
 import io.lighty.netconf.device.requests.DeleteConfigRequestProcessor;
+import io.lighty.netconf.device.requests.DiscardChangesRequestProcessor;
 import io.lighty.netconf.device.requests.EditConfigRequestProcessor;
 import io.lighty.netconf.device.requests.GetConfigRequestProcessor;
 import io.lighty.netconf.device.requests.GetRequestProcessor;
+import io.lighty.netconf.device.requests.GetSchemaRequestProcessor;
+import io.lighty.netconf.device.requests.LockRequestProcessor;
 import io.lighty.netconf.device.requests.RequestProcessor;
+import io.lighty.netconf.device.requests.UnlockRequestProcessor;
+import io.lighty.netconf.device.requests.ValidateRequestProcessor;
 import io.lighty.netconf.device.requests.notification.CreateSubscriptionRequestProcessor;
 import io.lighty.netconf.device.requests.notification.NotificationPublishServiceImpl;
+import io.lighty.netconf.device.requests.notification.NotificationReplayBuffer;
+import io.lighty.netconf.device.requests.notification.SlowConsumerPolicy;
+import io.lighty.netconf.device.utils.CachingYangParserFactory;
 import io.lighty.netconf.device.utils.ModelUtils;
 import java.io.File;
+import java.nio.file.Path;
+import java.time.Duration;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
 import org.opendaylight.netconf.auth.AuthProvider;
+import org.opendaylight.netconf.server.NetconfServerSessionNegotiatorFactory;
 import org.opendaylight.netconf.shaded.sshd.server.auth.pubkey.PublickeyAuthenticator;
+import org.opendaylight.netconf.test.tool.config.Configuration;
 import org.opendaylight.netconf.test.tool.config.ConfigurationBuilder;
 import org.opendaylight.netconf.test.tool.rpchandler.RpcHandler;
 import org.opendaylight.yangtools.binding.meta.YangModuleInfo;
 import org.opendaylight.yangtools.yang.common.QName;
+import org.opendaylight.yangtools.yang.parser.api.YangParserFactory;
+import org.opendaylight.yangtools.yang.parser.impl.DefaultYangParserFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 public class NetconfDeviceBuilder {
 
+    private static final Logger LOG = LoggerFactory.getLogger(NetconfDeviceBuilder.class);
+
     private Set<YangModuleInfo> moduleInfos;
     private ConfigurationBuilder configurationBuilder;
     private File operationalData;
     private File configurationData;
-    private Map<QName, RequestProcessor> requestProcessors;
+    private Map<QName, Supplier<? extends RequestProcessor>> requestProcessors;
+    private Set<QName> sharedRequestProcessors;
     private Set<String> allCapabilities;
-    private NotificationPublishServiceImpl creator;
+    private boolean notificationsEnabled;
+    private int notificationQueueCapacity;
+    private SlowConsumerPolicy slowConsumerPolicy;
+    private int replayMaxNotifications;
+    private long replayMaxBytes;
+    private boolean replayOffHeap;
     private boolean netconfMonitoringEnabled;
+    private DataBrokerMode dataBrokerMode;
+    private boolean isolatedDatastores;
+    private YangParserFactory yangParserFactory;
+    private Duration persistenceDelay;
+    private RequestMetrics requestMetrics;
 
     public NetconfDeviceBuilder() {
         this.configurationBuilder = new ConfigurationBuilder();
         this.requestProcessors = new HashMap<>();
+        this.sharedRequestProcessors = new HashSet<>();
         this.moduleInfos = new HashSet<>();
         this.allCapabilities = new HashSet<>();
         this.netconfMonitoringEnabled = true;
+        this.notificationQueueCapacity = NotificationPublishServiceImpl.DEFAULT_QUEUE_CAPACITY;
+        this.slowConsumerPolicy = NotificationPublishServiceImpl.DEFAULT_SLOW_CONSUMER_POLICY;
+        this.dataBrokerMode = DataBrokerMode.SERIALIZED;
+        this.yangParserFactory = new DefaultYangParserFactory();
     }
 
     public NetconfDeviceBuilder setCredentials(String userName, String password) {
@@ -91,33 +132,55 @@ public class NetconfDeviceBuilder {
         return this;
     }
 
+    /**
+     * Registers processors of get, get-config, edit-config, commit and delete-config operations. Get and get-config
+     * honor XPath filters, so the :xpath capability is supported, though the server of the testtool cannot advertise
+     * it in the hello message.
+     * @return this Builder
+     */
     public NetconfDeviceBuilder withDefaultRequestProcessors() {
-        GetRequestProcessor getRequestProcessor = new GetRequestProcessor();
-        this.requestProcessors.put(getRequestProcessor.getIdentifier(), getRequestProcessor);
-
-        GetConfigRequestProcessor getConfigRequestProcessor = new GetConfigRequestProcessor();
-        this.requestProcessors.put(getConfigRequestProcessor.getIdentifier(), getConfigRequestProcessor);
-
-        EditConfigRequestProcessor editConfigRequestProcessor = new EditConfigRequestProcessor();
-        this.requestProcessors.put(editConfigRequestProcessor.getIdentifier(), editConfigRequestProcessor);
-
-        CommitRequestProcessor commitRequestProcessor = new CommitRequestProcessor();
-        this.requestProcessors.put(commitRequestProcessor.getIdentifier(), commitRequestProcessor);
-
-        DeleteConfigRequestProcessor deleteConfigRequestProcessor = new DeleteConfigRequestProcessor();
-        this.requestProcessors.put(deleteConfigRequestProcessor.getIdentifier(), deleteConfigRequestProcessor);
-
+        this.allCapabilities.add(ModelUtils.XPATH_CAPABILITY);
+        withRequestProcessorFactory(GetRequestProcessor.GET, GetRequestProcessor::new);
+        withRequestProcessorFactory(GetConfigRequestProcessor.GET_CONFIG, GetConfigRequestProcessor::new);
+        withRequestProcessorFactory(EditConfigRequestProcessor.EDIT_CONFIG, EditConfigRequestProcessor::new);
+        withRequestProcessorFactory(CommitRequestProcessor.COMMIT, CommitRequestProcessor::new);
+        withRequestProcessorFactory(DeleteConfigRequestProcessor.DELETE_CONFIG, DeleteConfigRequestProcessor::new);
         return this;
     }
 
+    /**
+     * Registers request processor instance. The instance is bound to services of the device on initialization,
+     * therefore it cannot be used by devices with isolated datastores, use
+     * {@link #withRequestProcessorFactory(QName, Supplier)} for them instead.
+     * @param requestProcessor request processor
+     * @return this Builder
+     */
     public NetconfDeviceBuilder withRequestProcessor(RequestProcessor requestProcessor) {
-        this.requestProcessors.put(requestProcessor.getIdentifier(), requestProcessor);
+        this.requestProcessors.put(requestProcessor.getIdentifier(), () -> requestProcessor);
+        this.sharedRequestProcessors.add(requestProcessor.getIdentifier());
+        return this;
+    }
+
+    /**
+     * Registers factory of request processor. Each device created by this builder gets its own processor
+     * instance.
+     * @param identifier operation handled by the processors, must match their {@link RequestProcessor#getIdentifier()}
+     * @param requestProcessorFactory factory creating new request processor instance on each call
+     * @return this Builder
+     */
+    public NetconfDeviceBuilder withRequestProcessorFactory(QName identifier,
+        Supplier<? extends RequestProcessor> requestProcessorFactory) {
+        this.requestProcessors.put(Objects.requireNonNull(identifier), Objects.requireNonNull(requestProcessorFactory));
+        this.sharedRequestProcessors.remove(identifier);
         return this;
     }
 
     public NetconfDeviceBuilder withRequestProcessors(
         Map<QName, RequestProcessor> paramRequestProcessors) {
-        this.requestProcessors.putAll(paramRequestProcessors);
+        paramRequestProcessors.forEach((identifier, requestProcessor) -> {
+            this.requestProcessors.put(identifier, () -> requestProcessor);
+            this.sharedRequestProcessors.add(identifier);
+        });
         return this;
     }
 
@@ -128,6 +191,8 @@ public class NetconfDeviceBuilder {
 
     public NetconfDeviceBuilder withDefaultNotificationProcessor() {
         this.allCapabilities.add(ModelUtils.DEFAULT_NOTIFICATION_CAPABILITY);
+        // other operations are handled while the session is subscribed
+        this.allCapabilities.add(ModelUtils.INTERLEAVE_CAPABILITY);
         //TODO This model shouldn't be needed anymore and should be provided internally
         // based on the notification capability alone, but it turned it's still needed.
         //  Created issue for it https://jira.opendaylight.org/browse/NETCONF-754 so keep checking on it.
@@ -135,8 +200,75 @@ public class NetconfDeviceBuilder {
                 org.opendaylight.yang.svc.v1.urn.ietf.params.xml.ns.netconf
                         .notification._1._0.rev080714.YangModuleInfoImpl.getInstance();
         this.moduleInfos.add(netconfNotificationModel);
-        this.withRequestProcessor(new CreateSubscriptionRequestProcessor());
-        this.creator = new NotificationPublishServiceImpl();
+        // netconf/streams, with the replay support of the default stream
+        this.moduleInfos.add(org.opendaylight.yang.svc.v1.urn.ietf.params.xml.ns.netmod.notification.rev080714
+            .YangModuleInfoImpl.getInstance());
+        this.withRequestProcessorFactory(CreateSubscriptionRequestProcessor.CREATE_SUBSCRIPTION,
+            CreateSubscriptionRequestProcessor::new);
+        this.notificationsEnabled = true;
+        return this;
+    }
+
+    /**
+     * Enables candidate configuration datastore (RFC 6241 section 8.3). Edit-config and get-config can target
+     * candidate, whose changes are applied to running by commit or dropped by discard-changes. Registers processors
+     * of lock, unlock, discard-changes and validate operations. Without it the candidate advertised by the testtool
+     * is an alias of running and commit does nothing.
+     * @return this Builder
+     */
+    public NetconfDeviceBuilder withCandidateDatastore() {
+        this.allCapabilities.add(ModelUtils.CANDIDATE_CAPABILITY);
+        this.allCapabilities.add(ModelUtils.VALIDATE_CAPABILITY);
+        this.withRequestProcessorFactory(LockRequestProcessor.LOCK, LockRequestProcessor::new);
+        this.withRequestProcessorFactory(UnlockRequestProcessor.UNLOCK, UnlockRequestProcessor::new);
+        this.withRequestProcessorFactory(DiscardChangesRequestProcessor.DISCARD_CHANGES,
+            DiscardChangesRequestProcessor::new);
+        this.withRequestProcessorFactory(ValidateRequestProcessor.VALIDATE, ValidateRequestProcessor::new);
+        return this;
+    }
+
+    /**
+     * Enables confirmed commit of the candidate (RFC 6241 section 8.4), together with the candidate datastore.
+     * Confirmed commit is rolled back unless it is confirmed before its timeout, or earlier by cancel-commit.
+     * @return this Builder
+     */
+    public NetconfDeviceBuilder withConfirmedCommit() {
+        this.withCandidateDatastore();
+        this.allCapabilities.add(ModelUtils.CONFIRMED_COMMIT_CAPABILITY);
+        this.withRequestProcessorFactory(CancelCommitRequestProcessor.CANCEL_COMMIT, CancelCommitRequestProcessor::new);
+        return this;
+    }
+
+    /**
+     * Sets bounds of notification delivery. Notifications are queued for each subscribed session and sent
+     * asynchronously, a session which does not keep up fills its queue. Default is a queue of
+     * {@value NotificationPublishServiceImpl#DEFAULT_QUEUE_CAPACITY} notifications dropping the oldest ones.
+     * @param queueCapacity maximum number of notifications queued for a session
+     * @param policy handling of notifications published to a full queue
+     * @return this Builder
+     */
+    public NetconfDeviceBuilder withNotificationQueue(int queueCapacity, SlowConsumerPolicy policy) {
+        Preconditions.checkArgument(queueCapacity > 0, "Notification queue capacity must be positive");
+        this.notificationQueueCapacity = queueCapacity;
+        this.slowConsumerPolicy = Objects.requireNonNull(policy);
+        return this;
+    }
+
+    /**
+     * Keeps recently published notifications for replay requested by create-subscription with startTime
+     * (RFC 5277). Notifications are kept serialized, the oldest ones are evicted when either bound is exceeded.
+     * Replay is disabled by default, subscriptions with startTime are rejected.
+     * @param maxNotifications maximum number of kept notifications
+     * @param maxBytes maximum total size of the kept notifications in bytes
+     * @param offHeap true to keep the notifications in direct buffers outside of the heap
+     * @return this Builder
+     */
+    public NetconfDeviceBuilder withNotificationReplay(int maxNotifications, long maxBytes, boolean offHeap) {
+        Preconditions.checkArgument(maxNotifications > 0, "Maximum number of replayed notifications must be positive");
+        Preconditions.checkArgument(maxBytes > 0, "Maximum size of replayed notifications must be positive");
+        this.replayMaxNotifications = maxNotifications;
+        this.replayMaxBytes = maxBytes;
+        this.replayOffHeap = offHeap;
         return this;
     }
 
@@ -152,17 +284,83 @@ public class NetconfDeviceBuilder {
         return this;
     }
 
+    /**
+     * Sets the commit coordination strategy of the device data broker. Default is
+     * {@link DataBrokerMode#SERIALIZED}.
+     * @param mode data broker mode
+     * @return this Builder
+     */
+    public NetconfDeviceBuilder setDataBrokerMode(DataBrokerMode mode) {
+        this.dataBrokerMode = Objects.requireNonNull(mode);
+        return this;
+    }
+
     public NetconfDeviceBuilder setBindingPort(int port) {
         this.configurationBuilder.setStartingPort(port);
         return this;
     }
 
-    // FIXME All created devices share the same datastore. Each simulated devices must have a separate datastore space.
+    /**
+     * Sets number of simulated devices, each of them listens on its own port starting from the binding port.
+     * Devices share the same datastores unless {@link #withIsolatedDatastores(boolean)} is enabled.
+     * @param deviceCount number of simulated devices
+     * @return this Builder
+     */
     public NetconfDeviceBuilder setDeviceCount(int deviceCount) {
         this.configurationBuilder.setDeviceCount(deviceCount);
         return this;
     }
 
+    /**
+     * Method sets isolatedDatastores flag which indicates if each of the simulated devices gets its own
+     * configuration and operational datastore. Model and codecs are still shared by all devices. Request
+     * processors of such devices must be registered by {@link #withRequestProcessorFactory(QName, Supplier)}.
+     * @param enabled specifies if devices should have isolated datastores
+     * @return this Builder
+     */
+    public NetconfDeviceBuilder withIsolatedDatastores(boolean enabled) {
+        this.isolatedDatastores = enabled;
+        return this;
+    }
+
+    /**
+     * Sets directory where parsed YANG sources of the models are kept between device starts. Sources found
+     * in the directory are not parsed again, which shortens the start of devices with big models. Entries
+     * are keyed by the content of the source, changed models are parsed and stored again.
+     * @param cacheDirectory directory of the parsed sources, created when missing
+     * @return this Builder
+     */
+    public NetconfDeviceBuilder setModelCacheDirectory(Path cacheDirectory) {
+        this.yangParserFactory = new CachingYangParserFactory(new DefaultYangParserFactory(), cacheDirectory);
+        return this;
+    }
+
+    /**
+     * Enables persistence of the datastores into the files they were initialized from. Changes are written
+     * while the device runs, at most one snapshot per datastore is written within the delay. Without it,
+     * the datastores are saved on close only. Devices with isolated datastores share the files, so persistence
+     * cannot be combined with {@link #withIsolatedDatastores(boolean)} for more than one device.
+     * @param delay delay between a change of a datastore and writing of its snapshot
+     * @return this Builder
+     */
+    public NetconfDeviceBuilder withDatastorePersistence(Duration delay) {
+        Preconditions.checkArgument(!delay.isNegative(), "Persistence delay must not be negative");
+        this.persistenceDelay = delay;
+        return this;
+    }
+
+    /**
+     * Enables measurement of the request processing, every processed request is reported to the given metrics.
+     * Use {@link io.lighty.netconf.device.metrics.DefaultRequestMetrics} to keep the measurements in memory, or
+     * an own implementation passing them to a metrics library. Requests are not measured by default.
+     * @param metrics receiver of the measurements, shared by all devices created by this builder
+     * @return this Builder
+     */
+    public NetconfDeviceBuilder withRequestMetrics(RequestMetrics metrics) {
+        this.requestMetrics = Objects.requireNonNull(metrics);
+        return this;
+    }
+
     public NetconfDeviceBuilder setThreadPoolSize(int threadPoolSize) {
         this.configurationBuilder.setThreadPoolSize(threadPoolSize);
         return this;
@@ -171,22 +369,82 @@ public class NetconfDeviceBuilder {
     /**
      * Generates new {@link NetconfDevice} instance based on specified builder attributes.
      * If netconf-monitoring flag was set to enabled,
-     * netconf-monitoring YANG model will be loaded along with specified models.
+     * netconf-monitoring YANG model will be loaded along with specified models
+     * and get-schema will be served unless another processor was registered for it.
      * @return new implementation of NetconfDevice
      */
     public NetconfDevice build() {
-        this.configurationBuilder.setCapabilities(this.allCapabilities);
+        // the server of the testtool accepts just base capabilities, it advertises those of the models and :candidate
+        // on its own and has no way to advertise any other
+        this.configurationBuilder.setCapabilities(Sets.intersection(this.allCapabilities,
+            NetconfServerSessionNegotiatorFactory.DEFAULT_BASE_CAPABILITIES));
+        final Set<String> unadvertised = Sets.difference(this.allCapabilities,
+            Sets.union(NetconfServerSessionNegotiatorFactory.DEFAULT_BASE_CAPABILITIES,
+                Set.of(ModelUtils.CANDIDATE_CAPABILITY)));
+        if (!unadvertised.isEmpty()) {
+            LOG.info("Capabilities {} are supported but cannot be advertised in hello message", unadvertised);
+        }
         if (netconfMonitoringEnabled) {
             YangModuleInfo netconfMonitoringModule =
                 org.opendaylight.yang.svc.v1.urn.ietf.params.xml.ns.yang.ietf.netconf.monitoring
                     .rev101004.YangModuleInfoImpl.getInstance();
             this.moduleInfos.add(netconfMonitoringModule);
+            this.requestProcessors.putIfAbsent(GetSchemaRequestProcessor.GET_SCHEMA, GetSchemaRequestProcessor::new);
         }
         this.configurationBuilder.setGetDefaultYangResources(Collections.emptySet());
         this.configurationBuilder.setModels(moduleInfos);
-        return new NetconfDeviceImpl(moduleInfos, configurationBuilder.build(),
-            operationalData, configurationData, requestProcessors, creator,
-            netconfMonitoringEnabled);
+        final Configuration configuration = configurationBuilder.build();
+        if (isolatedDatastores && configuration.getDeviceCount() > 1) {
+            Preconditions.checkState(persistenceDelay == null,
+                "Datastore persistence cannot be used by devices with isolated datastores, they would share files");
+            Preconditions.checkState(sharedRequestProcessors.isEmpty(),
+                "Request processors %s are registered as instances and cannot be shared by devices with isolated "
+                    + "datastores, register them by withRequestProcessorFactory", sharedRequestProcessors);
+            return new NetconfDeviceGroup(configuration, operationalData, configurationData,
+                this::createNetconfDeviceServices, this::createRequestProcessors,
+                this::createNotificationPublishService, netconfMonitoringEnabled, requestMetrics);
+        }
+        final NotificationPublishServiceImpl creator = createNotificationPublishService();
+        final NetconfDeviceImpl device = new NetconfDeviceImpl(createNetconfDeviceServices(creator), configuration,
+            operationalData, configurationData, createRequestProcessors(), creator, netconfMonitoringEnabled,
+            requestMetrics);
+        if (persistenceDelay != null) {
+            device.enableDatastorePersistence(persistenceDelay);
+        }
+        return device;
+    }
+
+    private NetconfDeviceServices createNetconfDeviceServices(NotificationPublishServiceImpl creator) {
+        return configureServices(new NetconfDeviceServicesImpl(moduleInfos, yangParserFactory, creator,
+            dataBrokerMode));
+    }
+
+    private NetconfDeviceServices createNetconfDeviceServices(NotificationPublishServiceImpl creator,
+            Executor commitExecutor) {
+        return configureServices(new NetconfDeviceServicesImpl(moduleInfos, yangParserFactory, creator,
+            dataBrokerMode, commitExecutor));
+    }
+
+    private NetconfDeviceServices configureServices(NetconfDeviceServicesImpl services) {
+        services.setCandidateEnabled(allCapabilities.contains(ModelUtils.CANDIDATE_CAPABILITY));
+        services.setConfirmedCommitEnabled(allCapabilities.contains(ModelUtils.CONFIRMED_COMMIT_CAPABILITY));
+        return services;
+    }
+
+    private Map<QName, RequestProcessor> createRequestProcessors() {
+        final Map<QName, RequestProcessor> processors = new HashMap<>();
+        this.requestProcessors.forEach((identifier, factory) -> processors.put(identifier, factory.get()));
+        return processors;
+    }
+
+    private NotificationPublishServiceImpl createNotificationPublishService() {
+        if (!notificationsEnabled) {
+            return null;
+        }
+        // each device replays the notifications it published
+        final NotificationReplayBuffer replayBuffer = replayMaxNotifications > 0
+            ? new NotificationReplayBuffer(replayMaxNotifications, replayMaxBytes, replayOffHeap) : null;
+        return new NotificationPublishServiceImpl(notificationQueueCapacity, slowConsumerPolicy, replayBuffer);
     }
 
 }
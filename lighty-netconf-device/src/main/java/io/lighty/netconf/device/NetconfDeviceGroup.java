@@ -0,0 +1,123 @@
+/*
+ * Copyright (c) 2020 PANTHEON.tech s.r.o. All Rights Reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at https://www.eclipse.org/legal/epl-v10.html
+ */
+package io.lighty.netconf.device;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import io.lighty.netconf.device.metrics.RequestMetrics;
+import io.lighty.netconf.device.requests.RequestProcessor;
+import io.lighty.netconf.device.requests.notification.NotificationPublishServiceImpl;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.BiFunction;
+import java.util.function.Supplier;
+import org.opendaylight.netconf.test.tool.config.Configuration;
+import org.opendaylight.netconf.test.tool.config.ConfigurationBuilder;
+import org.opendaylight.yangtools.yang.common.QName;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Group of simulated NETCONF devices, each listening on its own port and having its own configuration and
+ * operational datastore. The model, binding codecs and XML converter are created once and shared by all devices
+ * through {@link io.lighty.netconf.device.utils.AdapterContextCache}. Devices listen through a single
+ * {@link NetconfDeviceGroupServer}, so event loops and SSH server resources are not created per device, and their
+ * commits are executed by a commit executor of the group.
+ *
+ * <p>Every device gets its own request processor instances and its own notification publish service, since both
+ * are bound to the device services on initialization. Neither of them starts any thread. Request metrics, when set,
+ * are shared by all devices.
+ */
+public class NetconfDeviceGroup implements NetconfDevice {
+
+    private static final Logger LOG = LoggerFactory.getLogger(NetconfDeviceGroup.class);
+
+    private final List<NetconfDeviceImpl> devices;
+    private final ExecutorService commitExecutor;
+    private NetconfDeviceGroupServer server;
+
+    NetconfDeviceGroup(Configuration config, File operationalData, File configurationData,
+            BiFunction<NotificationPublishServiceImpl, Executor, NetconfDeviceServices> servicesFactory,
+            Supplier<Map<QName, RequestProcessor>> requestProcessorsFactory,
+            Supplier<NotificationPublishServiceImpl> creatorFactory,
+            boolean netconfMonitoringEnabled, RequestMetrics requestMetrics) {
+        final int deviceCount = config.getDeviceCount();
+        this.devices = new ArrayList<>(deviceCount);
+        this.commitExecutor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(),
+            new ThreadFactoryBuilder().setNameFormat("netconf-device-group-commit-%d").setDaemon(true).build());
+        for (int i = 0; i < deviceCount; i++) {
+            final Configuration deviceConfig = new ConfigurationBuilder()
+                .from(config)
+                .setStartingPort(config.getStartingPort() + i)
+                .setDeviceCount(1)
+                .build();
+            final NotificationPublishServiceImpl creator = creatorFactory.get();
+            // all devices have the same models, so they get the same adapter context from the cache
+            final NetconfDeviceServices services = servicesFactory.apply(creator, commitExecutor);
+            if (server == null) {
+                // so they also share the schema index the capabilities are computed from
+                server = new NetconfDeviceGroupServer(config, services.getSchemaIndex());
+            }
+            final NetconfDeviceImpl device = new NetconfDeviceImpl(services, deviceConfig, operationalData,
+                configurationData, requestProcessorsFactory.get(), creator, netconfMonitoringEnabled, requestMetrics,
+                server);
+            // all devices are initialized from the same files, none of them may overwrite them
+            device.disableDatastoreSaving();
+            devices.add(device);
+        }
+    }
+
+    @Override
+    public void start() {
+        LOG.info("Starting {} Netconf devices with isolated datastores", devices.size());
+        devices.forEach(NetconfDevice::start);
+    }
+
+    /**
+     * Provides services of the first device in the group. Services of other devices are available
+     * through {@link #getDevices()}.
+     */
+    @Override
+    public NetconfDeviceServices getNetconfDeviceServices() {
+        return devices.get(0).getNetconfDeviceServices();
+    }
+
+    /**
+     * Provides devices of this group, ordered by their port.
+     */
+    public List<NetconfDevice> getDevices() {
+        return Collections.unmodifiableList(devices);
+    }
+
+    @Override
+    @SuppressWarnings("checkstyle:IllegalCatch")
+    public void close() throws Exception {
+        Exception failure = null;
+        for (final NetconfDevice device : devices) {
+            try {
+                device.close();
+            } catch (Exception e) {
+                if (failure == null) {
+                    failure = e;
+                } else {
+                    failure.addSuppressed(e);
+                }
+            }
+        }
+        server.close();
+        commitExecutor.shutdown();
+        if (failure != null) {
+            throw failure;
+        }
+    }
+}
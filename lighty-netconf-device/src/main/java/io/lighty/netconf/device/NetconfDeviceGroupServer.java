@@ -0,0 +1,212 @@
+/*
+ * Copyright (c) 2020 PANTHEON.tech s.r.o. All Rights Reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at https://www.eclipse.org/legal/epl-v10.html
+ */
+package io.lighty.netconf.device;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import io.lighty.netconf.device.monitoring.SchemaIndex;
+import io.lighty.netconf.device.utils.ModelUtils;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.NoSuchAlgorithmException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import org.eclipse.jdt.annotation.Nullable;
+import org.opendaylight.netconf.auth.AuthProvider;
+import org.opendaylight.netconf.common.di.DefaultNetconfTimer;
+import org.opendaylight.netconf.server.ServerTransportInitializer;
+import org.opendaylight.netconf.server.api.SessionIdProvider;
+import org.opendaylight.netconf.server.api.monitoring.BasicCapability;
+import org.opendaylight.netconf.server.api.monitoring.Capability;
+import org.opendaylight.netconf.server.api.monitoring.YangModuleCapability;
+import org.opendaylight.netconf.server.impl.DefaultSessionIdProvider;
+import org.opendaylight.netconf.server.osgi.AggregatedNetconfOperationServiceFactory;
+import org.opendaylight.netconf.shaded.sshd.common.keyprovider.KeyPairProvider;
+import org.opendaylight.netconf.shaded.sshd.server.auth.UserAuthFactory;
+import org.opendaylight.netconf.shaded.sshd.server.auth.password.UserAuthPasswordFactory;
+import org.opendaylight.netconf.shaded.sshd.server.auth.pubkey.PublickeyAuthenticator;
+import org.opendaylight.netconf.shaded.sshd.server.auth.pubkey.UserAuthPublicKeyFactory;
+import org.opendaylight.netconf.test.tool.DummyMonitoringService;
+import org.opendaylight.netconf.test.tool.TesttoolNegotiationFactory;
+import org.opendaylight.netconf.test.tool.config.Configuration;
+import org.opendaylight.netconf.test.tool.monitoring.NetconfMonitoringOperationServiceFactory;
+import org.opendaylight.netconf.test.tool.operations.DefaultOperationsCreator;
+import org.opendaylight.netconf.test.tool.operations.OperationsProvider;
+import org.opendaylight.netconf.test.tool.rpchandler.SettableOperationRpcProvider;
+import org.opendaylight.netconf.transport.api.TransportStack;
+import org.opendaylight.netconf.transport.api.UnsupportedConfigurationException;
+import org.opendaylight.netconf.transport.ssh.SSHTransportStackFactory;
+import org.opendaylight.netconf.transport.ssh.ServerFactoryManagerConfigurator;
+import org.opendaylight.netconf.transport.tcp.TCPServer;
+import org.opendaylight.yang.gen.v1.urn.ietf.params.xml.ns.yang.ietf.inet.types.rev130715.IetfInetUtil;
+import org.opendaylight.yang.gen.v1.urn.ietf.params.xml.ns.yang.ietf.inet.types.rev130715.IpAddress;
+import org.opendaylight.yang.gen.v1.urn.ietf.params.xml.ns.yang.ietf.inet.types.rev130715.PortNumber;
+import org.opendaylight.yang.gen.v1.urn.ietf.params.xml.ns.yang.ietf.netconf.monitoring.rev101004.netconf.state.schemas.Schema;
+import org.opendaylight.yang.gen.v1.urn.ietf.params.xml.ns.yang.ietf.netconf.server.rev240814.netconf.server.listen.stack.grouping.transport.ssh.ssh.TcpServerParametersBuilder;
+import org.opendaylight.yang.gen.v1.urn.ietf.params.xml.ns.yang.ietf.tcp.server.rev241010.TcpServerGrouping;
+import org.opendaylight.yang.gen.v1.urn.ietf.params.xml.ns.yang.ietf.tcp.server.rev241010.tcp.server.grouping.LocalBindBuilder;
+import org.opendaylight.yangtools.binding.util.BindingMap;
+import org.opendaylight.yangtools.yang.common.Uint16;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * NETCONF server of devices in a {@link NetconfDeviceGroup}. It does what the testtool simulator does for a single
+ * device, but the event loops, the SSH host key, the session id provider and the timer are created once and used
+ * by the listeners of all devices. Capabilities of the models are computed once from the schema index shared
+ * by the devices, instead of parsing the models again for each device.
+ *
+ * <p>Each device keeps its own operation service factory, so requests received on its port are handled by its
+ * request processors and its datastores.
+ */
+final class NetconfDeviceGroupServer implements AutoCloseable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(NetconfDeviceGroupServer.class);
+
+    private final Configuration config;
+    private final SSHTransportStackFactory transportStackFactory;
+    private final DefaultNetconfTimer timer = new DefaultNetconfTimer();
+    private final SessionIdProvider sessionIdProvider = new DefaultSessionIdProvider();
+    private final IpAddress ipAddress;
+    private final @Nullable ServerFactoryManagerConfigurator sshConfigurator;
+    private final Set<Capability> capabilities;
+    private final DummyMonitoringService monitoringService;
+    private final NetconfMonitoringOperationServiceFactory monitoringOperationServiceFactory;
+
+    NetconfDeviceGroupServer(final Configuration config, final SchemaIndex schemaIndex) {
+        this.config = config;
+        this.transportStackFactory = new SSHTransportStackFactory("netconf-device-group-threads",
+            config.getThreadPoolSize());
+        this.ipAddress = ipAddress(config.getIp());
+        this.sshConfigurator = config.isSsh()
+            ? sshConfigurator(config.getAuthProvider(), config.getPublickeyAuthenticator(), generateHostKey())
+            : null;
+        this.capabilities = capabilities(schemaIndex);
+        // the monitoring service of the testtool has no state of its own, it just serves the capabilities
+        this.monitoringService = new DummyMonitoringService(capabilities);
+        this.monitoringOperationServiceFactory = new NetconfMonitoringOperationServiceFactory(monitoringService);
+    }
+
+    /**
+     * Starts listening on the port of given device configuration. Requests are handled by the operations creator
+     * and the RPC handler of the configuration.
+     *
+     * @param deviceConfig configuration of a single device of the group
+     * @return listener of the device, null when it could not be started
+     */
+    @Nullable TransportStack listen(final Configuration deviceConfig) {
+        final AggregatedNetconfOperationServiceFactory operationServiceFactory =
+            new AggregatedNetconfOperationServiceFactory();
+        operationServiceFactory.onAddNetconfOperationServiceFactory(new OperationsProvider(capabilities,
+            Objects.requireNonNullElseGet(deviceConfig.getOperationsCreator(), DefaultOperationsCreator::new)));
+        operationServiceFactory.onAddNetconfOperationServiceFactory(monitoringOperationServiceFactory);
+        operationServiceFactory.onAddNetconfOperationServiceFactory(
+            new SettableOperationRpcProvider(deviceConfig.getRpcHandler()));
+        final ServerTransportInitializer initializer = new ServerTransportInitializer(new TesttoolNegotiationFactory(
+            timer, operationServiceFactory, sessionIdProvider, config.getGenerateConfigsTimeout(),
+            monitoringService, config.getCapabilities()));
+
+        final int port = deviceConfig.getStartingPort();
+        final TcpServerGrouping connectionParams = connectionParams(ipAddress, port);
+        try {
+            if (sshConfigurator != null) {
+                return transportStackFactory.listenServer("netconf", initializer, connectionParams, null,
+                    sshConfigurator).get();
+            }
+            return TCPServer.listen(initializer, transportStackFactory.newServerBootstrap(), connectionParams).get();
+        } catch (UnsupportedConfigurationException | ExecutionException e) {
+            LOG.error("Could not start simulated device on port {}", port, e);
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            LOG.error("Interrupted while starting simulated device on port {}", port, e);
+            return null;
+        }
+    }
+
+    /**
+     * Stops given listener of a device, sessions of the device are closed.
+     */
+    void stop(final TransportStack listener) {
+        try {
+            listener.shutdown().get();
+        } catch (ExecutionException e) {
+            LOG.debug("Exception on simulated device shutdown", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            LOG.debug("Interrupted on simulated device shutdown", e);
+        }
+    }
+
+    @Override
+    public void close() {
+        transportStackFactory.close();
+        timer.close();
+    }
+
+    private static Set<Capability> capabilities(final SchemaIndex schemaIndex) {
+        final ImmutableSet.Builder<Capability> builder = ImmutableSet.builder();
+        builder.add(new BasicCapability(ModelUtils.CANDIDATE_CAPABILITY));
+        for (final Schema schema : schemaIndex.getSchemas().nonnullSchema().values()) {
+            final String version = schema.getVersion();
+            builder.add(new YangModuleCapability(schema.getNamespace().getValue(), schema.getIdentifier(),
+                version.isEmpty() ? null : version, schemaIndex.getSource(schema.getIdentifier(), version)
+                    .orElse("")));
+        }
+        return builder.build();
+    }
+
+    private static ServerFactoryManagerConfigurator sshConfigurator(final AuthProvider authProvider,
+            final @Nullable PublickeyAuthenticator publickeyAuthenticator, final KeyPair hostKey) {
+        final KeyPairProvider keyPairProvider = KeyPairProvider.wrap(hostKey);
+        return factoryManager -> {
+            final ImmutableList.Builder<UserAuthFactory> userAuthFactories = ImmutableList.builder();
+            userAuthFactories.add(new UserAuthPasswordFactory());
+            factoryManager.setPasswordAuthenticator(
+                (username, password, session) -> authProvider.authenticated(username, password));
+            if (publickeyAuthenticator != null) {
+                final UserAuthPublicKeyFactory publicKeyFactory = new UserAuthPublicKeyFactory();
+                publicKeyFactory.setSignatureFactories(factoryManager.getSignatureFactories());
+                userAuthFactories.add(publicKeyFactory);
+                factoryManager.setPublickeyAuthenticator(publickeyAuthenticator);
+            }
+            factoryManager.setUserAuthFactories(userAuthFactories.build());
+            factoryManager.setKeyPairProvider(keyPairProvider);
+        };
+    }
+
+    private static KeyPair generateHostKey() {
+        try {
+            final KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+            generator.initialize(2048);
+            return generator.generateKeyPair();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Unable to generate SSH host key", e);
+        }
+    }
+
+    private static IpAddress ipAddress(final String ip) {
+        try {
+            return IetfInetUtil.ipAddressFor(InetAddress.getByName(ip));
+        } catch (UnknownHostException e) {
+            throw new IllegalArgumentException("Invalid IP address " + ip, e);
+        }
+    }
+
+    private static TcpServerGrouping connectionParams(final IpAddress address, final int port) {
+        return new TcpServerParametersBuilder()
+            .setLocalBind(BindingMap.of(new LocalBindBuilder()
+                .setLocalAddress(address)
+                .setLocalPort(new PortNumber(Uint16.valueOf(port)))
+                .build()))
+            .build();
+    }
+}
@@ -8,87 +8,144 @@
 package io.lighty.netconf.device;
 
 import com.google.common.annotations.VisibleForTesting;
-import com.google.common.util.concurrent.FluentFuture;
-import io.lighty.codecs.util.XmlNodeConverter;
-import io.lighty.codecs.util.exception.DeserializationException;
-import io.lighty.codecs.util.exception.SerializationException;
+import io.lighty.netconf.device.datastore.DatastoreLocks;
+import io.lighty.netconf.device.datastore.DatastorePersistence;
+import io.lighty.netconf.device.datastore.InitialDatastoreLoader;
+import io.lighty.netconf.device.metrics.RequestMetrics;
+import io.lighty.netconf.device.monitoring.MonitoringOperationsCreator;
+import io.lighty.netconf.device.monitoring.NetconfStateMonitor;
+import io.lighty.netconf.device.requests.RequestContextOperationsCreator;
 import io.lighty.netconf.device.requests.RequestProcessor;
 import io.lighty.netconf.device.requests.RpcHandlerImpl;
 import io.lighty.netconf.device.requests.notification.NotificationPublishServiceImpl;
-import io.lighty.netconf.device.utils.TimeoutUtil;
-import java.io.BufferedWriter;
+import io.lighty.netconf.device.requests.notification.NotificationStreamsMonitor;
 import java.io.File;
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.InputStreamReader;
-import java.io.OutputStreamWriter;
-import java.io.Reader;
-import java.io.Writer;
-import java.nio.charset.Charset;
-import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Collection;
-import java.util.Collections;
-import java.util.HashMap;
-import java.util.LinkedList;
+import java.util.List;
 import java.util.Map;
-import java.util.Optional;
-import java.util.Queue;
+import java.util.Objects;
 import java.util.concurrent.ExecutionException;
-import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import org.eclipse.jdt.annotation.NonNull;
-import org.opendaylight.mdsal.binding.api.WriteTransaction;
-import org.opendaylight.mdsal.common.api.CommitInfo;
+import org.eclipse.jdt.annotation.Nullable;
 import org.opendaylight.mdsal.common.api.LogicalDatastoreType;
-import org.opendaylight.mdsal.dom.api.DOMDataTreeReadTransaction;
-import org.opendaylight.mdsal.dom.api.DOMDataTreeWriteTransaction;
 import org.opendaylight.netconf.test.tool.NetconfDeviceSimulator;
 import org.opendaylight.netconf.test.tool.config.Configuration;
-import org.opendaylight.yang.gen.v1.urn.ietf.params.xml.ns.yang.ietf.inet.types.rev130715.Uri;
-import org.opendaylight.yang.gen.v1.urn.ietf.params.xml.ns.yang.ietf.netconf.monitoring.rev101004.NetconfState;
-import org.opendaylight.yang.gen.v1.urn.ietf.params.xml.ns.yang.ietf.netconf.monitoring.rev101004.Yang;
-import org.opendaylight.yang.gen.v1.urn.ietf.params.xml.ns.yang.ietf.netconf.monitoring.rev101004.netconf.state.Schemas;
-import org.opendaylight.yang.gen.v1.urn.ietf.params.xml.ns.yang.ietf.netconf.monitoring.rev101004.netconf.state.SchemasBuilder;
-import org.opendaylight.yang.gen.v1.urn.ietf.params.xml.ns.yang.ietf.netconf.monitoring.rev101004.netconf.state.schemas.Schema;
-import org.opendaylight.yang.gen.v1.urn.ietf.params.xml.ns.yang.ietf.netconf.monitoring.rev101004.netconf.state.schemas.SchemaBuilder;
-import org.opendaylight.yang.gen.v1.urn.ietf.params.xml.ns.yang.ietf.netconf.monitoring.rev101004.netconf.state.schemas.SchemaKey;
-import org.opendaylight.yangtools.binding.DataObjectIdentifier;
+import org.opendaylight.netconf.test.tool.operations.DefaultOperationsCreator;
+import org.opendaylight.netconf.transport.api.TransportStack;
+import org.opendaylight.yang.gen.v1.urn.ietf.params.xml.ns.netmod.notification.rev080714.Netconf;
+import org.opendaylight.yang.gen.v1.urn.ietf.params.xml.ns.netconf.base._1._0.rev110601.SessionIdType;
 import org.opendaylight.yangtools.binding.meta.YangModuleInfo;
 import org.opendaylight.yangtools.yang.common.QName;
-import org.opendaylight.yangtools.yang.common.Revision;
-import org.opendaylight.yangtools.yang.data.api.YangInstanceIdentifier;
-import org.opendaylight.yangtools.yang.data.api.schema.NormalizedNode;
-import org.opendaylight.yangtools.yang.data.api.schema.NormalizedNodes;
-import org.opendaylight.yangtools.yang.model.api.EffectiveModelContext;
-import org.opendaylight.yangtools.yang.model.api.ModuleLike;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 public class NetconfDeviceImpl implements NetconfDevice {
 
     private static final Logger LOG = LoggerFactory.getLogger(NetconfDeviceImpl.class);
-    private static final long TIMEOUT_MILLIS = 30_000;
 
     private NetconfDeviceServices netconfDeviceServices;
     private NetconfDeviceSimulator netConfDeviceSimulator;
+    private final Configuration config;
+    private final @Nullable NetconfDeviceGroupServer groupServer;
+    private TransportStack groupListener;
+    private NotificationPublishServiceImpl notificationPublishService;
     private File operationalData;
     private File configurationData;
     private boolean netconfMonitoringEnabled;
+    private boolean saveDatastoreOnClose = true;
+    private Duration persistenceDelay;
+    private final List<DatastorePersistence> persistences = new ArrayList<>();
 
     public NetconfDeviceImpl(Collection<YangModuleInfo> moduleInfos, Configuration config,
             File operationalData, File configurationData,
             Map<QName, RequestProcessor> requestProcessors, NotificationPublishServiceImpl creator,
             boolean netconfMonitoringEnabled) {
+        this(moduleInfos, config, operationalData, configurationData, requestProcessors, creator,
+            netconfMonitoringEnabled, DataBrokerMode.SERIALIZED);
+    }
+
+    public NetconfDeviceImpl(Collection<YangModuleInfo> moduleInfos, Configuration config,
+            File operationalData, File configurationData,
+            Map<QName, RequestProcessor> requestProcessors, NotificationPublishServiceImpl creator,
+            boolean netconfMonitoringEnabled, DataBrokerMode dataBrokerMode) {
+        this(new NetconfDeviceServicesImpl(moduleInfos, creator, dataBrokerMode), config, operationalData,
+            configurationData, requestProcessors, creator, netconfMonitoringEnabled);
+    }
+
+    /**
+     * Creates device on top of already created services. Used by {@link NetconfDeviceGroup} to create devices
+     * which share the model and codecs but have their own datastores.
+     */
+    public NetconfDeviceImpl(NetconfDeviceServices netconfDeviceServices, Configuration config,
+            File operationalData, File configurationData,
+            Map<QName, RequestProcessor> requestProcessors, NotificationPublishServiceImpl creator,
+            boolean netconfMonitoringEnabled) {
+        this(netconfDeviceServices, config, operationalData, configurationData, requestProcessors, creator,
+            netconfMonitoringEnabled, null);
+    }
+
+    /**
+     * Creates device on top of already created services, processing of its requests is measured by given
+     * metrics.
+     */
+    public NetconfDeviceImpl(NetconfDeviceServices netconfDeviceServices, Configuration config,
+            File operationalData, File configurationData,
+            Map<QName, RequestProcessor> requestProcessors, NotificationPublishServiceImpl creator,
+            boolean netconfMonitoringEnabled, @Nullable RequestMetrics requestMetrics) {
+        this(netconfDeviceServices, config, operationalData, configurationData, requestProcessors, creator,
+            netconfMonitoringEnabled, requestMetrics, null);
+    }
+
+    /**
+     * Creates device of a {@link NetconfDeviceGroup}, it listens on its port through the server shared by the group
+     * instead of having a simulator of its own.
+     */
+    NetconfDeviceImpl(NetconfDeviceServices netconfDeviceServices, Configuration config,
+            File operationalData, File configurationData,
+            Map<QName, RequestProcessor> requestProcessors, NotificationPublishServiceImpl creator,
+            boolean netconfMonitoringEnabled, @Nullable RequestMetrics requestMetrics,
+            @Nullable NetconfDeviceGroupServer groupServer) {
         if (creator != null) {
             config.setOperationsCreator(creator);
         }
-        this.netconfDeviceServices = new NetconfDeviceServicesImpl(moduleInfos, creator);
+        this.notificationPublishService = creator;
+        this.netconfDeviceServices = netconfDeviceServices;
         this.operationalData = operationalData;
         this.configurationData = configurationData;
-        RpcHandlerImpl rpcHandler = new RpcHandlerImpl(netconfDeviceServices, requestProcessors);
+        NetconfStateMonitor netconfStateMonitor = null;
+        if (netconfMonitoringEnabled) {
+            netconfStateMonitor = new NetconfStateMonitor(netconfDeviceServices.getDataBroker(),
+                netconfDeviceServices.getSchemaIndex());
+            config.setOperationsCreator(new MonitoringOperationsCreator(
+                Objects.requireNonNullElseGet(config.getOperationsCreator(), DefaultOperationsCreator::new),
+                netconfStateMonitor));
+        }
+        RequestContextOperationsCreator requestContextCreator = new RequestContextOperationsCreator(
+            Objects.requireNonNullElseGet(config.getOperationsCreator(), DefaultOperationsCreator::new),
+            this::sessionClosed);
+        config.setOperationsCreator(requestContextCreator);
+        if (creator != null) {
+            creator.setCurrentSession(requestContextCreator::getCurrentSession);
+        }
+        NotificationStreamsMonitor notificationStreamsMonitor = null;
+        // streams are exposed by devices which have nc-notifications, it is added by the builder
+        if (creator != null && netconfDeviceServices.getAdapterContext().currentSerializer().getRuntimeContext()
+                .modelContext().findModule(Netconf.QNAME.getModule()).isPresent()) {
+            notificationStreamsMonitor = new NotificationStreamsMonitor(netconfDeviceServices.getDataBroker(),
+                creator.getReplayBuffer());
+        }
+        RpcHandlerImpl rpcHandler = new RpcHandlerImpl(netconfDeviceServices, requestProcessors, requestMetrics,
+            netconfStateMonitor, notificationStreamsMonitor, requestContextCreator::getCurrentSessionId);
         config.setRpcHandler(rpcHandler);
-        this.netConfDeviceSimulator = new NetconfDeviceSimulator(config);
+        this.config = config;
+        this.groupServer = groupServer;
+        if (groupServer == null) {
+            this.netConfDeviceSimulator = new NetconfDeviceSimulator(config);
+        }
         this.netconfMonitoringEnabled = netconfMonitoringEnabled;
     }
 
@@ -101,17 +158,18 @@ public class NetconfDeviceImpl implements NetconfDevice {
         if (configurationData != null && isNotEmpty(configurationData)) {
             initDatastore(LogicalDatastoreType.CONFIGURATION, configurationData);
         }
-        netConfDeviceSimulator.start();
+        if (groupServer != null) {
+            groupListener = groupServer.listen(config);
+        } else {
+            netConfDeviceSimulator.start();
+        }
         if (netconfMonitoringEnabled) {
-            try {
-                prepareSchemasForNetconfMonitoring().get(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
-                LOG.info("Netconf monitoring enabled successfully");
-            } catch (TimeoutException | ExecutionException e) {
-                LOG.error("Could not prepare Schemas to expose through NETCONF Monitoring", e);
-            } catch (InterruptedException e) {
-                LOG.error("Interrupted while preparing Schemas to expose through NETCONF Monitoring", e);
-                Thread.currentThread().interrupt();
-            }
+            // netconf-state is written by the monitor when it is read for the first time
+            LOG.info("Netconf monitoring enabled");
+        }
+        if (persistenceDelay != null && saveDatastoreOnClose) {
+            startPersistence(LogicalDatastoreType.CONFIGURATION, configurationData);
+            startPersistence(LogicalDatastoreType.OPERATIONAL, operationalData);
         }
         LOG.info("Netconf device started");
     }
@@ -120,16 +178,11 @@ public class NetconfDeviceImpl implements NetconfDevice {
     @SuppressWarnings("checkstyle:AvoidHidingCauseException")
     void initDatastore(LogicalDatastoreType datastoreType, File initialData) {
         LOG.debug("Setting up initial state of {} datastore from XML", datastoreType);
-        try (InputStream inputStream = initialData.toURI().toURL().openStream();
-            Reader reader = new InputStreamReader(inputStream, Charset.defaultCharset())) {
-            NormalizedNode initialDataBI = netconfDeviceServices.getXmlNodeConverter()
-                    .deserialize(netconfDeviceServices.getRootInference(), reader);
-            DOMDataTreeWriteTransaction writeTx = netconfDeviceServices.getDOMDataBroker().newWriteOnlyTransaction();
-            writeTx.put(datastoreType, YangInstanceIdentifier.of(), initialDataBI);
-            writeTx.commit().get(TimeoutUtil.TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
-            final String dataTreeString = NormalizedNodes.toStringTree(initialDataBI);
-            LOG.trace("Initial {} datastore data: {}", datastoreType, dataTreeString);
-        } catch (DeserializationException | IOException | ExecutionException | TimeoutException e) {
+        final InitialDatastoreLoader loader = new InitialDatastoreLoader(netconfDeviceServices.getDOMDataBroker(),
+            netconfDeviceServices.getAdapterContext().currentSerializer().getRuntimeContext().modelContext());
+        try {
+            loader.load(datastoreType, initialData);
+        } catch (IOException | ExecutionException | TimeoutException e) {
             throw new IllegalStateException(
                     String.format("Unable to set initial state of %s datastore from XML!", datastoreType), e);
         } catch (InterruptedException e) {
@@ -140,39 +193,53 @@ public class NetconfDeviceImpl implements NetconfDevice {
         }
     }
 
+    private void startPersistence(LogicalDatastoreType datastoreType, File file) {
+        if (file == null) {
+            return;
+        }
+        final DatastorePersistence persistence = new DatastorePersistence(netconfDeviceServices.getDOMDataBroker(),
+            netconfDeviceServices.getXmlNodeConverter().getModelContext(), datastoreType, file.toPath(),
+            persistenceDelay);
+        try {
+            persistence.start();
+            persistences.add(persistence);
+        } catch (IOException e) {
+            throw new IllegalStateException(
+                String.format("Unable to persist %s datastore into %s", datastoreType, file), e);
+        }
+    }
+
     @VisibleForTesting
     void saveDatastore(@NonNull File fileName, LogicalDatastoreType datastoreType) {
-        final DOMDataTreeReadTransaction readTransaction =
-            netconfDeviceServices.getDOMDataBroker().newReadOnlyTransaction();
-        final Optional<NormalizedNode> response;
         try {
-            response = readTransaction.read(datastoreType,
-                YangInstanceIdentifier.of()).get(TimeoutUtil.TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
-        } catch (InterruptedException | TimeoutException | ExecutionException e) {
-            LOG.error("Could not retrieve configuration datastore! ", e);
-            return;
-        }
-        if (response.isPresent()) {
-            final XmlNodeConverter converter = netconfDeviceServices.getXmlNodeConverter();
-            try {
-                final Writer writer = converter.serializeRpc(YangInstanceIdentifier.of(), response.get());
-                LOG.info("data: {}", writer.toString());
-                saveToFile(writer.toString(), fileName);
-            } catch (SerializationException e) {
-                LOG.error("Unable to serialize config datastore: ", e);
+            if (!DatastorePersistence.save(netconfDeviceServices.getDOMDataBroker(),
+                    netconfDeviceServices.getXmlNodeConverter().getModelContext(), datastoreType,
+                    fileName.toPath())) {
+                LOG.warn("No {} data found in the datastore. "
+                    + "Aborting save operation to prevent overwriting existing data.", datastoreType);
             }
-        } else {
-            LOG.warn("No configuration data found in the datastore. "
-                + "Aborting save operation to prevent overwriting existing data.");
+        } catch (TimeoutException | ExecutionException e) {
+            LOG.error("Could not retrieve {} datastore! ", datastoreType, e);
+        } catch (IOException e) {
+            LOG.error("Unable to write {} datastore to file: ", datastoreType, e);
+        } catch (InterruptedException e) {
+            LOG.error("Interrupted while saving {} datastore", datastoreType, e);
+            Thread.currentThread().interrupt();
         }
     }
 
-    private void saveToFile(String data, File fileName) {
-        try (BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(
-            new FileOutputStream(fileName), StandardCharsets.UTF_8))) {
-            writer.write(data);
-        } catch (IOException e) {
-            LOG.error("Unable to write to file: ", e);
+    /**
+     * Releases the datastore locks of a closed session. Changes of the candidate are discarded together with its
+     * lock, RFC 6241 section 8.3.5.2. Confirmed commit of the session is rolled back unless it was persisted.
+     */
+    private void sessionClosed(SessionIdType sessionId) {
+        netconfDeviceServices.getConfirmedCommit().sessionClosed(sessionId);
+        final List<String> unlocked = netconfDeviceServices.getDatastoreLocks().unlockAll(sessionId);
+        if (!unlocked.isEmpty()) {
+            LOG.debug("Session {} closed, released locks of {}", sessionId.getValue(), unlocked);
+        }
+        if (unlocked.contains(DatastoreLocks.CANDIDATE)) {
+            netconfDeviceServices.getCandidateDatastore().discardChanges();
         }
     }
 
@@ -181,67 +248,55 @@ public class NetconfDeviceImpl implements NetconfDevice {
         return netconfDeviceServices;
     }
 
-    @Override
-    public void close() throws Exception {
-        if (configurationData != null && configurationData.exists()) {
-            LOG.info("Saving datastore as {}", configurationData);
-            saveDatastore(configurationData, LogicalDatastoreType.CONFIGURATION);
-        }
-        if (operationalData != null && operationalData.exists()) {
-            LOG.info("Saving datastore as {}", operationalData);
-            saveDatastore(operationalData, LogicalDatastoreType.OPERATIONAL);
-        }
-        LOG.info("shutting down Netconf device");
-        netConfDeviceSimulator.close();
-    }
-
     /**
-     * Method creates schemas from device's schema context and
-     * stores them in the netconf-state/schemas path in operational datastore.
-     * netconfDeviceServices represents device services from which
-     * the modules loaded in schema-context will be converted to schemas
-     * stored in netconf-state/schemas.
-     * @return transaction commit information in FluentFuture
+     * Disables saving of the datastores into their initial data files on close. Used when several devices
+     * were initialized from the same files.
      */
-    private FluentFuture<? extends CommitInfo> prepareSchemasForNetconfMonitoring() {
-        HashMap<SchemaKey, Schema> mapSchemas = new HashMap<>();
-        EffectiveModelContext modelContext =
-            netconfDeviceServices.getAdapterContext()
-                .currentSerializer().getRuntimeContext().modelContext();
-        Queue<Collection<? extends ModuleLike>> queueModulesCollections = new LinkedList<>();
-        queueModulesCollections.add(modelContext.getModules());
-        while (!queueModulesCollections.isEmpty()) {
-            Collection<? extends ModuleLike> modules = queueModulesCollections.poll();
-            for (ModuleLike module : modules) {
-                Schema schema = createSchemaFromModule(module);
-                if (!mapSchemas.containsKey(schema.key())) {
-                    mapSchemas.put(schema.key(), schema);
-                    if (!module.getSubmodules().isEmpty()) {
-                        queueModulesCollections.add(module.getSubmodules());
-                    }
-                }
-            }
-        }
-        WriteTransaction writeTx = netconfDeviceServices.getDataBroker().newWriteOnlyTransaction();
-        writeTx.merge(LogicalDatastoreType.OPERATIONAL,
-            DataObjectIdentifier.builder(NetconfState.class).child(Schemas.class).build(),
-            new SchemasBuilder().setSchema(mapSchemas).build());
-        return writeTx.commit();
+    void disableDatastoreSaving() {
+        this.saveDatastoreOnClose = false;
     }
 
     /**
-     * Creates and returns schema from given module.
-     * @param module represents module from which schema will be created
-     * @return schema created from module parameter
+     * Enables persistence of the datastores into their initial data files while the device runs, instead of
+     * saving them on close only.
+     *
+     * @param delay delay between a change of a datastore and writing of its snapshot
      */
-    private Schema createSchemaFromModule(ModuleLike module) {
-        return new SchemaBuilder()
-            .setNamespace(new Uri(module.getNamespace().toString()))
-            .setFormat(Yang.VALUE)
-            .setIdentifier(module.getName())
-            .setVersion(module.getRevision().map(Revision::toString).orElse(""))
-            .setLocation(Collections.singleton(new Schema.Location(Schema.Location.Enumeration.NETCONF)))
-            .build();
+    void enableDatastorePersistence(Duration delay) {
+        this.persistenceDelay = delay;
+    }
+
+    @Override
+    public void close() throws Exception {
+        if (!persistences.isEmpty()) {
+            // pending snapshots are written on close, the files are up to date afterwards
+            for (final DatastorePersistence persistence : persistences) {
+                persistence.close();
+            }
+            persistences.clear();
+        } else if (saveDatastoreOnClose) {
+            if (configurationData != null && configurationData.exists()) {
+                LOG.info("Saving datastore as {}", configurationData);
+                saveDatastore(configurationData, LogicalDatastoreType.CONFIGURATION);
+            }
+            if (operationalData != null && operationalData.exists()) {
+                LOG.info("Saving datastore as {}", operationalData);
+                saveDatastore(operationalData, LogicalDatastoreType.OPERATIONAL);
+            }
+        }
+        LOG.info("shutting down Netconf device");
+        if (netConfDeviceSimulator != null) {
+            netConfDeviceSimulator.close();
+        } else if (groupListener != null) {
+            groupServer.stop(groupListener);
+            groupListener = null;
+        }
+        if (notificationPublishService != null) {
+            notificationPublishService.close();
+        }
+        if (netconfDeviceServices instanceof AutoCloseable) {
+            ((AutoCloseable) netconfDeviceServices).close();
+        }
     }
 
     private boolean isNotEmpty(File inputStream) {
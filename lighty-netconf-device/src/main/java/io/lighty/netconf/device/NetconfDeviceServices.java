@@ -8,6 +8,10 @@
 package io.lighty.netconf.device;
 
 import io.lighty.codecs.util.XmlNodeConverter;
+import io.lighty.netconf.device.datastore.CandidateDatastore;
+import io.lighty.netconf.device.datastore.ConfirmedCommit;
+import io.lighty.netconf.device.datastore.DatastoreLocks;
+import io.lighty.netconf.device.monitoring.SchemaIndex;
 import io.lighty.netconf.device.requests.notification.NotificationPublishService;
 import org.opendaylight.mdsal.binding.api.DataBroker;
 import org.opendaylight.mdsal.binding.api.NotificationService;
@@ -34,4 +38,47 @@ public interface NetconfDeviceServices {
 
     XmlNodeConverter getXmlNodeConverter();
 
+    /**
+     * Provides schemas of the device models exposed through ietf-netconf-monitoring.
+     *
+     * @return index of the modules and submodules of the device
+     */
+    SchemaIndex getSchemaIndex();
+
+    /**
+     * Provides candidate configuration datastore of the device, changed by edit-config targeting candidate.
+     *
+     * @return candidate on top of the configuration datastore
+     */
+    CandidateDatastore getCandidateDatastore();
+
+    /**
+     * Provides locks of the configuration datastores taken by sessions of the device.
+     *
+     * @return locks of running and candidate datastores
+     */
+    DatastoreLocks getDatastoreLocks();
+
+    /**
+     * Provides confirmed commit of the candidate, rolled back unless it is confirmed in time.
+     *
+     * @return confirmed commit of the candidate datastore
+     */
+    ConfirmedCommit getConfirmedCommit();
+
+    /**
+     * Checks whether the device has its own candidate datastore. The testtool advertises candidate on every device,
+     * devices without it treat candidate as an alias of running and their commit does nothing.
+     *
+     * @return true if the candidate datastore is enabled
+     */
+    boolean isCandidateEnabled();
+
+    /**
+     * Checks whether the device advertises confirmed commit. Confirmed commits are rejected by devices without it.
+     *
+     * @return true if confirmed commit is enabled
+     */
+    boolean isConfirmedCommitEnabled();
+
 }
@@ -7,21 +7,32 @@
  */
 package io.lighty.netconf.device;
 
+import static java.util.Objects.requireNonNull;
+
 import com.google.common.collect.ImmutableMap;
 import com.google.common.util.concurrent.ListeningExecutorService;
 import com.google.common.util.concurrent.MoreExecutors;
 import io.lighty.codecs.util.XmlNodeConverter;
+import io.lighty.netconf.device.datastore.CandidateDatastore;
+import io.lighty.netconf.device.datastore.ConcurrentDOMDataBroker;
+import io.lighty.netconf.device.datastore.ConfirmedCommit;
+import io.lighty.netconf.device.datastore.DatastoreLocks;
+import io.lighty.netconf.device.datastore.LaneInMemoryDOMDataStore;
+import io.lighty.netconf.device.monitoring.SchemaIndex;
 import io.lighty.netconf.device.requests.notification.NotificationPublishService;
 import io.lighty.netconf.device.requests.notification.NotificationPublishServiceImpl;
+import io.lighty.netconf.device.utils.AdapterContextCache;
 import java.util.Collection;
 import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import org.eclipse.jdt.annotation.Nullable;
 import org.opendaylight.mdsal.binding.api.DataBroker;
 import org.opendaylight.mdsal.binding.api.NotificationService;
 import org.opendaylight.mdsal.binding.dom.adapter.AdapterContext;
 import org.opendaylight.mdsal.binding.dom.adapter.BindingDOMDataBrokerAdapter;
 import org.opendaylight.mdsal.binding.dom.adapter.BindingDOMNotificationServiceAdapter;
-import org.opendaylight.mdsal.binding.dom.adapter.ConstantAdapterContext;
 import org.opendaylight.mdsal.common.api.LogicalDatastoreType;
 import org.opendaylight.mdsal.dom.api.DOMDataBroker;
 import org.opendaylight.mdsal.dom.broker.DOMNotificationRouter;
@@ -30,23 +41,15 @@ import org.opendaylight.mdsal.dom.broker.SerializedDOMDataBroker;
 import org.opendaylight.mdsal.dom.spi.store.DOMStore;
 import org.opendaylight.mdsal.dom.store.inmemory.InMemoryDOMDataStore;
 import org.opendaylight.mdsal.dom.store.inmemory.InMemoryDOMDataStoreConfigProperties;
-import org.opendaylight.yangtools.binding.data.codec.impl.BindingCodecContext;
-import org.opendaylight.yangtools.binding.generator.impl.DefaultBindingRuntimeGenerator;
 import org.opendaylight.yangtools.binding.meta.YangModuleInfo;
-import org.opendaylight.yangtools.binding.runtime.api.BindingRuntimeGenerator;
-import org.opendaylight.yangtools.binding.runtime.api.BindingRuntimeTypes;
-import org.opendaylight.yangtools.binding.runtime.api.DefaultBindingRuntimeContext;
-import org.opendaylight.yangtools.binding.runtime.api.ModuleInfoSnapshot;
-import org.opendaylight.yangtools.binding.runtime.spi.ModuleInfoSnapshotResolver;
 import org.opendaylight.yangtools.yang.model.api.EffectiveModelContext;
 import org.opendaylight.yangtools.yang.model.util.SchemaInferenceStack;
 import org.opendaylight.yangtools.yang.model.util.SchemaInferenceStack.Inference;
 import org.opendaylight.yangtools.yang.parser.api.YangParserFactory;
-import org.opendaylight.yangtools.yang.parser.impl.DefaultYangParserFactory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-public class NetconfDeviceServicesImpl implements NetconfDeviceServices {
+public class NetconfDeviceServicesImpl implements NetconfDeviceServices, AutoCloseable {
 
     private static final Logger LOG = LoggerFactory.getLogger(NetconfDeviceServicesImpl.class);
 
@@ -59,10 +62,85 @@ public class NetconfDeviceServicesImpl implements NetconfDeviceServices {
     private final NotificationService notificationService;
     private final NotificationPublishServiceImpl notificationPublishService;
     private final XmlNodeConverter xmlNodeConverter;
+    private final SchemaIndex schemaIndex;
+    private final CandidateDatastore candidateDatastore;
+    private final ConfirmedCommit confirmedCommit;
+    private final DatastoreLocks datastoreLocks = new DatastoreLocks();
+    private final AdapterContextCache.Lease adapterContextLease;
+    private ExecutorService commitExecutor;
+    private volatile boolean candidateEnabled;
+    private volatile boolean confirmedCommitEnabled;
 
     public NetconfDeviceServicesImpl(
         final Collection<YangModuleInfo> moduleInfos, final NotificationPublishServiceImpl creator) {
-        this.adapterContext = createAdapterContext(moduleInfos);
+        this(moduleInfos, creator, DataBrokerMode.SERIALIZED);
+    }
+
+    public NetconfDeviceServicesImpl(final Collection<YangModuleInfo> moduleInfos,
+        final NotificationPublishServiceImpl creator, final DataBrokerMode dataBrokerMode) {
+        this(AdapterContextCache.acquire(moduleInfos), creator, dataBrokerMode, null);
+    }
+
+    /**
+     * Creates services for given models, the models are parsed by parser of given factory unless another device
+     * already holds adapter context for the same models.
+     *
+     * @param moduleInfos models of the device
+     * @param yangParserFactory factory of the parser used to parse the models
+     * @param creator notification publish service of the device, may be null
+     * @param dataBrokerMode commit coordination strategy of the data broker
+     */
+    public NetconfDeviceServicesImpl(final Collection<YangModuleInfo> moduleInfos,
+        final YangParserFactory yangParserFactory, final NotificationPublishServiceImpl creator,
+        final DataBrokerMode dataBrokerMode) {
+        this(AdapterContextCache.acquire(moduleInfos, yangParserFactory), creator, dataBrokerMode, null);
+    }
+
+    /**
+     * Creates services whose commits are executed by given executor, which is shared with other devices. Commits
+     * of a single datastore are still executed one after another. The executor is not shut down when the services
+     * are closed.
+     *
+     * @param moduleInfos models of the device
+     * @param yangParserFactory factory of the parser used to parse the models
+     * @param creator notification publish service of the device, may be null
+     * @param dataBrokerMode commit coordination strategy of the data broker
+     * @param commitExecutor executor of the commits shared by several devices
+     */
+    public NetconfDeviceServicesImpl(final Collection<YangModuleInfo> moduleInfos,
+        final YangParserFactory yangParserFactory, final NotificationPublishServiceImpl creator,
+        final DataBrokerMode dataBrokerMode, final Executor commitExecutor) {
+        this(AdapterContextCache.acquire(moduleInfos, yangParserFactory), creator, dataBrokerMode,
+            requireNonNull(commitExecutor));
+    }
+
+    private NetconfDeviceServicesImpl(final AdapterContextCache.Lease adapterContextLease,
+        final NotificationPublishServiceImpl creator, final DataBrokerMode dataBrokerMode,
+        final @Nullable Executor sharedCommitExecutor) {
+        this(adapterContextLease.getAdapterContext(), adapterContextLease.getXmlNodeConverter(), creator,
+            dataBrokerMode, adapterContextLease, sharedCommitExecutor);
+    }
+
+    /**
+     * Creates services with their own datastores on top of already existing adapter context and XML converter.
+     * Both are immutable, so they can be shared by any number of simulated devices. YANG sources of the models
+     * are not known to the adapter context, get-schema does not serve them.
+     *
+     * @param adapterContext adapter context holding the model and binding codecs
+     * @param xmlNodeConverter XML converter for the same model, created when null
+     * @param creator notification publish service of the device, may be null
+     * @param dataBrokerMode commit coordination strategy of the data broker
+     */
+    public NetconfDeviceServicesImpl(final AdapterContext adapterContext, final XmlNodeConverter xmlNodeConverter,
+        final NotificationPublishServiceImpl creator, final DataBrokerMode dataBrokerMode) {
+        this(adapterContext, xmlNodeConverter, creator, dataBrokerMode, null, null);
+    }
+
+    private NetconfDeviceServicesImpl(final AdapterContext adapterContext, final XmlNodeConverter xmlNodeConverter,
+        final NotificationPublishServiceImpl creator, final DataBrokerMode dataBrokerMode,
+        final AdapterContextCache.Lease adapterContextLease, final @Nullable Executor sharedCommitExecutor) {
+        this.adapterContextLease = adapterContextLease;
+        this.adapterContext = adapterContext;
         this.effectiveModelContext = adapterContext.currentSerializer().getRuntimeContext().modelContext();
 
         if (creator != null) {
@@ -70,13 +148,19 @@ public class NetconfDeviceServicesImpl implements NetconfDeviceServices {
         }
 
         this.notificationPublishService = creator;
-        this.datastores = createDatastores();
+        this.datastores = createDatastores(dataBrokerMode);
         this.domNotificationRouter = new DOMNotificationRouter(16);
-        this.domDataBroker = createDOMDataBroker();
+        this.domDataBroker = createDOMDataBroker(dataBrokerMode, sharedCommitExecutor);
         this.dataBroker = new BindingDOMDataBrokerAdapter(this.adapterContext, this.domDataBroker);
+        this.candidateDatastore = new CandidateDatastore(this.datastores.get(LogicalDatastoreType.CONFIGURATION),
+            this.domDataBroker);
+        this.confirmedCommit = new ConfirmedCommit(this.candidateDatastore, this.domDataBroker);
         this.notificationService = new BindingDOMNotificationServiceAdapter(this.adapterContext,
             new RouterDOMNotificationService(domNotificationRouter));
-        this.xmlNodeConverter = new XmlNodeConverter(this.effectiveModelContext);
+        this.xmlNodeConverter = xmlNodeConverter != null ? xmlNodeConverter
+            : new XmlNodeConverter(this.effectiveModelContext);
+        this.schemaIndex = adapterContextLease != null ? adapterContextLease.getSchemaIndex()
+            : SchemaIndex.withoutSources(this.effectiveModelContext);
     }
 
     @Override
@@ -114,50 +198,117 @@ public class NetconfDeviceServicesImpl implements NetconfDeviceServices {
         return this.xmlNodeConverter;
     }
 
-    private DOMDataBroker createDOMDataBroker() {
-        return new SerializedDOMDataBroker(this.datastores,
-                MoreExecutors.listeningDecorator(Executors.newSingleThreadExecutor()));
+    @Override
+    public SchemaIndex getSchemaIndex() {
+        return this.schemaIndex;
+    }
+
+    @Override
+    public CandidateDatastore getCandidateDatastore() {
+        return this.candidateDatastore;
+    }
+
+    @Override
+    public DatastoreLocks getDatastoreLocks() {
+        return this.datastoreLocks;
+    }
+
+    @Override
+    public ConfirmedCommit getConfirmedCommit() {
+        return this.confirmedCommit;
+    }
+
+    @Override
+    public boolean isCandidateEnabled() {
+        return this.candidateEnabled;
+    }
+
+    /**
+     * Enables the candidate datastore, disabled by default. Candidate is an alias of running while it is disabled.
+     *
+     * @param enabled true if the device has its own candidate datastore
+     */
+    public void setCandidateEnabled(final boolean enabled) {
+        this.candidateEnabled = enabled;
+    }
+
+    @Override
+    public boolean isConfirmedCommitEnabled() {
+        return this.confirmedCommitEnabled;
+    }
+
+    /**
+     * Enables confirmed commits, disabled by default.
+     *
+     * @param enabled true if the device advertises the confirmed-commit capability
+     */
+    public void setConfirmedCommitEnabled(final boolean enabled) {
+        this.confirmedCommitEnabled = enabled;
+    }
+
+    /**
+     * Stops the commit executor unless it is shared and releases the shared adapter context. Services must not be
+     * used afterwards. Pending confirmed commit is neither confirmed nor rolled back.
+     */
+    @Override
+    public void close() {
+        confirmedCommit.close();
+        domNotificationRouter.close();
+        if (commitExecutor != null) {
+            commitExecutor.shutdown();
+        }
+        if (adapterContextLease != null) {
+            adapterContextLease.close();
+        }
+    }
+
+    private DOMDataBroker createDOMDataBroker(final DataBrokerMode dataBrokerMode,
+            final @Nullable Executor sharedCommitExecutor) {
+        if (sharedCommitExecutor != null) {
+            // concurrent broker keeps its lanes sequential on its own
+            return dataBrokerMode == DataBrokerMode.CONCURRENT
+                ? new ConcurrentDOMDataBroker(this.datastores, sharedCommitExecutor)
+                : new SerializedDOMDataBroker(this.datastores,
+                    MoreExecutors.newSequentialExecutor(sharedCommitExecutor));
+        }
+        if (dataBrokerMode == DataBrokerMode.CONCURRENT) {
+            LOG.debug("Creating concurrent DOM data broker with {} commit lanes", this.datastores.size());
+            this.commitExecutor = Executors.newFixedThreadPool(this.datastores.size());
+            return new ConcurrentDOMDataBroker(this.datastores, this.commitExecutor);
+        }
+        this.commitExecutor = Executors.newSingleThreadExecutor();
+        return new SerializedDOMDataBroker(this.datastores, MoreExecutors.listeningDecorator(this.commitExecutor));
     }
 
     private ListeningExecutorService getDataTreeChangeListenerExecutor() {
         return MoreExecutors.newDirectExecutorService();
     }
 
-    private Map<LogicalDatastoreType, DOMStore> createDatastores() {
+    private Map<LogicalDatastoreType, DOMStore> createDatastores(final DataBrokerMode dataBrokerMode) {
+        final boolean commitLanes = dataBrokerMode == DataBrokerMode.CONCURRENT;
         return ImmutableMap.<LogicalDatastoreType, DOMStore>builder()
-                .put(LogicalDatastoreType.OPERATIONAL, createOperationalDatastore())
-                .put(LogicalDatastoreType.CONFIGURATION, createConfigurationDatastore()).build();
+                .put(LogicalDatastoreType.OPERATIONAL, createOperationalDatastore(commitLanes))
+                .put(LogicalDatastoreType.CONFIGURATION, createConfigurationDatastore(commitLanes)).build();
     }
 
-    private DOMStore createConfigurationDatastore() {
-        final InMemoryDOMDataStore store = new InMemoryDOMDataStore("CFG", LogicalDatastoreType.CONFIGURATION,
-                getDataTreeChangeListenerExecutor(),
-                InMemoryDOMDataStoreConfigProperties.DEFAULT_MAX_DATA_CHANGE_LISTENER_QUEUE_SIZE, false);
+    private DOMStore createConfigurationDatastore(final boolean commitLanes) {
+        final InMemoryDOMDataStore store = commitLanes
+                ? new LaneInMemoryDOMDataStore("CFG", LogicalDatastoreType.CONFIGURATION,
+                    getDataTreeChangeListenerExecutor(),
+                    InMemoryDOMDataStoreConfigProperties.DEFAULT_MAX_DATA_CHANGE_LISTENER_QUEUE_SIZE, false)
+                : new InMemoryDOMDataStore("CFG", LogicalDatastoreType.CONFIGURATION,
+                    getDataTreeChangeListenerExecutor(),
+                    InMemoryDOMDataStoreConfigProperties.DEFAULT_MAX_DATA_CHANGE_LISTENER_QUEUE_SIZE, false);
         store.onModelContextUpdated(effectiveModelContext);
         return store;
     }
 
-    private DOMStore createOperationalDatastore() {
-        final InMemoryDOMDataStore store = new InMemoryDOMDataStore("OPER", getDataTreeChangeListenerExecutor());
+    private DOMStore createOperationalDatastore(final boolean commitLanes) {
+        final InMemoryDOMDataStore store = commitLanes
+                ? new LaneInMemoryDOMDataStore("OPER", getDataTreeChangeListenerExecutor())
+                : new InMemoryDOMDataStore("OPER", getDataTreeChangeListenerExecutor());
         store.onModelContextUpdated(effectiveModelContext);
         return store;
     }
 
-    private AdapterContext createAdapterContext(Collection<YangModuleInfo> moduleInfos) {
-        final YangParserFactory yangParserFactory = new DefaultYangParserFactory();
-        ModuleInfoSnapshotResolver snapshotResolver
-                = new ModuleInfoSnapshotResolver("netconf-simulator", yangParserFactory);
-        snapshotResolver.registerModuleInfos(moduleInfos);
-        ModuleInfoSnapshot moduleInfoSnapshot = snapshotResolver.takeSnapshot();
-
-        final BindingRuntimeGenerator bindingRuntimeGenerator = new DefaultBindingRuntimeGenerator();
-        final BindingRuntimeTypes bindingRuntimeTypes = bindingRuntimeGenerator
-                .generateTypeMapping(moduleInfoSnapshot.modelContext());
-        final DefaultBindingRuntimeContext bindingRuntimeContext
-                = new DefaultBindingRuntimeContext(bindingRuntimeTypes, moduleInfoSnapshot);
-
-        final BindingCodecContext bindingCodecContext = new BindingCodecContext(bindingRuntimeContext);
-        return new ConstantAdapterContext(bindingCodecContext);
-    }
-
 }
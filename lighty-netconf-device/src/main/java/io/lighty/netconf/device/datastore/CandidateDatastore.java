@@ -0,0 +1,417 @@
+/*
+ * Copyright (c) 2020 PANTHEON.tech s.r.o. All Rights Reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at https://www.eclipse.org/legal/epl-v10.html
+ */
+package io.lighty.netconf.device.datastore;
+
+import static java.util.Objects.requireNonNull;
+
+import com.google.common.util.concurrent.FluentFuture;
+import com.google.common.util.concurrent.SettableFuture;
+import io.lighty.netconf.device.utils.TimeoutUtil;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import org.eclipse.jdt.annotation.Nullable;
+import org.opendaylight.mdsal.common.api.CommitInfo;
+import org.opendaylight.mdsal.common.api.LogicalDatastoreType;
+import org.opendaylight.mdsal.common.api.OptimisticLockFailedException;
+import org.opendaylight.mdsal.common.api.TransactionCommitFailedException;
+import org.opendaylight.mdsal.dom.api.DOMDataBroker;
+import org.opendaylight.mdsal.dom.api.DOMDataTreeReadWriteTransaction;
+import org.opendaylight.mdsal.dom.api.DOMDataTreeWriteOperations;
+import org.opendaylight.mdsal.dom.api.DOMDataTreeWriteTransaction;
+import org.opendaylight.mdsal.dom.spi.store.DOMStore;
+import org.opendaylight.mdsal.dom.spi.store.DOMStoreReadTransaction;
+import org.opendaylight.mdsal.dom.spi.store.SnapshotBackedTransaction;
+import org.opendaylight.yangtools.util.concurrent.FluentFutures;
+import org.opendaylight.yangtools.yang.data.api.YangInstanceIdentifier;
+import org.opendaylight.yangtools.yang.data.api.YangInstanceIdentifier.PathArgument;
+import org.opendaylight.yangtools.yang.data.api.schema.ContainerNode;
+import org.opendaylight.yangtools.yang.data.api.schema.NormalizedNode;
+import org.opendaylight.yangtools.yang.data.tree.api.DataTreeModification;
+import org.opendaylight.yangtools.yang.data.tree.api.DataTreeModificationCursor;
+import org.opendaylight.yangtools.yang.data.tree.api.DataTreeSnapshot;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Candidate configuration datastore of a device (RFC 6241 section 8.3). The candidate is not a copy of running,
+ * it is a chain of modifications on top of a snapshot of running. Snapshots of the in-memory data tree share all
+ * unchanged nodes with running, so the candidate costs only the changed nodes regardless of the datastore size.
+ *
+ * <p>An unmodified candidate follows running, every transaction starts from the current running snapshot. Once
+ * changed, the candidate keeps its changes until they are committed or discarded. Commit replays all changes of
+ * the candidate onto the current running configuration in a single transaction, so changes made to running in the
+ * meantime are kept unless the candidate changes the same data.
+ */
+public final class CandidateDatastore {
+
+    private static final Logger LOG = LoggerFactory.getLogger(CandidateDatastore.class);
+
+    private final DOMStore runningStore;
+    private final DOMDataBroker dataBroker;
+    private final AtomicLong transactionCounter = new AtomicLong();
+    // sealed modifications in the order they were made, each of them on top of the previous one
+    private final List<DataTreeModification> modifications = new ArrayList<>();
+    // incremented by every change of the candidate, transactions started before the change can not be applied
+    private long version;
+
+    /**
+     * Creates candidate of the running configuration.
+     *
+     * @param runningStore in-memory configuration datastore of the device
+     * @param dataBroker data broker of the device, commits of the candidate go through it
+     */
+    public CandidateDatastore(final DOMStore runningStore, final DOMDataBroker dataBroker) {
+        this.runningStore = requireNonNull(runningStore);
+        this.dataBroker = requireNonNull(dataBroker);
+    }
+
+    /**
+     * Creates transaction reading and changing the candidate. Only {@link LogicalDatastoreType#CONFIGURATION} is
+     * accessible. Changes become part of the candidate when the transaction is committed, which fails with
+     * {@link OptimisticLockFailedException} if another transaction changed the candidate in the meantime.
+     *
+     * @return new transaction of the candidate
+     */
+    public synchronized DOMDataTreeReadWriteTransaction newReadWriteTransaction() {
+        final DataTreeSnapshot base = modifications.isEmpty() ? takeRunningSnapshot()
+            : modifications.get(modifications.size() - 1);
+        return new CandidateTransaction("CAND-" + transactionCounter.incrementAndGet(), base, version);
+    }
+
+    /**
+     * Checks whether the candidate holds changes which are not committed.
+     *
+     * @return true if the candidate differs from running by its own changes
+     */
+    public synchronized boolean isModified() {
+        return !modifications.isEmpty();
+    }
+
+    /**
+     * Drops the changes of the candidate, it follows running again.
+     */
+    public synchronized void discardChanges() {
+        if (!modifications.isEmpty()) {
+            LOG.debug("Discarding {} modifications of candidate", modifications.size());
+            modifications.clear();
+            version++;
+        }
+    }
+
+    /**
+     * Validates the changes of the candidate against the current running configuration, without changing it.
+     *
+     * @throws TransactionCommitFailedException in case the changes can not be applied to running
+     */
+    public synchronized void validate() throws TransactionCommitFailedException {
+        if (modifications.isEmpty()) {
+            return;
+        }
+        final CandidateTransaction transaction = new CandidateTransaction("VALIDATE-"
+            + transactionCounter.incrementAndGet(), takeRunningSnapshot(), version);
+        replay(transaction);
+        transaction.seal();
+    }
+
+    /**
+     * Commits the changes of the candidate into running. All changes are written by a single transaction, the
+     * candidate follows running again once it succeeds. Changes are kept in the candidate if it fails.
+     *
+     * @throws ExecutionException in case the transaction failed, caused by
+     *     {@link TransactionCommitFailedException}
+     * @throws TimeoutException in case the transaction was not committed in {@link TimeoutUtil#TIMEOUT_MILLIS}
+     * @throws InterruptedException in case the thread was interrupted while waiting for the commit
+     */
+    public synchronized void commit() throws InterruptedException, ExecutionException, TimeoutException {
+        if (modifications.isEmpty()) {
+            return;
+        }
+        commit(dataBroker.newWriteOnlyTransaction());
+    }
+
+    /**
+     * Commits the changes of the candidate like {@link #commit()} and provides the running configuration they were
+     * applied to. The checkpoint is the immutable root of the data tree, it shares all nodes with running except
+     * those changed since, so keeping it costs only the changed nodes.
+     *
+     * @return root of the running configuration before the commit
+     * @throws ExecutionException in case the transaction failed, caused by
+     *     {@link TransactionCommitFailedException}
+     * @throws TimeoutException in case the transaction was not committed in {@link TimeoutUtil#TIMEOUT_MILLIS}
+     * @throws InterruptedException in case the thread was interrupted while waiting for the commit
+     */
+    public synchronized ContainerNode commitWithCheckpoint()
+            throws InterruptedException, ExecutionException, TimeoutException {
+        final DOMDataTreeReadWriteTransaction transaction = dataBroker.newReadWriteTransaction();
+        final ContainerNode checkpoint;
+        try {
+            checkpoint = (ContainerNode) transaction.read(LogicalDatastoreType.CONFIGURATION,
+                YangInstanceIdentifier.of()).get(TimeoutUtil.TIMEOUT_MILLIS, TimeUnit.MILLISECONDS).orElseThrow();
+        } catch (InterruptedException | ExecutionException | TimeoutException e) {
+            transaction.cancel();
+            throw e;
+        }
+        if (modifications.isEmpty()) {
+            transaction.cancel();
+        } else {
+            commit(transaction);
+        }
+        return checkpoint;
+    }
+
+    private void commit(final DOMDataTreeWriteTransaction transaction)
+            throws InterruptedException, ExecutionException, TimeoutException {
+        replay(transaction);
+        transaction.commit().get(TimeoutUtil.TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+        LOG.debug("Committed {} modifications of candidate", modifications.size());
+        modifications.clear();
+        version++;
+    }
+
+    private void replay(final DOMDataTreeWriteOperations transaction) {
+        for (final DataTreeModification modification : modifications) {
+            modification.applyToCursor(new ReplayCursor(transaction));
+        }
+    }
+
+    private synchronized void append(final CandidateTransaction transaction, final DataTreeModification modification)
+            throws OptimisticLockFailedException {
+        if (transaction.startVersion != version) {
+            throw new OptimisticLockFailedException("Candidate was changed by another transaction since "
+                + transaction.identifier + " started");
+        }
+        modifications.add(modification);
+        version++;
+    }
+
+    private DataTreeSnapshot takeRunningSnapshot() {
+        try (DOMStoreReadTransaction transaction = runningStore.newReadOnlyTransaction()) {
+            if (transaction instanceof SnapshotBackedTransaction) {
+                final Optional<DataTreeSnapshot> snapshot = ((SnapshotBackedTransaction) transaction).getSnapshot();
+                if (snapshot.isPresent()) {
+                    return snapshot.orElseThrow();
+                }
+            }
+            throw new IllegalStateException("Configuration datastore " + runningStore + " is not snapshot based");
+        }
+    }
+
+    /**
+     * Transaction changing a modification on top of the base snapshot. The modification is sealed on commit and,
+     * unless the transaction only validates the candidate, appended to the candidate.
+     */
+    private final class CandidateTransaction implements DOMDataTreeReadWriteTransaction {
+
+        private final String identifier;
+        private final DataTreeModification modification;
+        private final long startVersion;
+        private final SettableFuture<CommitInfo> completion = SettableFuture.create();
+        private @Nullable RuntimeException operationError;
+        private boolean closed;
+
+        CandidateTransaction(final String identifier, final DataTreeSnapshot base, final long startVersion) {
+            this.identifier = identifier;
+            this.modification = base.newModification();
+            this.startVersion = startVersion;
+        }
+
+        @Override
+        public Object getIdentifier() {
+            return identifier;
+        }
+
+        @Override
+        public FluentFuture<Optional<NormalizedNode>> read(final LogicalDatastoreType store,
+                final YangInstanceIdentifier path) {
+            checkStore(store);
+            return FluentFutures.immediateFluentFuture(modification.readNode(path));
+        }
+
+        @Override
+        public FluentFuture<Boolean> exists(final LogicalDatastoreType store, final YangInstanceIdentifier path) {
+            checkStore(store);
+            return FluentFutures.immediateBooleanFluentFuture(modification.readNode(path).isPresent());
+        }
+
+        @Override
+        public void put(final LogicalDatastoreType store, final YangInstanceIdentifier path,
+                final NormalizedNode data) {
+            checkOpen(store);
+            try {
+                modification.write(path, data);
+            } catch (final RuntimeException e) {
+                recordError(e);
+            }
+        }
+
+        @Override
+        public void merge(final LogicalDatastoreType store, final YangInstanceIdentifier path,
+                final NormalizedNode data) {
+            checkOpen(store);
+            try {
+                modification.merge(path, data);
+            } catch (final RuntimeException e) {
+                recordError(e);
+            }
+        }
+
+        @Override
+        public void delete(final LogicalDatastoreType store, final YangInstanceIdentifier path) {
+            checkOpen(store);
+            try {
+                modification.delete(path);
+            } catch (final RuntimeException e) {
+                recordError(e);
+            }
+        }
+
+        @Override
+        public FluentFuture<?> completionFuture() {
+            return FluentFuture.from(completion);
+        }
+
+        @Override
+        public synchronized FluentFuture<? extends CommitInfo> commit() {
+            checkOpen(LogicalDatastoreType.CONFIGURATION);
+            closed = true;
+            try {
+                seal();
+                append(this, modification);
+                completion.set(CommitInfo.empty());
+            } catch (final TransactionCommitFailedException e) {
+                completion.setException(e);
+            }
+            return FluentFuture.from(completion);
+        }
+
+        @Override
+        public synchronized boolean cancel() {
+            if (closed) {
+                return false;
+            }
+            closed = true;
+            completion.cancel(false);
+            return true;
+        }
+
+        /**
+         * Seals the modification, checking the structure of the changed data.
+         */
+        synchronized void seal() throws TransactionCommitFailedException {
+            if (operationError == null) {
+                try {
+                    modification.ready();
+                } catch (final RuntimeException e) {
+                    operationError = e;
+                }
+            }
+            if (operationError != null) {
+                throw new TransactionCommitFailedException("Data of " + identifier + " do not match the schema",
+                    operationError);
+            }
+        }
+
+        private synchronized void recordError(final RuntimeException error) {
+            LOG.debug("Transaction {} failed to change candidate", identifier, error);
+            if (operationError == null) {
+                operationError = error;
+            }
+        }
+
+        private synchronized void checkOpen(final LogicalDatastoreType store) {
+            checkStore(store);
+            if (closed) {
+                throw new IllegalStateException("Transaction " + identifier + " is already closed");
+            }
+        }
+
+        private void checkStore(final LogicalDatastoreType store) {
+            if (store != LogicalDatastoreType.CONFIGURATION) {
+                throw new IllegalArgumentException("Candidate holds configuration data only, not " + store);
+            }
+        }
+    }
+
+    /**
+     * Replays a modification into a transaction of the configuration datastore, path by path.
+     */
+    private static final class ReplayCursor implements DataTreeModificationCursor {
+
+        private final DOMDataTreeWriteOperations transaction;
+        private YangInstanceIdentifier current = YangInstanceIdentifier.of();
+
+        ReplayCursor(final DOMDataTreeWriteOperations transaction) {
+            this.transaction = transaction;
+        }
+
+        @Override
+        public void enter(final PathArgument child) {
+            current = current.node(child);
+        }
+
+        @Override
+        public void enter(final PathArgument... path) {
+            for (final PathArgument child : path) {
+                enter(child);
+            }
+        }
+
+        @Override
+        public void enter(final Iterable<PathArgument> path) {
+            for (final PathArgument child : path) {
+                enter(child);
+            }
+        }
+
+        @Override
+        public void exit() {
+            exit(1);
+        }
+
+        @Override
+        public void exit(final int depth) {
+            final Iterator<PathArgument> arguments = current.getPathArguments().iterator();
+            final List<PathArgument> parent = new ArrayList<>();
+            for (int i = current.getPathArguments().size() - depth; i > 0; i--) {
+                parent.add(arguments.next());
+            }
+            current = YangInstanceIdentifier.of(parent);
+        }
+
+        @Override
+        public Optional<NormalizedNode> readNode(final PathArgument child) {
+            throw new UnsupportedOperationException("Replayed modification does not read data");
+        }
+
+        @Override
+        public void delete(final PathArgument child) {
+            transaction.delete(LogicalDatastoreType.CONFIGURATION, current.node(child));
+        }
+
+        @Override
+        public void merge(final PathArgument child, final NormalizedNode data) {
+            transaction.merge(LogicalDatastoreType.CONFIGURATION, current.node(child), data);
+        }
+
+        @Override
+        public void write(final PathArgument child, final NormalizedNode data) {
+            transaction.put(LogicalDatastoreType.CONFIGURATION, current.node(child), data);
+        }
+
+        @Override
+        public void close() {
+            // nothing to release
+        }
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright (c) 2020 PANTHEON.tech s.r.o. All Rights Reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at https://www.eclipse.org/legal/epl-v10.html
+ */
+package io.lighty.netconf.device.datastore;
+
+import com.google.common.util.concurrent.FluentFuture;
+import com.google.common.util.concurrent.MoreExecutors;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import org.opendaylight.mdsal.common.api.CommitInfo;
+import org.opendaylight.mdsal.common.api.LogicalDatastoreType;
+import org.opendaylight.mdsal.common.api.TransactionCommitFailedException;
+import org.opendaylight.mdsal.dom.api.DOMDataTreeWriteTransaction;
+import org.opendaylight.mdsal.dom.spi.AbstractDOMDataBroker;
+import org.opendaylight.mdsal.dom.spi.TransactionCommitFailedExceptionMapper;
+import org.opendaylight.mdsal.dom.spi.store.DOMStore;
+import org.opendaylight.mdsal.dom.spi.store.DOMStoreThreePhaseCommitCohort;
+import org.opendaylight.yangtools.util.concurrent.FluentFutures;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * DOM data broker which coordinates commits of different datastores concurrently. Every transaction touches
+ * a single datastore, so each {@link LaneInMemoryDOMDataStore} gets its own commit lane. Lanes share the commit
+ * executor, but tasks of a single lane are executed one after another, because in-memory data tree accepts
+ * a prepared candidate only on top of the state it was prepared against.
+ *
+ * <p>Cohorts of stores which are not {@link LaneInMemoryDOMDataStore} are all coordinated in a common lane.
+ */
+public final class ConcurrentDOMDataBroker extends AbstractDOMDataBroker {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ConcurrentDOMDataBroker.class);
+
+    private final Map<DOMStore, Executor> lanes = new IdentityHashMap<>();
+    private final Executor commonLane;
+
+    public ConcurrentDOMDataBroker(final Map<LogicalDatastoreType, DOMStore> datastores,
+            final Executor commitExecutor) {
+        super(datastores);
+        for (final DOMStore store : datastores.values()) {
+            if (store instanceof LaneInMemoryDOMDataStore) {
+                lanes.put(store, MoreExecutors.newSequentialExecutor(commitExecutor));
+            }
+        }
+        this.commonLane = MoreExecutors.newSequentialExecutor(commitExecutor);
+    }
+
+    @Override
+    protected FluentFuture<? extends CommitInfo> commit(final DOMDataTreeWriteTransaction transaction,
+            final DOMStoreThreePhaseCommitCohort cohort) {
+        LOG.debug("Tx: {} is submitted for execution.", transaction.getIdentifier());
+        try {
+            return FluentFutures.submit(() -> coordinateCommit(transaction, cohort), laneOf(cohort));
+        } catch (RejectedExecutionException e) {
+            LOG.error("Commit task of tx {} was rejected by the commit executor", transaction.getIdentifier(), e);
+            return FluentFutures.immediateFailedFluentFuture(
+                new TransactionCommitFailedException("Could not submit the commit task", e));
+        }
+    }
+
+    private Executor laneOf(final DOMStoreThreePhaseCommitCohort cohort) {
+        if (cohort instanceof LaneInMemoryDOMDataStore.LaneCommitCohort) {
+            final Executor lane = lanes.get(((LaneInMemoryDOMDataStore.LaneCommitCohort) cohort).getStore());
+            if (lane != null) {
+                return lane;
+            }
+        }
+        return commonLane;
+    }
+
+    private static CommitInfo coordinateCommit(final DOMDataTreeWriteTransaction transaction,
+            final DOMStoreThreePhaseCommitCohort cohort) throws TransactionCommitFailedException {
+        try {
+            final Boolean canCommit = getPhase(cohort.canCommit(),
+                TransactionCommitFailedExceptionMapper.CAN_COMMIT_ERROR_MAPPER);
+            if (!Boolean.TRUE.equals(canCommit)) {
+                throw new TransactionCommitFailedException("Can Commit failed, no detailed cause available.");
+            }
+            getPhase(cohort.preCommit(), TransactionCommitFailedExceptionMapper.PRE_COMMIT_MAPPER);
+            getPhase(cohort.commit(), TransactionCommitFailedExceptionMapper.COMMIT_ERROR_MAPPER);
+            LOG.debug("Tx: {} committed", transaction.getIdentifier());
+            return CommitInfo.empty();
+        } catch (TransactionCommitFailedException e) {
+            LOG.warn("Tx: {} failed to commit, starting abort", transaction.getIdentifier(), e);
+            try {
+                cohort.abort().get();
+            } catch (ExecutionException abortException) {
+                LOG.error("Tx: {} Error during abort", transaction.getIdentifier(), abortException);
+                e.addSuppressed(abortException);
+            } catch (InterruptedException abortException) {
+                Thread.currentThread().interrupt();
+                e.addSuppressed(abortException);
+            }
+            throw e;
+        }
+    }
+
+    private static <T> T getPhase(final Future<T> phase, final TransactionCommitFailedExceptionMapper mapper)
+            throws TransactionCommitFailedException {
+        try {
+            return phase.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw mapper.apply(e);
+        } catch (ExecutionException e) {
+            throw mapper.apply(e);
+        }
+    }
+}
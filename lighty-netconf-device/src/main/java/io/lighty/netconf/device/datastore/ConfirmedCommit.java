@@ -0,0 +1,214 @@
+/*
+ * Copyright (c) 2020 PANTHEON.tech s.r.o. All Rights Reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at https://www.eclipse.org/legal/epl-v10.html
+ */
+package io.lighty.netconf.device.datastore;
+
+import static java.util.Objects.requireNonNull;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import io.lighty.netconf.device.utils.TimeoutUtil;
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import org.eclipse.jdt.annotation.Nullable;
+import org.opendaylight.mdsal.common.api.LogicalDatastoreType;
+import org.opendaylight.mdsal.dom.api.DOMDataBroker;
+import org.opendaylight.mdsal.dom.api.DOMDataTreeWriteTransaction;
+import org.opendaylight.yang.gen.v1.urn.ietf.params.xml.ns.netconf.base._1._0.rev110601.SessionIdType;
+import org.opendaylight.yangtools.yang.data.api.YangInstanceIdentifier;
+import org.opendaylight.yangtools.yang.data.api.schema.ContainerNode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Confirmed commit of the candidate (RFC 6241 section 8.4). A confirmed commit is applied to running like any other
+ * commit, but it is rolled back unless a confirming commit follows before its timeout. Follow-up confirmed commits
+ * restart the timeout, the rollback always returns running to the state before the first confirmed commit.
+ *
+ * <p>The rollback checkpoint is the immutable root of running taken by the first confirmed commit. It shares every
+ * node which was not changed since with running, so a pending confirmed commit costs memory proportional to the
+ * changes, not to the size of the configuration. Rollback writes the checkpoint back as a whole, changes of running
+ * made by other sessions in the meantime are reverted too.
+ */
+public final class ConfirmedCommit implements AutoCloseable {
+
+    public static final Duration DEFAULT_TIMEOUT = Duration.ofSeconds(600);
+
+    private static final Logger LOG = LoggerFactory.getLogger(ConfirmedCommit.class);
+
+    private final CandidateDatastore candidateDatastore;
+    private final DOMDataBroker dataBroker;
+    // created by the first confirmed commit, most devices never need it
+    private ScheduledExecutorService scheduler;
+    private @Nullable Pending pending;
+
+    public ConfirmedCommit(final CandidateDatastore candidateDatastore, final DOMDataBroker dataBroker) {
+        this.candidateDatastore = requireNonNull(candidateDatastore);
+        this.dataBroker = requireNonNull(dataBroker);
+    }
+
+    /**
+     * Commits the candidate. Confirmed commit is rolled back after the timeout unless it is confirmed, other
+     * commits confirm the pending confirmed commit, if there is any.
+     *
+     * @param sessionId session issuing the commit, null if not known
+     * @param confirmTimeout timeout of the confirmed commit, null for a commit which is not confirmed
+     * @param persist token of the confirmed commit making it independent of the session, null if not persisted
+     * @param persistId token of the pending confirmed commit issued with persist, null if it was not persisted
+     * @throws IllegalArgumentException in case persist-id does not match the pending confirmed commit
+     * @throws IllegalStateException in case the pending confirmed commit was issued by another session
+     * @throws ExecutionException in case the transaction failed
+     * @throws TimeoutException in case the transaction was not committed in {@link TimeoutUtil#TIMEOUT_MILLIS}
+     * @throws InterruptedException in case the thread was interrupted while waiting for the commit
+     */
+    public synchronized void commit(final @Nullable SessionIdType sessionId, final @Nullable Duration confirmTimeout,
+            final @Nullable String persist, final @Nullable String persistId)
+            throws InterruptedException, ExecutionException, TimeoutException {
+        if (pending != null) {
+            checkAccess(pending, sessionId, persistId);
+        }
+        if (confirmTimeout == null) {
+            candidateDatastore.commit();
+            if (pending != null) {
+                pending.timeout.cancel(false);
+                pending = null;
+                LOG.info("Confirmed commit was confirmed");
+            }
+            return;
+        }
+
+        final ContainerNode checkpoint = candidateDatastore.commitWithCheckpoint();
+        if (pending != null) {
+            // follow-up confirmed commit keeps the checkpoint of the first one
+            pending.timeout.cancel(false);
+        }
+        final Pending confirmed = new Pending(pending != null ? pending.checkpoint : checkpoint, sessionId,
+            persist);
+        confirmed.timeout = scheduler().schedule(() -> timeoutExpired(confirmed), confirmTimeout.toMillis(),
+            TimeUnit.MILLISECONDS);
+        pending = confirmed;
+        LOG.info("Confirmed commit has to be confirmed in {}", confirmTimeout);
+    }
+
+    /**
+     * Rolls back the pending confirmed commit.
+     *
+     * @param sessionId session issuing the cancel-commit, null if not known
+     * @param persistId token of the pending confirmed commit issued with persist, null if it was not persisted
+     * @throws IllegalArgumentException in case persist-id does not match the pending confirmed commit
+     * @throws IllegalStateException in case there is no pending confirmed commit or it was issued by another
+     *     session
+     * @throws ExecutionException in case the transaction failed
+     * @throws TimeoutException in case the transaction was not committed in {@link TimeoutUtil#TIMEOUT_MILLIS}
+     * @throws InterruptedException in case the thread was interrupted while waiting for the commit
+     */
+    public synchronized void cancel(final @Nullable SessionIdType sessionId, final @Nullable String persistId)
+            throws InterruptedException, ExecutionException, TimeoutException {
+        if (pending == null) {
+            throw new IllegalStateException("No confirmed commit is in progress");
+        }
+        checkAccess(pending, sessionId, persistId);
+        rollback();
+    }
+
+    /**
+     * Rolls back the pending confirmed commit issued without persist by the closed session.
+     *
+     * @param sessionId closed session
+     */
+    public synchronized void sessionClosed(final SessionIdType sessionId) {
+        if (pending != null && pending.persist == null && sessionId.equals(pending.sessionId)) {
+            LOG.info("Session {} closed before confirming its commit, rolling back", sessionId.getValue());
+            rollbackQuietly();
+        }
+    }
+
+    /**
+     * Checks whether a confirmed commit waits for confirmation.
+     *
+     * @return true if there is a confirmed commit to be confirmed or rolled back
+     */
+    public synchronized boolean isPending() {
+        return pending != null;
+    }
+
+    @Override
+    public synchronized void close() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    private synchronized void timeoutExpired(final Pending expired) {
+        if (pending == expired) {
+            LOG.info("Confirmed commit was not confirmed in time, rolling back");
+            rollbackQuietly();
+        }
+    }
+
+    private void rollbackQuietly() {
+        try {
+            rollback();
+        } catch (ExecutionException | TimeoutException e) {
+            LOG.error("Rollback of confirmed commit failed", e);
+        } catch (InterruptedException e) {
+            LOG.error("Interrupted while rolling back confirmed commit", e);
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void rollback() throws InterruptedException, ExecutionException, TimeoutException {
+        final Pending rolledBack = requireNonNull(pending);
+        rolledBack.timeout.cancel(false);
+        final DOMDataTreeWriteTransaction transaction = dataBroker.newWriteOnlyTransaction();
+        transaction.put(LogicalDatastoreType.CONFIGURATION, YangInstanceIdentifier.of(), rolledBack.checkpoint);
+        transaction.commit().get(TimeoutUtil.TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+        pending = null;
+    }
+
+    private static void checkAccess(final Pending confirmed, final @Nullable SessionIdType sessionId,
+            final @Nullable String persistId) {
+        if (confirmed.persist != null) {
+            if (!confirmed.persist.equals(persistId)) {
+                throw new IllegalArgumentException("persist-id " + persistId
+                    + " does not match the pending confirmed commit");
+            }
+        } else if (!Objects.equals(confirmed.sessionId, sessionId)) {
+            throw new IllegalStateException("Confirmed commit is in progress on another session");
+        }
+    }
+
+    private ScheduledExecutorService scheduler() {
+        if (scheduler == null) {
+            scheduler = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder()
+                .setNameFormat("confirmed-commit-%d")
+                .setDaemon(true)
+                .build());
+        }
+        return scheduler;
+    }
+
+    private static final class Pending {
+
+        private final ContainerNode checkpoint;
+        private final @Nullable SessionIdType sessionId;
+        private final @Nullable String persist;
+        private ScheduledFuture<?> timeout;
+
+        Pending(final ContainerNode checkpoint, final @Nullable SessionIdType sessionId,
+                final @Nullable String persist) {
+            this.checkpoint = checkpoint;
+            this.sessionId = sessionId;
+            this.persist = persist;
+        }
+    }
+}
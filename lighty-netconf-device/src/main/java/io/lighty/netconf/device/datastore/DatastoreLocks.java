@@ -0,0 +1,90 @@
+/*
+ * Copyright (c) 2020 PANTHEON.tech s.r.o. All Rights Reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at https://www.eclipse.org/legal/epl-v10.html
+ */
+package io.lighty.netconf.device.datastore;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import org.eclipse.jdt.annotation.Nullable;
+import org.opendaylight.yang.gen.v1.urn.ietf.params.xml.ns.netconf.base._1._0.rev110601.SessionIdType;
+
+/**
+ * Locks of the configuration datastores of a device taken by lock operation (RFC 6241 section 7.5). A datastore
+ * is locked by at most one session, the lock is held until the session unlocks it or is closed.
+ */
+public final class DatastoreLocks {
+
+    public static final String RUNNING = "running";
+    public static final String CANDIDATE = "candidate";
+
+    private final ConcurrentMap<String, SessionIdType> owners = new ConcurrentHashMap<>();
+
+    /**
+     * Locks the datastore for the session.
+     *
+     * @param datastore name of the datastore
+     * @param sessionId session taking the lock
+     * @return true if the lock was granted, false if the datastore is already locked, even by the same session
+     */
+    public boolean lock(final String datastore, final SessionIdType sessionId) {
+        return owners.putIfAbsent(datastore, requireNonNull(sessionId)) == null;
+    }
+
+    /**
+     * Releases the lock of the datastore held by the session.
+     *
+     * @param datastore name of the datastore
+     * @param sessionId session holding the lock
+     * @return true if the lock was released, false if the datastore is not locked by the session
+     */
+    public boolean unlock(final String datastore, final SessionIdType sessionId) {
+        return owners.remove(datastore, requireNonNull(sessionId));
+    }
+
+    /**
+     * Releases all locks held by the session, used when the session is closed.
+     *
+     * @param sessionId closed session
+     * @return names of the datastores which were unlocked
+     */
+    public List<String> unlockAll(final SessionIdType sessionId) {
+        final List<String> unlocked = new ArrayList<>();
+        for (final Entry<String, SessionIdType> owner : owners.entrySet()) {
+            if (owner.getValue().equals(sessionId) && owners.remove(owner.getKey(), sessionId)) {
+                unlocked.add(owner.getKey());
+            }
+        }
+        return unlocked;
+    }
+
+    /**
+     * Session holding the lock of the datastore.
+     *
+     * @param datastore name of the datastore
+     * @return owner of the lock, null if the datastore is not locked
+     */
+    public @Nullable SessionIdType getOwner(final String datastore) {
+        return owners.get(datastore);
+    }
+
+    /**
+     * Checks whether the datastore can be changed by the session.
+     *
+     * @param datastore name of the datastore
+     * @param sessionId session changing the datastore, null if not known
+     * @return true if the datastore is locked by another session
+     */
+    public boolean isLockedByOther(final String datastore, final @Nullable SessionIdType sessionId) {
+        final SessionIdType owner = owners.get(datastore);
+        return owner != null && !owner.equals(sessionId);
+    }
+}
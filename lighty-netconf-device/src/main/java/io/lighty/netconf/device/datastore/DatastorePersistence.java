@@ -0,0 +1,248 @@
+/*
+ * Copyright (c) 2020 PANTHEON.tech s.r.o. All Rights Reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at https://www.eclipse.org/legal/epl-v10.html
+ */
+package io.lighty.netconf.device.datastore;
+
+import static java.util.Objects.requireNonNull;
+
+import com.google.common.base.Stopwatch;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import io.lighty.netconf.device.utils.RPCUtil;
+import io.lighty.netconf.device.utils.TimeoutUtil;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+import org.opendaylight.mdsal.common.api.LogicalDatastoreType;
+import org.opendaylight.mdsal.dom.api.DOMDataBroker;
+import org.opendaylight.mdsal.dom.api.DOMDataBroker.DataTreeChangeExtension;
+import org.opendaylight.mdsal.dom.api.DOMDataTreeChangeListener;
+import org.opendaylight.mdsal.dom.api.DOMDataTreeIdentifier;
+import org.opendaylight.mdsal.dom.api.DOMDataTreeReadTransaction;
+import org.opendaylight.yangtools.concepts.Registration;
+import org.opendaylight.yangtools.yang.data.api.YangInstanceIdentifier;
+import org.opendaylight.yangtools.yang.data.api.schema.ContainerNode;
+import org.opendaylight.yangtools.yang.data.api.schema.NormalizedNode;
+import org.opendaylight.yangtools.yang.data.api.schema.stream.NormalizedNodeWriter;
+import org.opendaylight.yangtools.yang.data.codec.xml.XMLStreamNormalizedNodeStreamWriter;
+import org.opendaylight.yangtools.yang.data.tree.api.DataTreeCandidate;
+import org.opendaylight.yangtools.yang.model.api.EffectiveModelContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Keeps XML file in sync with the content of a datastore. Each change of the datastore schedules a snapshot, which
+ * is written once the configured delay elapses, so bursts of changes end up in a single write. The file has the same
+ * format as the initial datastore files, the device recovers its state by loading it on the next start.
+ *
+ * <p>Snapshots are streamed into a temporary file next to the target one, which replaces the target only once it is
+ * completely written and synced to the disk. A crash therefore never leaves a partially written file behind, at
+ * worst the changes made after the last snapshot are lost.
+ */
+public final class DatastorePersistence implements DOMDataTreeChangeListener, AutoCloseable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(DatastorePersistence.class);
+    private static final XMLOutputFactory XML_OUTPUT_FACTORY = XMLOutputFactory.newFactory();
+
+    static {
+        XML_OUTPUT_FACTORY.setProperty(XMLOutputFactory.IS_REPAIRING_NAMESPACES, Boolean.TRUE);
+    }
+
+    private final DOMDataBroker domDataBroker;
+    private final EffectiveModelContext modelContext;
+    private final LogicalDatastoreType datastoreType;
+    private final Path file;
+    private final long delayMillis;
+    private final ScheduledExecutorService executor;
+    private final AtomicBoolean snapshotScheduled = new AtomicBoolean();
+    private Registration registration;
+
+    public DatastorePersistence(final DOMDataBroker domDataBroker, final EffectiveModelContext modelContext,
+            final LogicalDatastoreType datastoreType, final Path file, final Duration delay) {
+        this.domDataBroker = requireNonNull(domDataBroker);
+        this.modelContext = requireNonNull(modelContext);
+        this.datastoreType = requireNonNull(datastoreType);
+        this.file = requireNonNull(file);
+        this.delayMillis = delay.toMillis();
+        this.executor = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder()
+            .setNameFormat("datastore-persistence-" + datastoreType.name().toLowerCase(Locale.ROOT) + "-%d")
+            .setDaemon(true)
+            .build());
+    }
+
+    /**
+     * Removes leftovers of snapshots interrupted by a crash and starts tracking changes of the datastore.
+     *
+     * @throws IOException when the leftover file cannot be removed
+     */
+    public synchronized void start() throws IOException {
+        if (Files.deleteIfExists(temporaryFile(file))) {
+            LOG.warn("Removed incomplete snapshot of {} datastore left by previous run", datastoreType);
+        }
+        final DataTreeChangeExtension changeExtension = domDataBroker.extension(DataTreeChangeExtension.class);
+        if (changeExtension == null) {
+            throw new IllegalStateException("Data broker does not support data tree change listeners");
+        }
+        registration = changeExtension.registerTreeChangeListener(
+            DOMDataTreeIdentifier.of(datastoreType, YangInstanceIdentifier.of()), this);
+        LOG.info("Persisting {} datastore into {}", datastoreType, file);
+    }
+
+    @Override
+    public void onDataTreeChanged(final List<DataTreeCandidate> changes) {
+        if (snapshotScheduled.compareAndSet(false, true)) {
+            executor.schedule(this::writeScheduledSnapshot, delayMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @Override
+    public void onInitialData() {
+        // the initial data were loaded from the file, there is nothing to write
+    }
+
+    /**
+     * Stops tracking changes and writes pending snapshot, if there is any.
+     */
+    @Override
+    public synchronized void close() throws InterruptedException {
+        if (registration != null) {
+            registration.close();
+            registration = null;
+        }
+        executor.shutdown();
+        if (!executor.awaitTermination(TimeoutUtil.TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+            LOG.warn("Snapshot of {} datastore did not finish in time", datastoreType);
+        }
+    }
+
+    @SuppressWarnings("checkstyle:IllegalCatch")
+    private void writeScheduledSnapshot() {
+        // changes done from now on schedule another snapshot
+        snapshotScheduled.set(false);
+        try {
+            save(domDataBroker, modelContext, datastoreType, file);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            LOG.warn("Interrupted while persisting {} datastore", datastoreType, e);
+        } catch (Exception e) {
+            LOG.error("Failed to persist {} datastore into {}", datastoreType, file, e);
+        }
+    }
+
+    /**
+     * Reads the whole datastore and writes it into the file. Nothing is written when the datastore is empty.
+     *
+     * @param domDataBroker data broker of the datastore
+     * @param modelContext model of the data
+     * @param datastoreType datastore to be saved
+     * @param file target file
+     * @return true if the file was written
+     * @throws IOException when the file cannot be written
+     * @throws ExecutionException when the datastore cannot be read
+     * @throws TimeoutException when the read does not finish in time
+     * @throws InterruptedException when interrupted while waiting for the read
+     */
+    public static boolean save(final DOMDataBroker domDataBroker, final EffectiveModelContext modelContext,
+            final LogicalDatastoreType datastoreType, final Path file)
+            throws IOException, ExecutionException, TimeoutException, InterruptedException {
+        final Optional<NormalizedNode> data;
+        try (DOMDataTreeReadTransaction readTransaction = domDataBroker.newReadOnlyTransaction()) {
+            data = readTransaction.read(datastoreType, YangInstanceIdentifier.of())
+                .get(TimeoutUtil.TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+        }
+        if (data.isEmpty()) {
+            return false;
+        }
+        final Stopwatch stopwatch = Stopwatch.createStarted();
+        writeSnapshot(modelContext, (ContainerNode) data.orElseThrow(), file);
+        LOG.debug("Snapshot of {} datastore written into {} in {}", datastoreType, file, stopwatch);
+        return true;
+    }
+
+    /**
+     * Streams the datastore root into temporary file, which then atomically replaces the target file.
+     *
+     * @param modelContext model of the data
+     * @param root root node of the datastore
+     * @param file target file
+     * @throws IOException when the file cannot be written
+     */
+    public static void writeSnapshot(final EffectiveModelContext modelContext, final ContainerNode root,
+            final Path file) throws IOException {
+        final Path temporary = temporaryFile(file);
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            final OutputStream outputStream = new BufferedOutputStream(Channels.newOutputStream(channel));
+            writeXml(modelContext, root, outputStream);
+            outputStream.flush();
+            channel.force(true);
+        } catch (IOException e) {
+            Files.deleteIfExists(temporary);
+            throw e;
+        }
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        forceDirectory(file.toAbsolutePath().getParent());
+    }
+
+    /**
+     * Makes the rename of the snapshot durable. Directories cannot be opened on every platform, the snapshot
+     * itself is already durable then.
+     */
+    private static void forceDirectory(final Path directory) {
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            LOG.debug("Directory {} could not be synced", directory, e);
+        }
+    }
+
+    private static void writeXml(final EffectiveModelContext modelContext, final ContainerNode root,
+            final OutputStream outputStream) throws IOException {
+        try {
+            final XMLStreamWriter xmlWriter = XML_OUTPUT_FACTORY.createXMLStreamWriter(outputStream,
+                StandardCharsets.UTF_8.name());
+            xmlWriter.writeStartDocument(StandardCharsets.UTF_8.name(), "1.0");
+            xmlWriter.writeStartElement("", "data", RPCUtil.NETCONF_BASE_NAMESPACE);
+            xmlWriter.writeDefaultNamespace(RPCUtil.NETCONF_BASE_NAMESPACE);
+            final NormalizedNodeWriter nodeWriter = NormalizedNodeWriter.forStreamWriter(
+                XMLStreamNormalizedNodeStreamWriter.create(xmlWriter, modelContext));
+            for (final NormalizedNode child : root.body()) {
+                nodeWriter.write(child);
+            }
+            nodeWriter.flush();
+            xmlWriter.writeEndElement();
+            xmlWriter.writeEndDocument();
+            // closes the XML writer as well, the output stream stays open
+            nodeWriter.close();
+        } catch (XMLStreamException e) {
+            throw new IOException("Failed to serialize datastore", e);
+        }
+    }
+
+    private static Path temporaryFile(final Path file) {
+        return file.resolveSibling("." + file.getFileName() + ".tmp");
+    }
+}
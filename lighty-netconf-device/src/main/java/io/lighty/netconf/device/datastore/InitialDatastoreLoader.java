@@ -0,0 +1,272 @@
+/*
+ * Copyright (c) 2020 PANTHEON.tech s.r.o. All Rights Reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at https://www.eclipse.org/legal/epl-v10.html
+ */
+package io.lighty.netconf.device.datastore;
+
+import static java.util.Objects.requireNonNull;
+
+import com.google.common.base.Preconditions;
+import com.google.common.base.Stopwatch;
+import io.lighty.netconf.device.utils.TimeoutUtil;
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.util.StreamReaderDelegate;
+import org.opendaylight.mdsal.common.api.LogicalDatastoreType;
+import org.opendaylight.mdsal.dom.api.DOMDataBroker;
+import org.opendaylight.mdsal.dom.api.DOMDataTreeWriteTransaction;
+import org.opendaylight.yangtools.util.xml.UntrustedXML;
+import org.opendaylight.yangtools.yang.common.QName;
+import org.opendaylight.yangtools.yang.common.QNameModule;
+import org.opendaylight.yangtools.yang.common.XMLNamespace;
+import org.opendaylight.yangtools.yang.data.api.YangInstanceIdentifier;
+import org.opendaylight.yangtools.yang.data.api.YangInstanceIdentifier.NodeIdentifier;
+import org.opendaylight.yangtools.yang.data.api.schema.NormalizedNode;
+import org.opendaylight.yangtools.yang.data.api.schema.NormalizedNodes;
+import org.opendaylight.yangtools.yang.data.api.schema.stream.ForwardingNormalizedNodeStreamWriter;
+import org.opendaylight.yangtools.yang.data.api.schema.stream.NormalizedNodeStreamWriter;
+import org.opendaylight.yangtools.yang.data.codec.xml.XmlCodecFactory;
+import org.opendaylight.yangtools.yang.data.codec.xml.XmlParserStream;
+import org.opendaylight.yangtools.yang.data.impl.schema.ImmutableNormalizedNodeStreamWriter;
+import org.opendaylight.yangtools.yang.data.impl.schema.NormalizationResultHolder;
+import org.opendaylight.yangtools.yang.data.spi.node.ImmutableNodes;
+import org.opendaylight.yangtools.yang.model.api.EffectiveModelContext;
+import org.opendaylight.yangtools.yang.model.api.SchemaContext;
+import org.opendaylight.yangtools.yang.model.api.stmt.ModuleEffectiveStatement;
+import org.opendaylight.yangtools.yang.model.util.SchemaInferenceStack;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Loads initial content of a datastore from XML file. The file is read by a StAX reader and each child of the root
+ * element is parsed on its own, so the whole file is never held in memory as a single tree. Parsed children are
+ * written in batches, a batch is committed once it holds {@value #DEFAULT_BATCH_SIZE} data nodes. The batch size can
+ * be changed by the {@value #BATCH_SIZE_PROPERTY} system property.
+ *
+ * <p>The first batch replaces the whole content of the datastore, the following ones are merged into it.
+ */
+public final class InitialDatastoreLoader {
+
+    public static final String BATCH_SIZE_PROPERTY = "lighty.netconf.device.init.batch-size";
+    public static final int DEFAULT_BATCH_SIZE = 10_000;
+
+    private static final Logger LOG = LoggerFactory.getLogger(InitialDatastoreLoader.class);
+    private static final double BYTES_IN_MEGABYTE = 1024 * 1024;
+
+    private final DOMDataBroker domDataBroker;
+    private final EffectiveModelContext modelContext;
+    private final XmlCodecFactory codecFactory;
+    private final int batchSize;
+
+    public InitialDatastoreLoader(final DOMDataBroker domDataBroker, final EffectiveModelContext modelContext) {
+        this(domDataBroker, modelContext, Integer.getInteger(BATCH_SIZE_PROPERTY, DEFAULT_BATCH_SIZE));
+    }
+
+    public InitialDatastoreLoader(final DOMDataBroker domDataBroker, final EffectiveModelContext modelContext,
+            final int batchSize) {
+        Preconditions.checkArgument(batchSize > 0, "Batch size must be positive, was %s", batchSize);
+        this.domDataBroker = requireNonNull(domDataBroker);
+        this.modelContext = requireNonNull(modelContext);
+        this.codecFactory = XmlCodecFactory.create(modelContext);
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Replaces content of the datastore by the data of given XML file. The root element of the file, usually
+     * {@code data} or {@code config}, is a wrapper of the top level data nodes.
+     *
+     * @param datastoreType datastore to be loaded
+     * @param initialData XML file with the data
+     * @return number of loaded data nodes
+     * @throws IOException when the file cannot be read or parsed
+     * @throws ExecutionException when a commit fails
+     * @throws TimeoutException when a commit does not finish in time
+     * @throws InterruptedException when interrupted while waiting for a commit
+     */
+    public long load(final LogicalDatastoreType datastoreType, final File initialData)
+            throws IOException, ExecutionException, TimeoutException, InterruptedException {
+        final Stopwatch stopwatch = Stopwatch.createStarted();
+        final Batch batch = new Batch(datastoreType);
+        try (InputStream inputStream = new BufferedInputStream(Files.newInputStream(initialData.toPath()))) {
+            // encoding is taken from the XML declaration, not from the platform
+            final XMLStreamReader reader = UntrustedXML.createXMLStreamReader(inputStream);
+            try {
+                reader.nextTag();
+                int event = reader.nextTag();
+                while (event == XMLStreamConstants.START_ELEMENT) {
+                    final QName name = resolveQName(reader);
+                    batch.add(parseTopLevelNode(name, reader));
+                    if (batch.nodeCount >= batchSize) {
+                        batch.commit();
+                    }
+                    event = nextTopLevelTag(name, reader);
+                }
+            } finally {
+                reader.close();
+            }
+        } catch (XMLStreamException e) {
+            throw new IOException("Failed to parse " + initialData, e);
+        }
+        batch.commit();
+
+        final long elapsedNanos = stopwatch.elapsed(TimeUnit.NANOSECONDS);
+        final double seconds = Math.max(elapsedNanos, 1) / 1_000_000_000.0;
+        final double megabytes = initialData.length() / BYTES_IN_MEGABYTE;
+        LOG.info("Loaded {} nodes ({} MB) into {} datastore in {} batches within {}: {} MB/s, {} nodes/s",
+            batch.totalNodeCount, String.format("%.2f", megabytes), datastoreType, batch.commitCount, stopwatch,
+            String.format("%.2f", megabytes / seconds), String.format("%.0f", batch.totalNodeCount / seconds));
+        return batch.totalNodeCount;
+    }
+
+    private ParsedNode parseTopLevelNode(final QName name, final XMLStreamReader reader)
+            throws XMLStreamException, IOException {
+        final NormalizationResultHolder resultHolder = new NormalizationResultHolder();
+        final CountingStreamWriter writer = new CountingStreamWriter(
+            ImmutableNormalizedNodeStreamWriter.from(resultHolder));
+        final SchemaInferenceStack stack = SchemaInferenceStack.of(modelContext);
+        stack.enterSchemaTree(name);
+        try (XmlParserStream parser = XmlParserStream.create(writer, codecFactory, stack.toInference())) {
+            parser.parse(new CurrentElementStreamReader(reader));
+        }
+        return new ParsedNode(resultHolder.getResult().data(), writer.nodeCount);
+    }
+
+    private QName resolveQName(final XMLStreamReader reader) throws XMLStreamException {
+        final String namespace = reader.getNamespaceURI();
+        // the context may hold several revisions of the module, the data belong to the latest one
+        final QNameModule module = modelContext.findModuleStatements(XMLNamespace.of(namespace == null ? ""
+                : namespace)).stream()
+            .map(ModuleEffectiveStatement::localQNameModule)
+            .max(Comparator.naturalOrder())
+            .orElseThrow(() -> new XMLStreamException("No module with namespace " + namespace + " found for element "
+                + reader.getLocalName(), reader.getLocation()));
+        return QName.create(module, reader.getLocalName());
+    }
+
+    /**
+     * Moves the reader to the next top level element, or to the end of the root element. The parser leaves
+     * the reader either at the end of the parsed element or already behind it.
+     */
+    private static int nextTopLevelTag(final QName parsed, final XMLStreamReader reader) throws XMLStreamException {
+        final int event = reader.getEventType();
+        if (event == XMLStreamConstants.START_ELEMENT) {
+            return event;
+        }
+        if (event == XMLStreamConstants.END_ELEMENT && (!parsed.getLocalName().equals(reader.getLocalName())
+                || !parsed.getNamespace().toString().equals(reader.getNamespaceURI()))) {
+            // end of the root element
+            return event;
+        }
+        return reader.nextTag();
+    }
+
+    private final class Batch {
+        private final LogicalDatastoreType datastoreType;
+        private final List<NormalizedNode> nodes = new ArrayList<>();
+        private long nodeCount;
+        private long totalNodeCount;
+        private int commitCount;
+
+        Batch(final LogicalDatastoreType datastoreType) {
+            this.datastoreType = datastoreType;
+        }
+
+        void add(final ParsedNode parsed) {
+            nodes.add(parsed.node);
+            nodeCount += parsed.nodeCount;
+            totalNodeCount += parsed.nodeCount;
+        }
+
+        void commit() throws ExecutionException, TimeoutException, InterruptedException {
+            if (nodes.isEmpty() && commitCount > 0) {
+                return;
+            }
+            final DOMDataTreeWriteTransaction writeTx = domDataBroker.newWriteOnlyTransaction();
+            if (commitCount == 0) {
+                writeTx.put(datastoreType, YangInstanceIdentifier.of(),
+                    ImmutableNodes.newContainerBuilder().withNodeIdentifier(new NodeIdentifier(SchemaContext.NAME))
+                        .build());
+            }
+            for (final NormalizedNode node : nodes) {
+                writeTx.merge(datastoreType, YangInstanceIdentifier.of(node.name()), node);
+                if (LOG.isTraceEnabled()) {
+                    LOG.trace("Initial {} datastore data: {}", datastoreType, NormalizedNodes.toStringTree(node));
+                }
+            }
+            writeTx.commit().get(TimeoutUtil.TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+            LOG.debug("Committed batch of {} nodes into {} datastore", nodeCount, datastoreType);
+            commitCount++;
+            nodes.clear();
+            nodeCount = 0;
+        }
+    }
+
+    private static final class ParsedNode {
+        private final NormalizedNode node;
+        private final long nodeCount;
+
+        ParsedNode(final NormalizedNode node, final long nodeCount) {
+            this.node = node;
+            this.nodeCount = nodeCount;
+        }
+    }
+
+    /**
+     * {@link XmlParserStream#parse(XMLStreamReader)} moves to the next tag before it starts reading, this reader
+     * makes that first move stay at the current element.
+     */
+    private static final class CurrentElementStreamReader extends StreamReaderDelegate {
+        private boolean atCurrentElement = true;
+
+        CurrentElementStreamReader(final XMLStreamReader reader) {
+            super(reader);
+        }
+
+        @Override
+        public int nextTag() throws XMLStreamException {
+            if (atCurrentElement) {
+                atCurrentElement = false;
+                return getEventType();
+            }
+            return super.nextTag();
+        }
+    }
+
+    /**
+     * Counts data nodes emitted by the parser, every started node is closed by exactly one {@link #endNode()}.
+     */
+    private static final class CountingStreamWriter extends ForwardingNormalizedNodeStreamWriter {
+        private final NormalizedNodeStreamWriter delegate;
+        private long nodeCount;
+
+        CountingStreamWriter(final NormalizedNodeStreamWriter delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        protected NormalizedNodeStreamWriter delegate() {
+            return delegate;
+        }
+
+        @Override
+        public void endNode() throws IOException {
+            nodeCount++;
+            super.endNode();
+        }
+    }
+}
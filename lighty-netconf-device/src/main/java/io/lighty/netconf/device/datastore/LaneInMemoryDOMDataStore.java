@@ -0,0 +1,60 @@
+/*
+ * Copyright (c) 2020 PANTHEON.tech s.r.o. All Rights Reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at https://www.eclipse.org/legal/epl-v10.html
+ */
+package io.lighty.netconf.device.datastore;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.concurrent.ExecutorService;
+import org.opendaylight.mdsal.common.api.LogicalDatastoreType;
+import org.opendaylight.mdsal.dom.spi.store.DOMStoreThreePhaseCommitCohort;
+import org.opendaylight.mdsal.dom.spi.store.ForwardingDOMStoreThreePhaseCommitCohort;
+import org.opendaylight.mdsal.dom.spi.store.SnapshotBackedWriteTransaction;
+import org.opendaylight.mdsal.dom.store.inmemory.InMemoryDOMDataStore;
+import org.opendaylight.yangtools.yang.data.tree.api.DataTreeModification;
+
+/**
+ * {@link InMemoryDOMDataStore} whose commit cohorts carry the store they belong to. {@link ConcurrentDOMDataBroker}
+ * uses it to pick the commit lane of the transaction.
+ */
+public class LaneInMemoryDOMDataStore extends InMemoryDOMDataStore {
+
+    public LaneInMemoryDOMDataStore(final String name, final ExecutorService dataChangeListenerExecutor) {
+        super(name, dataChangeListenerExecutor);
+    }
+
+    public LaneInMemoryDOMDataStore(final String name, final LogicalDatastoreType type,
+            final ExecutorService dataChangeListenerExecutor, final int maxDataChangeListenerQueueSize,
+            final boolean debugTransactions) {
+        super(name, type, dataChangeListenerExecutor, maxDataChangeListenerQueueSize, debugTransactions);
+    }
+
+    @Override
+    protected DOMStoreThreePhaseCommitCohort transactionReady(final SnapshotBackedWriteTransaction<String> tx,
+            final DataTreeModification modification, final Exception operationError) {
+        return new LaneCommitCohort(this, super.transactionReady(tx, modification, operationError));
+    }
+
+    static final class LaneCommitCohort extends ForwardingDOMStoreThreePhaseCommitCohort {
+        private final LaneInMemoryDOMDataStore store;
+        private final DOMStoreThreePhaseCommitCohort delegate;
+
+        LaneCommitCohort(final LaneInMemoryDOMDataStore store, final DOMStoreThreePhaseCommitCohort delegate) {
+            this.store = requireNonNull(store);
+            this.delegate = requireNonNull(delegate);
+        }
+
+        LaneInMemoryDOMDataStore getStore() {
+            return store;
+        }
+
+        @Override
+        protected DOMStoreThreePhaseCommitCohort delegate() {
+            return delegate;
+        }
+    }
+}
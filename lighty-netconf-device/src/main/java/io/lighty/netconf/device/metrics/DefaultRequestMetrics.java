@@ -0,0 +1,50 @@
+/*
+ * Copyright (c) 2020 PANTHEON.tech s.r.o. All Rights Reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at https://www.eclipse.org/legal/epl-v10.html
+ */
+package io.lighty.netconf.device.metrics;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import org.eclipse.jdt.annotation.Nullable;
+import org.opendaylight.yangtools.yang.common.ErrorTag;
+import org.opendaylight.yangtools.yang.common.QName;
+
+/**
+ * {@link RequestMetrics} keeping counters and histograms of every operation in memory. The measurements can be
+ * read by {@link #getOperations()} or exposed by {@link PrometheusMetricsEndpoint}.
+ */
+public final class DefaultRequestMetrics implements RequestMetrics {
+
+    private final ConcurrentMap<QName, OperationMetrics> operations = new ConcurrentHashMap<>();
+
+    @Override
+    public void requestStarted(final QName operation) {
+        getOrCreate(operation).started();
+    }
+
+    @Override
+    public void requestCompleted(final QName operation, final long durationNanos, final int replyElements,
+            final @Nullable ErrorTag errorTag) {
+        getOrCreate(operation).completed(durationNanos, replyElements, errorTag);
+    }
+
+    private OperationMetrics getOrCreate(final QName operation) {
+        final OperationMetrics existing = operations.get(operation);
+        return existing != null ? existing : operations.computeIfAbsent(operation, name -> new OperationMetrics());
+    }
+
+    /**
+     * Measurements of the operations which processed at least one request.
+     *
+     * @return unmodifiable view of the measurements by operation
+     */
+    public Map<QName, OperationMetrics> getOperations() {
+        return Collections.unmodifiableMap(operations);
+    }
+}
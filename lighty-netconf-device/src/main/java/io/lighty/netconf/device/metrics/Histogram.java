@@ -0,0 +1,78 @@
+/*
+ * Copyright (c) 2020 PANTHEON.tech s.r.o. All Rights Reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at https://www.eclipse.org/legal/epl-v10.html
+ */
+package io.lighty.netconf.device.metrics;
+
+import com.google.common.base.Preconditions;
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Distribution of recorded values in buckets with fixed upper bounds. Values above the last bound fall into
+ * the overflow bucket. Recording does not lock, counts read while values are recorded may be slightly off.
+ */
+public final class Histogram {
+
+    private final long[] upperBounds;
+    private final LongAdder[] buckets;
+    private final LongAdder sum = new LongAdder();
+
+    /**
+     * Creates histogram with given bucket bounds.
+     *
+     * @param upperBounds inclusive upper bounds of the buckets in ascending order
+     */
+    public Histogram(final long... upperBounds) {
+        for (int i = 1; i < upperBounds.length; i++) {
+            Preconditions.checkArgument(upperBounds[i - 1] < upperBounds[i], "Bounds have to be ascending");
+        }
+        this.upperBounds = upperBounds.clone();
+        this.buckets = new LongAdder[upperBounds.length + 1];
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i] = new LongAdder();
+        }
+    }
+
+    public void record(final long value) {
+        int index = Arrays.binarySearch(upperBounds, value);
+        if (index < 0) {
+            index = -index - 1;
+        }
+        buckets[index].increment();
+        sum.add(value);
+    }
+
+    /**
+     * Inclusive upper bounds of the buckets, the overflow bucket is not included.
+     */
+    public long[] getUpperBounds() {
+        return upperBounds.clone();
+    }
+
+    /**
+     * Number of values in every bucket, the last one is the overflow bucket.
+     */
+    public long[] getBucketCounts() {
+        final long[] counts = new long[buckets.length];
+        for (int i = 0; i < buckets.length; i++) {
+            counts[i] = buckets[i].sum();
+        }
+        return counts;
+    }
+
+    public long getCount() {
+        long count = 0;
+        for (final LongAdder bucket : buckets) {
+            count += bucket.sum();
+        }
+        return count;
+    }
+
+    public long getSum() {
+        return sum.sum();
+    }
+}
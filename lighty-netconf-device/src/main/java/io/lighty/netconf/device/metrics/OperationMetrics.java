@@ -0,0 +1,98 @@
+/*
+ * Copyright (c) 2020 PANTHEON.tech s.r.o. All Rights Reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at https://www.eclipse.org/legal/epl-v10.html
+ */
+package io.lighty.netconf.device.metrics;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import org.eclipse.jdt.annotation.Nullable;
+import org.opendaylight.yangtools.yang.common.ErrorTag;
+
+/**
+ * Measurements of a single operation kept by {@link DefaultRequestMetrics}.
+ */
+public final class OperationMetrics {
+
+    private static final long[] LATENCY_BOUNDS_NANOS = {
+        TimeUnit.MICROSECONDS.toNanos(100), TimeUnit.MICROSECONDS.toNanos(250), TimeUnit.MICROSECONDS.toNanos(500),
+        TimeUnit.MILLISECONDS.toNanos(1), TimeUnit.MILLISECONDS.toNanos(2) + TimeUnit.MICROSECONDS.toNanos(500),
+        TimeUnit.MILLISECONDS.toNanos(5), TimeUnit.MILLISECONDS.toNanos(10), TimeUnit.MILLISECONDS.toNanos(25),
+        TimeUnit.MILLISECONDS.toNanos(50), TimeUnit.MILLISECONDS.toNanos(100), TimeUnit.MILLISECONDS.toNanos(250),
+        TimeUnit.MILLISECONDS.toNanos(500), TimeUnit.SECONDS.toNanos(1), TimeUnit.MILLISECONDS.toNanos(2500),
+        TimeUnit.SECONDS.toNanos(5), TimeUnit.SECONDS.toNanos(10)
+    };
+    private static final long[] REPLY_ELEMENTS_BOUNDS = {
+        1, 4, 16, 64, 256, 1_024, 4_096, 16_384, 65_536, 262_144, 1_048_576
+    };
+
+    private final LongAdder requests = new LongAdder();
+    private final AtomicLong inFlight = new AtomicLong();
+    private final ConcurrentMap<ErrorTag, LongAdder> errors = new ConcurrentHashMap<>();
+    private final Histogram latency = new Histogram(LATENCY_BOUNDS_NANOS);
+    private final Histogram replyElements = new Histogram(REPLY_ELEMENTS_BOUNDS);
+
+    OperationMetrics() {
+        // created by DefaultRequestMetrics
+    }
+
+    void started() {
+        inFlight.incrementAndGet();
+    }
+
+    void completed(final long durationNanos, final int elements, final @Nullable ErrorTag errorTag) {
+        inFlight.decrementAndGet();
+        requests.increment();
+        latency.record(durationNanos);
+        replyElements.record(elements);
+        if (errorTag != null) {
+            errors.computeIfAbsent(errorTag, tag -> new LongAdder()).increment();
+        }
+    }
+
+    /**
+     * Number of completed requests, including the failed ones.
+     */
+    public long getRequests() {
+        return requests.sum();
+    }
+
+    /**
+     * Number of requests being processed right now.
+     */
+    public long getInFlight() {
+        return inFlight.get();
+    }
+
+    /**
+     * Number of failed requests by the tag of their rpc-error.
+     */
+    public Map<ErrorTag, Long> getErrors() {
+        final Map<ErrorTag, Long> counts = new TreeMap<>((first, second) ->
+            first.elementBody().compareTo(second.elementBody()));
+        errors.forEach((tag, count) -> counts.put(tag, count.sum()));
+        return counts;
+    }
+
+    /**
+     * Processing time of the requests in nanoseconds.
+     */
+    public Histogram getLatency() {
+        return latency;
+    }
+
+    /**
+     * Number of XML elements of the replies.
+     */
+    public Histogram getReplyElements() {
+        return replyElements;
+    }
+}
@@ -0,0 +1,152 @@
+/*
+ * Copyright (c) 2020 PANTHEON.tech s.r.o. All Rights Reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at https://www.eclipse.org/legal/epl-v10.html
+ */
+package io.lighty.netconf.device.metrics;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.function.Function;
+import org.opendaylight.yangtools.yang.common.ErrorTag;
+import org.opendaylight.yangtools.yang.common.QName;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * HTTP endpoint serving measurements of {@link DefaultRequestMetrics} in the Prometheus text format on
+ * {@code /metrics}. It is meant for local monitoring of the simulator, there is no authentication.
+ */
+public final class PrometheusMetricsEndpoint implements AutoCloseable {
+
+    public static final String PATH = "/metrics";
+    private static final Logger LOG = LoggerFactory.getLogger(PrometheusMetricsEndpoint.class);
+    private static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+    private static final double NANOS_PER_SECOND = 1_000_000_000.0;
+
+    private final DefaultRequestMetrics metrics;
+    private final HttpServer server;
+
+    /**
+     * Starts the endpoint.
+     *
+     * @param metrics measurements to be served
+     * @param address address the endpoint listens on
+     * @throws IOException when the address cannot be bound
+     */
+    public PrometheusMetricsEndpoint(final DefaultRequestMetrics metrics, final InetSocketAddress address)
+            throws IOException {
+        this.metrics = metrics;
+        this.server = HttpServer.create(address, 0);
+        this.server.createContext(PATH, this::handle);
+        this.server.start();
+        LOG.info("Metrics are served on http://{}:{}{}", address.getHostString(), getPort(), PATH);
+    }
+
+    /**
+     * Port the endpoint listens on, useful when it was started on an ephemeral port.
+     */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    private void handle(final HttpExchange exchange) throws IOException {
+        try (exchange) {
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+            final byte[] body = format(metrics).getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", CONTENT_TYPE);
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream outputStream = exchange.getResponseBody()) {
+                outputStream.write(body);
+            }
+        }
+    }
+
+    /**
+     * Formats the measurements in the Prometheus text format. Operations are labeled by the local name and
+     * the namespace of their QName.
+     *
+     * @param metrics measurements to be formatted
+     * @return metrics in the text format
+     */
+    public static String format(final DefaultRequestMetrics metrics) {
+        final Map<QName, OperationMetrics> operations = metrics.getOperations();
+        final StringBuilder text = new StringBuilder();
+
+        header(text, "netconf_device_requests_total", "counter", "Processed NETCONF requests.");
+        operations.forEach((operation, measurements) ->
+            sample(text, "netconf_device_requests_total", labels(operation), measurements.getRequests()));
+
+        header(text, "netconf_device_requests_in_flight", "gauge", "NETCONF requests being processed.");
+        operations.forEach((operation, measurements) ->
+            sample(text, "netconf_device_requests_in_flight", labels(operation), measurements.getInFlight()));
+
+        header(text, "netconf_device_request_errors_total", "counter", "NETCONF requests replied with rpc-error.");
+        operations.forEach((operation, measurements) -> {
+            for (final Map.Entry<ErrorTag, Long> error : measurements.getErrors().entrySet()) {
+                sample(text, "netconf_device_request_errors_total",
+                    labels(operation) + ",error_tag=\"" + escape(error.getKey().elementBody()) + '"',
+                    error.getValue());
+            }
+        });
+
+        header(text, "netconf_device_request_duration_seconds", "histogram",
+            "Time spent by processing of NETCONF requests.");
+        operations.forEach((operation, measurements) -> histogram(text, "netconf_device_request_duration_seconds",
+            labels(operation), measurements.getLatency(), value -> Double.toString(value / NANOS_PER_SECOND)));
+
+        header(text, "netconf_device_reply_elements", "histogram", "Number of XML elements of NETCONF replies.");
+        operations.forEach((operation, measurements) -> histogram(text, "netconf_device_reply_elements",
+            labels(operation), measurements.getReplyElements(), String::valueOf));
+        return text.toString();
+    }
+
+    private static void header(final StringBuilder text, final String name, final String type, final String help) {
+        text.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        text.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+    }
+
+    private static void sample(final StringBuilder text, final String name, final String labels,
+            final Object value) {
+        text.append(name).append('{').append(labels).append("} ").append(value).append('\n');
+    }
+
+    private static void histogram(final StringBuilder text, final String name, final String labels,
+            final Histogram histogram, final Function<Long, String> valueFormat) {
+        final long[] upperBounds = histogram.getUpperBounds();
+        final long[] counts = histogram.getBucketCounts();
+        long cumulative = 0;
+        for (int i = 0; i < upperBounds.length; i++) {
+            cumulative += counts[i];
+            sample(text, name + "_bucket", labels + ",le=\"" + valueFormat.apply(upperBounds[i]) + '"', cumulative);
+        }
+        cumulative += counts[upperBounds.length];
+        sample(text, name + "_bucket", labels + ",le=\"+Inf\"", cumulative);
+        sample(text, name + "_sum", labels, valueFormat.apply(histogram.getSum()));
+        sample(text, name + "_count", labels, cumulative);
+    }
+
+    private static String labels(final QName operation) {
+        return "operation=\"" + escape(operation.getLocalName()) + "\",namespace=\""
+            + escape(operation.getNamespace().toString()) + '"';
+    }
+
+    private static String escape(final String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+}
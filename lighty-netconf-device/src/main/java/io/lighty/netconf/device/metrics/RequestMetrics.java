@@ -0,0 +1,40 @@
+/*
+ * Copyright (c) 2020 PANTHEON.tech s.r.o. All Rights Reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at https://www.eclipse.org/legal/epl-v10.html
+ */
+package io.lighty.netconf.device.metrics;
+
+import org.eclipse.jdt.annotation.Nullable;
+import org.opendaylight.yangtools.yang.common.ErrorTag;
+import org.opendaylight.yangtools.yang.common.QName;
+
+/**
+ * Receives measurements of the requests processed by {@link io.lighty.netconf.device.requests.RequestProcessor}s.
+ * Operations are identified by the QName of the request processor, e.g. get-config in the NETCONF base namespace.
+ *
+ * <p>{@link DefaultRequestMetrics} keeps the measurements in memory, other implementations may pass them to
+ * a metrics library of the application. Methods are called by the threads processing the requests, so
+ * implementations have to be thread-safe and should not block.
+ */
+public interface RequestMetrics {
+
+    /**
+     * Called before the request is passed to its processor.
+     *
+     * @param operation identifier of the request processor
+     */
+    void requestStarted(QName operation);
+
+    /**
+     * Called after the processor created the reply or failed.
+     *
+     * @param operation identifier of the request processor
+     * @param durationNanos time spent by the processor
+     * @param replyElements number of XML elements of the reply, zero when no reply was created
+     * @param errorTag tag of the rpc-error returned in the reply, null for successful requests
+     */
+    void requestCompleted(QName operation, long durationNanos, int replyElements, @Nullable ErrorTag errorTag);
+}
@@ -0,0 +1,141 @@
+/*
+ * Copyright (c) 2020 PANTHEON.tech s.r.o. All Rights Reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at https://www.eclipse.org/legal/epl-v10.html
+ */
+package io.lighty.netconf.device.monitoring;
+
+import com.google.common.collect.ImmutableSet;
+import java.util.Set;
+import org.opendaylight.netconf.api.DocumentedException;
+import org.opendaylight.netconf.api.NetconfSession;
+import org.opendaylight.netconf.server.NetconfServerSession;
+import org.opendaylight.netconf.server.api.monitoring.Capability;
+import org.opendaylight.netconf.server.api.operations.HandlingPriority;
+import org.opendaylight.netconf.server.api.operations.NetconfOperation;
+import org.opendaylight.netconf.server.api.operations.NetconfOperationChainedExecution;
+import org.opendaylight.netconf.server.api.operations.NetconfOperationService;
+import org.opendaylight.netconf.server.api.operations.SessionAwareNetconfOperation;
+import org.opendaylight.netconf.test.tool.operations.OperationsCreator;
+import org.opendaylight.yang.gen.v1.urn.ietf.params.xml.ns.netconf.base._1._0.rev110601.SessionIdType;
+import org.opendaylight.yangtools.yang.common.ErrorSeverity;
+import org.opendaylight.yangtools.yang.common.ErrorTag;
+import org.opendaylight.yangtools.yang.common.ErrorType;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+
+/**
+ * {@link OperationsCreator} registering sessions of the simulator into {@link NetconfStateMonitor}. Operations of
+ * the sessions are created by the wrapped creator.
+ *
+ * <p>The simulator creates one operation service for all sessions of a device, the server asks it for
+ * the operations of every established session. Each session gets an additional operation which passes all RPCs
+ * to the operations with lower priority. It only receives its session from the server with every RPC.
+ */
+public final class MonitoringOperationsCreator implements OperationsCreator {
+
+    private final OperationsCreator delegate;
+    private final NetconfStateMonitor monitor;
+
+    public MonitoringOperationsCreator(final OperationsCreator delegate, final NetconfStateMonitor monitor) {
+        this.delegate = delegate;
+        this.monitor = monitor;
+    }
+
+    @Override
+    public NetconfOperationService getNetconfOperationService(final Set<Capability> capabilities,
+            final SessionIdType idType) {
+        return new MonitoredOperationService(delegate.getNetconfOperationService(capabilities, idType), monitor);
+    }
+
+    private static final class MonitoredOperationService implements NetconfOperationService {
+
+        private final NetconfOperationService delegate;
+        private final NetconfStateMonitor monitor;
+
+        MonitoredOperationService(final NetconfOperationService delegate, final NetconfStateMonitor monitor) {
+            this.delegate = delegate;
+            this.monitor = monitor;
+        }
+
+        /**
+         * Operations of a newly established session, the server asks for them once per session.
+         */
+        @Override
+        public Set<NetconfOperation> getNetconfOperations() {
+            monitor.sessionCreated();
+            return ImmutableSet.<NetconfOperation>builder()
+                .addAll(delegate.getNetconfOperations())
+                .add(new SessionTrackingOperation(monitor))
+                .build();
+        }
+
+        @Override
+        public void close() {
+            delegate.close();
+        }
+    }
+
+    private static final class SessionTrackingOperation implements SessionAwareNetconfOperation {
+
+        // above the simulated operations of the testtool and below its RPC handler, priorities have to be unique
+        private static final HandlingPriority TRACKING_PRIORITY =
+            HandlingPriority.HANDLE_WITH_DEFAULT_PRIORITY.increasePriority(500);
+        private static final String CLOSE_SESSION = "close-session";
+
+        private final NetconfStateMonitor monitor;
+        // the operation belongs to a single session, whose RPCs are processed one by one on its thread, the server
+        // passes the session right after asking whether the operation can handle its message
+        private boolean closeRequested;
+        private boolean registered;
+
+        SessionTrackingOperation(final NetconfStateMonitor monitor) {
+            this.monitor = monitor;
+        }
+
+        @Override
+        public HandlingPriority canHandle(final Document message) {
+            final Element operation = firstChildElement(message.getDocumentElement());
+            closeRequested = operation != null && CLOSE_SESSION.equals(operation.getLocalName());
+            return TRACKING_PRIORITY;
+        }
+
+        @Override
+        public void setSession(final NetconfSession session) {
+            if (session instanceof NetconfServerSession) {
+                final NetconfServerSession serverSession = (NetconfServerSession) session;
+                if (!registered) {
+                    monitor.sessionUp(serverSession);
+                    registered = true;
+                }
+                if (closeRequested) {
+                    monitor.closeRequested(serverSession);
+                }
+            }
+        }
+
+        @Override
+        public Document handle(final Document requestMessage,
+                final NetconfOperationChainedExecution subsequentOperation) throws DocumentedException {
+            if (subsequentOperation != null) {
+                return subsequentOperation.execute(requestMessage);
+            }
+            final Element operation = firstChildElement(requestMessage.getDocumentElement());
+            throw new DocumentedException(String.format("Unable to handle rpc %s",
+                operation == null ? "rpc" : operation.getLocalName()),
+                ErrorType.PROTOCOL, ErrorTag.OPERATION_NOT_SUPPORTED, ErrorSeverity.ERROR);
+        }
+
+        private static Element firstChildElement(final Element parent) {
+            for (Node child = parent.getFirstChild(); child != null; child = child.getNextSibling()) {
+                if (child instanceof Element) {
+                    return (Element) child;
+                }
+            }
+            return null;
+        }
+    }
+}
@@ -0,0 +1,228 @@
+/*
+ * Copyright (c) 2020 PANTHEON.tech s.r.o. All Rights Reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at https://www.eclipse.org/legal/epl-v10.html
+ */
+package io.lighty.netconf.device.monitoring;
+
+import com.google.common.util.concurrent.FluentFuture;
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.MoreExecutors;
+import io.lighty.netconf.device.utils.SessionUtil;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import org.opendaylight.mdsal.binding.api.DataBroker;
+import org.opendaylight.mdsal.binding.api.WriteTransaction;
+import org.opendaylight.mdsal.common.api.CommitInfo;
+import org.opendaylight.mdsal.common.api.LogicalDatastoreType;
+import org.opendaylight.netconf.server.NetconfServerSession;
+import org.opendaylight.netconf.server.api.monitoring.JavaCommonCounters;
+import org.opendaylight.yang.gen.v1.urn.ietf.params.xml.ns.yang.ietf.netconf.monitoring.rev101004.NetconfSsh;
+import org.opendaylight.yang.gen.v1.urn.ietf.params.xml.ns.yang.ietf.netconf.monitoring.rev101004.NetconfState;
+import org.opendaylight.yang.gen.v1.urn.ietf.params.xml.ns.yang.ietf.netconf.monitoring.rev101004.netconf.state.Schemas;
+import org.opendaylight.yang.gen.v1.urn.ietf.params.xml.ns.yang.ietf.netconf.monitoring.rev101004.netconf.state.Sessions;
+import org.opendaylight.yang.gen.v1.urn.ietf.params.xml.ns.yang.ietf.netconf.monitoring.rev101004.netconf.state.SessionsBuilder;
+import org.opendaylight.yang.gen.v1.urn.ietf.params.xml.ns.yang.ietf.netconf.monitoring.rev101004.netconf.state.Statistics;
+import org.opendaylight.yang.gen.v1.urn.ietf.params.xml.ns.yang.ietf.netconf.monitoring.rev101004.netconf.state.StatisticsBuilder;
+import org.opendaylight.yang.gen.v1.urn.ietf.params.xml.ns.yang.ietf.netconf.monitoring.rev101004.netconf.state.sessions.Session;
+import org.opendaylight.yang.gen.v1.urn.ietf.params.xml.ns.yang.ietf.netconf.monitoring.rev101004.netconf.state.sessions.SessionBuilder;
+import org.opendaylight.yang.gen.v1.urn.ietf.params.xml.ns.yang.ietf.netconf.monitoring.rev101004.netconf.state.sessions.SessionKey;
+import org.opendaylight.yang.gen.v1.urn.ietf.params.xml.ns.yang.ietf.yang.types.rev130715.DateAndTime;
+import org.opendaylight.yang.gen.v1.urn.ietf.params.xml.ns.yang.ietf.yang.types.rev130715.ZeroBasedCounter32;
+import org.opendaylight.yangtools.binding.DataObjectIdentifier;
+import org.opendaylight.yangtools.yang.common.Uint32;
+
+/**
+ * Keeps track of NETCONF sessions of a device and exposes them together with the global statistics in
+ * netconf-state of ietf-netconf-monitoring.
+ *
+ * <p>Counters of open sessions are kept by the sessions themselves, the monitor only adds the counters of closed
+ * sessions into striped totals. Sessions are counted in in-sessions when they are established, they are listed once
+ * they sent their first RPC, the server passes the session to the operations of the device no sooner. They are
+ * removed as soon as they are closed. Nothing is written while the RPCs are processed, the state is written into
+ * the operational datastore by {@link #writeState()} when it is about to be read. The schema list does not change,
+ * it is written by the first successful {@link #writeState()} only.
+ */
+public final class NetconfStateMonitor {
+
+    private static final DataObjectIdentifier<Schemas> SCHEMAS_IDENTIFIER =
+        DataObjectIdentifier.builder(NetconfState.class).child(Schemas.class).build();
+    private static final DataObjectIdentifier<Sessions> SESSIONS_IDENTIFIER =
+        DataObjectIdentifier.builder(NetconfState.class).child(Sessions.class).build();
+    private static final DataObjectIdentifier<Statistics> STATISTICS_IDENTIFIER =
+        DataObjectIdentifier.builder(NetconfState.class).child(Statistics.class).build();
+
+    private final DataBroker dataBroker;
+    private final SchemaIndex schemaIndex;
+    private final Instant startTime = Instant.now();
+    private final ConcurrentMap<Long, NetconfServerSession> sessions = new ConcurrentHashMap<>();
+    private final Set<Long> closingSessions = ConcurrentHashMap.newKeySet();
+    private final LongAdder inSessions = new LongAdder();
+    private final LongAdder droppedSessions = new LongAdder();
+    private final LongAdder closedInRpcs = new LongAdder();
+    private final LongAdder closedInBadRpcs = new LongAdder();
+    private final LongAdder closedOutRpcErrors = new LongAdder();
+    private final LongAdder closedOutNotifications = new LongAdder();
+    private volatile boolean schemasWritten;
+
+    /**
+     * Creates monitor, its creation time is reported as netconf-start-time.
+     *
+     * @param dataBroker broker of the device the state is written into
+     * @param schemaIndex schemas of the device models
+     */
+    public NetconfStateMonitor(final DataBroker dataBroker, final SchemaIndex schemaIndex) {
+        this.dataBroker = dataBroker;
+        this.schemaIndex = schemaIndex;
+    }
+
+    /**
+     * Counts newly established session into in-sessions.
+     */
+    public void sessionCreated() {
+        inSessions.increment();
+    }
+
+    /**
+     * Registers session which sent its first RPC. The session is removed once it is closed, repeated registration
+     * of the same session is ignored.
+     */
+    public void sessionUp(final NetconfServerSession session) {
+        if (sessions.putIfAbsent(sessionId(session), session) == null) {
+            SessionUtil.addCloseListener(session, () -> sessionClosed(session));
+        }
+    }
+
+    /**
+     * Marks session which requested close-session, it is not counted as dropped once it is closed.
+     */
+    public void closeRequested(final NetconfServerSession session) {
+        closingSessions.add(sessionId(session));
+    }
+
+    /**
+     * Open sessions with their current counters. Sessions of the simulator are served over SSH only.
+     */
+    public Sessions getSessions() {
+        removeClosedSessions();
+        final Map<SessionKey, Session> sessionMap = new HashMap<>();
+        for (final NetconfServerSession session : sessions.values()) {
+            // the server adds transport and augmentation of an ODL model the device does not have to contain
+            final Session managementSession = session.toManagementSession();
+            final Session exposedSession = new SessionBuilder(session.commonCounters())
+                .setSessionId(managementSession.getSessionId())
+                .setTransport(NetconfSsh.VALUE)
+                .setUsername(managementSession.getUsername())
+                .setSourceHost(managementSession.getSourceHost())
+                .setLoginTime(managementSession.getLoginTime())
+                .build();
+            sessionMap.put(exposedSession.key(), exposedSession);
+        }
+        return new SessionsBuilder().setSession(sessionMap).build();
+    }
+
+    /**
+     * Statistics of all sessions since the start of the device. Counters of open sessions are read without
+     * synchronization with their sessions, they may lag behind by the RPCs being processed.
+     */
+    public Statistics getStatistics() {
+        removeClosedSessions();
+        long inRpcs = closedInRpcs.sum();
+        long inBadRpcs = closedInBadRpcs.sum();
+        long outRpcErrors = closedOutRpcErrors.sum();
+        long outNotifications = closedOutNotifications.sum();
+        for (final NetconfServerSession session : sessions.values()) {
+            final JavaCommonCounters counters = session.commonCounters();
+            inRpcs += counters.inRpcs();
+            inBadRpcs += counters.inBadRpcs();
+            outRpcErrors += counters.outRpcErrors();
+            outNotifications += counters.outNotifications();
+        }
+        return new StatisticsBuilder()
+            .setNetconfStartTime(new DateAndTime(startTime.toString()))
+            .setInBadHellos(counter(0))
+            .setInSessions(counter(inSessions.sum()))
+            .setDroppedSessions(counter(droppedSessions.sum()))
+            .setInRpcs(counter(inRpcs))
+            .setInBadRpcs(counter(inBadRpcs))
+            .setOutRpcErrors(counter(outRpcErrors))
+            .setOutNotifications(counter(outNotifications))
+            .build();
+    }
+
+    /**
+     * Writes current sessions and statistics into netconf-state of the operational datastore, together with
+     * the schema list until it is written successfully.
+     *
+     * @return transaction commit information in FluentFuture
+     */
+    public FluentFuture<? extends CommitInfo> writeState() {
+        final WriteTransaction writeTx = dataBroker.newWriteOnlyTransaction();
+        final boolean writeSchemas = !schemasWritten;
+        if (writeSchemas) {
+            writeTx.put(LogicalDatastoreType.OPERATIONAL, SCHEMAS_IDENTIFIER, schemaIndex.getSchemas());
+        }
+        writeTx.put(LogicalDatastoreType.OPERATIONAL, SESSIONS_IDENTIFIER, getSessions());
+        writeTx.put(LogicalDatastoreType.OPERATIONAL, STATISTICS_IDENTIFIER, getStatistics());
+        final FluentFuture<? extends CommitInfo> commit = writeTx.commit();
+        if (writeSchemas) {
+            commit.addCallback(new FutureCallback<CommitInfo>() {
+                @Override
+                public void onSuccess(final CommitInfo result) {
+                    schemasWritten = true;
+                }
+
+                @Override
+                public void onFailure(final Throwable cause) {
+                    // schemas are written again with the next state
+                }
+            }, MoreExecutors.directExecutor());
+        }
+        return commit;
+    }
+
+    /**
+     * Sessions are removed when they are closed, this only finds sessions closed by close-session whose end could
+     * not be observed by {@link SessionUtil#addCloseListener(org.opendaylight.netconf.api.NetconfSession, Runnable)}.
+     */
+    private void removeClosedSessions() {
+        for (final NetconfServerSession session : sessions.values()) {
+            if (!session.isUp()) {
+                sessionClosed(session);
+            }
+        }
+    }
+
+    /**
+     * Moves counters of the closed session into the totals.
+     */
+    private void sessionClosed(final NetconfServerSession session) {
+        final long sessionId = sessionId(session);
+        if (sessions.remove(sessionId, session)) {
+            final JavaCommonCounters counters = session.commonCounters();
+            closedInRpcs.add(counters.inRpcs());
+            closedInBadRpcs.add(counters.inBadRpcs());
+            closedOutRpcErrors.add(counters.outRpcErrors());
+            closedOutNotifications.add(counters.outNotifications());
+            if (!closingSessions.remove(sessionId)) {
+                droppedSessions.increment();
+            }
+        }
+    }
+
+    private static long sessionId(final NetconfServerSession session) {
+        return session.sessionId().getValue().toJava();
+    }
+
+    private static ZeroBasedCounter32 counter(final long value) {
+        // counter32 wraps around on overflow
+        return new ZeroBasedCounter32(Uint32.valueOf(value & 0xFFFF_FFFFL));
+    }
+}
@@ -0,0 +1,217 @@
+/*
+ * Copyright (c) 2020 PANTHEON.tech s.r.o. All Rights Reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at https://www.eclipse.org/legal/epl-v10.html
+ */
+package io.lighty.netconf.device.monitoring;
+
+import com.google.common.base.Stopwatch;
+import com.google.common.base.Supplier;
+import com.google.common.base.Suppliers;
+import com.google.common.collect.ImmutableMap;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.function.Function;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+import org.eclipse.jdt.annotation.Nullable;
+import org.opendaylight.yang.gen.v1.urn.ietf.params.xml.ns.yang.ietf.inet.types.rev130715.Uri;
+import org.opendaylight.yang.gen.v1.urn.ietf.params.xml.ns.yang.ietf.netconf.monitoring.rev101004.Yang;
+import org.opendaylight.yang.gen.v1.urn.ietf.params.xml.ns.yang.ietf.netconf.monitoring.rev101004.netconf.state.Schemas;
+import org.opendaylight.yang.gen.v1.urn.ietf.params.xml.ns.yang.ietf.netconf.monitoring.rev101004.netconf.state.SchemasBuilder;
+import org.opendaylight.yang.gen.v1.urn.ietf.params.xml.ns.yang.ietf.netconf.monitoring.rev101004.netconf.state.schemas.Schema;
+import org.opendaylight.yang.gen.v1.urn.ietf.params.xml.ns.yang.ietf.netconf.monitoring.rev101004.netconf.state.schemas.SchemaBuilder;
+import org.opendaylight.yang.gen.v1.urn.ietf.params.xml.ns.yang.ietf.netconf.monitoring.rev101004.netconf.state.schemas.SchemaKey;
+import org.opendaylight.yangtools.binding.runtime.api.ModuleInfoSnapshot;
+import org.opendaylight.yangtools.yang.common.Revision;
+import org.opendaylight.yangtools.yang.model.api.EffectiveModelContext;
+import org.opendaylight.yangtools.yang.model.api.ModuleLike;
+import org.opendaylight.yangtools.yang.model.api.source.SourceIdentifier;
+import org.opendaylight.yangtools.yang.model.api.source.YangTextSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Modules and submodules of a model context as exposed by netconf-state/schemas of ietf-netconf-monitoring,
+ * together with their YANG sources served by get-schema.
+ *
+ * <p>The index is immutable and shared by all devices with the same model context. Nothing is computed when it is
+ * created, the schema list and the sources are computed once on their first use. Sources are kept deflated, they
+ * are inflated for each get-schema only.
+ */
+public final class SchemaIndex {
+
+    private static final Logger LOG = LoggerFactory.getLogger(SchemaIndex.class);
+
+    private final EffectiveModelContext modelContext;
+    private final @Nullable Function<SourceIdentifier, YangTextSource> sourceProvider;
+    private final Supplier<Schemas> schemas;
+    private final Supplier<Map<String, Map<String, byte[]>>> sources;
+
+    private SchemaIndex(final EffectiveModelContext modelContext,
+            final @Nullable Function<SourceIdentifier, YangTextSource> sourceProvider) {
+        this.modelContext = modelContext;
+        this.sourceProvider = sourceProvider;
+        this.schemas = Suppliers.memoize(this::createSchemas);
+        this.sources = Suppliers.memoize(this::compressSources);
+    }
+
+    /**
+     * Creates index of the models in given snapshot, YANG sources are read from the snapshot.
+     *
+     * @param moduleInfoSnapshot snapshot the model context was created from
+     * @return index of the models
+     */
+    public static SchemaIndex of(final ModuleInfoSnapshot moduleInfoSnapshot) {
+        return new SchemaIndex(moduleInfoSnapshot.modelContext(), moduleInfoSnapshot::yangTextSource);
+    }
+
+    /**
+     * Creates index of the models in given context. Sources of the models are not known, the index provides
+     * the schema list only.
+     *
+     * @param modelContext model context of the device
+     * @return index of the models
+     */
+    public static SchemaIndex withoutSources(final EffectiveModelContext modelContext) {
+        return new SchemaIndex(modelContext, null);
+    }
+
+    /**
+     * Schema list of netconf-state, computed on first call.
+     */
+    public Schemas getSchemas() {
+        return schemas.get();
+    }
+
+    /**
+     * Versions of the schema with given identifier, empty when there is no such schema. Versions of schemas
+     * without revision are empty strings.
+     */
+    public Collection<String> getVersions(final String identifier) {
+        return Collections.unmodifiableSet(sources.get().getOrDefault(identifier, Map.of()).keySet());
+    }
+
+    /**
+     * YANG source of the schema with given identifier and version, inflated from the index.
+     *
+     * @param identifier name of the module or submodule
+     * @param version revision of the module or submodule, empty string for schemas without revision
+     * @return YANG source, empty when the index does not contain such schema
+     */
+    public Optional<String> getSource(final String identifier, final String version) {
+        final byte[] compressed = sources.get().getOrDefault(identifier, Map.of()).get(version);
+        return compressed == null ? Optional.empty() : Optional.of(inflate(compressed));
+    }
+
+    private Schemas createSchemas() {
+        final Map<SchemaKey, Schema> mapSchemas = new HashMap<>();
+        for (final ModuleLike module : allModules().values()) {
+            final Schema schema = createSchemaFromModule(module);
+            mapSchemas.put(schema.key(), schema);
+        }
+        return new SchemasBuilder().setSchema(mapSchemas).build();
+    }
+
+    private Map<String, Map<String, byte[]>> compressSources() {
+        if (sourceProvider == null) {
+            return Map.of();
+        }
+        final Stopwatch stopwatch = Stopwatch.createStarted();
+        final Map<String, Map<String, byte[]>> compressed = new HashMap<>();
+        long plainSize = 0;
+        long compressedSize = 0;
+        final Map<SourceIdentifier, ModuleLike> modules = allModules();
+        for (final Map.Entry<SourceIdentifier, ModuleLike> entry : modules.entrySet()) {
+            final String text;
+            try {
+                final YangTextSource source = sourceProvider.apply(entry.getKey());
+                if (source == null) {
+                    LOG.warn("YANG source of {} is not available, get-schema will not serve it", entry.getKey());
+                    continue;
+                }
+                text = source.read();
+            } catch (IOException | IllegalArgumentException e) {
+                LOG.warn("YANG source of {} is not available, get-schema will not serve it", entry.getKey(), e);
+                continue;
+            }
+            final byte[] plain = text.getBytes(StandardCharsets.UTF_8);
+            final byte[] deflated = deflate(plain);
+            plainSize += plain.length;
+            compressedSize += deflated.length;
+            compressed.computeIfAbsent(entry.getValue().getName(), name -> new HashMap<>())
+                .put(version(entry.getValue()), deflated);
+        }
+        LOG.debug("{} YANG sources indexed in {}, {} bytes compressed into {}", modules.size(), stopwatch,
+            plainSize, compressedSize);
+        final ImmutableMap.Builder<String, Map<String, byte[]>> builder = ImmutableMap.builder();
+        compressed.forEach((identifier, versions) -> builder.put(identifier, ImmutableMap.copyOf(versions)));
+        return builder.build();
+    }
+
+    /**
+     * Walks modules of the model context and their submodules.
+     */
+    private Map<SourceIdentifier, ModuleLike> allModules() {
+        final Map<SourceIdentifier, ModuleLike> modules = new LinkedHashMap<>();
+        final Queue<Collection<? extends ModuleLike>> queueModulesCollections = new ArrayDeque<>();
+        queueModulesCollections.add(modelContext.getModules());
+        while (!queueModulesCollections.isEmpty()) {
+            for (final ModuleLike module : queueModulesCollections.poll()) {
+                final SourceIdentifier sourceIdentifier =
+                    new SourceIdentifier(module.getName(), module.getRevision().orElse(null));
+                if (modules.putIfAbsent(sourceIdentifier, module) == null && !module.getSubmodules().isEmpty()) {
+                    queueModulesCollections.add(module.getSubmodules());
+                }
+            }
+        }
+        return modules;
+    }
+
+    private static Schema createSchemaFromModule(final ModuleLike module) {
+        return new SchemaBuilder()
+            .setNamespace(new Uri(module.getNamespace().toString()))
+            .setFormat(Yang.VALUE)
+            .setIdentifier(module.getName())
+            .setVersion(version(module))
+            .setLocation(Collections.singleton(new Schema.Location(Schema.Location.Enumeration.NETCONF)))
+            .build();
+    }
+
+    private static String version(final ModuleLike module) {
+        return module.getRevision().map(Revision::toString).orElse("");
+    }
+
+    private static byte[] deflate(final byte[] plain) {
+        final ByteArrayOutputStream output = new ByteArrayOutputStream(plain.length / 4 + 64);
+        try (OutputStream deflater = new DeflaterOutputStream(output)) {
+            deflater.write(plain);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to compress YANG source", e);
+        }
+        return output.toByteArray();
+    }
+
+    private static String inflate(final byte[] compressed) {
+        try (InputStream inflater = new InflaterInputStream(new ByteArrayInputStream(compressed))) {
+            return new String(inflater.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to decompress YANG source", e);
+        }
+    }
+}
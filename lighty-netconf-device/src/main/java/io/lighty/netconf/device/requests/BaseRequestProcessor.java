@@ -10,12 +10,12 @@ package io.lighty.netconf.device.requests;
 import io.lighty.codecs.util.exception.SerializationException;
 import io.lighty.netconf.device.NetconfDeviceServices;
 import io.lighty.netconf.device.response.Response;
+import io.lighty.netconf.device.utils.RPCUtil;
 import io.lighty.netconf.device.utils.TimeoutUtil;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
-import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
@@ -23,10 +23,10 @@ import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import java.util.stream.Collectors;
 import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
 import org.opendaylight.netconf.api.DocumentedException;
 import org.opendaylight.netconf.api.NetconfDocumentedException;
+import org.opendaylight.yangtools.util.xml.UntrustedXML;
 import org.opendaylight.yangtools.yang.data.api.YangInstanceIdentifier;
 import org.opendaylight.yangtools.yang.data.api.schema.MapNode;
 import org.opendaylight.yangtools.yang.data.api.schema.NormalizedNode;
@@ -35,6 +35,7 @@ import org.opendaylight.yangtools.yang.data.spi.node.ImmutableNodes;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.w3c.dom.Document;
+import org.w3c.dom.DocumentFragment;
 import org.w3c.dom.Element;
 import org.w3c.dom.Node;
 import org.xml.sax.SAXException;
@@ -43,19 +44,16 @@ import org.xml.sax.SAXException;
  * Base class which implements the {@link RequestProcessor} interface.
  * This implementation cannot handle the input parameters and therefore is
  * suitable only for RPCs without any parameter served.
+ *
+ * <p>One instance processes the requests of all sessions of the device, possibly at the same time. Child classes
+ * must not keep anything specific to a request in their fields, it is passed in the {@link RequestContext}.
  */
 public abstract class BaseRequestProcessor implements RequestProcessor {
 
     private static final Logger LOG = LoggerFactory.getLogger(BaseRequestProcessor.class);
 
-    private final DocumentBuilderFactory factory;
     private NetconfDeviceServices netconfDeviceServices;
 
-    public BaseRequestProcessor() {
-        this.factory = DocumentBuilderFactory.newInstance();
-        this.factory.setNamespaceAware(true);
-    }
-
     @Override
     public void init(NetconfDeviceServices paramNetconfDeviceServices) {
         this.netconfDeviceServices = paramNetconfDeviceServices;
@@ -68,23 +66,30 @@ public abstract class BaseRequestProcessor implements RequestProcessor {
      * <p>The child classes should override this method to achieve the expected behavior.
      *
      * @param requestXmlElement XML RPC request element
+     * @param context context of the request
      * @return {@link List} containing {@link NormalizedNode}s to be returned by request.
      */
-    protected abstract CompletableFuture<Response> execute(Element requestXmlElement);
+    protected abstract CompletableFuture<Response> execute(Element requestXmlElement, RequestContext context);
 
     protected NetconfDeviceServices getNetconfDeviceServices() {
         return netconfDeviceServices;
     }
 
-    protected DocumentBuilderFactory getDocumentBuilderFactory() {
-        return factory;
+    /**
+     * Creates a new namespace aware document builder. Document builders are not thread-safe, so every request
+     * uses its own.
+     *
+     * @return document builder
+     */
+    protected DocumentBuilder newDocumentBuilder() {
+        return UntrustedXML.newDocumentBuilder();
     }
 
     @Override
-    public Document processRequest(Element requestXmlElement) {
+    public Document processRequest(Element requestXmlElement, RequestContext context) {
         try {
-            CompletableFuture<Response> responseOutput = execute(requestXmlElement);
-            return processResponse(responseOutput);
+            CompletableFuture<Response> responseOutput = execute(requestXmlElement, context);
+            return processResponse(responseOutput, context);
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
             LOG.error("Interrupted while processing XML request: {}", requestXmlElement, e);
@@ -101,25 +106,28 @@ public abstract class BaseRequestProcessor implements RequestProcessor {
         }
     }
 
-    private Document processResponse(final CompletableFuture<Response> responseOutput)
+    private Document processResponse(final CompletableFuture<Response> responseOutput, final RequestContext context)
             throws ExecutionException, InterruptedException, ParserConfigurationException, TimeoutException {
         final Response listResponse = responseOutput.get(TimeoutUtil.TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
         final Document error = listResponse.getErrorDocument();
         if (error != null) {
             return error;
         } else {
-            return wrapToFinalDocumentReply(listResponse.getData());
+            return wrapToFinalDocumentReply(listResponse.getData(), context);
         }
     }
 
-    protected abstract Document wrapToFinalDocumentReply(List<NormalizedNode> responseOutput)
+    protected abstract Document wrapToFinalDocumentReply(List<NormalizedNode> responseOutput, RequestContext context)
         throws ParserConfigurationException;
 
     /**
      * Prepares the output node. By default it parses calls the
-     * {@link BaseRequestProcessor#execute(Element)} method
+     * {@link BaseRequestProcessor#execute(Element, RequestContext)} method
      * which returns a object representation of the RPC result.
      *
+     * <p>Every output node is written by {@link #writeNormalizedNode(NormalizedNode, Node, DocumentBuilder)}
+     * directly into the given document, so the returned nodes can be appended into the reply without importing them.
+     *
      * @param responseOutput output from execution of request
      * @param builder        a document builder
      * @param document       a document
@@ -127,54 +135,65 @@ public abstract class BaseRequestProcessor implements RequestProcessor {
      */
     protected List<Node> convertOutputToXmlNodes(List<NormalizedNode> responseOutput, DocumentBuilder builder,
                                                  Document document) {
-        Node responseOutputAsXmlNode;
         if (responseOutput.isEmpty()) {
             LOG.error("Response output is not present!");
             throw new IllegalStateException("Response output is not present!");
         }
-        List<String> responseOutputString = convertOutputNormalizedNodesToXmlStrings(responseOutput);
-        List<Node> nodes = new ArrayList<>();
-        for (String string : responseOutputString) {
+        final DocumentFragment fragment = document.createDocumentFragment();
+        for (NormalizedNode normalizedNode : responseOutput) {
+            try {
+                writeNormalizedNode(normalizedNode, fragment, builder);
+            } catch (SerializationException e) {
+                String msg = "Unable to serialize binding independent object: "
+                        + NormalizedNodes.toStringTree(normalizedNode);
+                LOG.error(msg, e);
+                throw new IllegalStateException(msg, e);
+            }
+        }
+        return RPCUtil.getNodes(fragment.getChildNodes());
+    }
+
+    /**
+     * Writes the {@link NormalizedNode} as child of the parent DOM node.
+     *
+     * <p>Default implementation serializes the node via
+     * {@link BaseRequestProcessor#convertNormalizedNodeToXmlString(NormalizedNode)}, parses the result and imports
+     * it into the parent's document. Child classes able to stream the node straight into the DOM tree should
+     * override this method, see {@link io.lighty.netconf.device.utils.NormalizedNodeDomWriter}.
+     *
+     * @param normalizedNode node to be written
+     * @param parent         parent DOM node
+     * @param builder        a document builder
+     * @throws SerializationException in case the node could not be serialized
+     */
+    protected void writeNormalizedNode(NormalizedNode normalizedNode, Node parent, DocumentBuilder builder)
+            throws SerializationException {
+        for (NormalizedNode node : splitMapNode(normalizedNode)) {
+            final String string = convertNormalizedNodeToXmlString(node);
             try (InputStream is = new ByteArrayInputStream(string.getBytes(StandardCharsets.UTF_8))) {
-                responseOutputAsXmlNode = builder.parse(is).getFirstChild();
-                nodes.add(document.importNode(responseOutputAsXmlNode, true));
+                final Node responseOutputAsXmlNode = builder.parse(is).getFirstChild();
+                parent.appendChild(parent.getOwnerDocument().importNode(responseOutputAsXmlNode, true));
             } catch (IOException | SAXException e) {
                 String msg = "Error while serializing XML: " + e.getMessage();
                 LOG.error("Could not convert NN to XML, {}", msg);
                 throw new IllegalStateException(msg, e);
             }
         }
-        return nodes;
     }
 
-    private List<String> convertOutputNormalizedNodesToXmlStrings(List<NormalizedNode> responseOutput) {
-        List<NormalizedNode> toConvert = new ArrayList<>();
-        for (NormalizedNode normalizedNode : responseOutput) {
-            // in case of MapNode we need to wrap every MapEntryNode to MapNode and serialize separately
-            if (normalizedNode instanceof MapNode) {
-                toConvert.addAll(((MapNode) normalizedNode).body().stream().map(mapEntryNode ->
-                        ImmutableNodes.newSystemMapBuilder()
-                                .withNodeIdentifier(
-                                        YangInstanceIdentifier.NodeIdentifier.create(normalizedNode.name()
-                                                .getNodeType()))
-                                .withChild(mapEntryNode)
-                                .build())
-                        .collect(Collectors.toList()));
-            } else {
-                toConvert.add(normalizedNode);
-            }
-        }
-        List<String> converted = new ArrayList<>();
-        for (NormalizedNode node : toConvert) {
-            try {
-                converted.add(convertNormalizedNodeToXmlString(node));
-            } catch (SerializationException e) {
-                String msg = "Unable to serialize binding independent object: " + NormalizedNodes.toStringTree(node);
-                LOG.error(msg, e);
-                throw new IllegalStateException(msg, e);
-            }
+    private static List<NormalizedNode> splitMapNode(NormalizedNode normalizedNode) {
+        // in case of MapNode we need to wrap every MapEntryNode to MapNode and serialize separately
+        if (normalizedNode instanceof MapNode) {
+            return ((MapNode) normalizedNode).body().stream().map(mapEntryNode ->
+                    (NormalizedNode) ImmutableNodes.newSystemMapBuilder()
+                            .withNodeIdentifier(
+                                    YangInstanceIdentifier.NodeIdentifier.create(normalizedNode.name()
+                                            .getNodeType()))
+                            .withChild(mapEntryNode)
+                            .build())
+                    .collect(Collectors.toList());
         }
-        return converted;
+        return List.of(normalizedNode);
     }
 
     protected abstract String convertNormalizedNodeToXmlString(NormalizedNode normalizedNode)
@@ -0,0 +1,59 @@
+/*
+ * Copyright (c) 2020 PANTHEON.tech s.r.o. All Rights Reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at https://www.eclipse.org/legal/epl-v10.html
+ */
+package io.lighty.netconf.device.requests;
+
+import io.lighty.netconf.device.response.Response;
+import io.lighty.netconf.device.response.ResponseData;
+import io.lighty.netconf.device.utils.RPCUtil;
+import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeoutException;
+import org.opendaylight.yangtools.yang.common.ErrorTag;
+import org.opendaylight.yangtools.yang.common.ErrorType;
+import org.opendaylight.yangtools.yang.common.QName;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.w3c.dom.Element;
+
+/**
+ * Implementation of cancel-commit netconf protocol operation.
+ * https://tools.ietf.org/html/rfc6241#section-8.4.4.1
+ * Running is rolled back to the state before the pending confirmed commit.
+ */
+public class CancelCommitRequestProcessor extends OkOutputRequestProcessor {
+
+    public static final QName CANCEL_COMMIT = QName.create(RPCUtil.NETCONF_BASE_NAMESPACE, "cancel-commit");
+
+    private static final Logger LOG = LoggerFactory.getLogger(CancelCommitRequestProcessor.class);
+
+    @Override
+    public QName getIdentifier() {
+        return CANCEL_COMMIT;
+    }
+
+    @Override
+    protected CompletableFuture<Response> executeOkRequest(Element requestXmlElement, RequestContext context) {
+        try {
+            getNetconfDeviceServices().getConfirmedCommit().cancel(context.getSessionId(),
+                RPCUtil.retrieveParameter(requestXmlElement, "persist-id").orElse(null));
+        } catch (IllegalArgumentException e) {
+            return errorResponse(e.getMessage(), ErrorType.PROTOCOL, ErrorTag.INVALID_VALUE);
+        } catch (IllegalStateException e) {
+            return errorResponse(e.getMessage(), ErrorType.PROTOCOL, ErrorTag.OPERATION_FAILED);
+        } catch (InterruptedException | ExecutionException | TimeoutException e) {
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            LOG.warn("Rollback of confirmed commit failed", e);
+            return errorResponse("Rollback of confirmed commit failed: " + e.getMessage(), ErrorType.APPLICATION,
+                ErrorTag.OPERATION_FAILED);
+        }
+        return CompletableFuture.completedFuture(new ResponseData(Collections.emptyList()));
+    }
+}
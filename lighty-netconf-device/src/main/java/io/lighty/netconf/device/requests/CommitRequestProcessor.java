@@ -7,34 +7,104 @@
  */
 package io.lighty.netconf.device.requests;
 
+import io.lighty.netconf.device.datastore.ConfirmedCommit;
+import io.lighty.netconf.device.datastore.DatastoreLocks;
 import io.lighty.netconf.device.response.Response;
 import io.lighty.netconf.device.response.ResponseData;
 import io.lighty.netconf.device.utils.RPCUtil;
+import java.time.Duration;
 import java.util.Collections;
+import java.util.List;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeoutException;
+import org.opendaylight.mdsal.common.api.OptimisticLockFailedException;
+import org.opendaylight.mdsal.common.api.TransactionCommitFailedException;
+import org.opendaylight.yangtools.yang.common.ErrorTag;
+import org.opendaylight.yangtools.yang.common.ErrorType;
 import org.opendaylight.yangtools.yang.common.QName;
+import org.opendaylight.yangtools.yang.common.Uint32;
+import org.opendaylight.yangtools.yang.data.tree.api.SchemaValidationFailedException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.w3c.dom.Element;
 
 /**
  * Implementation of commit netconf protocol operation.
+ * https://tools.ietf.org/html/rfc6241#section-8.3.4.1
+ * Changes of the candidate are applied to running in a single transaction. Commit of an unchanged candidate
+ * does nothing. Confirmed commit is supported, see {@link ConfirmedCommit}. Devices without the candidate datastore
+ * still advertise it as an alias of running, commit does nothing there.
  */
 public class CommitRequestProcessor extends OkOutputRequestProcessor {
 
+    public static final QName COMMIT = QName.create(RPCUtil.NETCONF_BASE_NAMESPACE, "commit");
+
     private static final Logger LOG = LoggerFactory.getLogger(CommitRequestProcessor.class);
+    private static final String CONFIRMED = "confirmed";
+    private static final String CONFIRM_TIMEOUT = "confirm-timeout";
+    private static final String PERSIST = "persist";
+    private static final String PERSIST_ID = "persist-id";
 
     @Override
-    protected CompletableFuture<Response> executeOkRequest(Element requestXmlElement) {
-        LOG.info("commit: executeOkRequest");
-        final CompletableFuture<Response> responseFuture = new CompletableFuture<>();
-        responseFuture.complete(new ResponseData(Collections.emptyList()));
-        return responseFuture;
+    protected CompletableFuture<Response> executeOkRequest(Element requestXmlElement, RequestContext context) {
+        if (!getNetconfDeviceServices().isCandidateEnabled()) {
+            // candidate is an alias of running, edits of the candidate were already applied
+            return CompletableFuture.completedFuture(new ResponseData(Collections.emptyList()));
+        }
+        final DatastoreLocks locks = getNetconfDeviceServices().getDatastoreLocks();
+        for (final String datastore : List.of(DatastoreLocks.RUNNING, DatastoreLocks.CANDIDATE)) {
+            if (locks.isLockedByOther(datastore, context.getSessionId())) {
+                return errorResponse("Datastore " + datastore + " is locked by another session",
+                    ErrorType.PROTOCOL, ErrorTag.IN_USE);
+            }
+        }
+        final boolean confirmed = RPCUtil.retrieveParameter(requestXmlElement, CONFIRMED).isPresent();
+        if (confirmed && !getNetconfDeviceServices().isConfirmedCommitEnabled()) {
+            return errorResponse("Confirmed commit is not supported", ErrorType.PROTOCOL,
+                ErrorTag.OPERATION_NOT_SUPPORTED);
+        }
+        Duration confirmTimeout = null;
+        if (confirmed) {
+            try {
+                confirmTimeout = RPCUtil.retrieveParameter(requestXmlElement, CONFIRM_TIMEOUT)
+                    .map(seconds -> Duration.ofSeconds(Uint32.valueOf(seconds).toJava()))
+                    .orElse(ConfirmedCommit.DEFAULT_TIMEOUT);
+            } catch (IllegalArgumentException e) {
+                return errorResponse("Invalid confirm-timeout: " + e.getMessage(), ErrorType.PROTOCOL,
+                    ErrorTag.INVALID_VALUE);
+            }
+        }
+        try {
+            getNetconfDeviceServices().getConfirmedCommit().commit(context.getSessionId(), confirmTimeout,
+                confirmed ? RPCUtil.retrieveParameter(requestXmlElement, PERSIST).orElse(null) : null,
+                RPCUtil.retrieveParameter(requestXmlElement, PERSIST_ID).orElse(null));
+        } catch (IllegalArgumentException e) {
+            return errorResponse(e.getMessage(), ErrorType.PROTOCOL, ErrorTag.INVALID_VALUE);
+        } catch (IllegalStateException e) {
+            return errorResponse(e.getMessage(), ErrorType.PROTOCOL, ErrorTag.OPERATION_FAILED);
+        } catch (InterruptedException | ExecutionException | TimeoutException e) {
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            LOG.debug("Commit of candidate failed", e);
+            final Throwable error = e.getCause();
+            if (error instanceof OptimisticLockFailedException) {
+                return errorResponse(error.getMessage(), ErrorType.APPLICATION, ErrorTag.IN_USE);
+            }
+            if (error instanceof TransactionCommitFailedException
+                    && error.getCause() instanceof SchemaValidationFailedException) {
+                return errorResponse(error.getCause().getMessage(), ErrorType.APPLICATION, ErrorTag.BAD_ELEMENT);
+            }
+            return errorResponse("Commit of candidate failed: " + e.getMessage(), ErrorType.APPLICATION,
+                ErrorTag.OPERATION_FAILED);
+        }
+        return CompletableFuture.completedFuture(new ResponseData(Collections.emptyList()));
     }
 
     @Override
     public QName getIdentifier() {
-        return QName.create(RPCUtil.NETCONF_BASE_NAMESPACE, "commit");
+        return COMMIT;
     }
 
 }
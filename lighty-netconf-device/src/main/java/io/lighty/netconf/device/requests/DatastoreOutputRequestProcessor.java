@@ -9,8 +9,11 @@ package io.lighty.netconf.device.requests;
 
 import com.google.common.util.concurrent.FluentFuture;
 import io.lighty.codecs.util.exception.SerializationException;
+import io.lighty.netconf.device.requests.filter.DataFilter;
+import io.lighty.netconf.device.utils.NormalizedNodeDomWriter;
 import io.lighty.netconf.device.utils.RPCUtil;
 import io.lighty.netconf.device.utils.TimeoutUtil;
+import io.lighty.netconf.device.utils.XmlLogUtil;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
@@ -22,10 +25,13 @@ import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.ParserConfigurationException;
 import org.opendaylight.mdsal.common.api.LogicalDatastoreType;
 import org.opendaylight.mdsal.dom.api.DOMDataBroker;
+import org.opendaylight.mdsal.dom.api.DOMDataTreeReadOperations;
 import org.opendaylight.mdsal.dom.api.DOMDataTreeReadTransaction;
+import org.opendaylight.mdsal.dom.api.DOMDataTreeReadWriteTransaction;
 import org.opendaylight.yangtools.yang.data.api.YangInstanceIdentifier;
 import org.opendaylight.yangtools.yang.data.api.schema.ContainerNode;
 import org.opendaylight.yangtools.yang.data.api.schema.NormalizedNode;
+import org.opendaylight.yangtools.yang.model.api.EffectiveModelContext;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.w3c.dom.Document;
@@ -43,6 +49,12 @@ public abstract class DatastoreOutputRequestProcessor extends BaseRequestProcess
                 .serializeData(getNetconfDeviceServices().getRootInference(), normalizedNode).toString();
     }
 
+    @Override
+    protected void writeNormalizedNode(NormalizedNode normalizedNode, Node parent, DocumentBuilder builder)
+            throws SerializationException {
+        NormalizedNodeDomWriter.writeData(getNetconfDeviceServices().getRootInference(), normalizedNode, parent);
+    }
+
     protected List<NormalizedNode> getAllDataFromDatastore(LogicalDatastoreType datastoreType) {
         DOMDataBroker domDataBroker = getNetconfDeviceServices().getDOMDataBroker();
         Optional<NormalizedNode> listData;
@@ -64,22 +76,65 @@ public abstract class DatastoreOutputRequestProcessor extends BaseRequestProcess
         return Collections.emptyList();
     }
 
+    /**
+     * Reads data selected by the filter of the request. Only the selected subtrees are read from the datastore.
+     *
+     * @param datastoreType datastore to be read
+     * @param filter filter of the request
+     * @return selected top level data nodes
+     */
+    protected List<NormalizedNode> getFilteredDataFromDatastore(LogicalDatastoreType datastoreType,
+            DataFilter filter) {
+        DOMDataBroker domDataBroker = getNetconfDeviceServices().getDOMDataBroker();
+        try (DOMDataTreeReadTransaction domDataReadOnlyTransaction = domDataBroker.newReadOnlyTransaction()) {
+            return readFilteredData(domDataReadOnlyTransaction, datastoreType, filter);
+        }
+    }
+
+    /**
+     * Reads data selected by the filter of the request from the candidate configuration datastore.
+     *
+     * @param filter filter of the request
+     * @return selected top level data nodes
+     */
+    protected List<NormalizedNode> getFilteredDataFromCandidate(DataFilter filter) {
+        DOMDataTreeReadWriteTransaction candidateTransaction =
+                getNetconfDeviceServices().getCandidateDatastore().newReadWriteTransaction();
+        try {
+            return readFilteredData(candidateTransaction, LogicalDatastoreType.CONFIGURATION, filter);
+        } finally {
+            candidateTransaction.cancel();
+        }
+    }
+
+    private List<NormalizedNode> readFilteredData(DOMDataTreeReadOperations readOperations,
+            LogicalDatastoreType datastoreType, DataFilter filter) {
+        EffectiveModelContext effectiveModelContext = getNetconfDeviceServices().getAdapterContext()
+                .currentSerializer().getRuntimeContext().modelContext();
+        try {
+            return filter.read(readOperations, datastoreType, effectiveModelContext);
+        } catch (ExecutionException | TimeoutException e) {
+            LOG.error("Exception thrown while getting data from datastore!", e);
+        } catch (InterruptedException e) {
+            LOG.error("Interrupted while getting data from datastore!", e);
+            Thread.currentThread().interrupt();
+        }
+        return Collections.emptyList();
+    }
+
     @Override
-    protected Document wrapToFinalDocumentReply(List<NormalizedNode> responseOutput)
+    protected Document wrapToFinalDocumentReply(List<NormalizedNode> responseOutput, RequestContext context)
             throws ParserConfigurationException {
-        // convert normalized nodes to xml nodes
-        DocumentBuilder builder = getDocumentBuilderFactory().newDocumentBuilder();
+        // convert normalized nodes to xml nodes, they are already owned by the new document
+        DocumentBuilder builder = newDocumentBuilder();
         Document newDocument = builder.newDocument();
-        List<Node> wrappedOutputNodes = new ArrayList<>();
-        if (!responseOutput.isEmpty()) {
-            List<Node> outputNodes = convertOutputToXmlNodes(responseOutput, builder, newDocument);
-            outputNodes.forEach(outputNode -> wrappedOutputNodes.add(newDocument.importNode(outputNode, true)));
-        }
+        List<Node> outputNodes = responseOutput.isEmpty()
+                ? Collections.emptyList()
+                : convertOutputToXmlNodes(responseOutput, builder, newDocument);
 
         // wrap nodes to final document
-        newDocument.appendChild(wrapResponse(newDocument, wrappedOutputNodes));
-        String formattedResponse = RPCUtil.formatXml(newDocument.getDocumentElement());
-        LOG.debug("Response: {}.", formattedResponse);
+        newDocument.appendChild(wrapResponse(newDocument, outputNodes));
+        XmlLogUtil.debug(LOG, "Response: {}.", newDocument);
         return newDocument;
     }
 
@@ -87,7 +142,7 @@ public abstract class DatastoreOutputRequestProcessor extends BaseRequestProcess
         Element rpcReply = document.createElementNS(RPCUtil.NETCONF_BASE_NAMESPACE, "rpc-reply");
         Element data = document.createElementNS(RPCUtil.NETCONF_BASE_NAMESPACE, "data");
         response.forEach(data::appendChild);
-        rpcReply.appendChild(document.importNode(data, true));
+        rpcReply.appendChild(data);
         return rpcReply;
     }
 
@@ -19,18 +19,18 @@ import org.w3c.dom.Element;
 
 public class DeleteConfigRequestProcessor extends OkOutputRequestProcessor {
 
-    private static final String DELETE_CONFIG_RPC_NAME = "delete-config";
+    public static final QName DELETE_CONFIG = QName.create(RPCUtil.NETCONF_BASE_NAMESPACE, "delete-config");
 
     public DeleteConfigRequestProcessor() {
     }
 
     @Override
     public QName getIdentifier() {
-        return QName.create(RPCUtil.NETCONF_BASE_NAMESPACE, DELETE_CONFIG_RPC_NAME);
+        return DELETE_CONFIG;
     }
 
     @Override
-    protected CompletableFuture<Response> executeOkRequest(Element requestXmlElement) {
+    protected CompletableFuture<Response> executeOkRequest(Element requestXmlElement, RequestContext context) {
         //Currently only running datastores are implemented,
         //in the future when other datastores are added, handling here needs to be done
         return CompletableFuture.failedFuture(new NetconfDocumentedException("operation-not-supported",
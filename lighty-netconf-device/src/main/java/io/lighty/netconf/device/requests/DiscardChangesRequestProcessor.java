@@ -0,0 +1,43 @@
+/*
+ * Copyright (c) 2020 PANTHEON.tech s.r.o. All Rights Reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at https://www.eclipse.org/legal/epl-v10.html
+ */
+package io.lighty.netconf.device.requests;
+
+import io.lighty.netconf.device.datastore.DatastoreLocks;
+import io.lighty.netconf.device.response.Response;
+import io.lighty.netconf.device.response.ResponseData;
+import io.lighty.netconf.device.utils.RPCUtil;
+import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
+import org.opendaylight.yangtools.yang.common.ErrorTag;
+import org.opendaylight.yangtools.yang.common.ErrorType;
+import org.opendaylight.yangtools.yang.common.QName;
+import org.w3c.dom.Element;
+
+/**
+ * Implementation of discard-changes netconf protocol operation.
+ * https://tools.ietf.org/html/rfc6241#section-8.3.4.2
+ */
+public class DiscardChangesRequestProcessor extends OkOutputRequestProcessor {
+
+    public static final QName DISCARD_CHANGES = QName.create(RPCUtil.NETCONF_BASE_NAMESPACE, "discard-changes");
+
+    @Override
+    public QName getIdentifier() {
+        return DISCARD_CHANGES;
+    }
+
+    @Override
+    protected CompletableFuture<Response> executeOkRequest(Element requestXmlElement, RequestContext context) {
+        if (getNetconfDeviceServices().getDatastoreLocks().isLockedByOther(DatastoreLocks.CANDIDATE,
+                context.getSessionId())) {
+            return errorResponse("Candidate is locked by another session", ErrorType.PROTOCOL, ErrorTag.IN_USE);
+        }
+        getNetconfDeviceServices().getCandidateDatastore().discardChanges();
+        return CompletableFuture.completedFuture(new ResponseData(Collections.emptyList()));
+    }
+}
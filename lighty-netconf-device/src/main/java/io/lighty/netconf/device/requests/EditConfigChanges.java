@@ -0,0 +1,224 @@
+/*
+ * Copyright (c) 2020 PANTHEON.tech s.r.o. All Rights Reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at https://www.eclipse.org/legal/epl-v10.html
+ */
+package io.lighty.netconf.device.requests;
+
+import io.lighty.netconf.device.utils.Operation;
+import io.lighty.netconf.device.utils.RPCUtil;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import org.eclipse.jdt.annotation.Nullable;
+import org.opendaylight.yangtools.yang.common.QName;
+import org.opendaylight.yangtools.yang.data.api.YangInstanceIdentifier;
+import org.opendaylight.yangtools.yang.data.api.YangInstanceIdentifier.PathArgument;
+import org.opendaylight.yangtools.yang.data.api.schema.ChoiceNode;
+import org.opendaylight.yangtools.yang.data.api.schema.ContainerNode;
+import org.opendaylight.yangtools.yang.data.api.schema.DataContainerChild;
+import org.opendaylight.yangtools.yang.data.api.schema.MapEntryNode;
+import org.opendaylight.yangtools.yang.data.api.schema.NormalizedMetadata;
+import org.opendaylight.yangtools.yang.data.api.schema.NormalizedNode;
+import org.opendaylight.yangtools.yang.data.api.schema.NormalizedNodeContainer;
+import org.opendaylight.yangtools.yang.data.api.schema.NormalizedNodes;
+import org.opendaylight.yangtools.yang.data.api.schema.SystemLeafSetNode;
+import org.opendaylight.yangtools.yang.data.api.schema.SystemMapNode;
+import org.opendaylight.yangtools.yang.data.api.schema.UserLeafSetNode;
+import org.opendaylight.yangtools.yang.data.api.schema.UserMapNode;
+import org.opendaylight.yangtools.yang.data.api.schema.builder.CollectionNodeBuilder;
+import org.opendaylight.yangtools.yang.data.api.schema.builder.DataContainerNodeBuilder;
+import org.opendaylight.yangtools.yang.data.spi.node.ImmutableNodes;
+
+/**
+ * Changes of the configuration requested by one edit-config. Every node of the config element carrying
+ * the operation attribute results in a change at its own path, the rest of the config is changed by
+ * the default-operation. Data of a change do not contain the nodes with an operation of their own, those are
+ * changed separately.
+ *
+ * <p>The operation attributes are taken from the metadata reported by the parser together with the data, so
+ * the config is walked only once and every change gets the exact path including the keys of the list entries.
+ */
+final class EditConfigChanges {
+
+    private static final String OPERATION_ATTRIBUTE = "operation";
+
+    private EditConfigChanges() {
+        throw new UnsupportedOperationException("do not instantiate utility class");
+    }
+
+    /**
+     * Collects the changes requested by the config. Changes of the default-operation come first, followed by
+     * the changes of the operation attributes in document order, an enclosing node before its descendants.
+     *
+     * @param config data of the config element
+     * @param metadata metadata of the config element, null if the parser did not report any
+     * @param defaultOperation operation of the nodes without the operation attribute, null if they are not changed
+     * @return changes of the configuration in the order they have to be applied
+     * @throws UnsupportedOperationException in case an operation attribute has an unknown value
+     */
+    static List<Change> collect(final ContainerNode config, final @Nullable NormalizedMetadata metadata,
+            final @Nullable Operation defaultOperation) {
+        final List<Change> changes = new ArrayList<>();
+        if (defaultOperation != null) {
+            for (final DataContainerChild child : config.body()) {
+                final NormalizedMetadata childMetadata = childMetadata(metadata, child.name());
+                if (operationOf(childMetadata) == null) {
+                    changes.add(new Change(YangInstanceIdentifier.of(child.name()), defaultOperation,
+                        prune(child, childMetadata)));
+                }
+            }
+        }
+        if (metadata != null) {
+            collectExplicit(YangInstanceIdentifier.of(), config, metadata, changes);
+        }
+        return changes;
+    }
+
+    private static void collectExplicit(final YangInstanceIdentifier path, final NormalizedNode data,
+            final NormalizedMetadata metadata, final List<Change> changes) {
+        for (final Entry<PathArgument, NormalizedMetadata> child : metadata.getChildren().entrySet()) {
+            final NormalizedNode childData = NormalizedNodes.getDirectChild(data, child.getKey()).orElse(null);
+            if (childData == null) {
+                continue;
+            }
+            final YangInstanceIdentifier childPath = path.node(child.getKey());
+            final Operation operation = operationOf(child.getValue());
+            if (operation != null) {
+                changes.add(new Change(childPath, operation, prune(childData, child.getValue())));
+            }
+            collectExplicit(childPath, childData, child.getValue(), changes);
+        }
+    }
+
+    private static @Nullable Operation operationOf(final @Nullable NormalizedMetadata metadata) {
+        if (metadata == null) {
+            return null;
+        }
+        for (final Entry<QName, Object> annotation : metadata.getAnnotations().entrySet()) {
+            final QName name = annotation.getKey();
+            if (OPERATION_ATTRIBUTE.equals(name.getLocalName())
+                    && RPCUtil.NETCONF_BASE_NAMESPACE.equals(name.getNamespace().toString())) {
+                return Operation.getOperationByName(String.valueOf(annotation.getValue()));
+            }
+        }
+        return null;
+    }
+
+    private static @Nullable NormalizedMetadata childMetadata(final @Nullable NormalizedMetadata metadata,
+            final PathArgument child) {
+        return metadata == null ? null : metadata.getChildren().get(child);
+    }
+
+    /**
+     * Removes the descendants with an operation attribute from the data. Only the branches with metadata are
+     * walked, the rest of the data is shared with the parsed config.
+     *
+     * @return pruned data, null if a list or a leaf-list lost all its entries
+     */
+    private static @Nullable NormalizedNode prune(final NormalizedNode data,
+            final @Nullable NormalizedMetadata metadata) {
+        if (metadata == null || metadata.getChildren().isEmpty()
+                || !(data instanceof NormalizedNodeContainer)) {
+            return data;
+        }
+        final Map<PathArgument, @Nullable NormalizedNode> prunedChildren = new LinkedHashMap<>();
+        for (final Entry<PathArgument, NormalizedMetadata> child : metadata.getChildren().entrySet()) {
+            final NormalizedNode childData = NormalizedNodes.getDirectChild(data, child.getKey()).orElse(null);
+            if (childData == null) {
+                continue;
+            }
+            final NormalizedNode prunedChild = operationOf(child.getValue()) != null ? null
+                : prune(childData, child.getValue());
+            if (prunedChild != childData) {
+                prunedChildren.put(child.getKey(), prunedChild);
+            }
+        }
+        if (prunedChildren.isEmpty()) {
+            return data;
+        }
+
+        if (data instanceof ContainerNode) {
+            return rebuild(ImmutableNodes.builderFactory().newContainerBuilder((ContainerNode) data),
+                prunedChildren);
+        } else if (data instanceof MapEntryNode) {
+            return rebuild(ImmutableNodes.builderFactory().newMapEntryBuilder((MapEntryNode) data),
+                prunedChildren);
+        } else if (data instanceof ChoiceNode) {
+            return rebuild(ImmutableNodes.builderFactory().newChoiceBuilder((ChoiceNode) data), prunedChildren);
+        } else if (data instanceof UserMapNode) {
+            return rebuild(ImmutableNodes.builderFactory().newUserMapBuilder((UserMapNode) data), prunedChildren);
+        } else if (data instanceof SystemMapNode) {
+            return rebuild(ImmutableNodes.builderFactory().newSystemMapBuilder((SystemMapNode) data),
+                prunedChildren);
+        } else if (data instanceof UserLeafSetNode) {
+            return rebuild(ImmutableNodes.builderFactory().newUserLeafSetBuilder((UserLeafSetNode<?>) data),
+                prunedChildren);
+        } else if (data instanceof SystemLeafSetNode) {
+            return rebuild(ImmutableNodes.builderFactory().newSystemLeafSetBuilder((SystemLeafSetNode<?>) data),
+                prunedChildren);
+        }
+        return data;
+    }
+
+    private static NormalizedNode rebuild(final DataContainerNodeBuilder<?, ?> builder,
+            final Map<PathArgument, @Nullable NormalizedNode> prunedChildren) {
+        prunedChildren.forEach((name, child) -> {
+            if (child == null) {
+                builder.withoutChild(name);
+            } else {
+                builder.withChild((DataContainerChild) child);
+            }
+        });
+        return builder.build();
+    }
+
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    private static @Nullable NormalizedNode rebuild(final CollectionNodeBuilder builder,
+            final Map<PathArgument, @Nullable NormalizedNode> prunedChildren) {
+        prunedChildren.forEach((name, child) -> {
+            if (child == null) {
+                builder.withoutChild(name);
+            } else {
+                builder.withChild(child);
+            }
+        });
+        final NormalizedNodeContainer<?> collection = (NormalizedNodeContainer<?>) builder.build();
+        return collection.isEmpty() ? null : collection;
+    }
+
+    /**
+     * Change of the configuration at one path.
+     */
+    static final class Change {
+
+        private final YangInstanceIdentifier path;
+        private final Operation operation;
+        private final @Nullable NormalizedNode data;
+
+        Change(final YangInstanceIdentifier path, final Operation operation, final @Nullable NormalizedNode data) {
+            this.path = path;
+            this.operation = operation;
+            this.data = data;
+        }
+
+        YangInstanceIdentifier getPath() {
+            return path;
+        }
+
+        Operation getOperation() {
+            return operation;
+        }
+
+        /**
+         * Data written by the change, null if a list or a leaf-list has all its entries changed separately.
+         */
+        @Nullable NormalizedNode getData() {
+            return data;
+        }
+    }
+}
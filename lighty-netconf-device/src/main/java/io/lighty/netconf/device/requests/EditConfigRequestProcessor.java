@@ -7,204 +7,233 @@
  */
 package io.lighty.netconf.device.requests;
 
-import static java.util.Objects.requireNonNull;
-
 import com.google.common.base.Preconditions;
-import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
 import io.lighty.codecs.util.exception.DeserializationException;
+import io.lighty.netconf.device.datastore.CandidateDatastore;
+import io.lighty.netconf.device.datastore.DatastoreLocks;
+import io.lighty.netconf.device.requests.EditConfigChanges.Change;
 import io.lighty.netconf.device.response.Response;
 import io.lighty.netconf.device.response.ResponseData;
-import io.lighty.netconf.device.response.ResponseErrorMessage;
 import io.lighty.netconf.device.utils.DefaultOperation;
+import io.lighty.netconf.device.utils.EditConfigInput;
+import io.lighty.netconf.device.utils.NormalizedNodeDomReader;
 import io.lighty.netconf.device.utils.Operation;
 import io.lighty.netconf.device.utils.RPCUtil;
 import io.lighty.netconf.device.utils.TimeoutUtil;
-import java.io.StringReader;
-import java.util.AbstractCollection;
 import java.util.ArrayList;
-import java.util.Collection;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Locale;
-import java.util.Map;
 import java.util.Optional;
-import java.util.Set;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
-import javax.xml.xpath.XPathConstants;
-import javax.xml.xpath.XPathExpressionException;
-import javax.xml.xpath.XPathFactory;
+import org.eclipse.jdt.annotation.Nullable;
 import org.opendaylight.mdsal.common.api.LogicalDatastoreType;
+import org.opendaylight.mdsal.common.api.OptimisticLockFailedException;
 import org.opendaylight.mdsal.common.api.TransactionCommitFailedException;
-import org.opendaylight.mdsal.dom.api.DOMDataTreeReadTransaction;
+import org.opendaylight.mdsal.dom.api.DOMDataTreeReadOperations;
+import org.opendaylight.mdsal.dom.api.DOMDataTreeReadWriteTransaction;
 import org.opendaylight.mdsal.dom.api.DOMDataTreeWriteTransaction;
-import org.opendaylight.netconf.api.NetconfDocumentedException;
-import org.opendaylight.yang.gen.v1.urn.ietf.params.xml.ns.netconf.base._1._0.rev110601.copy.config.input.source.config.source.Config;
-import org.opendaylight.yangtools.yang.common.ErrorSeverity;
 import org.opendaylight.yangtools.yang.common.ErrorTag;
 import org.opendaylight.yangtools.yang.common.ErrorType;
 import org.opendaylight.yangtools.yang.common.QName;
 import org.opendaylight.yangtools.yang.data.api.YangInstanceIdentifier;
 import org.opendaylight.yangtools.yang.data.api.YangInstanceIdentifier.PathArgument;
-import org.opendaylight.yangtools.yang.data.api.schema.DataContainerChild;
-import org.opendaylight.yangtools.yang.data.api.schema.MapEntryNode;
-import org.opendaylight.yangtools.yang.data.api.schema.MapNode;
+import org.opendaylight.yangtools.yang.data.api.schema.ContainerNode;
 import org.opendaylight.yangtools.yang.data.api.schema.NormalizedNode;
 import org.opendaylight.yangtools.yang.data.api.schema.NormalizedNodes;
+import org.opendaylight.yangtools.yang.data.api.schema.stream.NormalizationResult;
 import org.opendaylight.yangtools.yang.data.impl.schema.ImmutableNodes;
 import org.opendaylight.yangtools.yang.data.tree.api.SchemaValidationFailedException;
-import org.opendaylight.yangtools.yang.data.util.DataSchemaContext;
-import org.opendaylight.yangtools.yang.data.util.DataSchemaContext.PathMixin;
-import org.opendaylight.yangtools.yang.data.util.DataSchemaContextTree;
 import org.opendaylight.yangtools.yang.model.api.EffectiveModelContext;
-import org.opendaylight.yangtools.yang.model.api.Module;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.w3c.dom.Element;
-import org.w3c.dom.Node;
-import org.w3c.dom.NodeList;
 
 /**
  * Implementation of edit-config netconf protocol operation.
  * https://tools.ietf.org/html/rfc6241#section-7
+ * Candidate is changed when it is the target, any other target changes running. Devices without the candidate
+ * datastore still advertise it, their candidate is an alias of running.
  */
 public class EditConfigRequestProcessor extends OkOutputRequestProcessor {
 
+    public static final QName EDIT_CONFIG = QName.create(RPCUtil.NETCONF_BASE_NAMESPACE, "edit-config");
+
     private static final Logger LOG = LoggerFactory.getLogger(EditConfigRequestProcessor.class);
     private static final String EDIT_CONFIG_RPC_NAME = "edit-config";
+    private static final String TARGET = "target";
 
     @Override
     public QName getIdentifier() {
-        return QName.create(RPCUtil.NETCONF_BASE_NAMESPACE, EDIT_CONFIG_RPC_NAME);
+        return EDIT_CONFIG;
     }
 
-    @SuppressWarnings("checkstyle:FallThrough")
     @Override
-    protected CompletableFuture<Response> executeOkRequest(final Element requestXmlElement) {
-        final Optional<DefaultOperation> defaultOperation = RPCUtil.retrieveDefaultOperation(requestXmlElement);
-        final Optional<Operation> operation = RPCUtil.retrieveOperation(requestXmlElement);
+    protected CompletableFuture<Response> executeOkRequest(final Element requestXmlElement,
+            final RequestContext context) {
+        final String target = RPCUtil.retrieveDatastore(requestXmlElement, TARGET).orElse(DatastoreLocks.RUNNING);
+        final EditConfigInput editConfigInput;
+        try {
+            editConfigInput = EditConfigInput.parse(requestXmlElement);
+        } catch (final UnsupportedOperationException e) {
+            return errorResponse(e.getMessage(), ErrorType.PROTOCOL, ErrorTag.INVALID_VALUE);
+        }
+        // nodes without the operation attribute are not changed by the default-operation none
+        final DefaultOperation requestedDefault = editConfigInput.getDefaultOperation().orElse(DefaultOperation.MERGE);
+        final Operation defaultOperation = requestedDefault == DefaultOperation.NONE ? null
+            : Operation.getOperationByName(requestedDefault.getOperationName());
 
-        Operation operationToExecute;
-        if (operation.isPresent()) {
-            operationToExecute = operation.get();
-        } else {
-            if (defaultOperation.isPresent()) {
-                if (defaultOperation.get() == DefaultOperation.NONE) {
-                    throw new IllegalStateException("Operation was " + DefaultOperation.NONE + " or not defined!");
-                } else {
-                    operationToExecute = Operation.getOperationByName(defaultOperation.get().getOperationName());
-                }
-            } else {
-                operationToExecute = Operation.MERGE;
-            }
+        final Optional<Element> optionalConfigElement = editConfigInput.getConfig();
+        if (optionalConfigElement.isEmpty()) {
+            return errorResponse("missing-element", ErrorType.PROTOCOL, ErrorTag.MISSING_ELEMENT);
         }
 
-        final Element configElement = (Element) requestXmlElement
-                .getElementsByTagNameNS(Config.QNAME.getNamespace().toString(), Config.QNAME.getLocalName()).item(0);
+        final NormalizationResult<?> config;
+        try {
+            config = NormalizedNodeDomReader.read(getNetconfDeviceServices().getRootInference(),
+                optionalConfigElement.get());
+        } catch (final DeserializationException e) {
+            return errorResponse("operation-failed", ErrorType.APPLICATION, ErrorTag.OPERATION_FAILED);
+        }
+        final ContainerNode configNN = (ContainerNode) config.data();
+        if (configNN.isEmpty()) {
+            return errorResponse("data-missing", ErrorType.APPLICATION, ErrorTag.DATA_MISSING);
+        }
 
-        final String configString = RPCUtil.formatXml(configElement);
+        final List<Change> changes;
+        try {
+            changes = EditConfigChanges.collect(configNN, config.metadata(), defaultOperation);
+        } catch (final UnsupportedOperationException e) {
+            return errorResponse(e.getMessage(), ErrorType.PROTOCOL, ErrorTag.BAD_ATTRIBUTE);
+        }
 
-        NormalizedNode configNN;
+        if (DatastoreLocks.CANDIDATE.equals(target) && getNetconfDeviceServices().isCandidateEnabled()) {
+            final CandidateDatastore candidate = getNetconfDeviceServices().getCandidateDatastore();
+            // lock of the candidate requires it unchanged, no edit may slip in between that check and the lock
+            synchronized (candidate) {
+                return applyChanges(target, changes, configNN, candidate.newReadWriteTransaction(), context);
+            }
+        }
+        return applyChanges(target, changes, configNN,
+            getNetconfDeviceServices().getDOMDataBroker().newReadWriteTransaction(), context);
+    }
+
+    private CompletableFuture<Response> applyChanges(final String target, final List<Change> changes,
+            final ContainerNode configNN, final DOMDataTreeReadWriteTransaction writeTx,
+            final RequestContext context) {
+        if (getNetconfDeviceServices().getDatastoreLocks().isLockedByOther(target, context.getSessionId())) {
+            writeTx.cancel();
+            return errorResponse("Datastore " + target + " is locked by another session", ErrorType.PROTOCOL,
+                ErrorTag.IN_USE);
+        }
+        // checks and writes share one snapshot, nobody can change the checked data before the commit
+        final ErrorTag checkError = checkExistence(changes, writeTx);
+        if (checkError != null) {
+            writeTx.cancel();
+            return errorResponse(checkError.elementBody(), ErrorType.RPC, checkError);
+        }
+        for (final Change change : changes) {
+            applyChange(change, writeTx);
+        }
         try {
-            configNN = getNetconfDeviceServices().getXmlNodeConverter()
-                    .deserialize(getNetconfDeviceServices().getRootInference(), new StringReader(configString));
-        } catch (final DeserializationException e) {
-            return CompletableFuture.completedFuture(new ResponseErrorMessage(
-                new NetconfDocumentedException(
-                    "operation-failed",
-                    ErrorType.APPLICATION,
-                    ErrorTag.OPERATION_FAILED,
-                    ErrorSeverity.ERROR)));
+            writeTx.commit().get(TimeoutUtil.TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+            return CompletableFuture.completedFuture(new ResponseData(Collections.emptyList()));
+        } catch (InterruptedException | ExecutionException | TimeoutException e) {
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            if (e.getCause() instanceof TransactionCommitFailedException) {
+                final Throwable error = e.getCause();
+                if (error.getCause() instanceof SchemaValidationFailedException) {
+                    return errorResponse(error.getCause().getMessage(), ErrorType.APPLICATION,
+                        ErrorTag.BAD_ELEMENT);
+                }
+                if (error instanceof OptimisticLockFailedException) {
+                    // another session changed the checked or written data since the transaction was opened
+                    return errorResponse(error.getMessage(), ErrorType.APPLICATION, ErrorTag.IN_USE);
+                }
+            }
+            throw createTxException(configNN, e, EDIT_CONFIG_RPC_NAME.toUpperCase(Locale.ROOT));
         }
+    }
 
-        EffectiveModelContext effectiveModelContext = getNetconfDeviceServices().getAdapterContext()
-                .currentSerializer().getRuntimeContext().modelContext();
-        YangInstanceIdentifier path = retrieveElementYII(effectiveModelContext, configNN,
-                configElement, "//*[@*[local-name() = 'operation']]");
-        NormalizedNode data;
-        if (path == null) {
-            Optional<DataContainerChild> optionalData =
-                ((AbstractCollection<DataContainerChild>) configNN.body()).stream().findFirst();
-            if (optionalData.isEmpty()) {
-                return CompletableFuture.completedFuture(new ResponseErrorMessage(
-                    new NetconfDocumentedException(
-                        "data-missing",
-                        ErrorType.APPLICATION,
-                        ErrorTag.DATA_MISSING,
-                        ErrorSeverity.ERROR)));
+    /**
+     * Checks that the data created by the changes do not exist yet and the deleted data do exist. All reads are
+     * issued before waiting for any of them, they see the configuration the transaction started with.
+     *
+     * @return error tag of the first failed check, null if all of them passed
+     */
+    private static @Nullable ErrorTag checkExistence(final List<Change> changes,
+            final DOMDataTreeReadOperations readTx) {
+        final List<Change> checkedChanges = new ArrayList<>();
+        final List<ListenableFuture<Boolean>> checks = new ArrayList<>();
+        for (final Change change : changes) {
+            if (change.getOperation() == Operation.CREATE || change.getOperation() == Operation.DELETE) {
+                checkedChanges.add(change);
+                checks.add(readTx.exists(LogicalDatastoreType.CONFIGURATION, change.getPath()));
+            }
+        }
+        if (checks.isEmpty()) {
+            return null;
+        }
+
+        final List<Boolean> exists;
+        try {
+            exists = Futures.allAsList(checks).get(TimeoutUtil.TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException | ExecutionException | TimeoutException e) {
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
             }
-            data = optionalData.get();
-            path = YangInstanceIdentifier.builder().node(data.name().getNodeType()).build();
-        } else {
-            Optional<NormalizedNode> optionalData =
-                NormalizedNodes.findNode(configNN, path);
-            if (optionalData.isEmpty()) {
-                return CompletableFuture.completedFuture(new ResponseErrorMessage(
-                    new NetconfDocumentedException(
-                        "data-missing",
-                        ErrorType.APPLICATION,
-                        ErrorTag.DATA_MISSING,
-                        ErrorSeverity.ERROR)));
+            throw new IllegalStateException("Unable to check existence of the data changed by "
+                + EDIT_CONFIG_RPC_NAME.toUpperCase(Locale.ROOT), e);
+        }
+        for (int i = 0; i < checkedChanges.size(); i++) {
+            final boolean created = checkedChanges.get(i).getOperation() == Operation.CREATE;
+            if (created && exists.get(i)) {
+                return ErrorTag.DATA_EXISTS;
+            } else if (!created && !exists.get(i)) {
+                return ErrorTag.DATA_MISSING;
             }
-            data = optionalData.get();
         }
+        return null;
+    }
 
-        final DOMDataTreeWriteTransaction writeTx =
-                getNetconfDeviceServices().getDOMDataBroker().newWriteOnlyTransaction();
-        final CompletableFuture<Response> responseFuture = new CompletableFuture<>();
-        switch (operationToExecute) {
+    /**
+     * Adds the change to the transaction, existence of the changed data has to be checked before.
+     */
+    private void applyChange(final Change change, final DOMDataTreeWriteTransaction writeTx) {
+        final YangInstanceIdentifier path = change.getPath();
+        final NormalizedNode data = change.getData();
+        switch (change.getOperation()) {
             case CREATE:
-                if (dataExists(path, operationToExecute, data)) {
-                    final NetconfDocumentedException netconfDocumentedException =
-                            new NetconfDocumentedException("data-exists", ErrorType.RPC, ErrorTag.DATA_EXISTS,
-                                    ErrorSeverity.ERROR);
-                    responseFuture.complete(new ResponseErrorMessage(netconfDocumentedException));
-                    return responseFuture;
-                }
             case REPLACE:
-                ensureParentsByMerge(path, writeTx);
-                writeTx.put(LogicalDatastoreType.CONFIGURATION, path, data);
+                if (data == null) {
+                    // every entry of the list has its own operation, the list itself is replaced by nothing
+                    writeTx.delete(LogicalDatastoreType.CONFIGURATION, path);
+                } else {
+                    ensureParentsByMerge(path, writeTx);
+                    writeTx.put(LogicalDatastoreType.CONFIGURATION, path, data);
+                }
                 break;
             case DELETE:
-                if (!dataExists(path, operationToExecute, data)) {
-                    final NetconfDocumentedException netconfDocumentedException =
-                            new NetconfDocumentedException("data-missing", ErrorType.RPC, ErrorTag.DATA_MISSING,
-                                    ErrorSeverity.ERROR);
-                    responseFuture.complete(new ResponseErrorMessage(netconfDocumentedException));
-                    return responseFuture;
-                }
             case REMOVE:
                 writeTx.delete(LogicalDatastoreType.CONFIGURATION, path);
                 break;
             case MERGE:
-                writeTx.merge(LogicalDatastoreType.CONFIGURATION, path, data);
+                if (data != null) {
+                    ensureParentsByMerge(path, writeTx);
+                    writeTx.merge(LogicalDatastoreType.CONFIGURATION, path, data);
+                }
                 break;
             default:
                 break;
         }
-        try {
-            writeTx.commit().get(TimeoutUtil.TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
-            responseFuture.complete(new ResponseData(Collections.emptyList()));
-            return responseFuture;
-        } catch (InterruptedException | ExecutionException | TimeoutException e) {
-            if (e instanceof InterruptedException) {
-                Thread.currentThread().interrupt();
-            }
-            if (e.getCause() instanceof TransactionCommitFailedException) {
-                final Throwable error = e.getCause();
-                if (error.getCause() instanceof SchemaValidationFailedException) {
-                    final NetconfDocumentedException netconfDocumentedException =
-                            new NetconfDocumentedException(error.getCause().getMessage(), ErrorType.APPLICATION,
-                                    ErrorTag.BAD_ELEMENT, ErrorSeverity.ERROR);
-                    responseFuture.complete(new ResponseErrorMessage(netconfDocumentedException));
-                    return responseFuture;
-                }
-            }
-            throw createTxException(data, e, operationToExecute.getOperationName().toUpperCase(Locale.ROOT));
-        }
     }
 
     private void ensureParentsByMerge(final YangInstanceIdentifier path, final DOMDataTreeWriteTransaction writeTx) {
@@ -242,125 +271,4 @@ public class EditConfigRequestProcessor extends OkOutputRequestProcessor {
         return new IllegalStateException("Unable to execute " + type + " operation with data:\n"
             + NormalizedNodes.toStringTree(data), exception);
     }
-
-    private static List<QName> buildQNamePath(final Node node) {
-        final Set<String> stopNodes = Collections.singleton("config");
-        return buildQNamePath(node, stopNodes);
-    }
-
-    private static List<QName> buildQNamePath(final Node node, final Set<String> stopNodes) {
-        Node parentNode = node;
-        final List<QName> qNames = Lists.newLinkedList();
-        while (parentNode != null) {
-            if (!stopNodes.contains(parentNode.getLocalName())) {
-                qNames.add(QName.create(parentNode.getNamespaceURI(), parentNode.getLocalName()));
-                parentNode = parentNode.getParentNode();
-            } else {
-                parentNode = null;
-            }
-        }
-        return Lists.reverse(qNames);
-    }
-
-    protected static YangInstanceIdentifier retrieveElementYII(
-            final EffectiveModelContext effectiveModelContext, final NormalizedNode normalizedNode,
-            final Element deviceElement, final String xpathExpression) {
-        final List<Node> nodes = RPCUtil.getNodes(deviceElement.getChildNodes());
-        if (nodes.isEmpty()) {
-            return null;
-        }
-        try {
-            final Node foundNode =
-                    ((NodeList) XPathFactory.newInstance().newXPath().compile(xpathExpression)
-                            .evaluate(deviceElement, XPathConstants.NODESET)).item(0);
-            if (foundNode == null) {
-                return null;
-            }
-            final List<QName> buildQNamePath = buildQNamePath(foundNode);
-            return getYangInstanceIdentifier(buildQNamePath, normalizedNode, effectiveModelContext);
-        } catch (final XPathExpressionException e) {
-            throw new IllegalStateException(e);
-        }
-    }
-
-    /**
-     * Method will find the {@link YangInstanceIdentifier} from the given list of
-     * {@link QName}.
-     *
-     * @param yangPath a path
-     * @param input a list of normalized nodes
-     * @param effectiveModelContext a schema context
-     * @return YangInstanceIdentifier a yang instance identifier
-     */
-    private static YangInstanceIdentifier getYangInstanceIdentifier(final List<QName> yangPath,
-            final NormalizedNode input, final EffectiveModelContext effectiveModelContext) {
-        DataSchemaContext contextNode = DataSchemaContextTree.from(effectiveModelContext).getRoot();
-        YangInstanceIdentifier targetIdentifier = YangInstanceIdentifier.builder().build();
-        final Iterator<QName> iterator = yangPath.iterator();
-        while (iterator.hasNext()) {
-            final QName currentQname = parseQname(effectiveModelContext, iterator.next());
-            contextNode = requireNonNull(((DataSchemaContext.Composite) contextNode).childByQName(currentQname));
-
-            while (contextNode instanceof PathMixin) {
-                targetIdentifier = YangInstanceIdentifier.of(targetIdentifier.getPathArguments())
-                        .node(contextNode.pathStep());
-                contextNode = requireNonNull(((DataSchemaContext.Composite) contextNode).childByQName(currentQname));
-            }
-
-            final Optional<NormalizedNode> findNode =
-                    NormalizedNodes.findNode(input, targetIdentifier.getPathArguments());
-            if (contextNode.pathStep() == null && findNode.isPresent()) {
-                final MapEntryNode next = ((MapNode) findNode.get()).body().iterator().next();
-                final Map<QName, Object> keyValues = next.name().asMap();
-                targetIdentifier = YangInstanceIdentifier
-                        .builder(YangInstanceIdentifier.of(targetIdentifier.getPathArguments()))
-                        .nodeWithKey(contextNode.dataSchemaNode().getQName(), keyValues).build();
-            } else {
-                targetIdentifier = YangInstanceIdentifier.of(targetIdentifier.getPathArguments())
-                        .node(contextNode.getPathStep());
-            }
-        }
-        return targetIdentifier;
-    }
-
-    /**
-     * Parses Qname.
-     *
-     * @param effectiveModelContext a schema context
-     * @param pathArgument a path
-     * @return QName a parsed path.
-     */
-    private static QName parseQname(final EffectiveModelContext effectiveModelContext, final QName pathArgument) {
-        Optional<Module> module;
-        if (pathArgument.getRevision().isPresent()) {
-            module = effectiveModelContext.findModule(pathArgument.getNamespace(), pathArgument.getRevision());
-        } else {
-            final Collection<? extends Module> modules = effectiveModelContext.findModules(pathArgument.getNamespace());
-            if (modules.size() == 1) {
-                module = Optional.of(modules.iterator().next());
-            } else {
-                module = effectiveModelContext.findModule(pathArgument.getNamespace());
-            }
-        }
-        if (!module.isPresent()) {
-            throw new IllegalStateException(String.format(
-                    "Couldn't find specified module: %s. Check if all necessary modules are loaded", pathArgument));
-        }
-        final Module next = module.get();
-        return QName.create(next.getNamespace(), next.getRevision(), pathArgument.getLocalName());
-    }
-
-    private boolean dataExists(final YangInstanceIdentifier path, final Operation operationToExecute,
-            final NormalizedNode data) {
-        try (DOMDataTreeReadTransaction readTx =
-                     getNetconfDeviceServices().getDOMDataBroker().newReadOnlyTransaction()) {
-            return readTx.exists(LogicalDatastoreType.CONFIGURATION, path)
-                    .get(TimeoutUtil.TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
-        } catch (InterruptedException | ExecutionException | TimeoutException e) {
-            if (e instanceof InterruptedException) {
-                Thread.currentThread().interrupt();
-            }
-            throw createTxException(data, e, operationToExecute.getOperationName().toUpperCase(Locale.ROOT));
-        }
-    }
 }
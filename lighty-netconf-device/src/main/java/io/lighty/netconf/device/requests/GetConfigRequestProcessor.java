@@ -7,12 +7,16 @@
  */
 package io.lighty.netconf.device.requests;
 
+import io.lighty.netconf.device.datastore.DatastoreLocks;
+import io.lighty.netconf.device.requests.filter.DataFilter;
 import io.lighty.netconf.device.response.Response;
 import io.lighty.netconf.device.response.ResponseData;
+import io.lighty.netconf.device.response.ResponseErrorMessage;
 import io.lighty.netconf.device.utils.RPCUtil;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
 import org.opendaylight.mdsal.common.api.LogicalDatastoreType;
+import org.opendaylight.netconf.api.NetconfDocumentedException;
 import org.opendaylight.yangtools.yang.common.QName;
 import org.opendaylight.yangtools.yang.data.api.schema.NormalizedNode;
 import org.w3c.dom.Element;
@@ -20,22 +24,36 @@ import org.w3c.dom.Element;
 /**
  * Implementation of get-config netconf protocol operation.
  * https://tools.ietf.org/html/rfc6241#section-7
+ * Subtree and XPath filters of the request are honored, see {@link DataFilter}. Candidate is read when it is
+ * the source, any other source reads running. Devices without the candidate datastore still advertise it, their
+ * candidate is an alias of running.
  */
 public class GetConfigRequestProcessor extends DatastoreOutputRequestProcessor {
 
-    private static final String GET_CONFIG_RPC_NAME = "get-config";
+    public static final QName GET_CONFIG = QName.create(RPCUtil.NETCONF_BASE_NAMESPACE, "get-config");
+
+    private static final String SOURCE = "source";
 
     @Override
     public QName getIdentifier() {
-        return QName.create(RPCUtil.NETCONF_BASE_NAMESPACE, GET_CONFIG_RPC_NAME);
+        return GET_CONFIG;
     }
 
     @Override
-    public CompletableFuture<Response> execute(Element requestXml) {
+    public CompletableFuture<Response> execute(Element requestXml, RequestContext context) {
         final CompletableFuture<Response> responseFuture = new CompletableFuture<>();
-        final List<NormalizedNode> allDataFromDatastore =
-                getAllDataFromDatastore(LogicalDatastoreType.CONFIGURATION);
-        responseFuture.complete(new ResponseData(allDataFromDatastore));
+        final DataFilter filter;
+        try {
+            filter = DataFilter.fromRequest(requestXml);
+        } catch (NetconfDocumentedException e) {
+            return CompletableFuture.completedFuture(new ResponseErrorMessage(e));
+        }
+        // candidate of a device without the candidate datastore is an alias of running
+        final boolean candidate = getNetconfDeviceServices().isCandidateEnabled()
+            && RPCUtil.retrieveDatastore(requestXml, SOURCE).filter(DatastoreLocks.CANDIDATE::equals).isPresent();
+        final List<NormalizedNode> filteredData = candidate ? getFilteredDataFromCandidate(filter)
+                : getFilteredDataFromDatastore(LogicalDatastoreType.CONFIGURATION, filter);
+        responseFuture.complete(new ResponseData(filteredData));
         return responseFuture;
     }
 }
@@ -7,12 +7,15 @@
  */
 package io.lighty.netconf.device.requests;
 
+import io.lighty.netconf.device.requests.filter.DataFilter;
 import io.lighty.netconf.device.response.Response;
 import io.lighty.netconf.device.response.ResponseData;
+import io.lighty.netconf.device.response.ResponseErrorMessage;
 import io.lighty.netconf.device.utils.RPCUtil;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
 import org.opendaylight.mdsal.common.api.LogicalDatastoreType;
+import org.opendaylight.netconf.api.NetconfDocumentedException;
 import org.opendaylight.yangtools.yang.common.QName;
 import org.opendaylight.yangtools.yang.data.api.schema.NormalizedNode;
 import org.w3c.dom.Element;
@@ -20,22 +23,29 @@ import org.w3c.dom.Element;
 /**
  * Implementation of get netconf protocol operation.
  * https://tools.ietf.org/html/rfc6241#section-7
+ * Subtree and XPath filters of the request are honored, see {@link DataFilter}.
  */
 public class GetRequestProcessor extends DatastoreOutputRequestProcessor {
 
-    private static final String GET_RPC_NAME = "get";
+    public static final QName GET = QName.create(RPCUtil.NETCONF_BASE_NAMESPACE, "get");
 
     @Override
     public QName getIdentifier() {
-        return QName.create(RPCUtil.NETCONF_BASE_NAMESPACE, GET_RPC_NAME);
+        return GET;
     }
 
     @Override
-    public CompletableFuture<Response> execute(Element requestXml) {
+    public CompletableFuture<Response> execute(Element requestXml, RequestContext context) {
         final CompletableFuture<Response> responseFuture = new CompletableFuture<>();
-        final List<NormalizedNode> allDataFromDatastore =
-                getAllDataFromDatastore(LogicalDatastoreType.OPERATIONAL);
-        responseFuture.complete(new ResponseData(allDataFromDatastore));
+        final DataFilter filter;
+        try {
+            filter = DataFilter.fromRequest(requestXml);
+        } catch (NetconfDocumentedException e) {
+            return CompletableFuture.completedFuture(new ResponseErrorMessage(e));
+        }
+        final List<NormalizedNode> filteredData =
+                getFilteredDataFromDatastore(LogicalDatastoreType.OPERATIONAL, filter);
+        responseFuture.complete(new ResponseData(filteredData));
         return  responseFuture;
     }
 }
@@ -0,0 +1,108 @@
+/*
+ * Copyright (c) 2020 PANTHEON.tech s.r.o. All Rights Reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at https://www.eclipse.org/legal/epl-v10.html
+ */
+package io.lighty.netconf.device.requests;
+
+import io.lighty.netconf.device.NetconfDeviceServices;
+import io.lighty.netconf.device.monitoring.SchemaIndex;
+import io.lighty.netconf.device.utils.RPCUtil;
+import java.util.Collection;
+import java.util.Optional;
+import org.opendaylight.netconf.api.NetconfDocumentedException;
+import org.opendaylight.yangtools.util.xml.UntrustedXML;
+import org.opendaylight.yangtools.yang.common.ErrorSeverity;
+import org.opendaylight.yangtools.yang.common.ErrorTag;
+import org.opendaylight.yangtools.yang.common.ErrorType;
+import org.opendaylight.yangtools.yang.common.QName;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+
+/**
+ * Implementation of get-schema operation of ietf-netconf-monitoring. YANG sources are served from
+ * the {@link SchemaIndex} of the device, they are written into the reply as text without passing through
+ * the data tree codecs.
+ */
+public class GetSchemaRequestProcessor implements RequestProcessor {
+
+    public static final String NETCONF_MONITORING_NAMESPACE = "urn:ietf:params:xml:ns:yang:ietf-netconf-monitoring";
+    public static final QName GET_SCHEMA = QName.create(NETCONF_MONITORING_NAMESPACE, "get-schema");
+
+    private static final Logger LOG = LoggerFactory.getLogger(GetSchemaRequestProcessor.class);
+    private static final String IDENTIFIER = "identifier";
+    private static final String VERSION = "version";
+    private static final String FORMAT = "format";
+    private static final String YANG_FORMAT = "yang";
+    private static final String DATA = "data";
+
+    private SchemaIndex schemaIndex;
+
+    @Override
+    public QName getIdentifier() {
+        return GET_SCHEMA;
+    }
+
+    @Override
+    public void init(final NetconfDeviceServices netconfDeviceServices) {
+        this.schemaIndex = netconfDeviceServices.getSchemaIndex();
+    }
+
+    @Override
+    public Document processRequest(final Element requestXmlElement, final RequestContext context) {
+        final String identifier = childText(requestXmlElement, IDENTIFIER);
+        if (identifier == null) {
+            return error("Schema identifier is missing", ErrorType.PROTOCOL, ErrorTag.MISSING_ELEMENT);
+        }
+        final String format = childText(requestXmlElement, FORMAT);
+        // format is an identityref, its value may be prefixed
+        if (format != null && !YANG_FORMAT.equals(format.substring(format.indexOf(':') + 1))) {
+            return error(String.format("Schema format %s is not supported", format), ErrorType.APPLICATION,
+                ErrorTag.INVALID_VALUE);
+        }
+        String version = childText(requestXmlElement, VERSION);
+        if (version == null) {
+            final Collection<String> versions = schemaIndex.getVersions(identifier);
+            if (versions.size() > 1) {
+                return error(String.format("Schema %s has multiple versions %s, version has to be specified",
+                    identifier, versions), ErrorType.APPLICATION, ErrorTag.OPERATION_FAILED);
+            }
+            version = versions.isEmpty() ? "" : versions.iterator().next();
+        }
+        final Optional<String> source = schemaIndex.getSource(identifier, version);
+        if (source.isEmpty()) {
+            return error(String.format("Schema %s with version '%s' is not available", identifier, version),
+                ErrorType.APPLICATION, ErrorTag.INVALID_VALUE);
+        }
+        // document builders are not thread-safe, get-schema may be requested by several sessions at once
+        final Document reply = UntrustedXML.newDocumentBuilder().newDocument();
+        final Element rpcReply = reply.createElementNS(RPCUtil.NETCONF_BASE_NAMESPACE, "rpc-reply");
+        final Element data = reply.createElementNS(NETCONF_MONITORING_NAMESPACE, DATA);
+        data.setTextContent(source.orElseThrow());
+        rpcReply.appendChild(data);
+        reply.appendChild(rpcReply);
+        return reply;
+    }
+
+    /**
+     * Returns trimmed text of the first child element with given name, null if there is no such element.
+     */
+    private static String childText(final Element parent, final String localName) {
+        for (Node child = parent.getFirstChild(); child != null; child = child.getNextSibling()) {
+            if (child instanceof Element && localName.equals(child.getLocalName())) {
+                return child.getTextContent().trim();
+            }
+        }
+        return null;
+    }
+
+    private static Document error(final String message, final ErrorType errorType, final ErrorTag errorTag) {
+        LOG.debug("get-schema failed: {}", message);
+        return new NetconfDocumentedException(message, errorType, errorTag, ErrorSeverity.ERROR).toXMLDocument();
+    }
+}
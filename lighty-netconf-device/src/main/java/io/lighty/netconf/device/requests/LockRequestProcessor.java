@@ -0,0 +1,78 @@
+/*
+ * Copyright (c) 2020 PANTHEON.tech s.r.o. All Rights Reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at https://www.eclipse.org/legal/epl-v10.html
+ */
+package io.lighty.netconf.device.requests;
+
+import io.lighty.netconf.device.datastore.CandidateDatastore;
+import io.lighty.netconf.device.datastore.DatastoreLocks;
+import io.lighty.netconf.device.response.Response;
+import io.lighty.netconf.device.response.ResponseData;
+import io.lighty.netconf.device.utils.RPCUtil;
+import java.util.Collections;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import org.opendaylight.yang.gen.v1.urn.ietf.params.xml.ns.netconf.base._1._0.rev110601.SessionIdType;
+import org.opendaylight.yangtools.yang.common.ErrorTag;
+import org.opendaylight.yangtools.yang.common.ErrorType;
+import org.opendaylight.yangtools.yang.common.QName;
+import org.w3c.dom.Element;
+
+/**
+ * Implementation of lock netconf protocol operation.
+ * https://tools.ietf.org/html/rfc6241#section-7.5
+ * Running and candidate datastores can be locked. Candidate with changes which are not committed can not be locked.
+ */
+public class LockRequestProcessor extends OkOutputRequestProcessor {
+
+    public static final QName LOCK = QName.create(RPCUtil.NETCONF_BASE_NAMESPACE, "lock");
+
+    @Override
+    public QName getIdentifier() {
+        return LOCK;
+    }
+
+    @Override
+    protected CompletableFuture<Response> executeOkRequest(Element requestXmlElement, RequestContext context) {
+        final Optional<String> target = RPCUtil.retrieveDatastore(requestXmlElement, "target");
+        if (target.isEmpty()) {
+            return errorResponse("Missing target datastore", ErrorType.PROTOCOL, ErrorTag.MISSING_ELEMENT);
+        }
+        final String datastore = target.get();
+        if (!DatastoreLocks.RUNNING.equals(datastore) && !DatastoreLocks.CANDIDATE.equals(datastore)) {
+            return errorResponse("Datastore " + datastore + " can not be locked", ErrorType.PROTOCOL,
+                ErrorTag.INVALID_VALUE);
+        }
+        final SessionIdType sessionId = context.getSessionId();
+        if (sessionId == null) {
+            return errorResponse("Lock has to be requested by a session", ErrorType.PROTOCOL,
+                ErrorTag.OPERATION_FAILED);
+        }
+
+        // candidate of a device without the candidate datastore is an alias of running, it has no changes
+        if (DatastoreLocks.CANDIDATE.equals(datastore) && getNetconfDeviceServices().isCandidateEnabled()) {
+            final CandidateDatastore candidate = getNetconfDeviceServices().getCandidateDatastore();
+            // edits of the candidate hold its monitor too, none of them can be applied between check and lock
+            synchronized (candidate) {
+                if (candidate.isModified()) {
+                    return errorResponse("Candidate has changes which are not committed", ErrorType.PROTOCOL,
+                        ErrorTag.LOCK_DENIED);
+                }
+                return lock(datastore, sessionId);
+            }
+        }
+        return lock(datastore, sessionId);
+    }
+
+    private CompletableFuture<Response> lock(final String datastore, final SessionIdType sessionId) {
+        final DatastoreLocks locks = getNetconfDeviceServices().getDatastoreLocks();
+        if (!locks.lock(datastore, sessionId)) {
+            return errorResponse("Datastore " + datastore + " is already locked by session "
+                + locks.getOwner(datastore), ErrorType.PROTOCOL, ErrorTag.LOCK_DENIED);
+        }
+        return CompletableFuture.completedFuture(new ResponseData(Collections.emptyList()));
+    }
+}
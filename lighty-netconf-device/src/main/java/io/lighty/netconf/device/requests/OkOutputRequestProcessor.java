@@ -9,13 +9,19 @@ package io.lighty.netconf.device.requests;
 
 import io.lighty.codecs.util.exception.SerializationException;
 import io.lighty.netconf.device.response.Response;
+import io.lighty.netconf.device.response.ResponseErrorMessage;
 import io.lighty.netconf.device.utils.RPCUtil;
+import io.lighty.netconf.device.utils.XmlLogUtil;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.ParserConfigurationException;
+import org.opendaylight.netconf.api.NetconfDocumentedException;
+import org.opendaylight.yangtools.yang.common.ErrorSeverity;
+import org.opendaylight.yangtools.yang.common.ErrorTag;
+import org.opendaylight.yangtools.yang.common.ErrorType;
 import org.opendaylight.yangtools.yang.data.api.schema.NormalizedNode;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -28,11 +34,21 @@ public abstract class OkOutputRequestProcessor extends BaseRequestProcessor {
     private static final Logger LOG = LoggerFactory.getLogger(OkOutputRequestProcessor.class);
 
     @Override
-    protected final CompletableFuture<Response> execute(Element requestXmlElement) {
-        return executeOkRequest(requestXmlElement);
+    protected final CompletableFuture<Response> execute(Element requestXmlElement, RequestContext context) {
+        return executeOkRequest(requestXmlElement, context);
     }
 
-    protected abstract CompletableFuture<Response> executeOkRequest(Element requestXmlElement);
+    protected abstract CompletableFuture<Response> executeOkRequest(Element requestXmlElement,
+            RequestContext context);
+
+    /**
+     * Creates response of a request which failed with the rpc-error.
+     */
+    protected static CompletableFuture<Response> errorResponse(String message, ErrorType errorType,
+            ErrorTag errorTag) {
+        return CompletableFuture.completedFuture(new ResponseErrorMessage(
+            new NetconfDocumentedException(message, errorType, errorTag, ErrorSeverity.ERROR)));
+    }
 
     @Override
     protected List<Node> convertOutputToXmlNodes(List<NormalizedNode> responseOutput, DocumentBuilder builder,
@@ -47,18 +63,17 @@ public abstract class OkOutputRequestProcessor extends BaseRequestProcessor {
     }
 
     @Override
-    protected Document wrapToFinalDocumentReply(List<NormalizedNode> responseOutput)
+    protected Document wrapToFinalDocumentReply(List<NormalizedNode> responseOutput, RequestContext context)
             throws ParserConfigurationException {
         // convert normalized nodes to xml nodes
-        DocumentBuilder builder = getDocumentBuilderFactory().newDocumentBuilder();
+        DocumentBuilder builder = newDocumentBuilder();
         Document newDocument = builder.newDocument();
         List<Node> outputNodes = convertOutputToXmlNodes(responseOutput, builder, newDocument);
         // wrap nodes to final document
         List<Node> wrappedOutputNodes = new ArrayList<>();
         outputNodes.forEach(outputNode -> wrappedOutputNodes.add(newDocument.importNode(outputNode, true)));
         newDocument.appendChild(wrapResponse(newDocument, wrappedOutputNodes));
-        String formattedResponse = RPCUtil.formatXml(newDocument.getDocumentElement());
-        LOG.debug("Response: {}.", formattedResponse);
+        XmlLogUtil.debug(LOG, "Response: {}.", newDocument);
         return newDocument;
     }
 
@@ -0,0 +1,77 @@
+/*
+ * Copyright (c) 2020 PANTHEON.tech s.r.o. All Rights Reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at https://www.eclipse.org/legal/epl-v10.html
+ */
+package io.lighty.netconf.device.requests;
+
+import io.lighty.netconf.device.utils.RPCUtil;
+import org.eclipse.jdt.annotation.Nullable;
+import org.opendaylight.yang.gen.v1.urn.ietf.params.xml.ns.netconf.base._1._0.rev110601.SessionIdType;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+
+/**
+ * Context of one request processed by a {@link RequestProcessor}. Request processors are shared by all sessions of
+ * a device and may process requests concurrently, so anything specific to a request is passed along with it
+ * instead of being kept in the processor.
+ */
+public final class RequestContext {
+
+    private static final String RPC = "rpc";
+    private static final String MESSAGE_ID = "message-id";
+
+    private final @Nullable String messageId;
+    private final @Nullable SessionIdType sessionId;
+
+    private RequestContext(final @Nullable String messageId, final @Nullable SessionIdType sessionId) {
+        this.messageId = messageId;
+        this.sessionId = sessionId;
+    }
+
+    /**
+     * Creates context of the request received by the session.
+     *
+     * @param requestXmlElement XML RPC request element, message-id is taken from its parent rpc element
+     * @param sessionId ID of the session which received the request, null if not known
+     * @return context of the request
+     */
+    public static RequestContext of(final Element requestXmlElement, final @Nullable SessionIdType sessionId) {
+        return new RequestContext(readMessageId(requestXmlElement), sessionId);
+    }
+
+    /**
+     * Creates context of the request received outside of any session.
+     *
+     * @param requestXmlElement XML RPC request element, message-id is taken from its parent rpc element
+     * @return context of the request
+     */
+    public static RequestContext of(final Element requestXmlElement) {
+        return of(requestXmlElement, null);
+    }
+
+    private static @Nullable String readMessageId(final Element requestXmlElement) {
+        final Node parent = requestXmlElement.getParentNode();
+        final Element rpc = parent instanceof Element && RPC.equals(parent.getLocalName())
+                && RPCUtil.NETCONF_BASE_NAMESPACE.equals(parent.getNamespaceURI())
+                ? (Element) parent : requestXmlElement;
+        final String messageId = rpc.getAttribute(MESSAGE_ID);
+        return messageId.isEmpty() ? null : messageId;
+    }
+
+    /**
+     * Message-id of the rpc, null if the rpc has none.
+     */
+    public @Nullable String getMessageId() {
+        return messageId;
+    }
+
+    /**
+     * ID of the session which received the request, null if the request was not received by a session.
+     */
+    public @Nullable SessionIdType getSessionId() {
+        return sessionId;
+    }
+}
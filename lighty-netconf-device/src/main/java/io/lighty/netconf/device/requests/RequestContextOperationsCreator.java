@@ -0,0 +1,162 @@
+/*
+ * Copyright (c) 2020 PANTHEON.tech s.r.o. All Rights Reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at https://www.eclipse.org/legal/epl-v10.html
+ */
+package io.lighty.netconf.device.requests;
+
+import com.google.common.collect.ImmutableSet;
+import io.lighty.netconf.device.utils.SessionUtil;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import org.eclipse.jdt.annotation.Nullable;
+import org.opendaylight.netconf.api.DocumentedException;
+import org.opendaylight.netconf.api.NetconfSession;
+import org.opendaylight.netconf.nettyutil.AbstractNetconfSession;
+import org.opendaylight.netconf.server.api.monitoring.Capability;
+import org.opendaylight.netconf.server.api.operations.HandlingPriority;
+import org.opendaylight.netconf.server.api.operations.NetconfOperation;
+import org.opendaylight.netconf.server.api.operations.NetconfOperationChainedExecution;
+import org.opendaylight.netconf.server.api.operations.NetconfOperationService;
+import org.opendaylight.netconf.server.api.operations.SessionAwareNetconfOperation;
+import org.opendaylight.netconf.test.tool.operations.OperationsCreator;
+import org.opendaylight.yang.gen.v1.urn.ietf.params.xml.ns.netconf.base._1._0.rev110601.SessionIdType;
+import org.opendaylight.yangtools.yang.common.ErrorSeverity;
+import org.opendaylight.yangtools.yang.common.ErrorTag;
+import org.opendaylight.yangtools.yang.common.ErrorType;
+import org.w3c.dom.Document;
+
+/**
+ * {@link OperationsCreator} making the session of the processed RPC known to the {@link RpcHandlerImpl}, which
+ * passes it to the request processors in the {@link RequestContext}. Operations of the sessions are created by
+ * the wrapped creator.
+ *
+ * <p>The testtool does not pass the session to its RPC handler. Operations get an additional operation which
+ * passes all RPCs to the operations with lower priority and only receives the session of every RPC from
+ * the server. The server passes the session on the thread which then executes the operations, so the session
+ * is kept per thread until the next RPC.
+ *
+ * <p>Closed sessions are reported once their channel is closed, see {@link SessionUtil}. The operation service
+ * is shared by all sessions of a device, its close does not tell which session went down.
+ */
+public final class RequestContextOperationsCreator implements OperationsCreator {
+
+    private final OperationsCreator delegate;
+    private final Consumer<SessionIdType> sessionCloseListener;
+    private final ThreadLocal<NetconfSession> currentSession = new ThreadLocal<>();
+    // sessions whose end is recognized only when they are found down
+    private final Set<AbstractNetconfSession<?, ?>> unobservedSessions = ConcurrentHashMap.newKeySet();
+
+    public RequestContextOperationsCreator(final OperationsCreator delegate) {
+        this(delegate, sessionId -> { });
+    }
+
+    /**
+     * Creates operations which additionally report closed sessions.
+     *
+     * @param delegate creator of the operations of the sessions
+     * @param sessionCloseListener called with the ID of every closed session, once its channel is closed
+     */
+    public RequestContextOperationsCreator(final OperationsCreator delegate,
+            final Consumer<SessionIdType> sessionCloseListener) {
+        this.delegate = delegate;
+        this.sessionCloseListener = sessionCloseListener;
+    }
+
+    @Override
+    public NetconfOperationService getNetconfOperationService(final Set<Capability> capabilities,
+            final SessionIdType idType) {
+        final NetconfOperationService operationService = delegate.getNetconfOperationService(capabilities, idType);
+        // the service is shared by all sessions of the device, its operations are created for each of them
+        return new NetconfOperationService() {
+            @Override
+            public Set<NetconfOperation> getNetconfOperations() {
+                return ImmutableSet.<NetconfOperation>builder()
+                    .addAll(operationService.getNetconfOperations())
+                    .add(new SessionCapturingOperation(currentSession, RequestContextOperationsCreator.this))
+                    .build();
+            }
+
+            @Override
+            public void close() {
+                operationService.close();
+                // called whenever any of the sessions goes down, without telling which one
+                for (final AbstractNetconfSession<?, ?> session : unobservedSessions) {
+                    if (!session.isUp() && unobservedSessions.remove(session)) {
+                        sessionCloseListener.accept(session.sessionId());
+                    }
+                }
+            }
+        };
+    }
+
+    private void sessionStarted(final NetconfSession session) {
+        if (!SessionUtil.addCloseListener(session, () -> sessionCloseListener.accept(session.sessionId()))
+                && session instanceof AbstractNetconfSession) {
+            unobservedSessions.add((AbstractNetconfSession<?, ?>) session);
+        }
+    }
+
+    /**
+     * Session whose RPC is processed by the current thread, null if the thread does not process any.
+     */
+    public @Nullable NetconfSession getCurrentSession() {
+        return currentSession.get();
+    }
+
+    /**
+     * ID of the session whose RPC is processed by the current thread, null if the thread does not process any.
+     */
+    public @Nullable SessionIdType getCurrentSessionId() {
+        final NetconfSession session = currentSession.get();
+        return session != null ? session.sessionId() : null;
+    }
+
+    private static final class SessionCapturingOperation implements SessionAwareNetconfOperation {
+
+        // above the simulated operations of the testtool, below the session tracking of netconf-monitoring and
+        // the RPC handler, priorities have to be unique
+        private static final HandlingPriority CAPTURING_PRIORITY =
+            HandlingPriority.HANDLE_WITH_DEFAULT_PRIORITY.increasePriority(250);
+
+        private final ThreadLocal<NetconfSession> currentSession;
+        private final RequestContextOperationsCreator creator;
+        // one operation per session, the server passes it the session before every RPC on the session's thread
+        private boolean started;
+
+        SessionCapturingOperation(final ThreadLocal<NetconfSession> currentSession,
+                final RequestContextOperationsCreator creator) {
+            this.currentSession = currentSession;
+            this.creator = creator;
+        }
+
+        @Override
+        public HandlingPriority canHandle(final Document message) {
+            // a message received before the session is known must not be attributed to the previous one
+            currentSession.remove();
+            return CAPTURING_PRIORITY;
+        }
+
+        @Override
+        public void setSession(final NetconfSession session) {
+            currentSession.set(session);
+            if (!started) {
+                started = true;
+                creator.sessionStarted(session);
+            }
+        }
+
+        @Override
+        public Document handle(final Document requestMessage,
+                final NetconfOperationChainedExecution subsequentOperation) throws DocumentedException {
+            if (subsequentOperation != null) {
+                return subsequentOperation.execute(requestMessage);
+            }
+            throw new DocumentedException("Unable to handle rpc", ErrorType.PROTOCOL,
+                ErrorTag.OPERATION_NOT_SUPPORTED, ErrorSeverity.ERROR);
+        }
+    }
+}
@@ -26,12 +26,24 @@ public interface RequestProcessor {
     QName getIdentifier();
 
     /**
-     * Parses the input element and do its operation around it.
+     * Parses the input element and do its operation around it. Implementations have to be safe to call
+     * concurrently, everything specific to the request is passed in its context.
      *
      * @param requestXmlElement XML RPC request element
+     * @param context context of the request
      * @return Document a document
      */
-    Document processRequest(Element requestXmlElement);
+    Document processRequest(Element requestXmlElement, RequestContext context);
+
+    /**
+     * Parses the input element received outside of any session and do its operation around it.
+     *
+     * @param requestXmlElement XML RPC request element
+     * @return Document a document
+     */
+    default Document processRequest(Element requestXmlElement) {
+        return processRequest(requestXmlElement, RequestContext.of(requestXmlElement));
+    }
 
     /**
      * Inject services into this instance of request processor.
@@ -7,41 +7,239 @@
  */
 package io.lighty.netconf.device.requests;
 
+import com.google.common.annotations.VisibleForTesting;
 import io.lighty.netconf.device.NetconfDeviceServices;
+import io.lighty.netconf.device.metrics.RequestMetrics;
+import io.lighty.netconf.device.monitoring.NetconfStateMonitor;
+import io.lighty.netconf.device.requests.notification.NotificationStreamsMonitor;
+import io.lighty.netconf.device.utils.NormalizedNodeDomWriter;
 import io.lighty.netconf.device.utils.RPCUtil;
+import io.lighty.netconf.device.utils.XmlLogUtil;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+import org.eclipse.jdt.annotation.Nullable;
+import org.opendaylight.netconf.api.DocumentedException;
+import org.opendaylight.netconf.api.NamespaceURN;
 import org.opendaylight.netconf.api.xml.XmlElement;
 import org.opendaylight.netconf.test.tool.rpchandler.RpcHandler;
+import org.opendaylight.yang.gen.v1.urn.ietf.params.xml.ns.netconf.base._1._0.rev110601.SessionIdType;
+import org.opendaylight.yang.gen.v1.urn.ietf.params.xml.ns.netmod.notification.rev080714.Netconf;
+import org.opendaylight.yang.gen.v1.urn.ietf.params.xml.ns.yang.ietf.netconf.monitoring.rev101004.NetconfState;
+import org.opendaylight.yangtools.yang.common.ErrorTag;
 import org.opendaylight.yangtools.yang.common.QName;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
 
 public class RpcHandlerImpl implements RpcHandler {
 
     private static final Logger LOG = LoggerFactory.getLogger(RpcHandlerImpl.class);
+    private static final QName GET = QName.create(RPCUtil.NETCONF_BASE_NAMESPACE, "get");
+    private static final long MONITORING_TIMEOUT_MILLIS = 5_000;
+    private static final String FILTER = "filter";
+    private static final String TYPE = "type";
+    private static final String XPATH = "xpath";
+    private static final String SELECT = "select";
 
     private final Map<QName, RequestProcessor> cache;
+    private final @Nullable RequestMetrics requestMetrics;
+    private final @Nullable NetconfStateMonitor netconfStateMonitor;
+    private final @Nullable NotificationStreamsMonitor notificationStreamsMonitor;
+    private final Supplier<@Nullable SessionIdType> sessionIdSupplier;
 
     public RpcHandlerImpl(final NetconfDeviceServices netconfDeviceServices, final Map<QName, RequestProcessor> cache) {
+        this(netconfDeviceServices, cache, null);
+    }
+
+    /**
+     * Creates handler measuring processing of the requests.
+     *
+     * @param netconfDeviceServices services the request processors are initialized with
+     * @param cache request processors by their identifier
+     * @param requestMetrics receiver of the measurements, null when the requests are not measured
+     */
+    public RpcHandlerImpl(final NetconfDeviceServices netconfDeviceServices, final Map<QName, RequestProcessor> cache,
+            final @Nullable RequestMetrics requestMetrics) {
+        this(netconfDeviceServices, cache, requestMetrics, null);
+    }
+
+    /**
+     * Creates handler measuring processing of the requests and exposing netconf-state of the device. Sessions
+     * and statistics of the monitor are written into the operational datastore before every get request selecting
+     * netconf-state.
+     *
+     * @param netconfDeviceServices services the request processors are initialized with
+     * @param cache request processors by their identifier
+     * @param requestMetrics receiver of the measurements, null when the requests are not measured
+     * @param netconfStateMonitor monitor of the sessions, null when netconf-state is not exposed
+     */
+    public RpcHandlerImpl(final NetconfDeviceServices netconfDeviceServices, final Map<QName, RequestProcessor> cache,
+            final @Nullable RequestMetrics requestMetrics, final @Nullable NetconfStateMonitor netconfStateMonitor) {
+        this(netconfDeviceServices, cache, requestMetrics, netconfStateMonitor, () -> null);
+    }
+
+    /**
+     * Creates handler passing the session of every request to the request processors.
+     *
+     * @param netconfDeviceServices services the request processors are initialized with
+     * @param cache request processors by their identifier
+     * @param requestMetrics receiver of the measurements, null when the requests are not measured
+     * @param netconfStateMonitor monitor of the sessions, null when netconf-state is not exposed
+     * @param sessionIdSupplier ID of the session whose request is handled by the current thread, see
+     *     {@link RequestContextOperationsCreator#getCurrentSessionId()}
+     */
+    public RpcHandlerImpl(final NetconfDeviceServices netconfDeviceServices, final Map<QName, RequestProcessor> cache,
+            final @Nullable RequestMetrics requestMetrics, final @Nullable NetconfStateMonitor netconfStateMonitor,
+            final Supplier<@Nullable SessionIdType> sessionIdSupplier) {
+        this(netconfDeviceServices, cache, requestMetrics, netconfStateMonitor, null, sessionIdSupplier);
+    }
+
+    /**
+     * Creates handler passing the session of every request to the request processors and exposing notification
+     * streams of the device. The streams are written into the operational datastore before every get request
+     * selecting them.
+     *
+     * @param netconfDeviceServices services the request processors are initialized with
+     * @param cache request processors by their identifier
+     * @param requestMetrics receiver of the measurements, null when the requests are not measured
+     * @param netconfStateMonitor monitor of the sessions, null when netconf-state is not exposed
+     * @param notificationStreamsMonitor monitor of the notification streams, null when they are not exposed
+     * @param sessionIdSupplier ID of the session whose request is handled by the current thread, see
+     *     {@link RequestContextOperationsCreator#getCurrentSessionId()}
+     */
+    public RpcHandlerImpl(final NetconfDeviceServices netconfDeviceServices, final Map<QName, RequestProcessor> cache,
+            final @Nullable RequestMetrics requestMetrics, final @Nullable NetconfStateMonitor netconfStateMonitor,
+            final @Nullable NotificationStreamsMonitor notificationStreamsMonitor,
+            final Supplier<@Nullable SessionIdType> sessionIdSupplier) {
         this.cache = cache;
+        this.requestMetrics = requestMetrics;
+        this.netconfStateMonitor = netconfStateMonitor;
+        this.notificationStreamsMonitor = notificationStreamsMonitor;
+        this.sessionIdSupplier = sessionIdSupplier;
         this.cache.values().forEach(rp -> rp.init(netconfDeviceServices));
     }
 
     @Override
     public Optional<Document> getResponse(final XmlElement rpcElement) {
         final Element element = rpcElement.getDomElement();
-        final String formattedRequest = RPCUtil.formatXml(element);
-        LOG.debug("Received get request with payload:\n{} ", formattedRequest);
+        XmlLogUtil.debug(LOG, "Received get request with payload:\n{} ", element);
         final Optional<RequestProcessor> processorForRequestOpt = getProcessorForRequest(element);
         if (processorForRequestOpt.isPresent()) {
-            return Optional.ofNullable(processorForRequestOpt.get().processRequest(element));
+            if (GET.equals(processorForRequestOpt.get().getIdentifier())) {
+                writeState(element);
+            }
+            final RequestContext context = RequestContext.of(element, sessionIdSupplier.get());
+            if (requestMetrics == null) {
+                return Optional.ofNullable(processorForRequestOpt.get().processRequest(element, context));
+            }
+            return Optional.ofNullable(processMeasuredRequest(processorForRequestOpt.get(), element, context));
         }
         return Optional.empty();
     }
 
+    /**
+     * Writes the monitored state selected by the get request, a get of other data does not wait for its commit.
+     */
+    private void writeState(final Element get) {
+        if (netconfStateMonitor != null && selects(get, NetconfState.QNAME)) {
+            awaitWrite(netconfStateMonitor.writeState(), "netconf-state sessions and statistics");
+        }
+        if (notificationStreamsMonitor != null && selects(get, Netconf.QNAME)) {
+            awaitWrite(notificationStreamsMonitor.writeStreams(), "notification streams");
+        }
+    }
+
+    private static @Nullable Element getFilter(final Element get) {
+        for (Node child = get.getFirstChild(); child != null; child = child.getNextSibling()) {
+            if (child instanceof Element && FILTER.equals(child.getLocalName())) {
+                return (Element) child;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Whether the get request may select the top level container, get without filter selects everything. XPath
+     * filter selects it when its expression mentions the container, subtree filter when it has the container among
+     * its top level elements.
+     */
+    @VisibleForTesting
+    static boolean selects(final Element get, final QName container) {
+        final Element filter = getFilter(get);
+        if (filter == null) {
+            return true;
+        }
+        final String localName = container.getLocalName();
+        if (XPATH.equals(filter.getAttribute(TYPE)) || XPATH.equals(filter.getAttributeNS(NamespaceURN.BASE, TYPE))) {
+            return filter.getAttribute(SELECT).contains(localName);
+        }
+        final String namespace = container.getNamespace().toString();
+        for (Node child = filter.getFirstChild(); child != null; child = child.getNextSibling()) {
+            if (child instanceof Element && localName.equals(child.getLocalName())
+                    && (child.getNamespaceURI() == null || namespace.equals(child.getNamespaceURI()))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void awaitWrite(final Future<?> write, final String state) {
+        try {
+            write.get(MONITORING_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException | TimeoutException e) {
+            LOG.warn("Could not write {}, replying with previous state", state, e);
+        } catch (InterruptedException e) {
+            LOG.warn("Interrupted while writing {}", state, e);
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @SuppressWarnings("checkstyle:IllegalCatch")
+    private Document processMeasuredRequest(final RequestProcessor processor, final Element element,
+            final RequestContext context) {
+        final QName operation = processor.getIdentifier();
+        requestMetrics.requestStarted(operation);
+        final long startNanos = System.nanoTime();
+        final Document response;
+        try {
+            response = processor.processRequest(element, context);
+        } catch (RuntimeException e) {
+            requestMetrics.requestCompleted(operation, System.nanoTime() - startNanos, 0, ErrorTag.OPERATION_FAILED);
+            throw e;
+        }
+        final long durationNanos = System.nanoTime() - startNanos;
+        if (response == null) {
+            requestMetrics.requestCompleted(operation, durationNanos, 0, null);
+        } else {
+            final Element reply = response.getDocumentElement();
+            requestMetrics.requestCompleted(operation, durationNanos, NormalizedNodeDomWriter.countElements(reply),
+                getErrorTag(reply));
+        }
+        return response;
+    }
+
+    private static @Nullable ErrorTag getErrorTag(final Element reply) {
+        // rpc-error is a child of rpc-reply, the data of the reply is not searched
+        for (Node child = reply.getFirstChild(); child != null; child = child.getNextSibling()) {
+            if (DocumentedException.RPC_ERROR.equals(child.getLocalName())
+                    && NamespaceURN.BASE.equals(child.getNamespaceURI())) {
+                final NodeList tags = ((Element) child)
+                    .getElementsByTagNameNS(NamespaceURN.BASE, DocumentedException.ERROR_TAG);
+                return tags.getLength() == 0 ? ErrorTag.OPERATION_FAILED
+                    : new ErrorTag(tags.item(0).getTextContent().trim());
+            }
+        }
+        return null;
+    }
+
     private Optional<RequestProcessor> getProcessorForRequest(final Element element) {
         final String namespace = element.getNamespaceURI();
         final String localName = element.getLocalName();
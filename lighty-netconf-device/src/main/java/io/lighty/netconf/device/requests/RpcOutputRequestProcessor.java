@@ -10,13 +10,16 @@ package io.lighty.netconf.device.requests;
 import io.lighty.codecs.util.ConverterUtils;
 import io.lighty.codecs.util.exception.SerializationException;
 import io.lighty.netconf.device.NetconfDeviceServices;
+import io.lighty.netconf.device.utils.NormalizedNodeDomWriter;
 import io.lighty.netconf.device.utils.RPCUtil;
+import io.lighty.netconf.device.utils.XmlLogUtil;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.ParserConfigurationException;
+import org.opendaylight.yangtools.yang.data.api.schema.ContainerNode;
 import org.opendaylight.yangtools.yang.data.api.schema.NormalizedNode;
 import org.opendaylight.yangtools.yang.model.api.EffectiveModelContext;
 import org.opendaylight.yangtools.yang.model.api.RpcDefinition;
@@ -56,6 +59,18 @@ public abstract class RpcOutputRequestProcessor extends BaseRequestProcessor {
                         normalizedNode).toString();
     }
 
+    @Override
+    protected void writeNormalizedNode(NormalizedNode normalizedNode, Node parent, DocumentBuilder builder)
+            throws SerializationException {
+        if (normalizedNode instanceof ContainerNode) {
+            NormalizedNodeDomWriter.writeOperationContainer(getNetconfDeviceServices().getXmlNodeConverter()
+                    .getModelContext(), Absolute.of(rpcDefinition.getQName(), rpcDefinition.getOutput().getQName()),
+                    (ContainerNode) normalizedNode, parent);
+        } else {
+            super.writeNormalizedNode(normalizedNode, parent, builder);
+        }
+    }
+
     public RpcDefinition getRpcDefinition() {
         return rpcDefinition;
     }
@@ -65,9 +80,9 @@ public abstract class RpcOutputRequestProcessor extends BaseRequestProcessor {
     }
 
     @Override
-    protected Document wrapToFinalDocumentReply(List<NormalizedNode> responseOutput)
+    protected Document wrapToFinalDocumentReply(List<NormalizedNode> responseOutput, RequestContext context)
         throws ParserConfigurationException {
-        DocumentBuilder builder = getDocumentBuilderFactory().newDocumentBuilder();
+        DocumentBuilder builder = newDocumentBuilder();
         Document newDocument = builder.newDocument();
         if (!responseOutput.isEmpty()) {
             // convert normalized nodes to xml nodes
@@ -88,10 +103,8 @@ public abstract class RpcOutputRequestProcessor extends BaseRequestProcessor {
                     outputNodesData.add(data);
                 }
             }
-            // wrap nodes to final document
-            List<Node> wrappedOutputNodes = new ArrayList<>();
-            outputNodesData.forEach(outputNode -> wrappedOutputNodes.add(newDocument.importNode(outputNode, true)));
-            newDocument.appendChild(wrapReplyResponse(newDocument, wrappedOutputNodes));
+            // wrap nodes to final document, they are already owned by the new document
+            newDocument.appendChild(wrapReplyResponse(newDocument, outputNodesData));
         } else {
             // convert normalized nodes to xml nodes
             List<Node> outputNodes = Collections.singletonList(RPCUtil.createOkNode(newDocument));
@@ -99,8 +112,7 @@ public abstract class RpcOutputRequestProcessor extends BaseRequestProcessor {
             outputNodes.forEach(outputNode -> wrappedOutputNodes.add(newDocument.importNode(outputNode, true)));
             newDocument.appendChild(wrapReplyResponse(newDocument, wrappedOutputNodes));
         }
-        String formattedResponse = RPCUtil.formatXml(newDocument.getDocumentElement());
-        LOG.debug("Response: {}.", formattedResponse);
+        XmlLogUtil.debug(LOG, "Response: {}.", newDocument);
         return newDocument;
     }
 
@@ -0,0 +1,51 @@
+/*
+ * Copyright (c) 2020 PANTHEON.tech s.r.o. All Rights Reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at https://www.eclipse.org/legal/epl-v10.html
+ */
+package io.lighty.netconf.device.requests;
+
+import io.lighty.netconf.device.datastore.DatastoreLocks;
+import io.lighty.netconf.device.response.Response;
+import io.lighty.netconf.device.response.ResponseData;
+import io.lighty.netconf.device.utils.RPCUtil;
+import java.util.Collections;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import org.opendaylight.yang.gen.v1.urn.ietf.params.xml.ns.netconf.base._1._0.rev110601.SessionIdType;
+import org.opendaylight.yangtools.yang.common.ErrorTag;
+import org.opendaylight.yangtools.yang.common.ErrorType;
+import org.opendaylight.yangtools.yang.common.QName;
+import org.w3c.dom.Element;
+
+/**
+ * Implementation of unlock netconf protocol operation.
+ * https://tools.ietf.org/html/rfc6241#section-7.6
+ * Only the session holding the lock can release it.
+ */
+public class UnlockRequestProcessor extends OkOutputRequestProcessor {
+
+    public static final QName UNLOCK = QName.create(RPCUtil.NETCONF_BASE_NAMESPACE, "unlock");
+
+    @Override
+    public QName getIdentifier() {
+        return UNLOCK;
+    }
+
+    @Override
+    protected CompletableFuture<Response> executeOkRequest(Element requestXmlElement, RequestContext context) {
+        final Optional<String> target = RPCUtil.retrieveDatastore(requestXmlElement, "target");
+        if (target.isEmpty()) {
+            return errorResponse("Missing target datastore", ErrorType.PROTOCOL, ErrorTag.MISSING_ELEMENT);
+        }
+        final SessionIdType sessionId = context.getSessionId();
+        final DatastoreLocks locks = getNetconfDeviceServices().getDatastoreLocks();
+        if (sessionId == null || !locks.unlock(target.get(), sessionId)) {
+            return errorResponse("Datastore " + target.get() + " is not locked by this session", ErrorType.PROTOCOL,
+                ErrorTag.OPERATION_FAILED);
+        }
+        return CompletableFuture.completedFuture(new ResponseData(Collections.emptyList()));
+    }
+}
@@ -0,0 +1,59 @@
+/*
+ * Copyright (c) 2020 PANTHEON.tech s.r.o. All Rights Reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at https://www.eclipse.org/legal/epl-v10.html
+ */
+package io.lighty.netconf.device.requests;
+
+import io.lighty.netconf.device.datastore.DatastoreLocks;
+import io.lighty.netconf.device.response.Response;
+import io.lighty.netconf.device.response.ResponseData;
+import io.lighty.netconf.device.utils.RPCUtil;
+import java.util.Collections;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import org.opendaylight.mdsal.common.api.TransactionCommitFailedException;
+import org.opendaylight.yangtools.yang.common.ErrorTag;
+import org.opendaylight.yangtools.yang.common.ErrorType;
+import org.opendaylight.yangtools.yang.common.QName;
+import org.opendaylight.yangtools.yang.data.tree.api.SchemaValidationFailedException;
+import org.w3c.dom.Element;
+
+/**
+ * Implementation of validate netconf protocol operation.
+ * https://tools.ietf.org/html/rfc6241#section-8.6
+ * Changes of the candidate are checked against the schema by applying them to a snapshot of running. Running is
+ * always valid, config given inline is not supported.
+ */
+public class ValidateRequestProcessor extends OkOutputRequestProcessor {
+
+    public static final QName VALIDATE = QName.create(RPCUtil.NETCONF_BASE_NAMESPACE, "validate");
+
+    @Override
+    public QName getIdentifier() {
+        return VALIDATE;
+    }
+
+    @Override
+    protected CompletableFuture<Response> executeOkRequest(Element requestXmlElement, RequestContext context) {
+        final Optional<String> source = RPCUtil.retrieveDatastore(requestXmlElement, "source");
+        if (source.isEmpty()) {
+            return errorResponse("Missing source datastore", ErrorType.PROTOCOL, ErrorTag.MISSING_ELEMENT);
+        }
+        if (DatastoreLocks.CANDIDATE.equals(source.get())) {
+            try {
+                getNetconfDeviceServices().getCandidateDatastore().validate();
+            } catch (TransactionCommitFailedException e) {
+                return e.getCause() instanceof SchemaValidationFailedException
+                    ? errorResponse(e.getCause().getMessage(), ErrorType.APPLICATION, ErrorTag.BAD_ELEMENT)
+                    : errorResponse(e.getMessage(), ErrorType.APPLICATION, ErrorTag.OPERATION_FAILED);
+            }
+        } else if (!DatastoreLocks.RUNNING.equals(source.get())) {
+            return errorResponse("Validation of " + source.get() + " is not supported", ErrorType.PROTOCOL,
+                ErrorTag.OPERATION_NOT_SUPPORTED);
+        }
+        return CompletableFuture.completedFuture(new ResponseData(Collections.emptyList()));
+    }
+}
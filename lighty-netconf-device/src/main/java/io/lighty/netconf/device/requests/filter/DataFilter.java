@@ -0,0 +1,383 @@
+/*
+ * Copyright (c) 2020 PANTHEON.tech s.r.o. All Rights Reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at https://www.eclipse.org/legal/epl-v10.html
+ */
+package io.lighty.netconf.device.requests.filter;
+
+import com.google.common.util.concurrent.FluentFuture;
+import io.lighty.netconf.device.utils.RPCUtil;
+import io.lighty.netconf.device.utils.TimeoutUtil;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import org.opendaylight.mdsal.common.api.LogicalDatastoreType;
+import org.opendaylight.mdsal.dom.api.DOMDataTreeReadOperations;
+import org.opendaylight.netconf.api.NetconfDocumentedException;
+import org.opendaylight.yangtools.yang.common.ErrorSeverity;
+import org.opendaylight.yangtools.yang.common.ErrorTag;
+import org.opendaylight.yangtools.yang.common.ErrorType;
+import org.opendaylight.yangtools.yang.common.QName;
+import org.opendaylight.yangtools.yang.common.XMLNamespace;
+import org.opendaylight.yangtools.yang.data.api.YangInstanceIdentifier;
+import org.opendaylight.yangtools.yang.data.api.YangInstanceIdentifier.NodeIdentifier;
+import org.opendaylight.yangtools.yang.data.api.YangInstanceIdentifier.NodeIdentifierWithPredicates;
+import org.opendaylight.yangtools.yang.data.api.YangInstanceIdentifier.PathArgument;
+import org.opendaylight.yangtools.yang.data.api.schema.ContainerNode;
+import org.opendaylight.yangtools.yang.data.api.schema.DataContainerChild;
+import org.opendaylight.yangtools.yang.data.api.schema.MapEntryNode;
+import org.opendaylight.yangtools.yang.data.api.schema.NormalizedNode;
+import org.opendaylight.yangtools.yang.data.spi.node.ImmutableNodes;
+import org.opendaylight.yangtools.yang.data.util.DataSchemaContext;
+import org.opendaylight.yangtools.yang.data.util.DataSchemaContext.Composite;
+import org.opendaylight.yangtools.yang.data.util.DataSchemaContext.PathMixin;
+import org.opendaylight.yangtools.yang.data.util.DataSchemaContextTree;
+import org.opendaylight.yangtools.yang.model.api.ChoiceSchemaNode;
+import org.opendaylight.yangtools.yang.model.api.ContainerSchemaNode;
+import org.opendaylight.yangtools.yang.model.api.DataSchemaNode;
+import org.opendaylight.yangtools.yang.model.api.EffectiveModelContext;
+import org.opendaylight.yangtools.yang.model.api.LeafSchemaNode;
+import org.opendaylight.yangtools.yang.model.api.ListSchemaNode;
+import org.opendaylight.yangtools.yang.model.api.stmt.ModuleEffectiveStatement;
+import org.opendaylight.yangtools.yang.model.api.type.StringTypeDefinition;
+import org.w3c.dom.Element;
+
+/**
+ * Filter of get and get-config requests, see https://tools.ietf.org/html/rfc6241#section-6 and
+ * https://tools.ietf.org/html/rfc6241#section-8.9. XPath filters are translated into subtree filters.
+ *
+ * <p>The filter is not applied to the whole datastore. It is translated into reads of the deepest data nodes it can
+ * address, so only the selected subtrees are read and serialized. A read path descends through containers and through
+ * lists whose entry is identified by content match nodes of all its keys. Levels with other content match nodes are
+ * read whole and filtered in memory, since the match decides about their siblings.
+ */
+public final class DataFilter {
+
+    private static final String FILTER = "filter";
+    private static final String TYPE = "type";
+    private static final String SELECT = "select";
+    private static final String SUBTREE_TYPE = "subtree";
+    private static final String XPATH_TYPE = "xpath";
+    private static final DataFilter UNFILTERED = new DataFilter(null);
+
+    // null when the whole datastore is selected
+    private final List<FilterNode> roots;
+
+    private DataFilter(final List<FilterNode> roots) {
+        this.roots = roots;
+    }
+
+    /**
+     * Creates filter of the request.
+     *
+     * @param requestXml get or get-config request element
+     * @return filter of the request, or filter selecting everything when the request has no filter
+     * @throws NetconfDocumentedException when the filter is not valid
+     */
+    public static DataFilter fromRequest(final Element requestXml) throws NetconfDocumentedException {
+        final Element filter = (Element) requestXml.getElementsByTagNameNS(RPCUtil.NETCONF_BASE_NAMESPACE, FILTER)
+            .item(0);
+        if (filter == null) {
+            return UNFILTERED;
+        }
+        final String type = getAttribute(filter, TYPE);
+        if (type == null || SUBTREE_TYPE.equals(type)) {
+            // empty filter selects nothing
+            return new DataFilter(FilterNode.fromElements(filter));
+        }
+        if (!XPATH_TYPE.equals(type)) {
+            throw new NetconfDocumentedException("Unsupported filter type " + type, ErrorType.PROTOCOL,
+                ErrorTag.BAD_ATTRIBUTE, ErrorSeverity.ERROR);
+        }
+        final String select = getAttribute(filter, SELECT);
+        if (select == null) {
+            throw new NetconfDocumentedException("XPath filter without select attribute", ErrorType.PROTOCOL,
+                ErrorTag.MISSING_ATTRIBUTE, ErrorSeverity.ERROR);
+        }
+        if ("/".equals(select.trim())) {
+            return UNFILTERED;
+        }
+        return new DataFilter(XPathFilterParser.parse(select, filter));
+    }
+
+    private static String getAttribute(final Element element, final String name) {
+        if (element.hasAttributeNS(RPCUtil.NETCONF_BASE_NAMESPACE, name)) {
+            return element.getAttributeNS(RPCUtil.NETCONF_BASE_NAMESPACE, name);
+        }
+        return element.hasAttribute(name) ? element.getAttribute(name) : null;
+    }
+
+    /**
+     * Reads the data selected by the filter.
+     *
+     * @param transaction transaction used for all the reads
+     * @param datastoreType datastore to be read
+     * @param modelContext model of the data
+     * @return selected top level data nodes
+     * @throws ExecutionException when a read fails
+     * @throws TimeoutException when a read does not finish in time
+     * @throws InterruptedException when interrupted while waiting for a read
+     */
+    public List<NormalizedNode> read(final DOMDataTreeReadOperations transaction,
+            final LogicalDatastoreType datastoreType, final EffectiveModelContext modelContext)
+            throws ExecutionException, TimeoutException, InterruptedException {
+        if (roots == null) {
+            final Optional<NormalizedNode> root = transaction.read(datastoreType, YangInstanceIdentifier.of())
+                .get(TimeoutUtil.TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+            return root.isPresent() ? new ArrayList<>(((ContainerNode) root.orElseThrow()).body())
+                : Collections.emptyList();
+        }
+        final DataSchemaContextTree schemaTree = DataSchemaContextTree.from(modelContext);
+        final List<ReadTarget> targets = new Planner(modelContext).plan(schemaTree.getRoot(), roots);
+        // all reads are submitted before waiting for any of them
+        final List<FluentFuture<Optional<NormalizedNode>>> reads = new ArrayList<>(targets.size());
+        for (final ReadTarget target : targets) {
+            reads.add(transaction.read(datastoreType, target.path));
+        }
+        final ResultNode result = new ResultNode(null, schemaTree.getRoot());
+        for (int i = 0; i < targets.size(); i++) {
+            final ReadTarget target = targets.get(i);
+            final Optional<NormalizedNode> data = reads.get(i).get(TimeoutUtil.TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+            if (data.isPresent()) {
+                final Optional<NormalizedNode> selected = target.filters == null ? data
+                    : FilterNode.apply(data.orElseThrow(), target.filters);
+                selected.ifPresent(node -> result.insert(target.path.getPathArguments(), 0, node));
+            }
+        }
+        final List<NormalizedNode> topLevelNodes = new ArrayList<>();
+        result.children.values().forEach(child -> topLevelNodes.add(child.build()));
+        return topLevelNodes;
+    }
+
+    /**
+     * Path to be read, together with the filter elements applied to the read data node.
+     */
+    private static final class ReadTarget {
+        private final YangInstanceIdentifier path;
+        // null when the data node is selected whole
+        private final List<FilterNode> filters;
+
+        ReadTarget(final YangInstanceIdentifier path, final List<FilterNode> filters) {
+            this.path = path;
+            this.filters = filters;
+        }
+    }
+
+    /**
+     * Translates filter elements into read targets, walking the schema along the filter.
+     */
+    private static final class Planner {
+        private final EffectiveModelContext modelContext;
+        private final List<ReadTarget> targets = new ArrayList<>();
+
+        Planner(final EffectiveModelContext modelContext) {
+            this.modelContext = modelContext;
+        }
+
+        List<ReadTarget> plan(final Composite root, final List<FilterNode> filters) {
+            for (final Map.Entry<QName, List<FilterNode>> group : groupByName(root, filters).entrySet()) {
+                final DataNodePath child = DataNodePath.enter(root, YangInstanceIdentifier.of(), group.getKey());
+                if (group.getValue().size() == 1) {
+                    planNode(child, group.getValue().get(0));
+                } else {
+                    targets.add(new ReadTarget(child.path, group.getValue()));
+                }
+            }
+            return targets;
+        }
+
+        private void planNode(final DataNodePath node, final FilterNode filter) {
+            final DataSchemaNode schema = node.context.dataSchemaNode();
+            if (filter.isSelection()) {
+                targets.add(new ReadTarget(node.path, null));
+            } else if (filter.isContentMatch() || !(node.context instanceof Composite)) {
+                targets.add(new ReadTarget(node.path, List.of(filter)));
+            } else if (schema instanceof ListSchemaNode && node.context instanceof PathMixin) {
+                planListEntry(node, (ListSchemaNode) schema, filter);
+            } else if (schema instanceof ContainerSchemaNode) {
+                planChildren(node.path, (Composite) node.context, filter, filter.getChildren());
+            } else {
+                targets.add(new ReadTarget(node.path, List.of(filter)));
+            }
+        }
+
+        private void planListEntry(final DataNodePath list, final ListSchemaNode schema, final FilterNode filter) {
+            final Map<QName, Object> keyValues = new LinkedHashMap<>();
+            final List<FilterNode> otherChildren = new ArrayList<>();
+            for (final FilterNode child : filter.getChildren()) {
+                final QName key = findStringKey(schema, child);
+                if (key != null && !keyValues.containsKey(key)) {
+                    keyValues.put(key, child.getContent());
+                } else {
+                    otherChildren.add(child);
+                }
+            }
+            if (schema.getKeyDefinition().isEmpty() || keyValues.size() != schema.getKeyDefinition().size()) {
+                targets.add(new ReadTarget(list.path, List.of(filter)));
+                return;
+            }
+            final NodeIdentifierWithPredicates entryId = NodeIdentifierWithPredicates.of(schema.getQName(),
+                keyValues);
+            final YangInstanceIdentifier entryPath = list.path.node(entryId);
+            if (otherChildren.isEmpty()) {
+                targets.add(new ReadTarget(entryPath, null));
+            } else {
+                planChildren(entryPath, (Composite) ((Composite) list.context).childByArg(entryId), filter,
+                    otherChildren);
+            }
+        }
+
+        /**
+         * Returns key matched by the content match node. Only string keys are used in read paths, other types would
+         * have to be parsed from the content first.
+         */
+        private static QName findStringKey(final ListSchemaNode schema, final FilterNode filter) {
+            if (!filter.isContentMatch()) {
+                return null;
+            }
+            for (final QName key : schema.getKeyDefinition()) {
+                if (filter.matches(key)) {
+                    final Optional<DataSchemaNode> leaf = schema.findDataChildByName(key);
+                    final boolean stringKey = leaf.isPresent() && leaf.orElseThrow() instanceof LeafSchemaNode
+                        && ((LeafSchemaNode) leaf.orElseThrow()).getType() instanceof StringTypeDefinition;
+                    return stringKey ? key : null;
+                }
+            }
+            return null;
+        }
+
+        private void planChildren(final YangInstanceIdentifier path, final Composite context,
+                final FilterNode parent, final List<FilterNode> children) {
+            final Map<QName, List<FilterNode>> groups = groupByName(context, children);
+            final boolean readParent = children.stream().anyMatch(FilterNode::isContentMatch)
+                || groups.values().stream().anyMatch(group -> group.size() > 1);
+            if (readParent) {
+                // content matches and repeated elements decide about their siblings
+                targets.add(new ReadTarget(path, List.of(parent)));
+                return;
+            }
+            for (final Map.Entry<QName, List<FilterNode>> group : groups.entrySet()) {
+                planNode(DataNodePath.enter(context, path, group.getKey()), group.getValue().get(0));
+            }
+        }
+
+        /**
+         * Resolves names of filter elements to children of the schema node. Elements matching no child are dropped,
+         * they select nothing.
+         */
+        private Map<QName, List<FilterNode>> groupByName(final Composite context, final List<FilterNode> filters) {
+            final Map<QName, List<FilterNode>> groups = new LinkedHashMap<>();
+            for (final FilterNode filter : filters) {
+                for (final ModuleEffectiveStatement module : findModules(filter.getNamespace())) {
+                    final QName name = QName.create(module.localQNameModule(), filter.getLocalName());
+                    if (context.childByQName(name) != null) {
+                        groups.computeIfAbsent(name, key -> new ArrayList<>()).add(filter);
+                    }
+                }
+            }
+            return groups;
+        }
+
+        private Iterable<ModuleEffectiveStatement> findModules(final String namespace) {
+            if (namespace == null) {
+                return modelContext.getModuleStatements().values();
+            }
+            try {
+                return modelContext.findModuleStatements(XMLNamespace.of(namespace)).stream().limit(1).toList();
+            } catch (IllegalArgumentException e) {
+                return Collections.emptyList();
+            }
+        }
+    }
+
+    /**
+     * Data node addressed by instance identifier, together with its schema context.
+     */
+    private static final class DataNodePath {
+        private final YangInstanceIdentifier path;
+        private final DataSchemaContext context;
+
+        private DataNodePath(final YangInstanceIdentifier path, final DataSchemaContext context) {
+            this.path = path;
+            this.context = context;
+        }
+
+        /**
+         * Enters child data node, passing through choices, which have no element in XML.
+         */
+        static DataNodePath enter(final Composite parent, final YangInstanceIdentifier parentPath,
+                final QName name) {
+            YangInstanceIdentifier path = parentPath;
+            DataSchemaContext context = parent.childByQName(name);
+            while (context.dataSchemaNode() instanceof ChoiceSchemaNode) {
+                path = path.node(context.pathStep());
+                context = ((Composite) context).childByQName(name);
+            }
+            return new DataNodePath(path.node(context.pathStep()), context);
+        }
+    }
+
+    /**
+     * Node of the reply tree. Read data nodes are placed into parents built from their read paths.
+     */
+    private static final class ResultNode {
+        private final PathArgument name;
+        private final DataSchemaContext context;
+        private final Map<PathArgument, ResultNode> children = new LinkedHashMap<>();
+        private NormalizedNode data;
+
+        ResultNode(final PathArgument name, final DataSchemaContext context) {
+            this.name = name;
+            this.context = context;
+        }
+
+        void insert(final List<PathArgument> path, final int index, final NormalizedNode node) {
+            if (index == path.size()) {
+                data = node;
+                return;
+            }
+            children.computeIfAbsent(path.get(index),
+                    arg -> new ResultNode(arg, ((Composite) context).childByArg(arg)))
+                .insert(path, index + 1, node);
+        }
+
+        NormalizedNode build() {
+            if (data != null) {
+                return data;
+            }
+            final DataSchemaNode schema = context.dataSchemaNode();
+            if (name instanceof NodeIdentifierWithPredicates) {
+                final NodeIdentifierWithPredicates entryId = (NodeIdentifierWithPredicates) name;
+                final List<DataContainerChild> entryChildren = new ArrayList<>();
+                // keys identify the entry in the reply
+                entryId.entrySet().forEach(key -> entryChildren.add(ImmutableNodes.leafNode(key.getKey(),
+                    key.getValue())));
+                children.values().forEach(child -> entryChildren.add((DataContainerChild) child.build()));
+                return ImmutableNodes.newMapEntryBuilder().withNodeIdentifier(entryId).withValue(entryChildren)
+                    .build();
+            }
+            final NodeIdentifier nodeId = (NodeIdentifier) name;
+            if (schema instanceof ListSchemaNode) {
+                final List<MapEntryNode> entries = new ArrayList<>();
+                children.values().forEach(child -> entries.add((MapEntryNode) child.build()));
+                return ((ListSchemaNode) schema).isUserOrdered()
+                    ? ImmutableNodes.newUserMapBuilder().withNodeIdentifier(nodeId).withValue(entries).build()
+                    : ImmutableNodes.newSystemMapBuilder().withNodeIdentifier(nodeId).withValue(entries).build();
+            }
+            final List<DataContainerChild> nodeChildren = new ArrayList<>();
+            children.values().forEach(child -> nodeChildren.add((DataContainerChild) child.build()));
+            if (schema instanceof ChoiceSchemaNode) {
+                return ImmutableNodes.newChoiceBuilder().withNodeIdentifier(nodeId).withValue(nodeChildren).build();
+            }
+            return ImmutableNodes.newContainerBuilder().withNodeIdentifier(nodeId).withValue(nodeChildren).build();
+        }
+    }
+}
@@ -0,0 +1,324 @@
+/*
+ * Copyright (c) 2020 PANTHEON.tech s.r.o. All Rights Reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at https://www.eclipse.org/legal/epl-v10.html
+ */
+package io.lighty.netconf.device.requests.filter;
+
+import io.lighty.netconf.device.utils.RPCUtil;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import org.opendaylight.yangtools.yang.common.QName;
+import org.opendaylight.yangtools.yang.data.api.YangInstanceIdentifier.NodeIdentifier;
+import org.opendaylight.yangtools.yang.data.api.YangInstanceIdentifier.NodeIdentifierWithPredicates;
+import org.opendaylight.yangtools.yang.data.api.schema.ChoiceNode;
+import org.opendaylight.yangtools.yang.data.api.schema.ContainerNode;
+import org.opendaylight.yangtools.yang.data.api.schema.DataContainerChild;
+import org.opendaylight.yangtools.yang.data.api.schema.DataContainerNode;
+import org.opendaylight.yangtools.yang.data.api.schema.LeafNode;
+import org.opendaylight.yangtools.yang.data.api.schema.LeafSetEntryNode;
+import org.opendaylight.yangtools.yang.data.api.schema.LeafSetNode;
+import org.opendaylight.yangtools.yang.data.api.schema.MapEntryNode;
+import org.opendaylight.yangtools.yang.data.api.schema.MapNode;
+import org.opendaylight.yangtools.yang.data.api.schema.NormalizedNode;
+import org.opendaylight.yangtools.yang.data.api.schema.UnkeyedListEntryNode;
+import org.opendaylight.yangtools.yang.data.api.schema.UnkeyedListNode;
+import org.opendaylight.yangtools.yang.data.api.schema.UserLeafSetNode;
+import org.opendaylight.yangtools.yang.data.api.schema.UserMapNode;
+import org.opendaylight.yangtools.yang.data.spi.node.ImmutableNodes;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+
+/**
+ * Single element of a subtree filter, see https://tools.ietf.org/html/rfc6241#section-6. The element is either
+ * a content match node carrying a value, a selection node without any content, or a containment node with child
+ * elements. Elements without namespace, or in the NETCONF base namespace, match data nodes of any namespace.
+ */
+final class FilterNode {
+
+    private final String namespace;
+    private final String localName;
+    private final String content;
+    private final List<FilterNode> children;
+
+    FilterNode(final String namespace, final String localName, final String content,
+            final List<FilterNode> children) {
+        this.namespace = namespace == null || namespace.isEmpty() || RPCUtil.NETCONF_BASE_NAMESPACE.equals(namespace)
+            ? null : namespace;
+        this.localName = localName;
+        this.content = content;
+        this.children = children;
+    }
+
+    /**
+     * Converts child elements of the filter element.
+     */
+    static List<FilterNode> fromElements(final Element parent) {
+        final List<FilterNode> nodes = new ArrayList<>();
+        for (Node child = parent.getFirstChild(); child != null; child = child.getNextSibling()) {
+            if (child.getNodeType() == Node.ELEMENT_NODE) {
+                nodes.add(fromElement((Element) child));
+            }
+        }
+        return nodes;
+    }
+
+    private static FilterNode fromElement(final Element element) {
+        final List<FilterNode> nodeChildren = fromElements(element);
+        String text = null;
+        if (nodeChildren.isEmpty()) {
+            text = element.getTextContent().trim();
+            if (text.isEmpty()) {
+                text = null;
+            }
+        }
+        return new FilterNode(element.getNamespaceURI(), element.getLocalName(), text, nodeChildren);
+    }
+
+    String getNamespace() {
+        return namespace;
+    }
+
+    String getLocalName() {
+        return localName;
+    }
+
+    String getContent() {
+        return content;
+    }
+
+    List<FilterNode> getChildren() {
+        return children;
+    }
+
+    boolean isContentMatch() {
+        return content != null;
+    }
+
+    boolean isSelection() {
+        return content == null && children.isEmpty();
+    }
+
+    boolean matches(final QName name) {
+        return localName.equals(name.getLocalName())
+            && (namespace == null || namespace.equals(name.getNamespace().toString()));
+    }
+
+    boolean matchesValue(final Object value) {
+        if (value instanceof QName) {
+            // identity may be written with or without prefix
+            return content.substring(content.indexOf(':') + 1).equals(((QName) value).getLocalName());
+        }
+        if (value instanceof Set) {
+            // bits are whitespace separated
+            return Set.of(content.split("\\s+")).equals(value);
+        }
+        return content.equals(String.valueOf(value));
+    }
+
+    /**
+     * Applies filter elements matching the data node. Entries of lists are matched one by one, parts of the node
+     * selected by different filter elements are merged.
+     *
+     * @param data data node
+     * @param filters filter elements with the same name as the data node
+     * @return selected part of the data node
+     */
+    static Optional<NormalizedNode> apply(final NormalizedNode data, final List<FilterNode> filters) {
+        if (data instanceof MapNode) {
+            final Collection<MapEntryNode> entries = new ArrayList<>();
+            for (final MapEntryNode entry : ((MapNode) data).body()) {
+                apply(entry, filters).ifPresent(selected -> entries.add((MapEntryNode) selected));
+            }
+            if (entries.isEmpty()) {
+                return Optional.empty();
+            }
+            return Optional.of(data instanceof UserMapNode
+                ? ImmutableNodes.newUserMapBuilder().withNodeIdentifier(((MapNode) data).name()).withValue(entries)
+                    .build()
+                : ImmutableNodes.newSystemMapBuilder().withNodeIdentifier(((MapNode) data).name()).withValue(entries)
+                    .build());
+        }
+        if (data instanceof UnkeyedListNode) {
+            final List<UnkeyedListEntryNode> entries = new ArrayList<>();
+            for (final UnkeyedListEntryNode entry : ((UnkeyedListNode) data).body()) {
+                apply(entry, filters).ifPresent(selected -> entries.add((UnkeyedListEntryNode) selected));
+            }
+            return entries.isEmpty() ? Optional.empty() : Optional.of(ImmutableNodes.newUnkeyedListBuilder()
+                .withNodeIdentifier(((UnkeyedListNode) data).name()).withValue(entries).build());
+        }
+        if (data instanceof LeafSetNode) {
+            return applyToLeafSet((LeafSetNode<?>) data, filters);
+        }
+        NormalizedNode result = null;
+        for (final FilterNode filter : filters) {
+            final Optional<NormalizedNode> selected = filter.apply(data);
+            if (selected.isPresent()) {
+                result = result == null ? selected.orElseThrow() : merge(result, selected.orElseThrow());
+            }
+        }
+        return Optional.ofNullable(result);
+    }
+
+    /**
+     * Merges two parts of the same data node selected by different filter elements.
+     */
+    private static NormalizedNode merge(final NormalizedNode first, final NormalizedNode second) {
+        if (first instanceof DataContainerNode) {
+            final Map<NodeIdentifier, DataContainerChild> children = new LinkedHashMap<>();
+            ((DataContainerNode) first).body().forEach(child -> children.put(child.name(), child));
+            for (final DataContainerChild child : ((DataContainerNode) second).body()) {
+                children.merge(child.name(), child, (existing, added) -> (DataContainerChild) merge(existing, added));
+            }
+            return rebuild((DataContainerNode) first, children.values());
+        }
+        if (first instanceof MapNode) {
+            final Map<NodeIdentifierWithPredicates, MapEntryNode> entries = new LinkedHashMap<>();
+            ((MapNode) first).body().forEach(entry -> entries.put(entry.name(), entry));
+            for (final MapEntryNode entry : ((MapNode) second).body()) {
+                entries.merge(entry.name(), entry, (existing, added) -> (MapEntryNode) merge(existing, added));
+            }
+            return first instanceof UserMapNode
+                ? ImmutableNodes.newUserMapBuilder().withNodeIdentifier(((MapNode) first).name())
+                    .withValue(entries.values()).build()
+                : ImmutableNodes.newSystemMapBuilder().withNodeIdentifier(((MapNode) first).name())
+                    .withValue(entries.values()).build();
+        }
+        // both are the same leaf, or the whole node was selected by one of the filter elements
+        return first;
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Optional<NormalizedNode> applyToLeafSet(final LeafSetNode<?> data, final List<FilterNode> filters) {
+        if (filters.stream().anyMatch(filter -> !filter.isContentMatch())) {
+            return Optional.of(data);
+        }
+        final List<LeafSetEntryNode> entries = new ArrayList<>();
+        for (final LeafSetEntryNode<?> entry : data.body()) {
+            if (filters.stream().anyMatch(filter -> filter.matchesValue(entry.body()))) {
+                entries.add(entry);
+            }
+        }
+        if (entries.isEmpty()) {
+            return Optional.empty();
+        }
+        return Optional.of(data instanceof UserLeafSetNode
+            ? ImmutableNodes.newUserLeafSetBuilder().withNodeIdentifier(data.name()).withValue((List) entries).build()
+            : ImmutableNodes.newSystemLeafSetBuilder().withNodeIdentifier(data.name()).withValue((List) entries)
+                .build());
+    }
+
+    private Optional<NormalizedNode> apply(final NormalizedNode data) {
+        if (isSelection()) {
+            return Optional.of(data);
+        }
+        if (isContentMatch()) {
+            final boolean matching = data instanceof LeafNode && matchesValue(((LeafNode<?>) data).body());
+            return matching ? Optional.of(data) : Optional.empty();
+        }
+        if (data instanceof DataContainerNode) {
+            return applyToContainer((DataContainerNode) data);
+        }
+        return Optional.empty();
+    }
+
+    private Optional<NormalizedNode> applyToContainer(final DataContainerNode data) {
+        boolean onlyContentMatches = true;
+        for (final FilterNode child : children) {
+            if (child.isContentMatch()) {
+                if (!child.holdsIn(data)) {
+                    return Optional.empty();
+                }
+            } else {
+                onlyContentMatches = false;
+            }
+        }
+        if (onlyContentMatches) {
+            return Optional.of(data);
+        }
+        final List<DataContainerChild> selected = select(data, children);
+        if (selected.isEmpty()) {
+            return Optional.empty();
+        }
+        final Map<NodeIdentifier, DataContainerChild> result = new LinkedHashMap<>();
+        if (data instanceof MapEntryNode) {
+            // keys identify the entry in the reply
+            for (final QName key : ((MapEntryNode) data).name().keySet()) {
+                data.findChildByArg(new NodeIdentifier(key)).ifPresent(leaf -> result.put(leaf.name(), leaf));
+            }
+        }
+        selected.forEach(child -> result.put(child.name(), child));
+        return Optional.of(rebuild(data, result.values()));
+    }
+
+    private static List<DataContainerChild> select(final DataContainerNode data, final List<FilterNode> filters) {
+        final List<DataContainerChild> selected = new ArrayList<>();
+        for (final DataContainerChild child : data.body()) {
+            if (child instanceof ChoiceNode) {
+                // choice and case nodes are not part of XML, filter sees their children directly
+                final List<DataContainerChild> selectedCases = select((ChoiceNode) child, filters);
+                if (!selectedCases.isEmpty()) {
+                    selected.add((DataContainerChild) rebuild((ChoiceNode) child, selectedCases));
+                }
+                continue;
+            }
+            final List<FilterNode> matching = new ArrayList<>();
+            for (final FilterNode filter : filters) {
+                if (filter.matches(child.name().getNodeType())) {
+                    matching.add(filter);
+                }
+            }
+            if (!matching.isEmpty()) {
+                apply(child, matching).ifPresent(node -> selected.add((DataContainerChild) node));
+            }
+        }
+        return selected;
+    }
+
+    private boolean holdsIn(final DataContainerNode data) {
+        for (final DataContainerChild child : data.body()) {
+            if (child instanceof ChoiceNode) {
+                if (holdsIn((ChoiceNode) child)) {
+                    return true;
+                }
+            } else if (matches(child.name().getNodeType())) {
+                if (child instanceof LeafNode) {
+                    return matchesValue(((LeafNode<?>) child).body());
+                }
+                if (child instanceof LeafSetNode) {
+                    return ((LeafSetNode<?>) child).body().stream().anyMatch(entry -> matchesValue(entry.body()));
+                }
+                return false;
+            }
+        }
+        return false;
+    }
+
+    private static NormalizedNode rebuild(final DataContainerNode data,
+            final Collection<DataContainerChild> children) {
+        if (data instanceof ContainerNode) {
+            return ImmutableNodes.newContainerBuilder().withNodeIdentifier(((ContainerNode) data).name())
+                .withValue(children).build();
+        }
+        if (data instanceof MapEntryNode) {
+            return ImmutableNodes.newMapEntryBuilder().withNodeIdentifier(((MapEntryNode) data).name())
+                .withValue(children).build();
+        }
+        if (data instanceof ChoiceNode) {
+            return ImmutableNodes.newChoiceBuilder().withNodeIdentifier(((ChoiceNode) data).name())
+                .withValue(children).build();
+        }
+        if (data instanceof UnkeyedListEntryNode) {
+            return ImmutableNodes.newUnkeyedListEntryBuilder().withNodeIdentifier(((UnkeyedListEntryNode) data).name())
+                .withValue(children).build();
+        }
+        throw new IllegalStateException("Unsupported data container " + data.getClass());
+    }
+}
@@ -0,0 +1,193 @@
+/*
+ * Copyright (c) 2020 PANTHEON.tech s.r.o. All Rights Reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at https://www.eclipse.org/legal/epl-v10.html
+ */
+package io.lighty.netconf.device.requests.filter;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import org.opendaylight.netconf.api.NetconfDocumentedException;
+import org.opendaylight.yangtools.yang.common.ErrorSeverity;
+import org.opendaylight.yangtools.yang.common.ErrorTag;
+import org.opendaylight.yangtools.yang.common.ErrorType;
+import org.w3c.dom.Element;
+
+/**
+ * Translates select expression of XPath filter into equivalent subtree filter. Supported are unions of absolute
+ * location paths built from child steps, optionally with predicates comparing child leaves to literals, e.g.
+ * {@code /nt:network-topology/nt:topology[nt:topology-id='t1']/nt:node | /if:interfaces}. Prefixes are resolved
+ * against the namespace declarations in scope of the filter element.
+ */
+final class XPathFilterParser {
+
+    private final String expression;
+    private final Element context;
+    private int position;
+
+    private XPathFilterParser(final String expression, final Element context) {
+        this.expression = expression;
+        this.context = context;
+    }
+
+    /**
+     * Parses the select expression.
+     *
+     * @param expression value of the select attribute
+     * @param context filter element carrying the namespace declarations
+     * @return subtree filter equivalent to the expression
+     * @throws NetconfDocumentedException when the expression is not valid or it is not supported
+     */
+    static List<FilterNode> parse(final String expression, final Element context)
+            throws NetconfDocumentedException {
+        return new XPathFilterParser(expression, context).parseUnion();
+    }
+
+    private List<FilterNode> parseUnion() throws NetconfDocumentedException {
+        final List<FilterNode> paths = new ArrayList<>();
+        paths.add(parsePath());
+        while (consume('|')) {
+            paths.add(parsePath());
+        }
+        skipWhitespace();
+        if (position < expression.length()) {
+            throw unsupported();
+        }
+        return paths;
+    }
+
+    private FilterNode parsePath() throws NetconfDocumentedException {
+        final List<String[]> names = new ArrayList<>();
+        final List<List<FilterNode>> predicates = new ArrayList<>();
+        do {
+            if (!consume('/') || peek() == '/') {
+                throw unsupported();
+            }
+            names.add(parseName());
+            final List<FilterNode> stepPredicates = new ArrayList<>();
+            while (consume('[')) {
+                stepPredicates.add(parseComparison());
+                while (consumeKeyword("and")) {
+                    stepPredicates.add(parseComparison());
+                }
+                if (!consume(']')) {
+                    throw unsupported();
+                }
+            }
+            predicates.add(stepPredicates);
+            skipWhitespace();
+        } while (peek() == '/');
+
+        // the last step selects the node, the preceding ones contain it
+        FilterNode node = null;
+        for (int i = names.size() - 1; i >= 0; i--) {
+            final List<FilterNode> children = new ArrayList<>(predicates.get(i));
+            if (node != null) {
+                children.add(node);
+            }
+            node = new FilterNode(names.get(i)[0], names.get(i)[1], null, children);
+        }
+        return node;
+    }
+
+    private FilterNode parseComparison() throws NetconfDocumentedException {
+        final String[] name = parseName();
+        if (!consume('=')) {
+            throw unsupported();
+        }
+        return new FilterNode(name[0], name[1], parseLiteral(), Collections.emptyList());
+    }
+
+    private String parseLiteral() throws NetconfDocumentedException {
+        skipWhitespace();
+        final char quote = peek();
+        if (quote == '\'' || quote == '"') {
+            final int end = expression.indexOf(quote, position + 1);
+            if (end < 0) {
+                throw unsupported();
+            }
+            final String literal = expression.substring(position + 1, end);
+            position = end + 1;
+            return literal;
+        }
+        final int start = position;
+        while (position < expression.length() && isNameChar(expression.charAt(position))) {
+            position++;
+        }
+        if (start == position) {
+            throw unsupported();
+        }
+        return expression.substring(start, position);
+    }
+
+    /**
+     * Parses optionally prefixed name and returns its namespace and local name.
+     */
+    private String[] parseName() throws NetconfDocumentedException {
+        skipWhitespace();
+        final String first = parseNcName();
+        if (peek() != ':') {
+            return new String[] {null, first};
+        }
+        position++;
+        final String namespace = context.lookupNamespaceURI(first);
+        if (namespace == null) {
+            throw new NetconfDocumentedException("Unknown prefix " + first + " in XPath filter " + expression,
+                ErrorType.PROTOCOL, ErrorTag.INVALID_VALUE, ErrorSeverity.ERROR);
+        }
+        return new String[] {namespace, parseNcName()};
+    }
+
+    private String parseNcName() throws NetconfDocumentedException {
+        final int start = position;
+        while (position < expression.length() && isNameChar(expression.charAt(position))) {
+            position++;
+        }
+        if (start == position || !Character.isLetter(expression.charAt(start)) && expression.charAt(start) != '_') {
+            throw unsupported();
+        }
+        return expression.substring(start, position);
+    }
+
+    private static boolean isNameChar(final char character) {
+        return Character.isLetterOrDigit(character) || character == '-' || character == '_' || character == '.';
+    }
+
+    private boolean consume(final char expected) {
+        skipWhitespace();
+        if (peek() == expected) {
+            position++;
+            return true;
+        }
+        return false;
+    }
+
+    private boolean consumeKeyword(final String keyword) {
+        skipWhitespace();
+        final int end = position + keyword.length();
+        if (expression.startsWith(keyword, position)
+                && (end == expression.length() || !isNameChar(expression.charAt(end)))) {
+            position = end;
+            return true;
+        }
+        return false;
+    }
+
+    private char peek() {
+        return position < expression.length() ? expression.charAt(position) : 0;
+    }
+
+    private void skipWhitespace() {
+        while (position < expression.length() && Character.isWhitespace(expression.charAt(position))) {
+            position++;
+        }
+    }
+
+    private NetconfDocumentedException unsupported() {
+        return new NetconfDocumentedException("Unsupported XPath filter " + expression + " at position " + position,
+            ErrorType.PROTOCOL, ErrorTag.INVALID_VALUE, ErrorSeverity.ERROR);
+    }
+}
@@ -0,0 +1,323 @@
+/*
+ * Copyright (c) 2020 PANTHEON.tech s.r.o. All Rights Reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at https://www.eclipse.org/legal/epl-v10.html
+ */
+package io.lighty.netconf.device.requests.notification;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Preconditions;
+import io.netty.channel.ChannelFuture;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.LongAdder;
+import org.opendaylight.netconf.api.NetconfSession;
+import org.opendaylight.netconf.api.messages.NetconfMessage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Delivers notifications to the sessions subscribed to them. Publishing only enqueues the message, which is
+ * shared by all sessions, onto a bounded queue of each session. Queues are drained by tasks running on the given
+ * executor, at most one task per session at a time, so each session receives notifications in the order they were
+ * published.
+ *
+ * <p>A queue is drained in batches, the next batch is sent once the session wrote the previous one. Sessions which
+ * do not keep up fill their queue, notifications published to a full queue are handled according to
+ * {@link SlowConsumerPolicy}.
+ *
+ * <p>Queues of sessions which were disconnected are discarded, notifications published to them are dropped until
+ * the session is removed by {@link #removeSession(NetconfSession)}. Queues of sessions which failed to send
+ * a notification are removed right away, so a queue created by a publish racing with the removal of a closed
+ * session does not stay behind.
+ *
+ * <p>Delivery to a session can be held while notifications it missed are looked up, and released with those
+ * notifications, which are sent before the ones queued meanwhile. They are read lazily while the queue is drained
+ * and do not count to the queue capacity.
+ */
+public final class NotificationFanout implements AutoCloseable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(NotificationFanout.class);
+    private static final int DRAIN_BATCH = 64;
+
+    private final Executor executor;
+    private final int queueCapacity;
+    private final SlowConsumerPolicy slowConsumerPolicy;
+    private final ConcurrentMap<NetconfSession, SessionQueue> queues = new ConcurrentHashMap<>();
+    private final LongAdder droppedNotifications = new LongAdder();
+    private volatile boolean closed;
+
+    /**
+     * Creates fan-out of notifications.
+     *
+     * @param executor executor draining the session queues
+     * @param queueCapacity maximum number of notifications queued for a session
+     * @param slowConsumerPolicy handling of notifications published to a full queue
+     */
+    public NotificationFanout(final Executor executor, final int queueCapacity,
+            final SlowConsumerPolicy slowConsumerPolicy) {
+        Preconditions.checkArgument(queueCapacity > 0, "Queue capacity has to be positive, was %s", queueCapacity);
+        this.executor = Objects.requireNonNull(executor);
+        this.queueCapacity = queueCapacity;
+        this.slowConsumerPolicy = Objects.requireNonNull(slowConsumerPolicy);
+    }
+
+    /**
+     * Enqueues the message for each of the sessions. The message is not copied, it must not be modified afterwards.
+     *
+     * @param message message sent to the sessions
+     * @param sessions subscribed sessions
+     */
+    public void publish(final NetconfMessage message, final Collection<? extends NetconfSession> sessions) {
+        if (closed) {
+            return;
+        }
+        for (final NetconfSession session : sessions) {
+            queues.computeIfAbsent(session, SessionQueue::new).offer(message);
+        }
+    }
+
+    /**
+     * Holds delivery to the session, notifications published to it are queued until
+     * {@link #release(NetconfSession, Iterator)} is called.
+     *
+     * @param session the session
+     */
+    public void hold(final NetconfSession session) {
+        if (!closed) {
+            queues.computeIfAbsent(session, SessionQueue::new).hold();
+        }
+    }
+
+    /**
+     * Resumes delivery to the held session. Given messages are sent first, followed by the notifications published
+     * to the session while it was held.
+     *
+     * @param session the session
+     * @param messages messages sent before the queued notifications, iterated by a single thread
+     */
+    public void release(final NetconfSession session, final Iterator<? extends NetconfMessage> messages) {
+        final SessionQueue queue = queues.get(session);
+        if (queue != null) {
+            queue.release(messages);
+        }
+    }
+
+    /**
+     * Discards notifications queued for the session, e.g. when it was closed.
+     *
+     * @param session the session
+     */
+    public void removeSession(final NetconfSession session) {
+        final SessionQueue queue = queues.remove(session);
+        if (queue != null) {
+            queue.discard();
+        }
+    }
+
+    /**
+     * Number of notifications which were not sent because of full or discarded queues.
+     */
+    public long getDroppedNotifications() {
+        return droppedNotifications.sum();
+    }
+
+    @VisibleForTesting
+    int getSessionCount() {
+        return queues.size();
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        queues.keySet().forEach(this::removeSession);
+    }
+
+    private final class SessionQueue {
+
+        private final NetconfSession session;
+        private final Queue<NetconfMessage> messages = new ArrayDeque<>();
+        // guarded by this
+        private Iterator<? extends NetconfMessage> releasedMessages;
+        private boolean draining;
+        private boolean discarded;
+        private boolean held;
+        // written by the single draining task only
+        private ChannelFuture lastWrite;
+
+        SessionQueue(final NetconfSession session) {
+            this.session = session;
+        }
+
+        void offer(final NetconfMessage message) {
+            final boolean disconnect;
+            synchronized (this) {
+                if (discarded) {
+                    droppedNotifications.increment();
+                    return;
+                }
+                if (messages.size() >= queueCapacity) {
+                    if (slowConsumerPolicy == SlowConsumerPolicy.DROP_NEWEST) {
+                        droppedNotifications.increment();
+                        return;
+                    }
+                    disconnect = slowConsumerPolicy == SlowConsumerPolicy.DISCONNECT;
+                    if (disconnect) {
+                        discarded = true;
+                    } else {
+                        messages.poll();
+                        droppedNotifications.increment();
+                    }
+                } else {
+                    disconnect = false;
+                }
+                if (!disconnect) {
+                    messages.add(message);
+                    if (draining || held) {
+                        return;
+                    }
+                    draining = true;
+                }
+            }
+            if (disconnect) {
+                disconnect();
+            } else {
+                schedule();
+            }
+        }
+
+        synchronized void hold() {
+            held = true;
+        }
+
+        void release(final Iterator<? extends NetconfMessage> released) {
+            synchronized (this) {
+                if (discarded) {
+                    return;
+                }
+                held = false;
+                releasedMessages = released;
+                if (draining) {
+                    return;
+                }
+                draining = true;
+            }
+            schedule();
+        }
+
+        synchronized void discard() {
+            discarded = true;
+            releasedMessages = null;
+            droppedNotifications.add(messages.size());
+            messages.clear();
+        }
+
+        private void remove() {
+            queues.remove(session, this);
+            discard();
+        }
+
+        private void disconnect() {
+            LOG.warn("Notification queue of session {} is full, closing the session", session.sessionId().getValue());
+            // the published notification is dropped together with the queued ones
+            droppedNotifications.increment();
+            discard();
+            session.close();
+        }
+
+        private void schedule() {
+            try {
+                executor.execute(this::drain);
+            } catch (RejectedExecutionException e) {
+                LOG.debug("Notification executor rejected draining of session {}", session.sessionId().getValue(), e);
+                discard();
+            }
+        }
+
+        @SuppressWarnings("checkstyle:IllegalCatch")
+        private void drain() {
+            final ChannelFuture pending = lastWrite;
+            if (pending != null && !pending.isDone()) {
+                pending.addListener(future -> onBatchWritten(pending));
+                return;
+            }
+            for (int i = 0; i < DRAIN_BATCH; i++) {
+                final Iterator<? extends NetconfMessage> released;
+                NetconfMessage message = null;
+                ChannelFuture idleWrite = null;
+                synchronized (this) {
+                    if (held) {
+                        draining = false;
+                        return;
+                    }
+                    if (releasedMessages != null && !releasedMessages.hasNext()) {
+                        releasedMessages = null;
+                    }
+                    released = releasedMessages;
+                    if (released == null) {
+                        message = messages.poll();
+                        if (message == null) {
+                            idleWrite = lastWrite;
+                            draining = false;
+                        }
+                    }
+                }
+                if (released == null && message == null) {
+                    // the queue is empty, the failure of its last write is not noticed by the next batch
+                    if (idleWrite != null) {
+                        removeOnFailure(idleWrite);
+                    }
+                    return;
+                }
+                if (message == null) {
+                    // released messages may be created lazily, so they are taken outside of the lock
+                    try {
+                        message = released.next();
+                    } catch (RuntimeException e) {
+                        LOG.warn("Failed to create notification for session {}", session.sessionId().getValue(), e);
+                        droppedNotifications.increment();
+                        continue;
+                    }
+                }
+                lastWrite = session.sendMessage(message);
+            }
+            final ChannelFuture batchWrite = lastWrite;
+            if (batchWrite == null) {
+                schedule();
+            } else {
+                batchWrite.addListener(future -> onBatchWritten(batchWrite));
+            }
+        }
+
+        private void onBatchWritten(final ChannelFuture write) {
+            if (write.isSuccess()) {
+                schedule();
+            } else {
+                onWriteFailed(write);
+            }
+        }
+
+        private void removeOnFailure(final ChannelFuture write) {
+            write.addListener(future -> {
+                if (!future.isSuccess()) {
+                    onWriteFailed(write);
+                }
+            });
+        }
+
+        private void onWriteFailed(final ChannelFuture write) {
+            LOG.debug("Failed to send notifications to session {}, removing its queue", session.sessionId().getValue(),
+                write.cause());
+            remove();
+        }
+    }
+}
@@ -7,33 +7,46 @@
  */
 package io.lighty.netconf.device.requests.notification;
 
+import com.google.common.collect.Iterators;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import io.lighty.codecs.util.ConverterUtils;
-import io.lighty.codecs.util.XmlNodeConverter;
 import io.lighty.codecs.util.exception.SerializationException;
-import io.lighty.netconf.device.utils.RPCUtil;
-import java.io.ByteArrayInputStream;
+import io.lighty.netconf.device.requests.notification.NotificationReplayBuffer.BufferedNotification;
+import io.lighty.netconf.device.utils.NormalizedNodeDomWriter;
+import io.lighty.netconf.device.utils.SessionUtil;
+import io.lighty.netconf.device.utils.XmlLogUtil;
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.Writer;
-import java.nio.charset.StandardCharsets;
-import java.text.SimpleDateFormat;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.Date;
-import java.util.HashMap;
+import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
-import java.util.Optional;
-import javax.xml.parsers.DocumentBuilder;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import org.eclipse.jdt.annotation.Nullable;
 import org.opendaylight.mdsal.binding.dom.adapter.AdapterContext;
 import org.opendaylight.netconf.api.DocumentedException;
 import org.opendaylight.netconf.api.NetconfSession;
-import org.opendaylight.netconf.api.messages.NetconfMessage;
+import org.opendaylight.netconf.api.messages.NotificationMessage;
+import org.opendaylight.netconf.nettyutil.AbstractNetconfSession;
 import org.opendaylight.netconf.server.api.operations.HandlingPriority;
+import org.opendaylight.netconf.server.api.operations.NetconfOperation;
 import org.opendaylight.netconf.server.api.operations.NetconfOperationChainedExecution;
-import org.opendaylight.netconf.server.api.operations.SessionAwareNetconfOperation;
 import org.opendaylight.yangtools.binding.Notification;
 import org.opendaylight.yangtools.util.xml.UntrustedXML;
+import org.opendaylight.yangtools.yang.common.ErrorSeverity;
+import org.opendaylight.yangtools.yang.common.ErrorTag;
+import org.opendaylight.yangtools.yang.common.ErrorType;
 import org.opendaylight.yangtools.yang.common.QName;
 import org.opendaylight.yangtools.yang.data.api.schema.ContainerNode;
 import org.opendaylight.yangtools.yang.model.api.EffectiveModelContext;
@@ -44,117 +57,299 @@ import org.slf4j.LoggerFactory;
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
 import org.w3c.dom.Node;
-import org.xml.sax.SAXException;
 
-public class NotificationOperation implements SessionAwareNetconfOperation {
+public class NotificationOperation implements NetconfOperation {
 
     private static final Logger LOG = LoggerFactory.getLogger(NotificationOperation.class);
+    private static final String CREATE_SUBSCRIPTION = "create-subscription";
+    private static final String DEFAULT_STREAM = "NETCONF";
+    private static final String START_TIME = "startTime";
+    private static final String STOP_TIME = "stopTime";
+    private static final String NETMOD_NOTIFICATION_NAMESPACE = "urn:ietf:params:xml:ns:netmod:notification";
+    private static final String REPLAY_COMPLETE = "replayComplete";
+    private static final String NOTIFICATION_COMPLETE = "notificationComplete";
+    // ends subscriptions with stopTime in the future, shared by all devices of the process
+    private static final ScheduledExecutorService SUBSCRIPTION_TIMER = Executors.newSingleThreadScheduledExecutor(
+        new ThreadFactoryBuilder().setNameFormat("notification-subscription-timer-%d").setDaemon(true).build());
+
     private final EffectiveModelContext effectiveModelContext;
     private final AdapterContext adapterContext;
+    private final NotificationFanout notificationFanout;
+    private final @Nullable NotificationReplayBuffer replayBuffer;
+    private final SubscriptionRegistry subscriptions = new SubscriptionRegistry();
+    // buffering of a notification and lookup of its subscribers are atomic with respect to replaying subscriptions,
+    // so a subscriber receives each notification either replayed or live
+    private final Object replayLock = new Object();
+    private final ConcurrentMap<QName, Absolute> notificationPaths = new ConcurrentHashMap<>();
+    private final List<QName> allNotifications;
+    private final Map<String, List<QName>> notificationsByName;
+    private final Supplier<@Nullable NetconfSession> currentSession;
 
-    private final Map<String, List<NetconfSession>> sessions = new HashMap<>();
-    private boolean isSubscription;
-    private String streamName;
-
+    /**
+     * Creates operation sending notifications to its subscribers through given fan-out, without replay.
+     *
+     * @param adapterContext adapter context of the device models
+     * @param notificationFanout fan-out delivering the notifications to the sessions
+     * @param currentSession session whose RPC is processed by the current thread, see
+     *     {@link io.lighty.netconf.device.requests.RequestContextOperationsCreator#getCurrentSession()}
+     */
+    public NotificationOperation(final AdapterContext adapterContext, final NotificationFanout notificationFanout,
+            final Supplier<@Nullable NetconfSession> currentSession) {
+        this(adapterContext, notificationFanout, currentSession, null);
+    }
 
-    public NotificationOperation(final AdapterContext adapterContext) {
+    /**
+     * Creates operation sending notifications to its subscribers through given fan-out. Published notifications
+     * are kept in the replay buffer, if any, for subscriptions with startTime.
+     *
+     * @param adapterContext adapter context of the device models
+     * @param notificationFanout fan-out delivering the notifications to the sessions
+     * @param currentSession session whose RPC is processed by the current thread, see
+     *     {@link io.lighty.netconf.device.requests.RequestContextOperationsCreator#getCurrentSession()}
+     * @param replayBuffer buffer of the notifications for replay, null if replay is not supported
+     */
+    public NotificationOperation(final AdapterContext adapterContext, final NotificationFanout notificationFanout,
+            final Supplier<@Nullable NetconfSession> currentSession,
+            final @Nullable NotificationReplayBuffer replayBuffer) {
         this.adapterContext = adapterContext;
+        this.notificationFanout = notificationFanout;
+        this.currentSession = currentSession;
+        this.replayBuffer = replayBuffer;
         this.effectiveModelContext = adapterContext.currentSerializer().getRuntimeContext().modelContext();
+        this.allNotifications = this.effectiveModelContext.getNotifications().stream()
+            .map(NotificationDefinition::getQName)
+            .collect(Collectors.toUnmodifiableList());
+        this.notificationsByName = this.allNotifications.stream()
+            .collect(Collectors.groupingBy(QName::getLocalName, Collectors.toUnmodifiableList()));
     }
 
+    /**
+     * Sends notification to the subscribed sessions. The notification is written into a DOM document once, the
+     * same message is queued for all sessions. Notifications are written even without subscribers when they are
+     * buffered for replay.
+     */
     public void sendMessage(final Notification notificationMessage, final QName quName) {
-        final List<NetconfSession> sessionList = this.sessions.get(quName.getLocalName());
-        if (sessionList != null && !sessionList.isEmpty()) {
-            final ContainerNode containerNode = this.adapterContext.currentSerializer()
-                    .toNormalizedNodeNotification(notificationMessage);
-
-            final Optional<? extends NotificationDefinition> notificationDefinition =
-                    ConverterUtils.loadNotification(this.effectiveModelContext, quName);
-            final XmlNodeConverter xmlNodeConverter = new XmlNodeConverter(this.effectiveModelContext);
-
-            if (notificationDefinition.isEmpty()) {
-                throw new UnsupportedOperationException("Cannot load definition for QName: " + quName);
+        if (this.replayBuffer == null && this.subscriptions.getSubscribers(quName).isEmpty()) {
+            return;
+        }
+        final Document notification = writeNotification(notificationMessage, quName);
+        if (notification == null) {
+            return;
+        }
+        final Instant eventTime = Instant.now();
+        final List<NetconfSession> sessionList;
+        if (this.replayBuffer == null) {
+            sessionList = getOpenSubscribers(quName);
+        } else {
+            final BufferedNotification buffered = this.replayBuffer.serialize(quName, eventTime, notification);
+            synchronized (this.replayLock) {
+                this.replayBuffer.append(buffered);
+                sessionList = getOpenSubscribers(quName);
             }
+        }
+        if (!sessionList.isEmpty()) {
+            // sessions count messages sent as NotificationMessage into their out-notifications
+            final NotificationMessage netconfMessage = NotificationMessage.ofNotificationContent(notification,
+                eventTime);
+            XmlLogUtil.debug(LOG, "Sending notification message: {}", netconfMessage.getDocument());
+            this.notificationFanout.publish(netconfMessage, sessionList);
+        }
+    }
 
-            final Writer writer;
-            try {
-                writer = xmlNodeConverter.serializeRpc(Absolute.of(notificationDefinition.get().getQName()),
-                        containerNode);
-                try (InputStream is = new ByteArrayInputStream(writer.toString().getBytes(StandardCharsets.UTF_8))) {
-                    final DocumentBuilder builder = UntrustedXML.newDocumentBuilder();
-                    final Document notification = builder.parse(is);
-                    final Element body =
-                        notification.createElementNS(RPCUtil.CREATE_SUBSCRIPTION_NAMESPACE,
-                            "notification");
-
-                    final Element notificationElement = notification.getDocumentElement();
-                    final Element eventTime = notification.createElement("eventTime");
-                    final SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss'Z'");
-                    eventTime.setTextContent(dateFormat.format(new Date()));
-                    body.appendChild(eventTime);
-                    body.appendChild(notificationElement);
-                    final Document document = builder.newDocument();
-                    final org.w3c.dom.Node importNode = document.importNode(body, true);
-                    document.appendChild(importNode);
-                    final NetconfMessage netconfMessage = new NetconfMessage(document);
-                    LOG.debug("Sending notification message: {}", netconfMessage.toString());
-                    sessionList.forEach(session -> session.sendMessage(netconfMessage));
-                } catch (IOException | SAXException e) {
-                    LOG.error("Failed to send notification message", e);
-                }
-            } catch (final SerializationException e) {
-                LOG.error("Failed to serialize notification to xml", e);
-            }
+    private @Nullable Document writeNotification(final Notification notificationMessage, final QName quName) {
+        final ContainerNode containerNode = this.adapterContext.currentSerializer()
+                .toNormalizedNodeNotification(notificationMessage);
+        final Document notification = UntrustedXML.newDocumentBuilder().newDocument();
+        try {
+            NormalizedNodeDomWriter.writeOperationContainer(this.effectiveModelContext,
+                notificationPath(quName), containerNode, notification);
+        } catch (final SerializationException e) {
+            LOG.error("Failed to serialize notification to xml", e);
+            return null;
         }
+        return notification;
     }
 
-    @Override
-    public void setSession(final NetconfSession session) {
-        if (this.isSubscription) {
-            if (this.streamName == null) {
-                final Collection<? extends NotificationDefinition> notifications =
-                        this.effectiveModelContext.getNotifications();
-                notifications.forEach(notification -> {
-                    final String name = notification.getQName().getLocalName();
-                    List<NetconfSession> sessionsList = this.sessions.get(name);
-                    if (sessionsList == null) {
-                        sessionsList = new ArrayList<>();
-                    }
-                    sessionsList.add(session);
-                    this.sessions.put(name, sessionsList);
-                });
+    /**
+     * Subscribers of the notification whose sessions are open. Subscriptions are removed once the channel of their
+     * session is closed, sessions whose channel is not accessible are removed here when they are found down.
+     */
+    private List<NetconfSession> getOpenSubscribers(final QName quName) {
+        final List<NetconfSession> subscribers = new ArrayList<>();
+        for (final NetconfSession session : this.subscriptions.getSubscribers(quName)) {
+            if (session instanceof AbstractNetconfSession && !((AbstractNetconfSession<?, ?>) session).isUp()) {
+                removeSession(session);
             } else {
-                List<NetconfSession> sessionsList = this.sessions.get(this.streamName);
-                if (sessionsList == null) {
-                    sessionsList = new ArrayList<>();
-                }
-                sessionsList.add(session);
-                this.sessions.put(this.streamName, sessionsList);
+                subscribers.add(session);
             }
         }
+        return subscribers;
+    }
+
+    private void removeSession(final NetconfSession session) {
+        if (this.subscriptions.unsubscribe(session)) {
+            LOG.debug("Session {} closed, removing its subscriptions", session.sessionId().getValue());
+        }
+        this.notificationFanout.removeSession(session);
+    }
+
+    private Absolute notificationPath(final QName quName) {
+        return this.notificationPaths.computeIfAbsent(quName, name -> {
+            final NotificationDefinition notificationDefinition =
+                ConverterUtils.loadNotification(this.effectiveModelContext, name).orElseThrow(
+                    () -> new UnsupportedOperationException("Cannot load definition for QName: " + name));
+            return Absolute.of(notificationDefinition.getQName());
+        });
     }
 
     @Override
     public HandlingPriority canHandle(final Document message) throws DocumentedException {
-        this.isSubscription = message.getDocumentElement().getElementsByTagName("create-subscription").getLength() == 1;
-        if (this.isSubscription) {
-            final Node stream = message.getDocumentElement().getElementsByTagName("stream").item(0);
-            if (stream == null) {
-                this.streamName = null;
-            } else {
-                this.streamName = stream
-                        .getChildNodes()
-                        .item(0)
-                        .getTextContent().split(":")[1];
-            }
-        }
         return new HandlingPriority(0);
     }
 
+    /**
+     * Notifications of the stream requested by create-subscription. Streams are named after the notifications,
+     * the default NETCONF stream, or subscription without stream, contains all notifications.
+     */
+    private Collection<QName> getRequestedNotifications(final Document message) {
+        final Node stream = message.getDocumentElement().getElementsByTagName("stream").item(0);
+        if (stream == null) {
+            return this.allNotifications;
+        }
+        final String streamValue = stream.getTextContent().trim();
+        final String streamName = streamValue.substring(streamValue.indexOf(':') + 1);
+        if (DEFAULT_STREAM.equals(streamName)) {
+            return this.allNotifications;
+        }
+        return this.notificationsByName.getOrDefault(streamName, List.of());
+    }
+
     @Override
     public Document handle(final Document requestMessage,
         final NetconfOperationChainedExecution subsequentOperation) throws DocumentedException {
-        return subsequentOperation.execute(requestMessage);
+        final Node subscription = requestMessage.getDocumentElement().getElementsByTagName(CREATE_SUBSCRIPTION)
+            .item(0);
+        final NetconfSession session = this.currentSession.get();
+        if (subscription == null || session == null) {
+            return subsequentOperation.execute(requestMessage);
+        }
+        final Collection<QName> notifications = getRequestedNotifications(requestMessage);
+        final Instant startTime = parseTime((Element) subscription, START_TIME);
+        final Instant stopTime = parseTime((Element) subscription, STOP_TIME);
+        final Instant now = Instant.now();
+        checkReplayTimes(startTime, stopTime, now);
+
+        final Document reply = subsequentOperation.execute(requestMessage);
+        final Iterator<NotificationMessage> messages;
+        if (startTime == null) {
+            this.notificationFanout.hold(session);
+            this.subscriptions.subscribe(session, notifications);
+            messages = Collections.emptyIterator();
+        } else {
+            messages = replay(session, notifications, startTime, stopTime, now);
+        }
+        // registered once the queue of the session exists, the listener removes it also when the session is closed
+        SessionUtil.addCloseListener(session, () -> removeSession(session));
+        releaseAfterReply(session, messages);
+        return reply;
+    }
+
+    /**
+     * Resumes delivery to the subscribed session once the reply to create-subscription was written, RFC 5277,
+     * section 2.1.1 requires notifications to follow it. The reply is sent after this operation returns.
+     */
+    private void releaseAfterReply(final NetconfSession session, final Iterator<NotificationMessage> messages) {
+        if (!SessionUtil.addReplyListener(session, () -> this.notificationFanout.release(session, messages))) {
+            this.notificationFanout.release(session, messages);
+        }
+    }
+
+    /**
+     * Checks times of create-subscription as required by RFC 5277, section 2.1.1.
+     */
+    private void checkReplayTimes(final @Nullable Instant startTime, final @Nullable Instant stopTime,
+            final Instant now) throws DocumentedException {
+        if (stopTime != null && startTime == null) {
+            throw new DocumentedException("stopTime requires startTime", ErrorType.PROTOCOL,
+                ErrorTag.MISSING_ELEMENT, ErrorSeverity.ERROR, Map.of("bad-element", START_TIME));
+        }
+        if (startTime == null) {
+            return;
+        }
+        if (this.replayBuffer == null) {
+            throw new DocumentedException("Replay is not supported by the stream", ErrorType.APPLICATION,
+                ErrorTag.OPERATION_FAILED, ErrorSeverity.ERROR);
+        }
+        if (startTime.isAfter(now)) {
+            throw new DocumentedException("startTime is later than the current time", ErrorType.PROTOCOL,
+                ErrorTag.BAD_ELEMENT, ErrorSeverity.ERROR, Map.of("bad-element", START_TIME));
+        }
+        if (stopTime != null && stopTime.isBefore(startTime)) {
+            throw new DocumentedException("stopTime is earlier than startTime", ErrorType.PROTOCOL,
+                ErrorTag.BAD_ELEMENT, ErrorSeverity.ERROR, Map.of("bad-element", STOP_TIME));
+        }
+    }
+
+    /**
+     * Looks up buffered notifications since startTime, they are followed by replayComplete. Delivery to the session
+     * is held, notifications published meanwhile are sent after the returned ones. Subscription with stopTime
+     * in the past ends right after the replay, otherwise notifications are sent until stopTime.
+     */
+    private Iterator<NotificationMessage> replay(final NetconfSession session, final Collection<QName> notifications, final Instant startTime,
+            final @Nullable Instant stopTime, final Instant now) {
+        final boolean live = stopTime == null || stopTime.isAfter(now);
+        final List<BufferedNotification> replayed;
+        synchronized (this.replayLock) {
+            replayed = this.replayBuffer.getNotifications(notifications, startTime, stopTime);
+            this.notificationFanout.hold(session);
+            if (live) {
+                this.subscriptions.subscribe(session, notifications);
+            }
+        }
+        LOG.debug("Replaying {} notifications to session {}", replayed.size(), session.sessionId().getValue());
+        final List<String> completions = live ? List.of(REPLAY_COMPLETE) : List.of(REPLAY_COMPLETE,
+            NOTIFICATION_COMPLETE);
+        if (live && stopTime != null) {
+            SUBSCRIPTION_TIMER.schedule(() -> completeSubscription(session),
+                Math.max(0, Duration.between(Instant.now(), stopTime).toMillis()), TimeUnit.MILLISECONDS);
+        }
+        return Iterators.concat(
+            Iterators.transform(replayed.iterator(), NotificationOperation::toMessage),
+            Iterators.transform(completions.iterator(), NotificationOperation::completionMessage));
+    }
+
+    private void completeSubscription(final NetconfSession session) {
+        if (this.subscriptions.unsubscribe(session)) {
+            this.notificationFanout.publish(completionMessage(NOTIFICATION_COMPLETE), List.of(session));
+        }
+    }
+
+    private static NotificationMessage toMessage(final BufferedNotification notification) {
+        try {
+            return notification.toMessage();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static NotificationMessage completionMessage(final String name) {
+        final Document content = UntrustedXML.newDocumentBuilder().newDocument();
+        content.appendChild(content.createElementNS(NETMOD_NOTIFICATION_NAMESPACE, name));
+        return NotificationMessage.ofNotificationContent(content, Instant.now());
+    }
+
+    private static @Nullable Instant parseTime(final Element subscription, final String name)
+            throws DocumentedException {
+        final Node time = subscription.getElementsByTagName(name).item(0);
+        if (time == null) {
+            return null;
+        }
+        try {
+            return NotificationMessage.RFC3339_DATE_PARSER.apply(time.getTextContent().trim());
+        } catch (DateTimeParseException e) {
+            throw new DocumentedException("Invalid " + name + ": " + time.getTextContent(), e, ErrorType.PROTOCOL,
+                ErrorTag.BAD_ELEMENT, ErrorSeverity.ERROR, Map.of("bad-element", name));
+        }
     }
 
 }
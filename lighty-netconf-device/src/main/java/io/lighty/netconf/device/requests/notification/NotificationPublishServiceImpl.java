@@ -7,8 +7,14 @@
  */
 package io.lighty.netconf.device.requests.notification;
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+import org.eclipse.jdt.annotation.Nullable;
 import org.opendaylight.mdsal.binding.dom.adapter.AdapterContext;
+import org.opendaylight.netconf.api.NetconfSession;
 import org.opendaylight.netconf.server.api.monitoring.Capability;
 import org.opendaylight.netconf.server.api.operations.NetconfOperationService;
 import org.opendaylight.netconf.test.tool.operations.OperationsCreator;
@@ -16,10 +22,51 @@ import org.opendaylight.yang.gen.v1.urn.ietf.params.xml.ns.netconf.base._1._0.re
 import org.opendaylight.yangtools.binding.Notification;
 import org.opendaylight.yangtools.yang.common.QName;
 
-public class NotificationPublishServiceImpl implements OperationsCreator, NotificationPublishService {
+public class NotificationPublishServiceImpl implements OperationsCreator, NotificationPublishService, AutoCloseable {
 
+    public static final int DEFAULT_QUEUE_CAPACITY = 10_000;
+    public static final SlowConsumerPolicy DEFAULT_SLOW_CONSUMER_POLICY = SlowConsumerPolicy.DROP_OLDEST;
+
+    // draining does not block, so all devices of the process share threads sending the notifications
+    private static final ExecutorService FANOUT_EXECUTOR = Executors.newFixedThreadPool(
+        Runtime.getRuntime().availableProcessors(), new ThreadFactoryBuilder()
+            .setNameFormat("notification-fanout-%d")
+            .setDaemon(true)
+            .build());
+
+    private final NotificationFanout notificationFanout;
+    private final @Nullable NotificationReplayBuffer replayBuffer;
     private NotificationOperation notificationOperation;
     private AdapterContext adapterContext;
+    private Supplier<@Nullable NetconfSession> currentSession = () -> null;
+
+    public NotificationPublishServiceImpl() {
+        this(DEFAULT_QUEUE_CAPACITY, DEFAULT_SLOW_CONSUMER_POLICY);
+    }
+
+    /**
+     * Creates publish service with bounded notification queues of the subscribed sessions.
+     *
+     * @param queueCapacity maximum number of notifications queued for a session
+     * @param slowConsumerPolicy handling of notifications published to a full queue
+     */
+    public NotificationPublishServiceImpl(final int queueCapacity, final SlowConsumerPolicy slowConsumerPolicy) {
+        this(queueCapacity, slowConsumerPolicy, null);
+    }
+
+    /**
+     * Creates publish service with bounded notification queues of the subscribed sessions, keeping published
+     * notifications for replay.
+     *
+     * @param queueCapacity maximum number of notifications queued for a session
+     * @param slowConsumerPolicy handling of notifications published to a full queue
+     * @param replayBuffer buffer of the notifications for replay, null if replay is not supported
+     */
+    public NotificationPublishServiceImpl(final int queueCapacity, final SlowConsumerPolicy slowConsumerPolicy,
+            final @Nullable NotificationReplayBuffer replayBuffer) {
+        this.notificationFanout = new NotificationFanout(FANOUT_EXECUTOR, queueCapacity, slowConsumerPolicy);
+        this.replayBuffer = replayBuffer;
+    }
 
     @Override
     public void publish(final Notification notification, final QName quName) {
@@ -33,11 +80,39 @@ public class NotificationPublishServiceImpl implements OperationsCreator, Notifi
     @Override
     public NetconfOperationService getNetconfOperationService(final Set<Capability> capabilities,
             final SessionIdType idType) {
-        this.notificationOperation = new NotificationOperation(this.adapterContext);
+        this.notificationOperation = new NotificationOperation(this.adapterContext, this.notificationFanout,
+            this.currentSession, this.replayBuffer);
         return new NotificationService(this.notificationOperation, idType);
     }
 
     public void setAdapterContext(final AdapterContext adapterContext) {
         this.adapterContext = adapterContext;
     }
+
+    /**
+     * Sets the source of the session whose RPC is processed by the current thread, create-subscription subscribes
+     * that session. Without it no session can subscribe.
+     *
+     * @param currentSession session of the processed RPC, null if the thread does not process any
+     */
+    public void setCurrentSession(final Supplier<@Nullable NetconfSession> currentSession) {
+        this.currentSession = currentSession;
+    }
+
+    /**
+     * Buffer of the published notifications for replay.
+     *
+     * @return the buffer, null if replay is not supported
+     */
+    public @Nullable NotificationReplayBuffer getReplayBuffer() {
+        return this.replayBuffer;
+    }
+
+    /**
+     * Discards notifications which were not sent yet.
+     */
+    @Override
+    public void close() {
+        this.notificationFanout.close();
+    }
 }
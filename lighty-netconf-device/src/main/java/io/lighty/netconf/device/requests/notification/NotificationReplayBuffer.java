@@ -0,0 +1,183 @@
+/*
+ * Copyright (c) 2020 PANTHEON.tech s.r.o. All Rights Reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at https://www.eclipse.org/legal/epl-v10.html
+ */
+package io.lighty.netconf.device.requests.notification;
+
+import com.google.common.base.Preconditions;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import org.eclipse.jdt.annotation.Nullable;
+import org.opendaylight.netconf.api.messages.NotificationMessage;
+import org.opendaylight.netconf.api.xml.XmlUtil;
+import org.opendaylight.yangtools.yang.common.QName;
+import org.w3c.dom.Document;
+import org.xml.sax.SAXException;
+
+/**
+ * Recently published notifications kept for replay requested by create-subscription with startTime (RFC 5277).
+ * Notifications are stored serialized to UTF-8 XML, optionally in direct buffers outside of the heap, and parsed
+ * again only when they are replayed. The buffer is bounded by the number of notifications and by their total size,
+ * the oldest notifications are evicted when either bound is exceeded.
+ */
+public final class NotificationReplayBuffer {
+
+    private final int maxNotifications;
+    private final long maxBytes;
+    private final boolean offHeap;
+    // guarded by this, ordered by the time of appending
+    private final ArrayDeque<BufferedNotification> notifications = new ArrayDeque<>();
+    private long bytes;
+
+    /**
+     * Creates replay buffer.
+     *
+     * @param maxNotifications maximum number of buffered notifications
+     * @param maxBytes maximum total size of the buffered notifications in bytes
+     * @param offHeap true to keep the notifications in direct buffers
+     */
+    public NotificationReplayBuffer(final int maxNotifications, final long maxBytes, final boolean offHeap) {
+        Preconditions.checkArgument(maxNotifications > 0, "Maximum number of notifications has to be positive, was %s",
+            maxNotifications);
+        Preconditions.checkArgument(maxBytes > 0, "Maximum size has to be positive, was %s", maxBytes);
+        this.maxNotifications = maxNotifications;
+        this.maxBytes = maxBytes;
+        this.offHeap = offHeap;
+    }
+
+    /**
+     * Serializes the notification. Serialization does not lock the buffer, the notification is buffered by
+     * {@link #append(BufferedNotification)}.
+     *
+     * @param name QName of the notification
+     * @param eventTime time the notification was published at
+     * @param content document with the notification element, without the notification envelope
+     * @return serialized notification
+     */
+    public BufferedNotification serialize(final QName name, final Instant eventTime, final Document content) {
+        final byte[] serialized = XmlUtil.toString(content).getBytes(StandardCharsets.UTF_8);
+        final ByteBuffer buffer;
+        if (offHeap) {
+            buffer = ByteBuffer.allocateDirect(serialized.length).put(serialized).flip();
+        } else {
+            buffer = ByteBuffer.wrap(serialized);
+        }
+        return new BufferedNotification(name, eventTime, buffer);
+    }
+
+    /**
+     * Buffers the notification, evicting the oldest ones if needed. A notification larger than the whole buffer
+     * is not buffered.
+     *
+     * @param notification serialized notification
+     */
+    public synchronized void append(final BufferedNotification notification) {
+        final int size = notification.size();
+        if (size > maxBytes) {
+            return;
+        }
+        while (notifications.size() >= maxNotifications || bytes + size > maxBytes) {
+            bytes -= notifications.removeFirst().size();
+        }
+        notifications.addLast(notification);
+        bytes += size;
+    }
+
+    /**
+     * Buffered notifications published in the time interval, in the order they were published.
+     *
+     * @param names QNames of the requested notifications
+     * @param startTime start of the interval, inclusive
+     * @param stopTime end of the interval, inclusive, null for notifications up to now
+     * @return matching notifications
+     */
+    public synchronized List<BufferedNotification> getNotifications(final Collection<QName> names,
+            final Instant startTime, final @Nullable Instant stopTime) {
+        final List<BufferedNotification> matching = new ArrayList<>();
+        for (final BufferedNotification notification : notifications) {
+            if (!notification.eventTime.isBefore(startTime)
+                    && (stopTime == null || !notification.eventTime.isAfter(stopTime))
+                    && names.contains(notification.name)) {
+                matching.add(notification);
+            }
+        }
+        return matching;
+    }
+
+    /**
+     * Event time of the oldest buffered notification.
+     */
+    public synchronized Optional<Instant> getOldestEventTime() {
+        final BufferedNotification oldest = notifications.peekFirst();
+        return oldest == null ? Optional.empty() : Optional.of(oldest.eventTime);
+    }
+
+    public synchronized int size() {
+        return notifications.size();
+    }
+
+    /**
+     * Total size of the buffered notifications in bytes.
+     */
+    public synchronized long getBytes() {
+        return bytes;
+    }
+
+    /**
+     * Serialized notification.
+     */
+    public static final class BufferedNotification {
+
+        private final QName name;
+        private final Instant eventTime;
+        private final ByteBuffer content;
+
+        BufferedNotification(final QName name, final Instant eventTime, final ByteBuffer content) {
+            this.name = Objects.requireNonNull(name);
+            this.eventTime = Objects.requireNonNull(eventTime);
+            this.content = Objects.requireNonNull(content);
+        }
+
+        public QName getName() {
+            return name;
+        }
+
+        public Instant getEventTime() {
+            return eventTime;
+        }
+
+        int size() {
+            return content.capacity();
+        }
+
+        /**
+         * Parses the notification into a new message, with its original event time.
+         *
+         * @return notification message
+         * @throws IOException if the notification cannot be parsed
+         */
+        public NotificationMessage toMessage() throws IOException {
+            final byte[] serialized = new byte[content.capacity()];
+            // duplicate keeps the position of the shared buffer, so concurrent replays do not interfere
+            content.duplicate().get(serialized);
+            try {
+                return NotificationMessage.ofNotificationContent(
+                    XmlUtil.readXmlToDocument(new ByteArrayInputStream(serialized)), eventTime);
+            } catch (SAXException e) {
+                throw new IOException("Failed to parse buffered notification " + name, e);
+            }
+        }
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright (c) 2020 PANTHEON.tech s.r.o. All Rights Reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at https://www.eclipse.org/legal/epl-v10.html
+ */
+package io.lighty.netconf.device.requests.notification;
+
+import com.google.common.util.concurrent.FluentFuture;
+import java.time.Instant;
+import org.eclipse.jdt.annotation.Nullable;
+import org.opendaylight.mdsal.binding.api.DataBroker;
+import org.opendaylight.mdsal.binding.api.WriteTransaction;
+import org.opendaylight.mdsal.common.api.CommitInfo;
+import org.opendaylight.mdsal.common.api.LogicalDatastoreType;
+import org.opendaylight.yang.gen.v1.urn.ietf.params.xml.ns.netconf.notification._1._0.rev080714.StreamNameType;
+import org.opendaylight.yang.gen.v1.urn.ietf.params.xml.ns.netmod.notification.rev080714.Netconf;
+import org.opendaylight.yang.gen.v1.urn.ietf.params.xml.ns.netmod.notification.rev080714.netconf.Streams;
+import org.opendaylight.yang.gen.v1.urn.ietf.params.xml.ns.netmod.notification.rev080714.netconf.StreamsBuilder;
+import org.opendaylight.yang.gen.v1.urn.ietf.params.xml.ns.netmod.notification.rev080714.netconf.streams.StreamBuilder;
+import org.opendaylight.yang.gen.v1.urn.ietf.params.xml.ns.yang.ietf.yang.types.rev130715.DateAndTime;
+import org.opendaylight.yangtools.binding.DataObjectIdentifier;
+import org.opendaylight.yangtools.binding.util.BindingMap;
+
+/**
+ * Exposes the notification streams of a device in netconf/streams of nc-notifications (RFC 5277, section 3.2.5).
+ * The device has the default NETCONF stream only. Its replay log is the replay buffer, replayLogCreationTime is
+ * the event time of the oldest buffered notification, as older ones can not be replayed anymore, or the creation
+ * of the monitor while the buffer is empty. The streams are written into the operational datastore by
+ * {@link #writeStreams()} when they are about to be read.
+ */
+public final class NotificationStreamsMonitor {
+
+    private static final DataObjectIdentifier<Streams> STREAMS_IDENTIFIER =
+        DataObjectIdentifier.builder(Netconf.class).child(Streams.class).build();
+    private static final String DEFAULT_STREAM = "NETCONF";
+    private static final String DEFAULT_STREAM_DESCRIPTION = "Default NETCONF event stream";
+
+    private final DataBroker dataBroker;
+    private final @Nullable NotificationReplayBuffer replayBuffer;
+    private final Instant creationTime = Instant.now();
+
+    /**
+     * Creates monitor of the streams.
+     *
+     * @param dataBroker broker of the device the streams are written into
+     * @param replayBuffer buffer of the notifications for replay, null if replay is not supported
+     */
+    public NotificationStreamsMonitor(final DataBroker dataBroker,
+            final @Nullable NotificationReplayBuffer replayBuffer) {
+        this.dataBroker = dataBroker;
+        this.replayBuffer = replayBuffer;
+    }
+
+    /**
+     * Streams of the device with the current replayLogCreationTime.
+     */
+    public Streams getStreams() {
+        final StreamBuilder stream = new StreamBuilder()
+            .setName(new StreamNameType(DEFAULT_STREAM))
+            .setDescription(DEFAULT_STREAM_DESCRIPTION)
+            .setReplaySupport(replayBuffer != null);
+        if (replayBuffer != null) {
+            final Instant logCreationTime = replayBuffer.getOldestEventTime().orElse(creationTime);
+            stream.setReplayLogCreationTime(new DateAndTime(logCreationTime.toString()));
+        }
+        return new StreamsBuilder().setStream(BindingMap.of(stream.build())).build();
+    }
+
+    /**
+     * Writes current streams into netconf/streams of the operational datastore.
+     *
+     * @return transaction commit information in FluentFuture
+     */
+    public FluentFuture<? extends CommitInfo> writeStreams() {
+        final WriteTransaction writeTx = dataBroker.newWriteOnlyTransaction();
+        writeTx.put(LogicalDatastoreType.OPERATIONAL, STREAMS_IDENTIFIER, getStreams());
+        return writeTx.commit();
+    }
+}
@@ -0,0 +1,29 @@
+/*
+ * Copyright (c) 2020 PANTHEON.tech s.r.o. All Rights Reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at https://www.eclipse.org/legal/epl-v10.html
+ */
+package io.lighty.netconf.device.requests.notification;
+
+/**
+ * Handling of a notification published to a session whose notification queue is full.
+ */
+public enum SlowConsumerPolicy {
+
+    /**
+     * The published notification is not sent to the session, notifications already queued are kept.
+     */
+    DROP_NEWEST,
+
+    /**
+     * The oldest queued notification is discarded to make room for the published one.
+     */
+    DROP_OLDEST,
+
+    /**
+     * The session is closed, queued notifications are discarded.
+     */
+    DISCONNECT
+}
@@ -0,0 +1,66 @@
+/*
+ * Copyright (c) 2020 PANTHEON.tech s.r.o. All Rights Reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at https://www.eclipse.org/legal/epl-v10.html
+ */
+package io.lighty.netconf.device.requests.notification;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+import org.opendaylight.netconf.api.NetconfSession;
+import org.opendaylight.yangtools.yang.common.QName;
+
+/**
+ * Sessions subscribed to notifications, keyed by the notification QName. Sessions subscribe and leave from their
+ * own threads while notifications are published from any thread, so subscribers of a notification are kept in
+ * a copy-on-write set. Publishing iterates a snapshot of the set without locking, changes of subscriptions are
+ * rare compared to the published notifications.
+ */
+public final class SubscriptionRegistry {
+
+    private final ConcurrentMap<QName, Set<NetconfSession>> subscriptions = new ConcurrentHashMap<>();
+
+    /**
+     * Subscribes the session to the notifications. Repeated subscription of the same notification is ignored.
+     *
+     * @param session subscribing session
+     * @param notifications QNames of the notifications
+     */
+    public void subscribe(final NetconfSession session, final Collection<QName> notifications) {
+        for (final QName notification : notifications) {
+            subscriptions.computeIfAbsent(notification, name -> new CopyOnWriteArraySet<>()).add(session);
+        }
+    }
+
+    /**
+     * Removes all subscriptions of the session.
+     *
+     * @param session the session
+     * @return true if the session was subscribed to any notification
+     */
+    public boolean unsubscribe(final NetconfSession session) {
+        boolean removed = false;
+        for (final Set<NetconfSession> subscribers : subscriptions.values()) {
+            removed |= subscribers.remove(session);
+        }
+        return removed;
+    }
+
+    /**
+     * Sessions subscribed to the notification. Iteration of the returned set is not affected by concurrent
+     * changes of the subscriptions.
+     *
+     * @param notification QName of the notification
+     * @return unmodifiable set of the subscribed sessions
+     */
+    public Set<NetconfSession> getSubscribers(final QName notification) {
+        final Set<NetconfSession> subscribers = subscriptions.get(notification);
+        return subscribers == null ? Set.of() : Collections.unmodifiableSet(subscribers);
+    }
+}
@@ -0,0 +1,189 @@
+/*
+ * Copyright (c) 2020 PANTHEON.tech s.r.o. All Rights Reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at https://www.eclipse.org/legal/epl-v10.html
+ */
+package io.lighty.netconf.device.utils;
+
+import com.google.common.base.Stopwatch;
+import com.google.common.base.Supplier;
+import com.google.common.base.Suppliers;
+import com.google.common.collect.ImmutableSet;
+import io.lighty.codecs.util.XmlNodeConverter;
+import io.lighty.netconf.device.monitoring.SchemaIndex;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import org.opendaylight.mdsal.binding.dom.adapter.AdapterContext;
+import org.opendaylight.mdsal.binding.dom.adapter.ConstantAdapterContext;
+import org.opendaylight.yangtools.binding.data.codec.impl.BindingCodecContext;
+import org.opendaylight.yangtools.binding.generator.impl.DefaultBindingRuntimeGenerator;
+import org.opendaylight.yangtools.binding.meta.YangModuleInfo;
+import org.opendaylight.yangtools.binding.runtime.api.BindingRuntimeGenerator;
+import org.opendaylight.yangtools.binding.runtime.api.BindingRuntimeTypes;
+import org.opendaylight.yangtools.binding.runtime.api.DefaultBindingRuntimeContext;
+import org.opendaylight.yangtools.binding.runtime.api.ModuleInfoSnapshot;
+import org.opendaylight.yangtools.binding.runtime.spi.ModuleInfoSnapshotBuilder;
+import org.opendaylight.yangtools.yang.parser.api.YangParserException;
+import org.opendaylight.yangtools.yang.parser.api.YangParserFactory;
+import org.opendaylight.yangtools.yang.parser.impl.DefaultYangParserFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Process-wide cache of {@link AdapterContext}s keyed by the set of models they were created from. Parsing
+ * the models and generating binding codecs is the most expensive part of a device start, devices with the same
+ * models share single adapter context and XML converter instead.
+ *
+ * <p>Cached contexts are reference counted. Each {@link #acquire(Collection)} must be paired with
+ * {@link Lease#close()}, the context is dropped from the cache once its last lease is closed.
+ */
+public final class AdapterContextCache {
+
+    private static final Logger LOG = LoggerFactory.getLogger(AdapterContextCache.class);
+    private static final Map<Set<YangModuleInfo>, Entry> CACHE = new HashMap<>();
+
+    private AdapterContextCache() {
+        throw new UnsupportedOperationException("do not instantiate utility class");
+    }
+
+    /**
+     * Provides adapter context for given models, it is created only if no other lease of the same models is open.
+     *
+     * @param moduleInfos models of the device
+     * @return lease of the shared adapter context
+     */
+    public static Lease acquire(final Collection<YangModuleInfo> moduleInfos) {
+        return acquire(moduleInfos, new DefaultYangParserFactory());
+    }
+
+    /**
+     * Provides adapter context for given models, it is created only if no other lease of the same models is open.
+     * The parser factory is used only when the context has to be created.
+     *
+     * @param moduleInfos models of the device
+     * @param yangParserFactory factory of the parser used to parse the models
+     * @return lease of the shared adapter context
+     */
+    public static Lease acquire(final Collection<YangModuleInfo> moduleInfos,
+            final YangParserFactory yangParserFactory) {
+        final Set<YangModuleInfo> key = ImmutableSet.copyOf(moduleInfos);
+        final Entry entry;
+        synchronized (CACHE) {
+            entry = CACHE.computeIfAbsent(key, models -> new Entry(models, yangParserFactory));
+            entry.references++;
+        }
+        // contexts of different models are created concurrently, acquirers of the same models wait for it
+        try {
+            return new Lease(entry);
+        } catch (RuntimeException e) {
+            release(entry);
+            throw e;
+        }
+    }
+
+    private static void release(final Entry entry) {
+        synchronized (CACHE) {
+            entry.references--;
+            if (entry.references == 0) {
+                CACHE.remove(entry.key, entry);
+                LOG.debug("Adapter context of {} models released", entry.key.size());
+            }
+        }
+    }
+
+    static AdapterContext createAdapterContext(final Collection<YangModuleInfo> moduleInfos,
+            final YangParserFactory yangParserFactory) {
+        return createAdapterContext(createModuleInfoSnapshot(moduleInfos, yangParserFactory));
+    }
+
+    private static ModuleInfoSnapshot createModuleInfoSnapshot(final Collection<YangModuleInfo> moduleInfos,
+            final YangParserFactory yangParserFactory) {
+        try {
+            // the builder hands YANG sources to the parser, so the parser factory sees each of them
+            return new ModuleInfoSnapshotBuilder(yangParserFactory).add(moduleInfos).build();
+        } catch (YangParserException e) {
+            throw new IllegalStateException("Failed to parse models of the device", e);
+        }
+    }
+
+    private static AdapterContext createAdapterContext(final ModuleInfoSnapshot moduleInfoSnapshot) {
+        final BindingRuntimeGenerator bindingRuntimeGenerator = new DefaultBindingRuntimeGenerator();
+        final BindingRuntimeTypes bindingRuntimeTypes = bindingRuntimeGenerator
+                .generateTypeMapping(moduleInfoSnapshot.modelContext());
+        final DefaultBindingRuntimeContext bindingRuntimeContext
+                = new DefaultBindingRuntimeContext(bindingRuntimeTypes, moduleInfoSnapshot);
+
+        final BindingCodecContext bindingCodecContext = new BindingCodecContext(bindingRuntimeContext);
+        return new ConstantAdapterContext(bindingCodecContext);
+    }
+
+    private static final class Entry {
+        private final Set<YangModuleInfo> key;
+        private final Supplier<SharedContext> context;
+        private int references;
+
+        Entry(final Set<YangModuleInfo> key, final YangParserFactory yangParserFactory) {
+            this.key = key;
+            this.context = Suppliers.memoize(() -> {
+                final Stopwatch stopwatch = Stopwatch.createStarted();
+                final ModuleInfoSnapshot moduleInfoSnapshot = createModuleInfoSnapshot(key, yangParserFactory);
+                final AdapterContext adapterContext = createAdapterContext(moduleInfoSnapshot);
+                final XmlNodeConverter converter = new XmlNodeConverter(moduleInfoSnapshot.modelContext());
+                LOG.debug("Adapter context of {} models created in {}", key.size(), stopwatch);
+                return new SharedContext(adapterContext, converter, SchemaIndex.of(moduleInfoSnapshot));
+            });
+        }
+    }
+
+    /**
+     * Lease of a cached adapter context. Closing the lease does not affect the context itself, it only allows
+     * the cache to forget it.
+     */
+    public static final class Lease implements AutoCloseable {
+        private final Entry entry;
+        private final SharedContext context;
+        private boolean closed;
+
+        Lease(final Entry entry) {
+            this.entry = entry;
+            this.context = entry.context.get();
+        }
+
+        public AdapterContext getAdapterContext() {
+            return context.adapterContext;
+        }
+
+        public XmlNodeConverter getXmlNodeConverter() {
+            return context.xmlNodeConverter;
+        }
+
+        public SchemaIndex getSchemaIndex() {
+            return context.schemaIndex;
+        }
+
+        @Override
+        public synchronized void close() {
+            if (!closed) {
+                closed = true;
+                release(entry);
+            }
+        }
+    }
+
+    private static final class SharedContext {
+        private final AdapterContext adapterContext;
+        private final XmlNodeConverter xmlNodeConverter;
+        private final SchemaIndex schemaIndex;
+
+        SharedContext(final AdapterContext adapterContext, final XmlNodeConverter xmlNodeConverter,
+                final SchemaIndex schemaIndex) {
+            this.adapterContext = adapterContext;
+            this.xmlNodeConverter = xmlNodeConverter;
+            this.schemaIndex = schemaIndex;
+        }
+    }
+}
@@ -11,6 +11,7 @@ import com.google.common.base.Preconditions;
 import java.io.File;
 import java.util.List;
 import net.sourceforge.argparse4j.ArgumentParsers;
+import net.sourceforge.argparse4j.impl.Arguments;
 import net.sourceforge.argparse4j.inf.Namespace;
 
 public class ArgumentParser {
@@ -38,15 +39,26 @@ public class ArgumentParser {
             .nargs(1)
             .help("Set path where the output datastore which will be saved.");
         argumentParser.addArgument("-d", "--devices-count")
-            .setDefault(List.of(DEFAULT_DEVICE_COUNT))
+            .type(Integer.class)
+            .setDefault(DEFAULT_DEVICE_COUNT)
             .help("Number of simulated netconf devices to spin."
                 + " This is the number of actual ports which will be used for the devices.")
             .dest("devices-count");
         argumentParser.addArgument("-t", "--thread-pool-size")
-            .setDefault(List.of(DEFAULT_POOL_SIZE))
+            .type(Integer.class)
+            .setDefault(DEFAULT_POOL_SIZE)
             .help("The number of threads to keep in the pool, "
                 + "when creating a device simulator, even if they are idle.")
             .dest("thread-pool-size");
+        argumentParser.addArgument("--isolated-datastores")
+            .action(Arguments.storeTrue())
+            .help("Each of the simulated devices gets its own configuration and operational datastore.")
+            .dest("isolated-datastores");
+        argumentParser.addArgument("--metrics-port")
+            .type(Integer.class)
+            .help("Port of the HTTP endpoint serving metrics of the processed requests in the Prometheus text "
+                + "format. Requests are not measured when it is not set.")
+            .dest("metrics-port");
 
         final Namespace namespace = argumentParser.parseArgsOrFail(args);
         if (!(namespace.getString("init_datastore") == null)) {
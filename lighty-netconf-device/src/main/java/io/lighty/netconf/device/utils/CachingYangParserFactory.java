@@ -0,0 +1,189 @@
+/*
+ * Copyright (c) 2020 PANTHEON.tech s.r.o. All Rights Reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at https://www.eclipse.org/legal/epl-v10.html
+ */
+package io.lighty.netconf.device.utils;
+
+import static java.util.Objects.requireNonNull;
+
+import com.google.common.collect.SetMultimap;
+import com.google.common.hash.Hashing;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Collection;
+import java.util.List;
+import org.opendaylight.yangtools.yang.common.QNameModule;
+import org.opendaylight.yangtools.yang.ir.IOSupport;
+import org.opendaylight.yangtools.yang.ir.IRStatement;
+import org.opendaylight.yangtools.yang.model.api.EffectiveModelContext;
+import org.opendaylight.yangtools.yang.model.api.meta.DeclaredStatement;
+import org.opendaylight.yangtools.yang.model.api.source.SourceRepresentation;
+import org.opendaylight.yangtools.yang.model.api.source.YangTextSource;
+import org.opendaylight.yangtools.yang.model.api.stmt.FeatureSet;
+import org.opendaylight.yangtools.yang.model.spi.source.YangIRSource;
+import org.opendaylight.yangtools.yang.parser.api.ImportResolutionMode;
+import org.opendaylight.yangtools.yang.parser.api.YangParser;
+import org.opendaylight.yangtools.yang.parser.api.YangParserConfiguration;
+import org.opendaylight.yangtools.yang.parser.api.YangParserException;
+import org.opendaylight.yangtools.yang.parser.api.YangParserFactory;
+import org.opendaylight.yangtools.yang.parser.api.YangSyntaxErrorException;
+import org.opendaylight.yangtools.yang.parser.rfc7950.repo.TextToIRTransformer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * {@link YangParserFactory} which keeps the intermediate representation of parsed YANG sources in a directory.
+ * Lexing and parsing of the YANG text is skipped for sources which were already parsed by previous runs,
+ * the rest of the model assembly is done by the delegate parser as usual.
+ *
+ * <p>Entries are keyed by SHA-256 hash of the source text, a changed source therefore never hits a stale entry.
+ * Unreadable entries are ignored and the source is parsed again.
+ */
+public final class CachingYangParserFactory implements YangParserFactory {
+
+    private static final Logger LOG = LoggerFactory.getLogger(CachingYangParserFactory.class);
+    private static final int FORMAT_VERSION = 1;
+    private static final String ENTRY_SUFFIX = ".yangir";
+
+    private final YangParserFactory delegate;
+    private final Path cacheDirectory;
+
+    public CachingYangParserFactory(final YangParserFactory delegate, final Path cacheDirectory) {
+        this.delegate = requireNonNull(delegate);
+        this.cacheDirectory = requireNonNull(cacheDirectory);
+    }
+
+    @Override
+    public Collection<ImportResolutionMode> supportedImportResolutionModes() {
+        return delegate.supportedImportResolutionModes();
+    }
+
+    @Override
+    public YangParser createParser(final YangParserConfiguration configuration) {
+        final YangParser parser = delegate.createParser(configuration);
+        if (!parser.supportedSourceRepresentations().contains(YangIRSource.class)) {
+            LOG.debug("Parser {} does not accept parsed sources, caching is disabled", parser);
+            return parser;
+        }
+        return new CachingYangParser(parser);
+    }
+
+    SourceRepresentation toCachedSource(final SourceRepresentation source)
+            throws IOException, YangSyntaxErrorException {
+        if (!(source instanceof YangTextSource)) {
+            return source;
+        }
+        final YangTextSource textSource = (YangTextSource) source;
+        final Path entry = cacheDirectory.resolve(
+            Hashing.sha256().hashString(textSource.read(), StandardCharsets.UTF_8) + ENTRY_SUFFIX);
+        if (Files.isRegularFile(entry)) {
+            try (InputStream inputStream = new BufferedInputStream(Files.newInputStream(entry));
+                 DataInputStream input = new DataInputStream(inputStream)) {
+                if (input.readInt() == FORMAT_VERSION) {
+                    final IRStatement statement = IOSupport.readStatement(input);
+                    LOG.trace("Source {} loaded from {}", textSource.sourceId(), entry);
+                    return new YangIRSource(textSource.sourceId(), statement, textSource.symbolicName());
+                }
+                LOG.debug("Cached source {} has unsupported format, parsing it again", entry);
+            } catch (IOException | RuntimeException e) {
+                LOG.warn("Failed to read cached source {}, parsing it again", entry, e);
+            }
+        }
+
+        final YangIRSource parsed = TextToIRTransformer.transformText(textSource);
+        store(entry, parsed.statement());
+        return parsed;
+    }
+
+    private void store(final Path entry, final IRStatement statement) {
+        final Path temporary;
+        try {
+            Files.createDirectories(cacheDirectory);
+            // write to a temporary file first, simulators sharing the directory must never see partial entry
+            temporary = Files.createTempFile(cacheDirectory, "source", ".tmp");
+        } catch (IOException e) {
+            LOG.warn("Failed to store parsed source into {}", entry, e);
+            return;
+        }
+        try {
+            try (OutputStream outputStream = new BufferedOutputStream(Files.newOutputStream(temporary));
+                 DataOutputStream output = new DataOutputStream(outputStream)) {
+                output.writeInt(FORMAT_VERSION);
+                IOSupport.writeStatement(output, statement);
+            }
+            Files.move(temporary, entry, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException | RuntimeException e) {
+            LOG.warn("Failed to store parsed source into {}", entry, e);
+            deleteTemporary(temporary);
+        }
+    }
+
+    private static void deleteTemporary(final Path temporary) {
+        try {
+            Files.deleteIfExists(temporary);
+        } catch (IOException e) {
+            LOG.warn("Failed to delete temporary file {}", temporary, e);
+        }
+    }
+
+    private final class CachingYangParser implements YangParser {
+        private final YangParser parser;
+
+        CachingYangParser(final YangParser parser) {
+            this.parser = parser;
+        }
+
+        @Override
+        public Collection<Class<? extends SourceRepresentation>> supportedSourceRepresentations() {
+            return parser.supportedSourceRepresentations();
+        }
+
+        @Override
+        public YangParser addSource(final SourceRepresentation source) throws IOException, YangSyntaxErrorException {
+            parser.addSource(toCachedSource(source));
+            return this;
+        }
+
+        @Override
+        public YangParser addLibSource(final SourceRepresentation source)
+                throws IOException, YangSyntaxErrorException {
+            parser.addLibSource(toCachedSource(source));
+            return this;
+        }
+
+        @Override
+        public YangParser setSupportedFeatures(final FeatureSet supportedFeatures) {
+            parser.setSupportedFeatures(supportedFeatures);
+            return this;
+        }
+
+        @Override
+        public YangParser setModulesWithSupportedDeviations(
+                final SetMultimap<QNameModule, QNameModule> modulesDeviatedByModules) {
+            parser.setModulesWithSupportedDeviations(modulesDeviatedByModules);
+            return this;
+        }
+
+        @Override
+        public List<DeclaredStatement<?>> buildDeclaredModel() throws YangParserException {
+            return parser.buildDeclaredModel();
+        }
+
+        @Override
+        public EffectiveModelContext buildEffectiveModel() throws YangParserException {
+            return parser.buildEffectiveModel();
+        }
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ * Copyright (c) 2020 PANTHEON.tech s.r.o. All Rights Reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at https://www.eclipse.org/legal/epl-v10.html
+ */
+package io.lighty.netconf.device.utils;
+
+import java.util.Optional;
+import org.w3c.dom.Attr;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+
+/**
+ * Parts of edit-config request relevant for its processing. All of them are collected in a single walk through
+ * the request DOM tree, in document order.
+ */
+public final class EditConfigInput {
+
+    private static final String OPERATION = "operation";
+    private static final String DEFAULT_OPERATION = "default-operation";
+    private static final String CONFIG = "config";
+
+    private Element config;
+    private Element operationElement;
+    private Operation operation;
+    private DefaultOperation defaultOperation;
+
+    private EditConfigInput() {
+    }
+
+    /**
+     * Walks the request element and collects the first config element, the first element carrying operation
+     * attribute and the default-operation.
+     *
+     * <p>Only the operation attribute in the NETCONF base namespace is recognized, as defined by RFC 6241 section
+     * 7.2. Unqualified operation attributes or those of other namespaces are ignored, same as by the parser of
+     * the config data.
+     *
+     * @param requestXmlElement edit-config request element
+     * @return parsed edit-config input
+     */
+    public static EditConfigInput parse(final Element requestXmlElement) {
+        final EditConfigInput input = new EditConfigInput();
+        Node node = requestXmlElement;
+        while (node != null) {
+            if (node.getNodeType() == Node.ELEMENT_NODE) {
+                input.visit((Element) node);
+            }
+            node = nextNode(requestXmlElement, node);
+        }
+        return input;
+    }
+
+    private void visit(final Element element) {
+        if (defaultOperation == null && DEFAULT_OPERATION.equals(element.getLocalName())) {
+            defaultOperation = DefaultOperation.getOperationByName(element);
+        } else if (config == null && CONFIG.equals(element.getLocalName())
+                && RPCUtil.NETCONF_BASE_NAMESPACE.equals(element.getNamespaceURI())) {
+            config = element;
+        }
+        if (operationElement == null) {
+            final Attr attribute = element.getAttributeNodeNS(RPCUtil.NETCONF_BASE_NAMESPACE, OPERATION);
+            if (attribute != null) {
+                operationElement = element;
+                operation = Operation.getOperationByName(attribute.getValue());
+            }
+        }
+    }
+
+    /**
+     * Returns next node in document order, without leaving the subtree of the root.
+     */
+    private static Node nextNode(final Node root, final Node current) {
+        final Node child = current.getFirstChild();
+        if (child != null) {
+            return child;
+        }
+        Node node = current;
+        while (node != null && node != root) {
+            final Node sibling = node.getNextSibling();
+            if (sibling != null) {
+                return sibling;
+            }
+            node = node.getParentNode();
+        }
+        return null;
+    }
+
+    public Optional<Element> getConfig() {
+        return Optional.ofNullable(config);
+    }
+
+    public Optional<Element> getOperationElement() {
+        return Optional.ofNullable(operationElement);
+    }
+
+    public Optional<Operation> getOperation() {
+        return Optional.ofNullable(operation);
+    }
+
+    public Optional<DefaultOperation> getDefaultOperation() {
+        return Optional.ofNullable(defaultOperation);
+    }
+}
@@ -25,6 +25,12 @@ public final class ModelUtils {
             ImmutableSet.of("urn:ietf:params:netconf:base:1.0", "urn:ietf:params:netconf:base:1.1");
     public static final String DEFAULT_NOTIFICATION_CAPABILITY =
         "urn:ietf:params:netconf:capability:notification:1.0";
+    public static final String INTERLEAVE_CAPABILITY = "urn:ietf:params:netconf:capability:interleave:1.0";
+    public static final String CANDIDATE_CAPABILITY = "urn:ietf:params:netconf:capability:candidate:1.0";
+    public static final String VALIDATE_CAPABILITY = "urn:ietf:params:netconf:capability:validate:1.1";
+    public static final String CONFIRMED_COMMIT_CAPABILITY =
+        "urn:ietf:params:netconf:capability:confirmed-commit:1.1";
+    public static final String XPATH_CAPABILITY = "urn:ietf:params:netconf:capability:xpath:1.0";
 
     /**
      * Get all Yang modules from classpath filtered by top-level module.
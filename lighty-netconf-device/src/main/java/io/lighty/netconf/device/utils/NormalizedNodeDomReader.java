@@ -0,0 +1,69 @@
+/*
+ * Copyright (c) 2020 PANTHEON.tech s.r.o. All Rights Reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at https://www.eclipse.org/legal/epl-v10.html
+ */
+package io.lighty.netconf.device.utils;
+
+import io.lighty.codecs.util.exception.DeserializationException;
+import java.io.IOException;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.transform.dom.DOMSource;
+import org.opendaylight.yangtools.yang.data.api.schema.NormalizedNode;
+import org.opendaylight.yangtools.yang.data.api.schema.stream.NormalizationResult;
+import org.opendaylight.yangtools.yang.data.api.schema.stream.NormalizedNodeStreamWriter;
+import org.opendaylight.yangtools.yang.data.codec.xml.XmlParserStream;
+import org.opendaylight.yangtools.yang.data.impl.schema.ImmutableNormalizedNodeStreamWriter;
+import org.opendaylight.yangtools.yang.data.impl.schema.NormalizationResultHolder;
+import org.opendaylight.yangtools.yang.model.util.SchemaInferenceStack.Inference;
+import org.w3c.dom.Element;
+
+/**
+ * Reads {@link NormalizedNode}s straight from a DOM tree. Counterpart of {@link NormalizedNodeDomWriter}, the DOM
+ * elements are traversed by the parser instead of being serialized to a {@link String} and parsed again.
+ */
+public final class NormalizedNodeDomReader {
+
+    private NormalizedNodeDomReader() {
+        throw new UnsupportedOperationException("do not instantiate utility class");
+    }
+
+    /**
+     * Reads data of the element. The element is parsed the same way as by
+     * {@link io.lighty.codecs.util.XmlNodeConverter#deserialize(Inference, java.io.Reader)}, e.g. the config
+     * element of edit-config read with the root inference results in a container with the top level data nodes.
+     *
+     * @param inference schema inference of the element
+     * @param element DOM element with the data, it has to be namespace aware
+     * @return data of the element
+     * @throws DeserializationException in case the element does not match the schema
+     */
+    public static NormalizedNode readData(final Inference inference, final Element element)
+            throws DeserializationException {
+        return read(inference, element).data();
+    }
+
+    /**
+     * Reads data of the element together with their metadata. Attributes of the data elements mapped to
+     * annotations, e.g. the operation attribute of edit-config, are reported as {@link NormalizationResult#metadata()}
+     * at the path of the annotated data node.
+     *
+     * @param inference schema inference of the element
+     * @param element DOM element with the data, it has to be namespace aware
+     * @return data of the element with their metadata
+     * @throws DeserializationException in case the element does not match the schema
+     */
+    public static NormalizationResult<?> read(final Inference inference, final Element element)
+            throws DeserializationException {
+        final NormalizationResultHolder result = new NormalizationResultHolder();
+        final NormalizedNodeStreamWriter streamWriter = ImmutableNormalizedNodeStreamWriter.from(result);
+        try (XmlParserStream parser = XmlParserStream.create(streamWriter, inference)) {
+            parser.traverse(new DOMSource(element));
+        } catch (IOException | XMLStreamException e) {
+            throw new DeserializationException(e);
+        }
+        return result.getResult();
+    }
+}
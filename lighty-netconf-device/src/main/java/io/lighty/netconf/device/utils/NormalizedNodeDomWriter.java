@@ -0,0 +1,284 @@
+/*
+ * Copyright (c) 2020 PANTHEON.tech s.r.o. All Rights Reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at https://www.eclipse.org/legal/epl-v10.html
+ */
+package io.lighty.netconf.device.utils;
+
+import io.lighty.codecs.util.exception.SerializationException;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import javax.xml.XMLConstants;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+import javax.xml.transform.dom.DOMResult;
+import org.opendaylight.yangtools.yang.data.api.YangInstanceIdentifier.NodeIdentifier;
+import org.opendaylight.yangtools.yang.data.api.YangInstanceIdentifier.NodeIdentifierWithPredicates;
+import org.opendaylight.yangtools.yang.data.api.YangInstanceIdentifier.NodeWithValue;
+import org.opendaylight.yangtools.yang.data.api.schema.ContainerNode;
+import org.opendaylight.yangtools.yang.data.api.schema.NormalizedNode;
+import org.opendaylight.yangtools.yang.data.api.schema.stream.ForwardingNormalizedNodeStreamWriter;
+import org.opendaylight.yangtools.yang.data.api.schema.stream.NormalizedNodeStreamWriter;
+import org.opendaylight.yangtools.yang.data.api.schema.stream.NormalizedNodeWriter;
+import org.opendaylight.yangtools.yang.data.codec.xml.XMLStreamNormalizedNodeStreamWriter;
+import org.opendaylight.yangtools.yang.model.api.EffectiveModelContext;
+import org.opendaylight.yangtools.yang.model.api.stmt.SchemaNodeIdentifier.Absolute;
+import org.opendaylight.yangtools.yang.model.util.SchemaInferenceStack;
+import org.opendaylight.yangtools.yang.model.util.SchemaInferenceStack.Inference;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+
+/**
+ * Writes {@link NormalizedNode}s straight into a DOM tree. Unlike serializing to a {@link String} and parsing it
+ * back, the data is materialized exactly once, as children of the target {@link Node}.
+ *
+ * <p>Elements are counted while they are written, every top-level element written by this class keeps the number
+ * of elements of its subtree, so {@link #countElements(Element)} does not have to traverse the data again.
+ */
+public final class NormalizedNodeDomWriter {
+
+    private static final XMLOutputFactory XML_OUT_FACTORY = XMLOutputFactory.newDefaultFactory();
+    private static final String ELEMENT_COUNT = NormalizedNodeDomWriter.class.getName() + ".elementCount";
+
+    static {
+        XML_OUT_FACTORY.setProperty(XMLOutputFactory.IS_REPAIRING_NAMESPACES, Boolean.TRUE);
+    }
+
+    private NormalizedNodeDomWriter() {
+        throw new UnsupportedOperationException("do not instantiate utility class");
+    }
+
+    /**
+     * Writes data node as a child of the parent node.
+     *
+     * @param inference schema inference of the parent of the data node
+     * @param normalizedNode data node to be written
+     * @param parent DOM node the data will be appended to
+     * @throws SerializationException in case the data could not be written
+     */
+    public static void writeData(final Inference inference, final NormalizedNode normalizedNode, final Node parent)
+            throws SerializationException {
+        final XMLStreamWriter xmlWriter = createXmlStreamWriter(parent);
+        final Node lastChild = parent.getLastChild();
+        final CountingStreamWriter streamWriter = new CountingStreamWriter(
+            XMLStreamNormalizedNodeStreamWriter.create(xmlWriter, inference));
+        try (NormalizedNodeWriter writer = NormalizedNodeWriter.forStreamWriter(streamWriter)) {
+            writer.write(normalizedNode);
+            writer.flush();
+        } catch (IOException e) {
+            throw new SerializationException(e);
+        }
+        streamWriter.markElements(lastChild == null ? parent.getFirstChild() : lastChild.getNextSibling());
+    }
+
+    /**
+     * Writes RPC or action input/output container as a child of the parent node. The container element itself is
+     * created from the node's name and its children are written in the context of the given operation path.
+     *
+     * @param modelContext model context
+     * @param operationPath schema path of the operation input or output statement
+     * @param containerNode input or output container
+     * @param parent DOM node the data will be appended to
+     * @throws SerializationException in case the data could not be written
+     */
+    public static void writeOperationContainer(final EffectiveModelContext modelContext, final Absolute operationPath,
+            final ContainerNode containerNode, final Node parent) throws SerializationException {
+        final XMLStreamWriter xmlWriter = createXmlStreamWriter(parent);
+        final CountingStreamWriter streamWriter = new CountingStreamWriter(XMLStreamNormalizedNodeStreamWriter.create(
+            xmlWriter, SchemaInferenceStack.of(modelContext, operationPath).toInference()));
+        try (NormalizedNodeWriter writer = NormalizedNodeWriter.forStreamWriter(streamWriter)) {
+            final String namespace = containerNode.name().getNodeType().getNamespace().toString();
+            xmlWriter.writeStartElement(XMLConstants.DEFAULT_NS_PREFIX,
+                containerNode.name().getNodeType().getLocalName(), namespace);
+            xmlWriter.writeDefaultNamespace(namespace);
+            for (NormalizedNode child : containerNode.body()) {
+                writer.write(child);
+            }
+            writer.flush();
+            xmlWriter.writeEndElement();
+        } catch (IOException | XMLStreamException e) {
+            throw new SerializationException(e);
+        }
+        // children of the container are marked, processors move them out of the container element
+        streamWriter.markElements(parent.getLastChild().getFirstChild());
+    }
+
+    /**
+     * Counts elements of the tree, including the root element. Subtrees written by this class are not traversed,
+     * the number of their elements was kept while they were written. Elements of anyxml and anydata content are
+     * not included in that number.
+     *
+     * @param root root element of the tree
+     * @return number of elements of the tree
+     */
+    public static int countElements(final Element root) {
+        final Object elementCount = root.getUserData(ELEMENT_COUNT);
+        if (elementCount != null) {
+            return (Integer) elementCount;
+        }
+        int count = 1;
+        for (Node child = root.getFirstChild(); child != null; child = child.getNextSibling()) {
+            if (child.getNodeType() == Node.ELEMENT_NODE) {
+                count += countElements((Element) child);
+            }
+        }
+        return count;
+    }
+
+    private static XMLStreamWriter createXmlStreamWriter(final Node parent) throws SerializationException {
+        try {
+            return XML_OUT_FACTORY.createXMLStreamWriter(new DOMResult(parent));
+        } catch (XMLStreamException e) {
+            throw new SerializationException(e);
+        }
+    }
+
+    /**
+     * Counts elements emitted by the delegate. Lists, leaf-lists and choices have no element of their own, their
+     * entries and children have.
+     */
+    private static final class CountingStreamWriter extends ForwardingNormalizedNodeStreamWriter {
+        private final NormalizedNodeStreamWriter delegate;
+        private final Deque<Boolean> openNodes = new ArrayDeque<>();
+        private final List<Integer> topLevelCounts = new ArrayList<>();
+        private int elementDepth;
+
+        CountingStreamWriter(final NormalizedNodeStreamWriter delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        protected NormalizedNodeStreamWriter delegate() {
+            return delegate;
+        }
+
+        @Override
+        public void startLeafNode(final NodeIdentifier name) throws IOException {
+            super.startLeafNode(name);
+            startElement();
+        }
+
+        @Override
+        public void startLeafSet(final NodeIdentifier name, final int childSizeHint) throws IOException {
+            super.startLeafSet(name, childSizeHint);
+            openNodes.push(Boolean.FALSE);
+        }
+
+        @Override
+        public void startOrderedLeafSet(final NodeIdentifier name, final int childSizeHint) throws IOException {
+            super.startOrderedLeafSet(name, childSizeHint);
+            openNodes.push(Boolean.FALSE);
+        }
+
+        @Override
+        public void startLeafSetEntryNode(final NodeWithValue<?> name) throws IOException {
+            super.startLeafSetEntryNode(name);
+            startElement();
+        }
+
+        @Override
+        public void startContainerNode(final NodeIdentifier name, final int childSizeHint) throws IOException {
+            super.startContainerNode(name, childSizeHint);
+            startElement();
+        }
+
+        @Override
+        public void startUnkeyedList(final NodeIdentifier name, final int childSizeHint) throws IOException {
+            super.startUnkeyedList(name, childSizeHint);
+            openNodes.push(Boolean.FALSE);
+        }
+
+        @Override
+        public void startUnkeyedListItem(final NodeIdentifier name, final int childSizeHint) throws IOException {
+            super.startUnkeyedListItem(name, childSizeHint);
+            startElement();
+        }
+
+        @Override
+        public void startMapNode(final NodeIdentifier name, final int childSizeHint) throws IOException {
+            super.startMapNode(name, childSizeHint);
+            openNodes.push(Boolean.FALSE);
+        }
+
+        @Override
+        public void startMapEntryNode(final NodeIdentifierWithPredicates identifier, final int childSizeHint)
+                throws IOException {
+            super.startMapEntryNode(identifier, childSizeHint);
+            startElement();
+        }
+
+        @Override
+        public void startOrderedMapNode(final NodeIdentifier name, final int childSizeHint) throws IOException {
+            super.startOrderedMapNode(name, childSizeHint);
+            openNodes.push(Boolean.FALSE);
+        }
+
+        @Override
+        public void startChoiceNode(final NodeIdentifier name, final int childSizeHint) throws IOException {
+            super.startChoiceNode(name, childSizeHint);
+            openNodes.push(Boolean.FALSE);
+        }
+
+        @Override
+        public boolean startAnyxmlNode(final NodeIdentifier name, final Class<?> objectModel) throws IOException {
+            final boolean started = super.startAnyxmlNode(name, objectModel);
+            if (started) {
+                startElement();
+            }
+            return started;
+        }
+
+        @Override
+        public boolean startAnydataNode(final NodeIdentifier name, final Class<?> objectModel) throws IOException {
+            final boolean started = super.startAnydataNode(name, objectModel);
+            if (started) {
+                startElement();
+            }
+            return started;
+        }
+
+        @Override
+        public void endNode() throws IOException {
+            super.endNode();
+            if (openNodes.pop()) {
+                elementDepth--;
+            }
+        }
+
+        private void startElement() {
+            if (elementDepth == 0) {
+                topLevelCounts.add(1);
+            } else {
+                final int last = topLevelCounts.size() - 1;
+                topLevelCounts.set(last, topLevelCounts.get(last) + 1);
+            }
+            elementDepth++;
+            openNodes.push(Boolean.TRUE);
+        }
+
+        /**
+         * Keeps the counts in the written top-level elements, starting at the first of them. Nothing is kept if
+         * the elements do not match the counts, they are traversed by {@link #countElements(Element)} then.
+         */
+        void markElements(final Node first) {
+            final List<Element> elements = new ArrayList<>(topLevelCounts.size());
+            for (Node node = first; node != null; node = node.getNextSibling()) {
+                if (node.getNodeType() == Node.ELEMENT_NODE) {
+                    elements.add((Element) node);
+                }
+            }
+            if (elements.size() != topLevelCounts.size()) {
+                return;
+            }
+            for (int i = 0; i < elements.size(); i++) {
+                elements.get(i).setUserData(ELEMENT_COUNT, topLevelCounts.get(i), null);
+            }
+        }
+    }
+}
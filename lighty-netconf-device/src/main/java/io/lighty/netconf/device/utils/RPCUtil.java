@@ -23,13 +23,11 @@ import java.util.Set;
 import javax.xml.XMLConstants;
 import javax.xml.transform.OutputKeys;
 import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerConfigurationException;
 import javax.xml.transform.TransformerException;
 import javax.xml.transform.TransformerFactory;
 import javax.xml.transform.dom.DOMSource;
 import javax.xml.transform.stream.StreamResult;
-import javax.xml.xpath.XPathConstants;
-import javax.xml.xpath.XPathExpressionException;
-import javax.xml.xpath.XPathFactory;
 import org.opendaylight.yangtools.yang.data.api.YangInstanceIdentifier;
 import org.opendaylight.yangtools.yang.data.api.schema.DataContainerChild;
 import org.opendaylight.yangtools.yang.data.api.schema.MapEntryNode;
@@ -69,6 +67,10 @@ public final class RPCUtil {
         TRANSFORMER_FACTORY.setAttribute(XMLConstants.ACCESS_EXTERNAL_STYLESHEET, "");
     }
 
+    // Transformers are not thread-safe, but can be reused by a single thread
+    private static final ThreadLocal<Transformer> INDENTING_TRANSFORMER =
+            ThreadLocal.withInitial(RPCUtil::createIndentingTransformer);
+
     /**
      * Transform {@link Element} instance into {@link Reader}.
      *
@@ -112,17 +114,42 @@ public final class RPCUtil {
      * @return String the formatted XML element.
      */
     public static String formatXml(Element xml) {
+        Writer outWriter = new StringWriter();
         try {
-            Transformer tf = TRANSFORMER_FACTORY.newTransformer();
-            tf.setOutputProperty(OutputKeys.ENCODING, StandardCharsets.UTF_8.name());
-            tf.setOutputProperty(OutputKeys.INDENT, "yes");
-            Writer outWriter = new StringWriter();
-            tf.transform(new DOMSource(xml), new StreamResult(outWriter));
-            return outWriter.toString();
+            formatXml(xml, outWriter);
         } catch (TransformerException e) {
             LOG.warn("Could not format XML element, {}", e.getMessage());
             return BLANK;
         }
+        return outWriter.toString();
+    }
+
+    /**
+     * Formats the given input xml into the writer.
+     *
+     * @param xml the XML element to format.
+     * @param outWriter writer receiving formatted XML element
+     * @throws TransformerException in case the element could not be formatted
+     */
+    static void formatXml(Element xml, Writer outWriter) throws TransformerException {
+        try {
+            INDENTING_TRANSFORMER.get().transform(new DOMSource(xml), new StreamResult(outWriter));
+        } catch (TransformerException | RuntimeException e) {
+            // transformer state is undefined after failed transformation, do not reuse it
+            INDENTING_TRANSFORMER.remove();
+            throw e;
+        }
+    }
+
+    private static Transformer createIndentingTransformer() {
+        try {
+            Transformer tf = TRANSFORMER_FACTORY.newTransformer();
+            tf.setOutputProperty(OutputKeys.ENCODING, StandardCharsets.UTF_8.name());
+            tf.setOutputProperty(OutputKeys.INDENT, "yes");
+            return tf;
+        } catch (TransformerConfigurationException e) {
+            throw new IllegalStateException("Could not create XML transformer", e);
+        }
     }
 
     public static String formatXml(Node node) {
@@ -170,33 +197,58 @@ public final class RPCUtil {
         return getNodes(nodes, ImmutableSet.of(Node.TEXT_NODE));
     }
 
+    /**
+     * Finds the first operation attribute in the edit-config request.
+     *
+     * @param element edit-config request element
+     * @return operation of the first element carrying the operation attribute
+     * @see EditConfigInput
+     */
     public static Optional<Operation> retrieveOperation(Element element) {
-        try {
-            Node foundNode = retrieveNodeListByXpath(element, "//*[@*[local-name() = 'operation']]").item(0);
-            if (foundNode == null) {
-                return Optional.empty();
-            }
-            return Optional.of(Operation.getOperationByName(foundNode));
-        } catch (XPathExpressionException e) {
-            throw new IllegalStateException(e);
-        }
+        return EditConfigInput.parse(element).getOperation();
     }
 
+    /**
+     * Finds the default-operation in the edit-config request.
+     *
+     * @param element edit-config request element
+     * @return default-operation if present
+     * @see EditConfigInput
+     */
     public static Optional<DefaultOperation> retrieveDefaultOperation(Element element) {
-        try {
-            Node foundNode = retrieveNodeListByXpath(element, "//*[local-name() = 'default-operation']").item(0);
-            if (foundNode == null) {
-                return Optional.empty();
+        return EditConfigInput.parse(element).getDefaultOperation();
+    }
+
+    /**
+     * Finds the datastore named by a parameter of the request, e.g. {@code <target><candidate/></target>}.
+     *
+     * @param element request element, or the rpc element wrapping it
+     * @param parameter name of the parameter holding the datastore, target or source
+     * @return local name of the datastore element, empty if the parameter or the datastore is missing
+     */
+    public static Optional<String> retrieveDatastore(Element element, String parameter) {
+        final NodeList parameters = element.getElementsByTagNameNS(NETCONF_BASE_NAMESPACE, parameter);
+        if (parameters.getLength() > 0) {
+            for (Node child = parameters.item(0).getFirstChild(); child != null; child = child.getNextSibling()) {
+                if (child.getNodeType() == Node.ELEMENT_NODE) {
+                    return Optional.of(child.getLocalName());
+                }
             }
-            return Optional.of(DefaultOperation.getOperationByName(foundNode));
-        } catch (XPathExpressionException e) {
-            throw new IllegalStateException(e);
         }
+        return Optional.empty();
     }
 
-    private static NodeList retrieveNodeListByXpath(Element element, String xpath) throws XPathExpressionException {
-        return (NodeList) XPathFactory.newInstance().newXPath().compile(xpath)
-                .evaluate(element, XPathConstants.NODESET);
+    /**
+     * Finds a parameter of the request in the base namespace, e.g. {@code <confirm-timeout>}.
+     *
+     * @param element request element, or the rpc element wrapping it
+     * @param parameter name of the parameter
+     * @return trimmed text of the parameter, empty string for a parameter without value, empty if it is missing
+     */
+    public static Optional<String> retrieveParameter(Element element, String parameter) {
+        final NodeList parameters = element.getElementsByTagNameNS(NETCONF_BASE_NAMESPACE, parameter);
+        return parameters.getLength() == 0 ? Optional.empty()
+            : Optional.of(parameters.item(0).getTextContent().trim());
     }
 
 }
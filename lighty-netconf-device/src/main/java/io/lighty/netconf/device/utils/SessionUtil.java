@@ -0,0 +1,120 @@
+/*
+ * Copyright (c) 2020 PANTHEON.tech s.r.o. All Rights Reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at https://www.eclipse.org/legal/epl-v10.html
+ */
+package io.lighty.netconf.device.utils;
+
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelOutboundHandlerAdapter;
+import io.netty.channel.ChannelPromise;
+import java.lang.reflect.Field;
+import java.lang.reflect.InaccessibleObjectException;
+import org.eclipse.jdt.annotation.Nullable;
+import org.opendaylight.netconf.api.NetconfSession;
+import org.opendaylight.netconf.api.messages.NetconfMessage;
+import org.opendaylight.netconf.nettyutil.AbstractNetconfSession;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Lifecycle of the NETCONF sessions of simulated devices.
+ *
+ * <p>The testtool creates one operation service for all sessions of a device, its close is called whenever any of
+ * them goes down, without telling which one. A session dropped by its client without close-session even stays up.
+ * The channel of the session is the only reliable source of its end, it is not exposed by the server, so it is read
+ * from the session.
+ */
+public final class SessionUtil {
+
+    private static final Logger LOG = LoggerFactory.getLogger(SessionUtil.class);
+    private static final String RPC_REPLY = "rpc-reply";
+    private static final @Nullable Field CHANNEL_FIELD = channelField();
+
+    private SessionUtil() {
+        throw new UnsupportedOperationException("do not instantiate utility class");
+    }
+
+    /**
+     * Registers listener called once the session is closed, by close-session as well as by the client dropping
+     * the connection. Listener of an already closed session is called right away.
+     *
+     * @param session session of a device
+     * @param listener listener called on the thread of the session
+     * @return true if the listener was registered, false if the end of the session can not be observed
+     */
+    public static boolean addCloseListener(final NetconfSession session, final Runnable listener) {
+        final Channel channel = getChannel(session);
+        if (channel == null) {
+            return false;
+        }
+        channel.closeFuture().addListener(future -> listener.run());
+        return true;
+    }
+
+    /**
+     * Registers listener called once the next rpc-reply of the session was written. The reply to an RPC is sent
+     * after its operation returned, so an operation can use it to send messages which have to follow its reply.
+     * Listener is called also when the write failed, it is not called when the session closes before the reply.
+     *
+     * @param session session of a device
+     * @param listener listener called on the thread of the session
+     * @return true if the listener was registered, false if the replies of the session can not be observed
+     */
+    public static boolean addReplyListener(final NetconfSession session, final Runnable listener) {
+        final Channel channel = getChannel(session);
+        if (channel == null) {
+            return false;
+        }
+        // added last, so the handler sees messages written by the session before they are encoded
+        channel.pipeline().addLast(new ReplyWriteHandler(listener));
+        return true;
+    }
+
+    private static @Nullable Channel getChannel(final NetconfSession session) {
+        if (CHANNEL_FIELD == null || !(session instanceof AbstractNetconfSession)) {
+            return null;
+        }
+        try {
+            return (Channel) CHANNEL_FIELD.get(session);
+        } catch (IllegalAccessException e) {
+            LOG.debug("Channel of session {} is not accessible", session.sessionId().getValue(), e);
+            return null;
+        }
+    }
+
+    private static @Nullable Field channelField() {
+        try {
+            final Field field = AbstractNetconfSession.class.getDeclaredField("channel");
+            field.setAccessible(true);
+            return field;
+        } catch (NoSuchFieldException | InaccessibleObjectException | SecurityException e) {
+            LOG.warn("Channels of NETCONF sessions are not accessible, closed sessions are recognized when they are "
+                + "found down", e);
+            return null;
+        }
+    }
+
+    private static final class ReplyWriteHandler extends ChannelOutboundHandlerAdapter {
+
+        private final Runnable listener;
+
+        ReplyWriteHandler(final Runnable listener) {
+            this.listener = listener;
+        }
+
+        @Override
+        public void write(final ChannelHandlerContext ctx, final Object msg, final ChannelPromise promise)
+                throws Exception {
+            if (msg instanceof NetconfMessage
+                    && RPC_REPLY.equals(((NetconfMessage) msg).getDocument().getDocumentElement().getLocalName())) {
+                ctx.pipeline().remove(this);
+                promise.addListener(future -> listener.run());
+            }
+            super.write(ctx, msg, promise);
+        }
+    }
+}
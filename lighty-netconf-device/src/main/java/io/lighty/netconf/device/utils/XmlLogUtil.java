@@ -0,0 +1,174 @@
+/*
+ * Copyright (c) 2020 PANTHEON.tech s.r.o. All Rights Reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at https://www.eclipse.org/legal/epl-v10.html
+ */
+package io.lighty.netconf.device.utils;
+
+import java.io.Writer;
+import javax.xml.transform.TransformerException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+
+/**
+ * Logging of XML payloads. Payloads are formatted only when the logger level requires it and the formatted output
+ * is capped to {@link XmlLogUtil#getMaxPayloadLength()} characters, so big requests and replies are not serialized
+ * as a whole just to be logged.
+ *
+ * <p>The cap can be changed by the {@value #MAX_PAYLOAD_LENGTH_PROPERTY} system property.
+ */
+public final class XmlLogUtil {
+
+    public static final String MAX_PAYLOAD_LENGTH_PROPERTY = "lighty.netconf.device.log.max-payload-length";
+    public static final int DEFAULT_MAX_PAYLOAD_LENGTH = 16_384;
+
+    private static final Logger LOG = LoggerFactory.getLogger(XmlLogUtil.class);
+    private static final int MAX_PAYLOAD_LENGTH =
+            Integer.getInteger(MAX_PAYLOAD_LENGTH_PROPERTY, DEFAULT_MAX_PAYLOAD_LENGTH);
+
+    private XmlLogUtil() {
+        throw new UnsupportedOperationException("do not instantiate utility class");
+    }
+
+    public static int getMaxPayloadLength() {
+        return MAX_PAYLOAD_LENGTH;
+    }
+
+    /**
+     * Logs the XML payload at debug level. Nothing is formatted when debug level is disabled.
+     *
+     * @param log logger to be used
+     * @param message message with single placeholder for the payload
+     * @param xml XML payload
+     */
+    public static void debug(final Logger log, final String message, final Node xml) {
+        if (log.isDebugEnabled()) {
+            log.debug(message, lazyFormat(xml));
+        }
+    }
+
+    /**
+     * Logs the XML payload at trace level. Nothing is formatted when trace level is disabled.
+     *
+     * @param log logger to be used
+     * @param message message with single placeholder for the payload
+     * @param xml XML payload
+     */
+    public static void trace(final Logger log, final String message, final Node xml) {
+        if (log.isTraceEnabled()) {
+            log.trace(message, lazyFormat(xml));
+        }
+    }
+
+    /**
+     * Creates an object which formats the XML payload in its {@link Object#toString()}. The result can be passed
+     * as a logger argument, formatting then happens only if the message is actually logged.
+     *
+     * @param xml XML payload
+     * @return object formatting the payload lazily
+     */
+    public static Object lazyFormat(final Node xml) {
+        return new LazyXml(xml, MAX_PAYLOAD_LENGTH);
+    }
+
+    /**
+     * Formats the XML payload, the output is truncated after maxLength characters.
+     *
+     * @param xml XML payload
+     * @param maxLength maximal length of the output
+     * @return formatted XML payload
+     */
+    public static String format(final Node xml, final int maxLength) {
+        final Element element = xml instanceof Document ? ((Document) xml).getDocumentElement() : (Element) xml;
+        final BoundedWriter writer = new BoundedWriter(maxLength);
+        try {
+            RPCUtil.formatXml(element, writer);
+        } catch (LimitReachedException e) {
+            // serialization was stopped by the writer
+        } catch (TransformerException e) {
+            // the transformer may wrap exception of the writer
+            if (!writer.isTruncated()) {
+                LOG.warn("Could not format XML element, {}", e.getMessage());
+                return "";
+            }
+        }
+        if (writer.isTruncated()) {
+            return writer + "... [truncated, payload exceeds " + maxLength + " characters]";
+        }
+        return writer.toString();
+    }
+
+    private static final class LazyXml {
+        private final Node xml;
+        private final int maxLength;
+
+        LazyXml(final Node xml, final int maxLength) {
+            this.xml = xml;
+            this.maxLength = maxLength;
+        }
+
+        @Override
+        public String toString() {
+            return format(xml, maxLength);
+        }
+    }
+
+    /**
+     * {@link Writer} which stops the serialization once the limit is reached.
+     */
+    private static final class BoundedWriter extends Writer {
+        private final StringBuilder builder = new StringBuilder();
+        private final int limit;
+        private boolean truncated;
+
+        BoundedWriter(final int limit) {
+            this.limit = limit;
+        }
+
+        @Override
+        public void write(final char[] cbuf, final int off, final int len) {
+            final int remaining = limit - builder.length();
+            if (len > remaining) {
+                builder.append(cbuf, off, Math.max(remaining, 0));
+                truncated = true;
+                throw new LimitReachedException();
+            }
+            builder.append(cbuf, off, len);
+        }
+
+        @Override
+        public void flush() {
+            // nothing to flush
+        }
+
+        @Override
+        public void close() {
+            // nothing to close
+        }
+
+        boolean isTruncated() {
+            return truncated;
+        }
+
+        @Override
+        public String toString() {
+            return builder.toString();
+        }
+    }
+
+    /**
+     * Thrown by {@link BoundedWriter} to abort the serialization once the limit is reached.
+     */
+    private static final class LimitReachedException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        LimitReachedException() {
+            super("Payload length limit reached", null, false, false);
+        }
+    }
+}
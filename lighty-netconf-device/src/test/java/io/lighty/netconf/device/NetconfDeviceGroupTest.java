@@ -0,0 +1,90 @@
+/*
+ * Copyright (c) 2024 PANTHEON.tech, s.r.o. and others. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at https://www.eclipse.org/legal/epl-v10.html
+ */
+package io.lighty.netconf.device;
+
+import io.lighty.core.common.models.ModuleId;
+import io.lighty.netconf.device.requests.GetRequestProcessor;
+import io.lighty.netconf.device.utils.ModelUtils;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.opendaylight.mdsal.binding.api.WriteTransaction;
+import org.opendaylight.mdsal.common.api.LogicalDatastoreType;
+import org.opendaylight.yang.gen.v1.urn.tbd.params.xml.ns.yang.network.topology.rev131021.NetworkTopology;
+import org.opendaylight.yang.gen.v1.urn.tbd.params.xml.ns.yang.network.topology.rev131021.TopologyId;
+import org.opendaylight.yang.gen.v1.urn.tbd.params.xml.ns.yang.network.topology.rev131021.network.topology.Topology;
+import org.opendaylight.yang.gen.v1.urn.tbd.params.xml.ns.yang.network.topology.rev131021.network.topology.TopologyBuilder;
+import org.opendaylight.yangtools.binding.DataObjectIdentifier;
+import org.opendaylight.yangtools.binding.meta.YangModuleInfo;
+
+public class NetconfDeviceGroupTest {
+
+    private static final long REQUEST_TIMEOUT_MILLIS = 5_000;
+    private static final int DEVICE_COUNT = 3;
+    private static final Set<YangModuleInfo> MODULES = ModelUtils.getModelsFromClasspath(
+        ModuleId.from("urn:TBD:params:xml:ns:yang:network-topology", "network-topology", "2013-10-21"));
+
+    @Test
+    public void testDevicesHaveIsolatedDatastores() throws Exception {
+        try (NetconfDeviceGroup group = (NetconfDeviceGroup) new NetconfDeviceBuilder()
+                .setCredentials("admin", "admin")
+                .setBindingPort(17900)
+                .setDeviceCount(DEVICE_COUNT)
+                .withIsolatedDatastores(true)
+                .withModels(MODULES)
+                .withDefaultRequestProcessors()
+                .build()) {
+            final List<NetconfDevice> devices = group.getDevices();
+            Assertions.assertEquals(DEVICE_COUNT, devices.size());
+
+            final NetconfDeviceServices first = devices.get(0).getNetconfDeviceServices();
+            final NetconfDeviceServices second = devices.get(1).getNetconfDeviceServices();
+            Assertions.assertSame(first.getAdapterContext(), second.getAdapterContext());
+            Assertions.assertSame(first.getXmlNodeConverter(), second.getXmlNodeConverter());
+            Assertions.assertNotSame(first.getDOMDataBroker(), second.getDOMDataBroker());
+
+            final Topology topology = new TopologyBuilder().setTopologyId(new TopologyId("topology")).build();
+            final DataObjectIdentifier<Topology> topologyPath = DataObjectIdentifier.builder(NetworkTopology.class)
+                .child(Topology.class, topology.key())
+                .build();
+            final WriteTransaction writeTransaction = first.getDataBroker().newWriteOnlyTransaction();
+            writeTransaction.put(LogicalDatastoreType.CONFIGURATION, topologyPath, topology);
+            writeTransaction.commit().get(REQUEST_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+
+            Assertions.assertTrue(first.getDataBroker().newReadOnlyTransaction()
+                .exists(LogicalDatastoreType.CONFIGURATION, topologyPath)
+                .get(REQUEST_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS));
+            Assertions.assertFalse(second.getDataBroker().newReadOnlyTransaction()
+                .exists(LogicalDatastoreType.CONFIGURATION, topologyPath)
+                .get(REQUEST_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS));
+        }
+    }
+
+    @Test
+    public void testSharedRequestProcessorIsRejected() {
+        final NetconfDeviceBuilder builder = new NetconfDeviceBuilder()
+            .setDeviceCount(DEVICE_COUNT)
+            .withIsolatedDatastores(true)
+            .withModels(MODULES)
+            .withRequestProcessor(new GetRequestProcessor());
+        Assertions.assertThrows(IllegalStateException.class, builder::build);
+    }
+
+    @Test
+    public void testDatastorePersistenceIsRejected() {
+        final NetconfDeviceBuilder builder = new NetconfDeviceBuilder()
+            .setDeviceCount(DEVICE_COUNT)
+            .withIsolatedDatastores(true)
+            .withModels(MODULES)
+            .withDatastorePersistence(Duration.ofSeconds(1));
+        Assertions.assertThrows(IllegalStateException.class, builder::build);
+    }
+}
@@ -0,0 +1,220 @@
+/*
+ * Copyright (c) 2024 PANTHEON.tech, s.r.o. and others. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at https://www.eclipse.org/legal/epl-v10.html
+ */
+package io.lighty.netconf.device.datastore;
+
+import io.lighty.core.common.models.ModuleId;
+import io.lighty.netconf.device.NetconfDeviceServices;
+import io.lighty.netconf.device.NetconfDeviceServicesImpl;
+import io.lighty.netconf.device.utils.ModelUtils;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.opendaylight.mdsal.binding.api.ReadTransaction;
+import org.opendaylight.mdsal.binding.api.WriteTransaction;
+import org.opendaylight.mdsal.binding.dom.adapter.CurrentAdapterSerializer;
+import org.opendaylight.mdsal.common.api.LogicalDatastoreType;
+import org.opendaylight.mdsal.common.api.OptimisticLockFailedException;
+import org.opendaylight.mdsal.dom.api.DOMDataTreeReadWriteTransaction;
+import org.opendaylight.yang.gen.v1.urn.tbd.params.xml.ns.yang.network.topology.rev131021.NetworkTopology;
+import org.opendaylight.yang.gen.v1.urn.tbd.params.xml.ns.yang.network.topology.rev131021.NodeId;
+import org.opendaylight.yang.gen.v1.urn.tbd.params.xml.ns.yang.network.topology.rev131021.TopologyId;
+import org.opendaylight.yang.gen.v1.urn.tbd.params.xml.ns.yang.network.topology.rev131021.network.topology.Topology;
+import org.opendaylight.yang.gen.v1.urn.tbd.params.xml.ns.yang.network.topology.rev131021.network.topology.TopologyBuilder;
+import org.opendaylight.yang.gen.v1.urn.tbd.params.xml.ns.yang.network.topology.rev131021.network.topology.TopologyKey;
+import org.opendaylight.yang.gen.v1.urn.tbd.params.xml.ns.yang.network.topology.rev131021.network.topology.topology.Node;
+import org.opendaylight.yang.gen.v1.urn.tbd.params.xml.ns.yang.network.topology.rev131021.network.topology.topology.NodeBuilder;
+import org.opendaylight.yang.gen.v1.urn.tbd.params.xml.ns.yang.network.topology.rev131021.network.topology.topology.NodeKey;
+import org.opendaylight.yangtools.binding.DataObject;
+import org.opendaylight.yangtools.binding.DataObjectIdentifier;
+import org.opendaylight.yangtools.yang.data.api.YangInstanceIdentifier;
+import org.opendaylight.yangtools.yang.data.api.schema.NormalizedNode;
+
+public class CandidateDatastoreTest {
+
+    private static final long TIMEOUT_MILLIS = 5_000;
+
+    private NetconfDeviceServices services;
+    private CandidateDatastore candidate;
+    private CurrentAdapterSerializer serializer;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        services = new NetconfDeviceServicesImpl(ModelUtils.getModelsFromClasspath(ModuleId.from(
+            "urn:TBD:params:xml:ns:yang:network-topology", "network-topology", "2013-10-21")), null);
+        candidate = services.getCandidateDatastore();
+        serializer = services.getAdapterContext().currentSerializer();
+
+        final WriteTransaction writeTransaction = services.getDataBroker().newWriteOnlyTransaction();
+        writeTransaction.put(LogicalDatastoreType.CONFIGURATION, topologyPath("running"), topology("running", 3));
+        writeTransaction.commit().get(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    @Test
+    public void testChangesAreAppliedByCommit() throws Exception {
+        final DOMDataTreeReadWriteTransaction transaction = candidate.newReadWriteTransaction();
+        put(transaction, topologyPath("candidate"), topology("candidate", 2));
+        transaction.commit().get(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+
+        Assertions.assertTrue(candidate.isModified());
+        Assertions.assertEquals(Set.of("node-0", "node-1"), readCandidateNodeIds("candidate"));
+        Assertions.assertEquals(Set.of("node-0", "node-1", "node-2"), readCandidateNodeIds("running"));
+        Assertions.assertTrue(readRunningNodeIds("candidate").isEmpty());
+
+        candidate.validate();
+        candidate.commit();
+
+        Assertions.assertFalse(candidate.isModified());
+        Assertions.assertEquals(Set.of("node-0", "node-1"), readRunningNodeIds("candidate"));
+    }
+
+    @Test
+    public void testStackedChangesAreReplayedInOrder() throws Exception {
+        DOMDataTreeReadWriteTransaction transaction = candidate.newReadWriteTransaction();
+        put(transaction, topologyPath("stacked"), topology("stacked", 3));
+        put(transaction, nodePath("stacked", "node-3"), node("node-3"));
+        transaction.commit().get(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+
+        transaction = candidate.newReadWriteTransaction();
+        transaction.delete(LogicalDatastoreType.CONFIGURATION, serializer.toYangInstanceIdentifier(
+            nodePath("stacked", "node-0")));
+        transaction.delete(LogicalDatastoreType.CONFIGURATION, serializer.toYangInstanceIdentifier(
+            nodePath("running", "node-1")));
+        transaction.commit().get(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+
+        transaction = candidate.newReadWriteTransaction();
+        merge(transaction, topologyPath("stacked"), new TopologyBuilder()
+            .setTopologyId(new TopologyId("stacked"))
+            .setNode(Map.of(new NodeKey(new NodeId("merged")), node("merged")))
+            .build());
+        transaction.commit().get(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+
+        final Set<String> stacked = readCandidateNodeIds("stacked");
+        Assertions.assertEquals(Set.of("node-1", "node-2", "node-3", "merged"), stacked);
+        candidate.commit();
+        Assertions.assertEquals(stacked, readRunningNodeIds("stacked"));
+        Assertions.assertEquals(Set.of("node-0", "node-2"), readRunningNodeIds("running"));
+    }
+
+    @Test
+    public void testCommitKeepsOtherChangesOfRunning() throws Exception {
+        final DOMDataTreeReadWriteTransaction transaction = candidate.newReadWriteTransaction();
+        put(transaction, nodePath("running", "candidate"), node("candidate"));
+        transaction.commit().get(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+
+        final WriteTransaction writeTransaction = services.getDataBroker().newWriteOnlyTransaction();
+        writeTransaction.put(LogicalDatastoreType.CONFIGURATION, nodePath("running", "running"), node("running"));
+        writeTransaction.commit().get(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+
+        candidate.commit();
+        Assertions.assertEquals(Set.of("node-0", "node-1", "node-2", "candidate", "running"),
+            readRunningNodeIds("running"));
+    }
+
+    @Test
+    public void testDiscardChanges() throws Exception {
+        final DOMDataTreeReadWriteTransaction transaction = candidate.newReadWriteTransaction();
+        transaction.delete(LogicalDatastoreType.CONFIGURATION, serializer.toYangInstanceIdentifier(
+            topologyPath("running")));
+        transaction.commit().get(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+        Assertions.assertTrue(readCandidateNodeIds("running").isEmpty());
+
+        candidate.discardChanges();
+
+        Assertions.assertFalse(candidate.isModified());
+        Assertions.assertEquals(Set.of("node-0", "node-1", "node-2"), readCandidateNodeIds("running"));
+        candidate.commit();
+        Assertions.assertEquals(Set.of("node-0", "node-1", "node-2"), readRunningNodeIds("running"));
+    }
+
+    @Test
+    public void testConcurrentTransactionFails() throws Exception {
+        final DOMDataTreeReadWriteTransaction first = candidate.newReadWriteTransaction();
+        final DOMDataTreeReadWriteTransaction second = candidate.newReadWriteTransaction();
+        put(first, nodePath("running", "first"), node("first"));
+        put(second, nodePath("running", "second"), node("second"));
+
+        first.commit().get(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+        final ExecutionException error = Assertions.assertThrows(ExecutionException.class,
+            () -> second.commit().get(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS));
+        Assertions.assertInstanceOf(OptimisticLockFailedException.class, error.getCause());
+        Assertions.assertEquals(Set.of("node-0", "node-1", "node-2", "first"), readCandidateNodeIds("running"));
+    }
+
+    private <T extends DataObject> void put(final DOMDataTreeReadWriteTransaction transaction,
+            final DataObjectIdentifier<T> path, final T data) {
+        transaction.put(LogicalDatastoreType.CONFIGURATION, serializer.toYangInstanceIdentifier(path),
+            serializer.toNormalizedDataObject(path, data).node());
+    }
+
+    private <T extends DataObject> void merge(final DOMDataTreeReadWriteTransaction transaction,
+            final DataObjectIdentifier<T> path, final T data) {
+        transaction.merge(LogicalDatastoreType.CONFIGURATION, serializer.toYangInstanceIdentifier(path),
+            serializer.toNormalizedDataObject(path, data).node());
+    }
+
+    private Set<String> readCandidateNodeIds(final String topologyId) throws Exception {
+        final DOMDataTreeReadWriteTransaction transaction = candidate.newReadWriteTransaction();
+        try {
+            final YangInstanceIdentifier path = serializer.toYangInstanceIdentifier(topologyPath(topologyId));
+            final Optional<NormalizedNode> data = transaction.read(LogicalDatastoreType.CONFIGURATION, path)
+                .get(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+            return nodeIds(data.map(node -> (Topology) serializer.fromNormalizedNode(path, node).getValue()));
+        } finally {
+            transaction.cancel();
+        }
+    }
+
+    private Set<String> readRunningNodeIds(final String topologyId) throws Exception {
+        try (ReadTransaction readTransaction = services.getDataBroker().newReadOnlyTransaction()) {
+            return nodeIds(readTransaction.read(LogicalDatastoreType.CONFIGURATION, topologyPath(topologyId))
+                .get(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS));
+        }
+    }
+
+    private static Set<String> nodeIds(final Optional<Topology> topology) {
+        return topology.map(Topology::nonnullNode)
+            .map(nodes -> nodes.values().stream()
+                .map(node -> node.getNodeId().getValue())
+                .collect(Collectors.toCollection(TreeSet::new)))
+            .orElseGet(TreeSet::new);
+    }
+
+    private static Topology topology(final String topologyId, final int nodes) {
+        return new TopologyBuilder()
+            .setTopologyId(new TopologyId(topologyId))
+            .setNode(IntStream.range(0, nodes)
+                .mapToObj(i -> node("node-" + i))
+                .collect(Collectors.toMap(Node::key, node -> node)))
+            .build();
+    }
+
+    private static Node node(final String nodeId) {
+        return new NodeBuilder().setNodeId(new NodeId(nodeId)).build();
+    }
+
+    private static DataObjectIdentifier<Topology> topologyPath(final String topologyId) {
+        return DataObjectIdentifier.builder(NetworkTopology.class)
+            .child(Topology.class, new TopologyKey(new TopologyId(topologyId)))
+            .build();
+    }
+
+    private static DataObjectIdentifier<Node> nodePath(final String topologyId, final String nodeId) {
+        return DataObjectIdentifier.builder(NetworkTopology.class)
+            .child(Topology.class, new TopologyKey(new TopologyId(topologyId)))
+            .child(Node.class, new NodeKey(new NodeId(nodeId)))
+            .build();
+    }
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright (c) 2024 PANTHEON.tech, s.r.o. and others. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at https://www.eclipse.org/legal/epl-v10.html
+ */
+package io.lighty.netconf.device.datastore;
+
+import io.lighty.core.common.models.ModuleId;
+import io.lighty.netconf.device.DataBrokerMode;
+import io.lighty.netconf.device.NetconfDeviceServices;
+import io.lighty.netconf.device.NetconfDeviceServicesImpl;
+import io.lighty.netconf.device.utils.ModelUtils;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.opendaylight.mdsal.binding.api.WriteTransaction;
+import org.opendaylight.mdsal.common.api.LogicalDatastoreType;
+import org.opendaylight.yang.gen.v1.urn.tbd.params.xml.ns.yang.network.topology.rev131021.NetworkTopology;
+import org.opendaylight.yang.gen.v1.urn.tbd.params.xml.ns.yang.network.topology.rev131021.TopologyId;
+import org.opendaylight.yang.gen.v1.urn.tbd.params.xml.ns.yang.network.topology.rev131021.network.topology.Topology;
+import org.opendaylight.yang.gen.v1.urn.tbd.params.xml.ns.yang.network.topology.rev131021.network.topology.TopologyBuilder;
+import org.opendaylight.yangtools.binding.DataObjectIdentifier;
+
+public class ConcurrentDOMDataBrokerTest {
+
+    private static final long TIMEOUT_MILLIS = 10_000;
+    private static final int WRITERS = 4;
+    private static final int COMMITS_PER_WRITER = 50;
+
+    @Test
+    public void testConcurrentCommitsToBothDatastores() throws Exception {
+        final NetconfDeviceServices services = new NetconfDeviceServicesImpl(
+            ModelUtils.getModelsFromClasspath(ModuleId.from("urn:TBD:params:xml:ns:yang:network-topology",
+                "network-topology", "2013-10-21")), null, DataBrokerMode.CONCURRENT);
+        Assertions.assertInstanceOf(ConcurrentDOMDataBroker.class, services.getDOMDataBroker());
+
+        final ExecutorService writers = Executors.newFixedThreadPool(WRITERS);
+        try {
+            final List<Future<?>> results = new ArrayList<>();
+            for (int writer = 0; writer < WRITERS; writer++) {
+                final LogicalDatastoreType datastore = writer % 2 == 0
+                    ? LogicalDatastoreType.CONFIGURATION : LogicalDatastoreType.OPERATIONAL;
+                final String prefix = "writer-" + writer + "-";
+                results.add(writers.submit(() -> {
+                    for (int i = 0; i < COMMITS_PER_WRITER; i++) {
+                        final Topology topology = new TopologyBuilder()
+                            .setTopologyId(new TopologyId(prefix + i)).build();
+                        final WriteTransaction tx = services.getDataBroker().newWriteOnlyTransaction();
+                        tx.put(datastore, DataObjectIdentifier.builder(NetworkTopology.class)
+                            .child(Topology.class, topology.key()).build(), topology);
+                        tx.commit().get(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+                    }
+                    return null;
+                }));
+            }
+            for (final Future<?> result : results) {
+                result.get(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+            }
+        } finally {
+            writers.shutdownNow();
+        }
+
+        Assertions.assertEquals(WRITERS / 2 * COMMITS_PER_WRITER,
+            readTopologyCount(services, LogicalDatastoreType.CONFIGURATION));
+        Assertions.assertEquals(WRITERS / 2 * COMMITS_PER_WRITER,
+            readTopologyCount(services, LogicalDatastoreType.OPERATIONAL));
+    }
+
+    private static int readTopologyCount(final NetconfDeviceServices services, final LogicalDatastoreType datastore)
+            throws Exception {
+        return services.getDataBroker().newReadOnlyTransaction()
+            .read(datastore, DataObjectIdentifier.builder(NetworkTopology.class).build())
+            .get(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS).orElseThrow().nonnullTopology().size();
+    }
+}
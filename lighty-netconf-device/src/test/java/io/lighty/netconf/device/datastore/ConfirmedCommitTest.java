@@ -0,0 +1,214 @@
+/*
+ * Copyright (c) 2024 PANTHEON.tech, s.r.o. and others. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at https://www.eclipse.org/legal/epl-v10.html
+ */
+package io.lighty.netconf.device.datastore;
+
+import io.lighty.core.common.models.ModuleId;
+import io.lighty.netconf.device.NetconfDeviceServices;
+import io.lighty.netconf.device.NetconfDeviceServicesImpl;
+import io.lighty.netconf.device.utils.ModelUtils;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.opendaylight.mdsal.binding.api.ReadTransaction;
+import org.opendaylight.mdsal.binding.api.WriteTransaction;
+import org.opendaylight.mdsal.binding.dom.adapter.CurrentAdapterSerializer;
+import org.opendaylight.mdsal.common.api.LogicalDatastoreType;
+import org.opendaylight.mdsal.dom.api.DOMDataTreeReadTransaction;
+import org.opendaylight.mdsal.dom.api.DOMDataTreeReadWriteTransaction;
+import org.opendaylight.yang.gen.v1.urn.ietf.params.xml.ns.netconf.base._1._0.rev110601.SessionIdType;
+import org.opendaylight.yang.gen.v1.urn.tbd.params.xml.ns.yang.network.topology.rev131021.NetworkTopology;
+import org.opendaylight.yang.gen.v1.urn.tbd.params.xml.ns.yang.network.topology.rev131021.NodeId;
+import org.opendaylight.yang.gen.v1.urn.tbd.params.xml.ns.yang.network.topology.rev131021.TopologyId;
+import org.opendaylight.yang.gen.v1.urn.tbd.params.xml.ns.yang.network.topology.rev131021.network.topology.Topology;
+import org.opendaylight.yang.gen.v1.urn.tbd.params.xml.ns.yang.network.topology.rev131021.network.topology.TopologyBuilder;
+import org.opendaylight.yang.gen.v1.urn.tbd.params.xml.ns.yang.network.topology.rev131021.network.topology.TopologyKey;
+import org.opendaylight.yang.gen.v1.urn.tbd.params.xml.ns.yang.network.topology.rev131021.network.topology.topology.Node;
+import org.opendaylight.yang.gen.v1.urn.tbd.params.xml.ns.yang.network.topology.rev131021.network.topology.topology.NodeBuilder;
+import org.opendaylight.yang.gen.v1.urn.tbd.params.xml.ns.yang.network.topology.rev131021.network.topology.topology.NodeKey;
+import org.opendaylight.yangtools.binding.DataObjectIdentifier;
+import org.opendaylight.yangtools.yang.common.Uint32;
+import org.opendaylight.yangtools.yang.data.api.YangInstanceIdentifier;
+import org.opendaylight.yangtools.yang.data.api.schema.ContainerNode;
+import org.opendaylight.yangtools.yang.data.api.schema.NormalizedNode;
+import org.opendaylight.yangtools.yang.data.api.schema.NormalizedNodes;
+
+public class ConfirmedCommitTest {
+
+    private static final long TIMEOUT_MILLIS = 5_000;
+    private static final Duration CONFIRM_TIMEOUT = Duration.ofMinutes(1);
+    private static final SessionIdType FIRST = new SessionIdType(Uint32.ONE);
+    private static final SessionIdType SECOND = new SessionIdType(Uint32.TWO);
+    private static final int SHARED_NODES = 100;
+
+    private NetconfDeviceServicesImpl services;
+    private ConfirmedCommit confirmedCommit;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        services = new NetconfDeviceServicesImpl(ModelUtils.getModelsFromClasspath(ModuleId.from(
+            "urn:TBD:params:xml:ns:yang:network-topology", "network-topology", "2013-10-21")), null);
+        confirmedCommit = services.getConfirmedCommit();
+        writeTopology("running", 3);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        services.close();
+    }
+
+    @Test
+    public void testUnconfirmedCommitIsRolledBack() throws Exception {
+        addToCandidate("first");
+        confirmedCommit.commit(FIRST, Duration.ofMillis(100), null, null);
+        Assertions.assertTrue(nodeExists("first"));
+
+        final long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(TIMEOUT_MILLIS);
+        while (confirmedCommit.isPending() && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        Assertions.assertFalse(confirmedCommit.isPending());
+        Assertions.assertFalse(nodeExists("first"));
+        Assertions.assertTrue(nodeExists("node-0"));
+    }
+
+    @Test
+    public void testConfirmingCommitKeepsChanges() throws Exception {
+        addToCandidate("first");
+        confirmedCommit.commit(FIRST, CONFIRM_TIMEOUT, null, null);
+        addToCandidate("second");
+        confirmedCommit.commit(FIRST, CONFIRM_TIMEOUT, null, null);
+        confirmedCommit.commit(FIRST, null, null, null);
+
+        Assertions.assertFalse(confirmedCommit.isPending());
+        Assertions.assertTrue(nodeExists("first"));
+        Assertions.assertTrue(nodeExists("second"));
+        Assertions.assertThrows(IllegalStateException.class, () -> confirmedCommit.cancel(FIRST, null));
+    }
+
+    @Test
+    public void testCancelRollsBackToFirstCheckpoint() throws Exception {
+        addToCandidate("first");
+        confirmedCommit.commit(FIRST, CONFIRM_TIMEOUT, null, null);
+        addToCandidate("second");
+        confirmedCommit.commit(FIRST, CONFIRM_TIMEOUT, null, null);
+
+        Assertions.assertThrows(IllegalStateException.class, () -> confirmedCommit.cancel(SECOND, null));
+        confirmedCommit.cancel(FIRST, null);
+
+        Assertions.assertFalse(confirmedCommit.isPending());
+        Assertions.assertFalse(nodeExists("first"));
+        Assertions.assertFalse(nodeExists("second"));
+        Assertions.assertTrue(nodeExists("node-0"));
+    }
+
+    @Test
+    public void testSessionCloseRollsBackCommitWithoutPersist() throws Exception {
+        addToCandidate("first");
+        confirmedCommit.commit(FIRST, CONFIRM_TIMEOUT, null, null);
+        Assertions.assertThrows(IllegalStateException.class, () -> confirmedCommit.commit(SECOND, null, null, null));
+
+        confirmedCommit.sessionClosed(SECOND);
+        Assertions.assertTrue(confirmedCommit.isPending());
+        confirmedCommit.sessionClosed(FIRST);
+        Assertions.assertFalse(confirmedCommit.isPending());
+        Assertions.assertFalse(nodeExists("first"));
+    }
+
+    @Test
+    public void testPersistedCommitIsConfirmedByPersistId() throws Exception {
+        addToCandidate("first");
+        confirmedCommit.commit(FIRST, CONFIRM_TIMEOUT, "token", null);
+        confirmedCommit.sessionClosed(FIRST);
+        Assertions.assertTrue(confirmedCommit.isPending());
+
+        Assertions.assertThrows(IllegalArgumentException.class,
+            () -> confirmedCommit.commit(SECOND, null, null, "other"));
+        confirmedCommit.commit(SECOND, null, null, "token");
+        Assertions.assertFalse(confirmedCommit.isPending());
+        Assertions.assertTrue(nodeExists("first"));
+    }
+
+    /**
+     * Checkpoint is the running configuration before the commit, it keeps the changed node and shares the nodes
+     * untouched by the commit with running, so keeping it costs only the changed path.
+     */
+    @Test
+    public void testCheckpointSharesUnchangedNodesWithRunning() throws Exception {
+        writeTopology("large", SHARED_NODES);
+        final CurrentAdapterSerializer serializer = services.getAdapterContext().currentSerializer();
+        final CandidateDatastore candidate = services.getCandidateDatastore();
+        final DOMDataTreeReadWriteTransaction transaction = candidate.newReadWriteTransaction();
+        transaction.delete(LogicalDatastoreType.CONFIGURATION,
+            serializer.toYangInstanceIdentifier(nodePath("large", "node-0")));
+        transaction.commit().get(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+        final ContainerNode checkpoint = candidate.commitWithCheckpoint();
+        final NormalizedNode running;
+        try (DOMDataTreeReadTransaction readTransaction = services.getDOMDataBroker().newReadOnlyTransaction()) {
+            running = readTransaction.read(LogicalDatastoreType.CONFIGURATION, YangInstanceIdentifier.of())
+                .get(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS).orElseThrow();
+        }
+
+        final YangInstanceIdentifier changed = serializer.toYangInstanceIdentifier(nodePath("large", "node-0"));
+        Assertions.assertTrue(NormalizedNodes.findNode(checkpoint, changed).isPresent());
+        Assertions.assertFalse(NormalizedNodes.findNode(running, changed).isPresent());
+        Assertions.assertNotSame(checkpoint, running);
+        for (int i = 1; i < SHARED_NODES; i++) {
+            final YangInstanceIdentifier untouched =
+                serializer.toYangInstanceIdentifier(nodePath("large", "node-" + i));
+            Assertions.assertSame(NormalizedNodes.findNode(running, untouched).orElseThrow(),
+                NormalizedNodes.findNode(checkpoint, untouched).orElseThrow());
+        }
+        final YangInstanceIdentifier untouchedTopology = serializer.toYangInstanceIdentifier(
+            DataObjectIdentifier.builder(NetworkTopology.class)
+                .child(Topology.class, new TopologyKey(new TopologyId("running"))).build());
+        Assertions.assertSame(NormalizedNodes.findNode(running, untouchedTopology).orElseThrow(),
+            NormalizedNodes.findNode(checkpoint, untouchedTopology).orElseThrow());
+    }
+
+    private void addToCandidate(final String nodeId) throws Exception {
+        final CurrentAdapterSerializer serializer = services.getAdapterContext().currentSerializer();
+        final DataObjectIdentifier<Node> path = nodePath("running", nodeId);
+        final DOMDataTreeReadWriteTransaction transaction = services.getCandidateDatastore()
+            .newReadWriteTransaction();
+        transaction.put(LogicalDatastoreType.CONFIGURATION, serializer.toYangInstanceIdentifier(path),
+            serializer.toNormalizedDataObject(path, new NodeBuilder().setNodeId(new NodeId(nodeId)).build()).node());
+        transaction.commit().get(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    private void writeTopology(final String topologyId, final int nodes) throws Exception {
+        final Topology topology = new TopologyBuilder()
+            .setTopologyId(new TopologyId(topologyId))
+            .setNode(IntStream.range(0, nodes)
+                .mapToObj(i -> new NodeBuilder().setNodeId(new NodeId("node-" + i)).build())
+                .collect(Collectors.toMap(Node::key, node -> node)))
+            .build();
+        final WriteTransaction writeTransaction = services.getDataBroker().newWriteOnlyTransaction();
+        writeTransaction.put(LogicalDatastoreType.CONFIGURATION, DataObjectIdentifier.builder(NetworkTopology.class)
+            .child(Topology.class, new TopologyKey(new TopologyId(topologyId))).build(), topology);
+        writeTransaction.commit().get(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    private boolean nodeExists(final String nodeId) throws Exception {
+        try (ReadTransaction readTransaction = services.getDataBroker().newReadOnlyTransaction()) {
+            return readTransaction.exists(LogicalDatastoreType.CONFIGURATION, nodePath("running", nodeId))
+                .get(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private static DataObjectIdentifier<Node> nodePath(final String topologyId, final String nodeId) {
+        return DataObjectIdentifier.builder(NetworkTopology.class)
+            .child(Topology.class, new TopologyKey(new TopologyId(topologyId)))
+            .child(Node.class, new NodeKey(new NodeId(nodeId)))
+            .build();
+    }
+}
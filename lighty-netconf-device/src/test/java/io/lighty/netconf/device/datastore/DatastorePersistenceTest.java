@@ -0,0 +1,74 @@
+/*
+ * Copyright (c) 2024 PANTHEON.tech, s.r.o. and others. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at https://www.eclipse.org/legal/epl-v10.html
+ */
+package io.lighty.netconf.device.datastore;
+
+import io.lighty.core.common.models.ModuleId;
+import io.lighty.netconf.device.NetconfDeviceServicesImpl;
+import io.lighty.netconf.device.utils.ModelUtils;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.opendaylight.mdsal.binding.api.WriteTransaction;
+import org.opendaylight.mdsal.common.api.LogicalDatastoreType;
+import org.opendaylight.yang.gen.v1.urn.tbd.params.xml.ns.yang.network.topology.rev131021.NetworkTopology;
+import org.opendaylight.yang.gen.v1.urn.tbd.params.xml.ns.yang.network.topology.rev131021.TopologyId;
+import org.opendaylight.yang.gen.v1.urn.tbd.params.xml.ns.yang.network.topology.rev131021.network.topology.Topology;
+import org.opendaylight.yang.gen.v1.urn.tbd.params.xml.ns.yang.network.topology.rev131021.network.topology.TopologyBuilder;
+import org.opendaylight.yang.gen.v1.urn.tbd.params.xml.ns.yang.network.topology.rev131021.network.topology.TopologyKey;
+import org.opendaylight.yangtools.binding.DataObjectIdentifier;
+import org.opendaylight.yangtools.binding.meta.YangModuleInfo;
+
+public class DatastorePersistenceTest {
+
+    private static final long REQUEST_TIMEOUT_MILLIS = 5_000;
+    private static final Set<YangModuleInfo> MODULES = ModelUtils.getModelsFromClasspath(
+        ModuleId.from("urn:TBD:params:xml:ns:yang:network-topology", "network-topology", "2013-10-21"));
+    private static final DataObjectIdentifier<Topology> TOPOLOGY_PATH = DataObjectIdentifier
+        .builder(NetworkTopology.class)
+        .child(Topology.class, new TopologyKey(new TopologyId("persisted")))
+        .build();
+
+    @TempDir
+    Path directory;
+
+    @Test
+    public void testChangesAreRecoveredAfterRestart() throws Exception {
+        final Path file = directory.resolve("config.xml");
+        final Path leftover = directory.resolve(".config.xml.tmp");
+        Files.writeString(leftover, "<data");
+
+        try (NetconfDeviceServicesImpl services = new NetconfDeviceServicesImpl(MODULES, null)) {
+            final DatastorePersistence persistence = new DatastorePersistence(services.getDOMDataBroker(),
+                services.getXmlNodeConverter().getModelContext(), LogicalDatastoreType.CONFIGURATION, file,
+                Duration.ofMillis(10));
+            persistence.start();
+            Assertions.assertFalse(Files.exists(leftover));
+
+            final WriteTransaction writeTransaction = services.getDataBroker().newWriteOnlyTransaction();
+            writeTransaction.put(LogicalDatastoreType.CONFIGURATION, TOPOLOGY_PATH,
+                new TopologyBuilder().setTopologyId(new TopologyId("persisted")).build());
+            writeTransaction.commit().get(REQUEST_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+            persistence.close();
+        }
+        Assertions.assertTrue(Files.exists(file));
+        Assertions.assertFalse(Files.exists(leftover));
+
+        try (NetconfDeviceServicesImpl services = new NetconfDeviceServicesImpl(MODULES, null)) {
+            new InitialDatastoreLoader(services.getDOMDataBroker(), services.getXmlNodeConverter().getModelContext())
+                .load(LogicalDatastoreType.CONFIGURATION, file.toFile());
+            Assertions.assertTrue(services.getDataBroker().newReadOnlyTransaction()
+                .read(LogicalDatastoreType.CONFIGURATION, TOPOLOGY_PATH)
+                .get(REQUEST_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS).isPresent());
+        }
+    }
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright (c) 2024 PANTHEON.tech, s.r.o. and others. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at https://www.eclipse.org/legal/epl-v10.html
+ */
+package io.lighty.netconf.device.datastore;
+
+import io.lighty.core.common.models.ModuleId;
+import io.lighty.netconf.device.NetconfDeviceServicesImpl;
+import io.lighty.netconf.device.utils.ModelUtils;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.opendaylight.mdsal.binding.api.WriteTransaction;
+import org.opendaylight.mdsal.common.api.LogicalDatastoreType;
+import org.opendaylight.yang.gen.v1.urn.tbd.params.xml.ns.yang.network.topology.rev131021.NetworkTopology;
+import org.opendaylight.yang.gen.v1.urn.tbd.params.xml.ns.yang.network.topology.rev131021.TopologyId;
+import org.opendaylight.yang.gen.v1.urn.tbd.params.xml.ns.yang.network.topology.rev131021.network.topology.Topology;
+import org.opendaylight.yang.gen.v1.urn.tbd.params.xml.ns.yang.network.topology.rev131021.network.topology.TopologyBuilder;
+import org.opendaylight.yang.gen.v1.urn.tbd.params.xml.ns.yang.network.topology.rev131021.network.topology.TopologyKey;
+import org.opendaylight.yangtools.binding.DataObjectIdentifier;
+import org.opendaylight.yangtools.binding.meta.YangModuleInfo;
+
+public class InitialDatastoreLoaderTest {
+
+    private static final long REQUEST_TIMEOUT_MILLIS = 5_000;
+    private static final Set<YangModuleInfo> MODULES = ModelUtils.getModelsFromClasspath(
+        ModuleId.from("urn:TBD:params:xml:ns:yang:network-topology", "network-topology", "2013-10-21"));
+
+    @TempDir
+    Path directory;
+
+    private NetconfDeviceServicesImpl services;
+
+    @BeforeEach
+    public void setUp() {
+        services = new NetconfDeviceServicesImpl(MODULES, null);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        services.close();
+    }
+
+    @Test
+    public void testTopLevelNodesAreLoadedInBatches() throws Exception {
+        final WriteTransaction writeTransaction = services.getDataBroker().newWriteOnlyTransaction();
+        writeTransaction.put(LogicalDatastoreType.CONFIGURATION, topologyPath("previous"),
+            new TopologyBuilder().setTopologyId(new TopologyId("previous")).build());
+        writeTransaction.commit().get(REQUEST_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+
+        // the same container twice, both parts must be merged together
+        final File file = writeData("<?xml version=\"1.0\" encoding=\"UTF-8\"?>"
+            + "<data xmlns=\"urn:ietf:params:xml:ns:netconf:base:1.0\">\n"
+            + "  <network-topology xmlns=\"urn:TBD:params:xml:ns:yang:network-topology\">"
+            + "<topology><topology-id>první</topology-id><node><node-id>a</node-id></node></topology>"
+            + "</network-topology>\n"
+            + "  <!-- comments between the nodes are skipped -->\n"
+            + "  <network-topology xmlns=\"urn:TBD:params:xml:ns:yang:network-topology\">"
+            + "<topology><topology-id>second</topology-id></topology>"
+            + "</network-topology>\n"
+            + "</data>");
+
+        final long nodes = new InitialDatastoreLoader(services.getDOMDataBroker(),
+            services.getXmlNodeConverter().getModelContext(), 1).load(LogicalDatastoreType.CONFIGURATION, file);
+
+        Assertions.assertTrue(nodes > 0);
+        Assertions.assertTrue(readTopology("první").isPresent());
+        Assertions.assertEquals(1, readTopology("první").orElseThrow().nonnullNode().size());
+        Assertions.assertTrue(readTopology("second").isPresent());
+        // loaded data replace previous content of the datastore
+        Assertions.assertTrue(readTopology("previous").isEmpty());
+    }
+
+    @Test
+    public void testUnknownNamespaceIsRejected() throws Exception {
+        final File file = writeData("<data xmlns=\"urn:ietf:params:xml:ns:netconf:base:1.0\">"
+            + "<unknown xmlns=\"urn:unknown\"/></data>");
+        final InitialDatastoreLoader loader = new InitialDatastoreLoader(services.getDOMDataBroker(),
+            services.getXmlNodeConverter().getModelContext());
+
+        Assertions.assertThrows(IOException.class,
+            () -> loader.load(LogicalDatastoreType.CONFIGURATION, file));
+    }
+
+    private File writeData(final String data) throws Exception {
+        final Path file = directory.resolve("initial-data.xml");
+        Files.write(file, data.getBytes(StandardCharsets.UTF_8));
+        return file.toFile();
+    }
+
+    private Optional<Topology> readTopology(final String topologyId) throws Exception {
+        return services.getDataBroker().newReadOnlyTransaction()
+            .read(LogicalDatastoreType.CONFIGURATION, topologyPath(topologyId))
+            .get(REQUEST_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    private static DataObjectIdentifier<Topology> topologyPath(final String topologyId) {
+        return DataObjectIdentifier.builder(NetworkTopology.class)
+            .child(Topology.class, new TopologyKey(new TopologyId(topologyId)))
+            .build();
+    }
+}
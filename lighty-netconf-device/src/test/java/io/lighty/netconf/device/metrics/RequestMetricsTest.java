@@ -0,0 +1,132 @@
+/*
+ * Copyright (c) 2024 PANTHEON.tech, s.r.o. and others. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at https://www.eclipse.org/legal/epl-v10.html
+ */
+package io.lighty.netconf.device.metrics;
+
+import io.lighty.core.common.models.ModuleId;
+import io.lighty.netconf.device.NetconfDeviceServicesImpl;
+import io.lighty.netconf.device.requests.GetConfigRequestProcessor;
+import io.lighty.netconf.device.requests.RequestProcessor;
+import io.lighty.netconf.device.requests.RpcHandlerImpl;
+import io.lighty.netconf.device.utils.ModelUtils;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.Map;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.opendaylight.netconf.api.xml.XmlElement;
+import org.opendaylight.netconf.api.xml.XmlUtil;
+import org.opendaylight.yangtools.yang.common.ErrorTag;
+import org.opendaylight.yangtools.yang.common.QName;
+
+public class RequestMetricsTest {
+
+    private static final String GET_CONFIG_REQUEST = "<get-config xmlns=\"urn:ietf:params:xml:ns:netconf:base:1.0\">"
+        + "<source><running/></source>%s</get-config>";
+    private static final String UNSUPPORTED_FILTER = "<filter type=\"xpath\" select=\"//node\"/>";
+
+    private static NetconfDeviceServicesImpl netconfDeviceServices;
+
+    @BeforeAll
+    public static void setUp() {
+        netconfDeviceServices = new NetconfDeviceServicesImpl(ModelUtils.getModelsFromClasspath(
+            ModuleId.from("urn:TBD:params:xml:ns:yang:network-topology", "network-topology", "2013-10-21")), null);
+    }
+
+    @AfterAll
+    public static void tearDown() {
+        netconfDeviceServices.close();
+    }
+
+    @Test
+    public void testRequestsAreMeasured() throws Exception {
+        final DefaultRequestMetrics metrics = new DefaultRequestMetrics();
+        final RequestProcessor processor = new GetConfigRequestProcessor();
+        final RpcHandlerImpl rpcHandler = new RpcHandlerImpl(netconfDeviceServices,
+            Map.of(processor.getIdentifier(), processor), metrics);
+
+        for (int i = 0; i < 3; i++) {
+            rpcHandler.getResponse(request(""));
+        }
+        rpcHandler.getResponse(request(UNSUPPORTED_FILTER));
+
+        final OperationMetrics getConfig = metrics.getOperations().get(processor.getIdentifier());
+        Assertions.assertEquals(4, getConfig.getRequests());
+        Assertions.assertEquals(0, getConfig.getInFlight());
+        Assertions.assertEquals(Map.of(ErrorTag.INVALID_VALUE, 1L), getConfig.getErrors());
+        Assertions.assertEquals(4, getConfig.getLatency().getCount());
+        Assertions.assertEquals(4, getConfig.getReplyElements().getCount());
+        Assertions.assertTrue(getConfig.getLatency().getSum() > 0);
+    }
+
+    @Test
+    public void testUnmeasuredHandler() throws Exception {
+        final RequestProcessor processor = new GetConfigRequestProcessor();
+        final RpcHandlerImpl rpcHandler = new RpcHandlerImpl(netconfDeviceServices,
+            Map.of(processor.getIdentifier(), processor));
+
+        Assertions.assertTrue(rpcHandler.getResponse(request("")).isPresent());
+    }
+
+    @Test
+    public void testHistogramBuckets() {
+        final Histogram histogram = new Histogram(10, 100);
+        histogram.record(1);
+        histogram.record(10);
+        histogram.record(11);
+        histogram.record(1000);
+
+        Assertions.assertArrayEquals(new long[] {2, 1, 1}, histogram.getBucketCounts());
+        Assertions.assertEquals(4, histogram.getCount());
+        Assertions.assertEquals(1022, histogram.getSum());
+    }
+
+    @Test
+    public void testPrometheusEndpoint() throws Exception {
+        final DefaultRequestMetrics metrics = new DefaultRequestMetrics();
+        final QName operation = QName.create("urn:ietf:params:xml:ns:netconf:base:1.0", "get");
+        metrics.requestStarted(operation);
+        metrics.requestCompleted(operation, 2_000_000, 3, null);
+        metrics.requestStarted(operation);
+        metrics.requestCompleted(operation, 20_000_000, 5, ErrorTag.DATA_MISSING);
+        metrics.requestStarted(operation);
+
+        try (PrometheusMetricsEndpoint endpoint = new PrometheusMetricsEndpoint(metrics,
+                new InetSocketAddress(InetAddress.getLoopbackAddress(), 0))) {
+            final HttpResponse<String> response = HttpClient.newHttpClient().send(HttpRequest.newBuilder(
+                    URI.create("http://127.0.0.1:" + endpoint.getPort() + PrometheusMetricsEndpoint.PATH)).build(),
+                HttpResponse.BodyHandlers.ofString());
+
+            Assertions.assertEquals(200, response.statusCode());
+            final String labels = "{operation=\"get\",namespace=\"urn:ietf:params:xml:ns:netconf:base:1.0\"";
+            final String body = response.body();
+            Assertions.assertTrue(body.contains("netconf_device_requests_total" + labels + "} 2\n"), body);
+            Assertions.assertTrue(body.contains("netconf_device_requests_in_flight" + labels + "} 1\n"), body);
+            Assertions.assertTrue(body.contains(
+                "netconf_device_request_errors_total" + labels + ",error_tag=\"data-missing\"} 1\n"), body);
+            Assertions.assertTrue(body.contains(
+                "netconf_device_request_duration_seconds_bucket" + labels + ",le=\"0.005\"} 1\n"), body);
+            Assertions.assertTrue(body.contains(
+                "netconf_device_request_duration_seconds_bucket" + labels + ",le=\"+Inf\"} 2\n"), body);
+            Assertions.assertTrue(body.contains("netconf_device_request_duration_seconds_sum" + labels + "} 0.022\n"),
+                body);
+            Assertions.assertTrue(body.contains("netconf_device_reply_elements_bucket" + labels + ",le=\"4\"} 1\n"),
+                body);
+            Assertions.assertTrue(body.contains("netconf_device_reply_elements_count" + labels + "} 2\n"), body);
+        }
+    }
+
+    private static XmlElement request(final String filter) throws Exception {
+        return XmlElement.fromDomElement(XmlUtil.readXmlToElement(String.format(GET_CONFIG_REQUEST, filter)));
+    }
+}
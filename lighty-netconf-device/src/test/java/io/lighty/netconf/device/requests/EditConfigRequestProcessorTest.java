@@ -0,0 +1,220 @@
+/*
+ * Copyright (c) 2024 PANTHEON.tech, s.r.o. and others. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at https://www.eclipse.org/legal/epl-v10.html
+ */
+package io.lighty.netconf.device.requests;
+
+import io.lighty.core.common.models.ModuleId;
+import io.lighty.netconf.device.NetconfDeviceServices;
+import io.lighty.netconf.device.NetconfDeviceServicesImpl;
+import io.lighty.netconf.device.utils.ModelUtils;
+import io.lighty.netconf.device.utils.RPCUtil;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.opendaylight.mdsal.binding.api.ReadTransaction;
+import org.opendaylight.mdsal.binding.api.WriteTransaction;
+import org.opendaylight.mdsal.common.api.LogicalDatastoreType;
+import org.opendaylight.netconf.api.xml.XmlUtil;
+import org.opendaylight.yang.gen.v1.urn.tbd.params.xml.ns.yang.network.topology.rev131021.NetworkTopology;
+import org.opendaylight.yang.gen.v1.urn.tbd.params.xml.ns.yang.network.topology.rev131021.NodeId;
+import org.opendaylight.yang.gen.v1.urn.tbd.params.xml.ns.yang.network.topology.rev131021.TopologyId;
+import org.opendaylight.yang.gen.v1.urn.tbd.params.xml.ns.yang.network.topology.rev131021.network.topology.Topology;
+import org.opendaylight.yang.gen.v1.urn.tbd.params.xml.ns.yang.network.topology.rev131021.network.topology.TopologyBuilder;
+import org.opendaylight.yang.gen.v1.urn.tbd.params.xml.ns.yang.network.topology.rev131021.network.topology.TopologyKey;
+import org.opendaylight.yang.gen.v1.urn.tbd.params.xml.ns.yang.network.topology.rev131021.network.topology.topology.Node;
+import org.opendaylight.yang.gen.v1.urn.tbd.params.xml.ns.yang.network.topology.rev131021.network.topology.topology.NodeBuilder;
+import org.opendaylight.yangtools.binding.DataObjectIdentifier;
+import org.opendaylight.yangtools.binding.meta.YangModuleInfo;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+
+public class EditConfigRequestProcessorTest {
+
+    private static final long REQUEST_TIMEOUT_MILLIS = 5_000;
+    private static final int THREADS = 8;
+    private static final int ROUNDS = 20;
+    private static final String NT_NAMESPACE = "urn:TBD:params:xml:ns:yang:network-topology";
+    private static final String EDIT_CONFIG_REQUEST = "<rpc message-id=\"m-1\" xmlns=\"" + RPCUtil.NETCONF_BASE_NAMESPACE
+        + "\" xmlns:nc=\"" + RPCUtil.NETCONF_BASE_NAMESPACE + "\"><edit-config><target><running/></target>%s"
+        + "<config><network-topology xmlns=\"" + NT_NAMESPACE + "\">%s</network-topology></config>"
+        + "</edit-config></rpc>";
+
+    private static NetconfDeviceServices netconfDeviceServices;
+
+    @BeforeAll
+    public static void setUp() throws Exception {
+        final Set<YangModuleInfo> modules = ModelUtils.getModelsFromClasspath(
+            ModuleId.from(NT_NAMESPACE, "network-topology", "2013-10-21"));
+        netconfDeviceServices = new NetconfDeviceServicesImpl(modules, null);
+
+        final WriteTransaction writeTransaction = netconfDeviceServices.getDataBroker().newWriteOnlyTransaction();
+        for (final String topologyId : List.of("multiple", "failed", "missing", "none", "replaced", "contended")) {
+            final Topology topology = new TopologyBuilder()
+                .setTopologyId(new TopologyId(topologyId))
+                .setNode(IntStream.range(0, 5)
+                    .mapToObj(i -> new NodeBuilder().setNodeId(new NodeId("node-" + i)).build())
+                    .collect(Collectors.toMap(Node::key, node -> node)))
+                .build();
+            writeTransaction.put(LogicalDatastoreType.CONFIGURATION, topologyPath(topologyId), topology);
+        }
+        writeTransaction.commit().get(REQUEST_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    @Test
+    public void testAllOperationsAreApplied() throws Exception {
+        final Element rpcReply = editConfig("", "<topology><topology-id>multiple</topology-id>"
+            + "<node nc:operation=\"create\"><node-id>created</node-id></node>"
+            + "<node nc:operation=\"delete\"><node-id>node-1</node-id></node>"
+            + "<node nc:operation=\"remove\"><node-id>node-3</node-id></node>"
+            + "<node><node-id>merged</node-id></node>"
+            + "</topology>");
+
+        assertOk(rpcReply);
+        Assertions.assertEquals(Set.of("node-0", "node-2", "node-4", "created", "merged"), readNodeIds("multiple"));
+    }
+
+    @Test
+    public void testFailedOperationLeavesDatastoreUntouched() throws Exception {
+        final Element rpcReply = editConfig("", "<topology><topology-id>failed</topology-id>"
+            + "<node nc:operation=\"delete\"><node-id>node-1</node-id></node>"
+            + "<node nc:operation=\"create\"><node-id>node-2</node-id></node>"
+            + "<node><node-id>merged</node-id></node>"
+            + "</topology>");
+
+        Assertions.assertEquals("data-exists", getErrorTag(rpcReply));
+        Assertions.assertEquals(Set.of("node-0", "node-1", "node-2", "node-3", "node-4"), readNodeIds("failed"));
+    }
+
+    @Test
+    public void testDeleteOfMissingDataAmongOthers() throws Exception {
+        final Element rpcReply = editConfig("", "<topology><topology-id>missing</topology-id>"
+            + "<node nc:operation=\"delete\"><node-id>node-0</node-id></node>"
+            + "<node nc:operation=\"create\"><node-id>created</node-id></node>"
+            + "<node nc:operation=\"delete\"><node-id>node-5</node-id></node>"
+            + "<node nc:operation=\"delete\"><node-id>node-1</node-id></node>"
+            + "</topology>");
+
+        Assertions.assertEquals("data-missing", getErrorTag(rpcReply));
+        Assertions.assertEquals(Set.of("node-0", "node-1", "node-2", "node-3", "node-4"), readNodeIds("missing"));
+    }
+
+    @Test
+    public void testConcurrentCreateSucceedsOnce() throws Exception {
+        final ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            for (int round = 0; round < ROUNDS; round++) {
+                final String createRequest = "<topology><topology-id>contended</topology-id>"
+                    + "<node nc:operation=\"create\"><node-id>created-" + round + "</node-id></node></topology>";
+                final CountDownLatch start = new CountDownLatch(1);
+                final List<Future<Boolean>> futures = new ArrayList<>();
+                for (int thread = 0; thread < THREADS; thread++) {
+                    futures.add(executor.submit(() -> {
+                        start.await();
+                        final Element rpcReply = editConfig("", createRequest);
+                        return rpcReply.getElementsByTagNameNS(RPCUtil.NETCONF_BASE_NAMESPACE, "ok").getLength() == 1;
+                    }));
+                }
+                start.countDown();
+                int succeeded = 0;
+                for (final Future<Boolean> future : futures) {
+                    if (future.get(1, TimeUnit.MINUTES)) {
+                        succeeded++;
+                    }
+                }
+                Assertions.assertEquals(1, succeeded, "round " + round);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testDefaultOperationNone() throws Exception {
+        final Element rpcReply = editConfig("<default-operation>none</default-operation>",
+            "<topology><topology-id>none</topology-id>"
+            + "<node><node-id>ignored</node-id></node>"
+            + "<node nc:operation=\"delete\"><node-id>node-0</node-id></node>"
+            + "</topology>"
+            + "<topology nc:operation=\"create\"><topology-id>created</topology-id>"
+            + "<node><node-id>node-0</node-id></node></topology>");
+
+        assertOk(rpcReply);
+        Assertions.assertEquals(Set.of("node-1", "node-2", "node-3", "node-4"), readNodeIds("none"));
+        Assertions.assertEquals(Set.of("node-0"), readNodeIds("created"));
+    }
+
+    @Test
+    public void testNestedOperationsInsideReplace() throws Exception {
+        final Element rpcReply = editConfig("", "<topology nc:operation=\"replace\">"
+            + "<topology-id>replaced</topology-id>"
+            + "<node><node-id>node-0</node-id></node>"
+            + "<node nc:operation=\"create\"><node-id>created</node-id></node>"
+            + "</topology>");
+
+        assertOk(rpcReply);
+        Assertions.assertEquals(Set.of("node-0", "created"), readNodeIds("replaced"));
+    }
+
+    @Test
+    public void testUnknownOperation() throws Exception {
+        final Element rpcReply = editConfig("", "<topology nc:operation=\"unknown\">"
+            + "<topology-id>unknown</topology-id></topology>");
+
+        Assertions.assertEquals("rpc-error", ((Element) rpcReply.getFirstChild()).getLocalName());
+        Assertions.assertTrue(readNodeIds("unknown").isEmpty());
+    }
+
+    private static Element editConfig(final String defaultOperation, final String topologies) throws Exception {
+        final EditConfigRequestProcessor processor = new EditConfigRequestProcessor();
+        processor.init(netconfDeviceServices);
+        final Document reply = processor.processRequest(
+            XmlUtil.readXmlToElement(String.format(EDIT_CONFIG_REQUEST, defaultOperation, topologies)));
+        final Element rpcReply = reply.getDocumentElement();
+        Assertions.assertEquals("rpc-reply", rpcReply.getLocalName());
+        return rpcReply;
+    }
+
+    private static void assertOk(final Element rpcReply) {
+        Assertions.assertEquals(1, rpcReply.getElementsByTagNameNS(RPCUtil.NETCONF_BASE_NAMESPACE, "ok").getLength(),
+            () -> XmlUtil.toString(rpcReply));
+    }
+
+    private static String getErrorTag(final Element rpcReply) {
+        return rpcReply.getElementsByTagNameNS(RPCUtil.NETCONF_BASE_NAMESPACE, "error-tag").item(0)
+            .getTextContent();
+    }
+
+    private static Set<String> readNodeIds(final String topologyId) throws Exception {
+        try (ReadTransaction readTransaction = netconfDeviceServices.getDataBroker().newReadOnlyTransaction()) {
+            final Optional<Topology> topology = readTransaction.read(LogicalDatastoreType.CONFIGURATION,
+                topologyPath(topologyId)).get(REQUEST_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+            return topology.map(Topology::nonnullNode)
+                .map(nodes -> nodes.values().stream()
+                    .map(node -> node.getNodeId().getValue())
+                    .collect(Collectors.toCollection(TreeSet::new)))
+                .orElseGet(TreeSet::new);
+        }
+    }
+
+    private static DataObjectIdentifier<Topology> topologyPath(final String topologyId) {
+        return DataObjectIdentifier.builder(NetworkTopology.class)
+            .child(Topology.class, new TopologyKey(new TopologyId(topologyId)))
+            .build();
+    }
+}
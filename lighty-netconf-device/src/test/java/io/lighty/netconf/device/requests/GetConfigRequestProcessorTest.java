@@ -0,0 +1,198 @@
+/*
+ * Copyright (c) 2024 PANTHEON.tech, s.r.o. and others. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at https://www.eclipse.org/legal/epl-v10.html
+ */
+package io.lighty.netconf.device.requests;
+
+import io.lighty.codecs.util.exception.DeserializationException;
+import io.lighty.core.common.models.ModuleId;
+import io.lighty.netconf.device.NetconfDeviceServices;
+import io.lighty.netconf.device.NetconfDeviceServicesImpl;
+import io.lighty.netconf.device.utils.ModelUtils;
+import io.lighty.netconf.device.utils.RPCUtil;
+import java.io.StringReader;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.opendaylight.mdsal.binding.api.WriteTransaction;
+import org.opendaylight.mdsal.common.api.LogicalDatastoreType;
+import org.opendaylight.netconf.api.xml.XmlUtil;
+import org.opendaylight.yang.gen.v1.urn.tbd.params.xml.ns.yang.network.topology.rev131021.NetworkTopology;
+import org.opendaylight.yang.gen.v1.urn.tbd.params.xml.ns.yang.network.topology.rev131021.NodeId;
+import org.opendaylight.yang.gen.v1.urn.tbd.params.xml.ns.yang.network.topology.rev131021.TopologyId;
+import org.opendaylight.yang.gen.v1.urn.tbd.params.xml.ns.yang.network.topology.rev131021.network.topology.Topology;
+import org.opendaylight.yang.gen.v1.urn.tbd.params.xml.ns.yang.network.topology.rev131021.network.topology.TopologyBuilder;
+import org.opendaylight.yang.gen.v1.urn.tbd.params.xml.ns.yang.network.topology.rev131021.network.topology.topology.Node;
+import org.opendaylight.yang.gen.v1.urn.tbd.params.xml.ns.yang.network.topology.rev131021.network.topology.topology.NodeBuilder;
+import org.opendaylight.yangtools.binding.DataObjectIdentifier;
+import org.opendaylight.yangtools.binding.meta.YangModuleInfo;
+import org.opendaylight.yangtools.yang.data.api.YangInstanceIdentifier;
+import org.opendaylight.yangtools.yang.data.api.schema.ContainerNode;
+import org.opendaylight.yangtools.yang.data.api.schema.NormalizedNode;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+
+public class GetConfigRequestProcessorTest {
+
+    private static final long REQUEST_TIMEOUT_MILLIS = 5_000;
+    private static final String GET_CONFIG_REQUEST = "<rpc message-id=\"m-1\" "
+        + "xmlns=\"urn:ietf:params:xml:ns:netconf:base:1.0\"><get-config><source><running/></source></get-config></rpc>";
+
+    private static final String FILTERED_REQUEST = "<rpc message-id=\"m-2\" "
+        + "xmlns=\"urn:ietf:params:xml:ns:netconf:base:1.0\"><get-config><source><running/></source>%s</get-config>"
+        + "</rpc>";
+    private static final String NT_NAMESPACE = "urn:TBD:params:xml:ns:yang:network-topology";
+
+    private static NetconfDeviceServices netconfDeviceServices;
+
+    @BeforeAll
+    public static void setUp() throws InterruptedException, ExecutionException, TimeoutException {
+        final Set<YangModuleInfo> modules = ModelUtils.getModelsFromClasspath(
+            ModuleId.from("urn:TBD:params:xml:ns:yang:network-topology",
+                "network-topology",
+                "2013-10-21"));
+        netconfDeviceServices = new NetconfDeviceServicesImpl(modules, null);
+
+        final Topology topology = new TopologyBuilder()
+            .setTopologyId(new TopologyId("topology"))
+            .setNode(IntStream.range(0, 10)
+                .mapToObj(i -> new NodeBuilder().setNodeId(new NodeId("node-" + i)).build())
+                .collect(Collectors.toMap(Node::key, node -> node)))
+            .build();
+        final Topology otherTopology = new TopologyBuilder()
+            .setTopologyId(new TopologyId("other"))
+            .setNode(IntStream.range(0, 2)
+                .mapToObj(i -> new NodeBuilder().setNodeId(new NodeId("other-node-" + i)).build())
+                .collect(Collectors.toMap(Node::key, node -> node)))
+            .build();
+        final WriteTransaction writeTransaction = netconfDeviceServices.getDataBroker().newWriteOnlyTransaction();
+        writeTransaction.put(LogicalDatastoreType.CONFIGURATION,
+            DataObjectIdentifier.builder(NetworkTopology.class).child(Topology.class, topology.key()).build(),
+            topology);
+        writeTransaction.put(LogicalDatastoreType.CONFIGURATION,
+            DataObjectIdentifier.builder(NetworkTopology.class).child(Topology.class, otherTopology.key()).build(),
+            otherTopology);
+        writeTransaction.commit().get(REQUEST_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    @Test
+    public void testReplyContainsWholeDatastore() throws Exception {
+        final GetConfigRequestProcessor processor = new GetConfigRequestProcessor();
+        processor.init(netconfDeviceServices);
+
+        final Document reply = processor.processRequest(
+            XmlUtil.readXmlToElement(GET_CONFIG_REQUEST));
+
+        final Element rpcReply = reply.getDocumentElement();
+        Assertions.assertEquals("rpc-reply", rpcReply.getLocalName());
+        final Element data = (Element) rpcReply.getFirstChild();
+        Assertions.assertEquals("data", data.getLocalName());
+        Assertions.assertEquals(RPCUtil.NETCONF_BASE_NAMESPACE, data.getNamespaceURI());
+
+        // reply must contain exactly the same data as the datastore
+        Assertions.assertEquals(readNetworkTopology(), parseNetworkTopology(data));
+    }
+
+    @Test
+    public void testSubtreeFilterWithKeys() throws Exception {
+        final Element data = getConfig("<filter type=\"subtree\"><network-topology xmlns=\"" + NT_NAMESPACE + "\">"
+            + "<topology><topology-id>topology</topology-id>"
+            + "<node><node-id>node-3</node-id></node></topology></network-topology></filter>");
+
+        Assertions.assertEquals(List.of("topology"), getTexts(data, "topology-id"));
+        Assertions.assertEquals(List.of("node-3"), getTexts(data, "node-id"));
+    }
+
+    @Test
+    public void testSubtreeFilterSelectingLeaves() throws Exception {
+        final Element data = getConfig("<filter><network-topology xmlns=\"" + NT_NAMESPACE + "\">"
+            + "<topology><node><node-id/></node></topology></network-topology></filter>");
+
+        Assertions.assertEquals(Set.of("topology", "other"), Set.copyOf(getTexts(data, "topology-id")));
+        Assertions.assertEquals(12, getTexts(data, "node-id").size());
+    }
+
+    @Test
+    public void testSubtreeFilterWithContentMatch() throws Exception {
+        final Element data = getConfig("<filter><network-topology xmlns=\"" + NT_NAMESPACE + "\">"
+            + "<topology><node><node-id>other-node-1</node-id></node></topology></network-topology></filter>");
+
+        Assertions.assertEquals(List.of("other"), getTexts(data, "topology-id"));
+        Assertions.assertEquals(List.of("other-node-1"), getTexts(data, "node-id"));
+    }
+
+    @Test
+    public void testXPathFilter() throws Exception {
+        final Element data = getConfig("<filter type=\"xpath\" xmlns:nt=\"" + NT_NAMESPACE + "\" "
+            + "select=\"/nt:network-topology/nt:topology[nt:topology-id='other'] "
+            + "| /nt:network-topology/nt:topology[nt:topology-id='topology']/nt:node[nt:node-id='node-5']\"/>");
+
+        Assertions.assertEquals(Set.of("topology", "other"), Set.copyOf(getTexts(data, "topology-id")));
+        Assertions.assertEquals(Set.of("other-node-0", "other-node-1", "node-5"),
+            Set.copyOf(getTexts(data, "node-id")));
+    }
+
+    @Test
+    public void testEmptyFilterSelectsNothing() throws Exception {
+        final Element data = getConfig("<filter type=\"subtree\"/>");
+
+        Assertions.assertNull(data.getFirstChild());
+    }
+
+    @Test
+    public void testUnsupportedXPathFilter() throws Exception {
+        final GetConfigRequestProcessor processor = new GetConfigRequestProcessor();
+        processor.init(netconfDeviceServices);
+
+        final Document reply = processor.processRequest(XmlUtil.readXmlToElement(String.format(FILTERED_REQUEST,
+            "<filter type=\"xpath\" select=\"//node\"/>")));
+
+        Assertions.assertEquals("invalid-value", reply.getElementsByTagNameNS(RPCUtil.NETCONF_BASE_NAMESPACE,
+            "error-tag").item(0).getTextContent());
+    }
+
+    private static Element getConfig(final String filter) throws Exception {
+        final GetConfigRequestProcessor processor = new GetConfigRequestProcessor();
+        processor.init(netconfDeviceServices);
+        final Document reply = processor.processRequest(
+            XmlUtil.readXmlToElement(String.format(FILTERED_REQUEST, filter)));
+        final Element data = (Element) reply.getDocumentElement().getFirstChild();
+        Assertions.assertEquals("data", data.getLocalName());
+        return data;
+    }
+
+    private static List<String> getTexts(final Element data, final String localName) {
+        final NodeList elements = data.getElementsByTagNameNS(NT_NAMESPACE, localName);
+        return IntStream.range(0, elements.getLength())
+            .mapToObj(i -> elements.item(i).getTextContent())
+            .toList();
+    }
+
+    private static NormalizedNode readNetworkTopology() throws Exception {
+        return netconfDeviceServices.getDOMDataBroker().newReadOnlyTransaction()
+            .read(LogicalDatastoreType.CONFIGURATION, YangInstanceIdentifier.of(NetworkTopology.QNAME))
+            .get(REQUEST_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS).orElseThrow();
+    }
+
+    private static NormalizedNode parseNetworkTopology(final Element data) throws DeserializationException {
+        final ContainerNode parsed = (ContainerNode) netconfDeviceServices.getXmlNodeConverter()
+            .deserialize(netconfDeviceServices.getRootInference(), new StringReader(XmlUtil.toString(data)));
+        final Optional<NormalizedNode> child = parsed.body().stream()
+            .filter(node -> node.name().getNodeType().equals(NetworkTopology.QNAME))
+            .map(NormalizedNode.class::cast)
+            .findFirst();
+        return child.orElseThrow();
+    }
+}
@@ -0,0 +1,152 @@
+/*
+ * Copyright (c) 2024 PANTHEON.tech, s.r.o. and others. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at https://www.eclipse.org/legal/epl-v10.html
+ */
+package io.lighty.netconf.device.requests;
+
+import io.lighty.core.common.models.ModuleId;
+import io.lighty.netconf.device.NetconfDeviceServicesImpl;
+import io.lighty.netconf.device.utils.ModelUtils;
+import io.lighty.netconf.device.utils.RPCUtil;
+import java.util.concurrent.TimeUnit;
+import org.eclipse.jdt.annotation.Nullable;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.opendaylight.mdsal.binding.api.ReadTransaction;
+import org.opendaylight.mdsal.common.api.LogicalDatastoreType;
+import org.opendaylight.netconf.api.xml.XmlUtil;
+import org.opendaylight.yang.gen.v1.urn.ietf.params.xml.ns.netconf.base._1._0.rev110601.SessionIdType;
+import org.opendaylight.yang.gen.v1.urn.tbd.params.xml.ns.yang.network.topology.rev131021.NetworkTopology;
+import org.opendaylight.yang.gen.v1.urn.tbd.params.xml.ns.yang.network.topology.rev131021.TopologyId;
+import org.opendaylight.yang.gen.v1.urn.tbd.params.xml.ns.yang.network.topology.rev131021.network.topology.Topology;
+import org.opendaylight.yang.gen.v1.urn.tbd.params.xml.ns.yang.network.topology.rev131021.network.topology.TopologyKey;
+import org.opendaylight.yangtools.binding.DataObjectIdentifier;
+import org.opendaylight.yangtools.yang.common.Uint32;
+import org.w3c.dom.Element;
+
+public class LockRequestProcessorTest {
+
+    private static final long TIMEOUT_MILLIS = 5_000;
+    private static final String NT_NAMESPACE = "urn:TBD:params:xml:ns:yang:network-topology";
+    private static final String RPC = "<rpc message-id=\"m-1\" xmlns=\"" + RPCUtil.NETCONF_BASE_NAMESPACE + "\">%s</rpc>";
+    private static final String EDIT_CANDIDATE = "<edit-config><target><candidate/></target><config>"
+        + "<network-topology xmlns=\"" + NT_NAMESPACE + "\"><topology><topology-id>%s</topology-id></topology>"
+        + "</network-topology></config></edit-config>";
+    private static final String GET_CANDIDATE = "<get-config><source><candidate/></source></get-config>";
+    private static final SessionIdType FIRST = new SessionIdType(Uint32.ONE);
+    private static final SessionIdType SECOND = new SessionIdType(Uint32.TWO);
+
+    private NetconfDeviceServicesImpl services;
+
+    @BeforeEach
+    public void setUp() {
+        services = new NetconfDeviceServicesImpl(ModelUtils.getModelsFromClasspath(
+            ModuleId.from(NT_NAMESPACE, "network-topology", "2013-10-21")), null);
+        services.setCandidateEnabled(true);
+    }
+
+    @Test
+    public void testLockedCandidateIsChangedByOwnerOnly() throws Exception {
+        assertOk(process(new LockRequestProcessor(), lock("lock", "candidate"), FIRST));
+        Assertions.assertEquals("lock-denied", getErrorTag(process(new LockRequestProcessor(),
+            lock("lock", "candidate"), SECOND)));
+
+        Assertions.assertEquals("in-use", getErrorTag(process(new EditConfigRequestProcessor(),
+            String.format(EDIT_CANDIDATE, "second"), SECOND)));
+        assertOk(process(new EditConfigRequestProcessor(), String.format(EDIT_CANDIDATE, "first"), FIRST));
+        Assertions.assertEquals("in-use", getErrorTag(process(new DiscardChangesRequestProcessor(),
+            "<discard-changes/>", SECOND)));
+        Assertions.assertEquals("in-use", getErrorTag(process(new CommitRequestProcessor(), "<commit/>", SECOND)));
+
+        Assertions.assertEquals("operation-failed", getErrorTag(process(new UnlockRequestProcessor(),
+            lock("unlock", "candidate"), SECOND)));
+        assertOk(process(new UnlockRequestProcessor(), lock("unlock", "candidate"), FIRST));
+        Assertions.assertEquals("lock-denied", getErrorTag(process(new LockRequestProcessor(),
+            lock("lock", "candidate"), SECOND)));
+    }
+
+    @Test
+    public void testCandidateIsCommittedIntoRunning() throws Exception {
+        assertOk(process(new EditConfigRequestProcessor(), String.format(EDIT_CANDIDATE, "committed"), FIRST));
+        final Element candidate = process(new GetConfigRequestProcessor(), GET_CANDIDATE, SECOND);
+        Assertions.assertEquals(1, candidate.getElementsByTagNameNS(NT_NAMESPACE, "topology").getLength());
+        Assertions.assertFalse(topologyExists("committed"));
+
+        assertOk(process(new ValidateRequestProcessor(), "<validate><source><candidate/></source></validate>",
+            SECOND));
+        assertOk(process(new CommitRequestProcessor(), "<commit/>", SECOND));
+
+        Assertions.assertTrue(topologyExists("committed"));
+        Assertions.assertFalse(services.getCandidateDatastore().isModified());
+    }
+
+    @Test
+    public void testRunningLockBlocksEditAndCommit() throws Exception {
+        assertOk(process(new LockRequestProcessor(), lock("lock", "running"), FIRST));
+        assertOk(process(new EditConfigRequestProcessor(), String.format(EDIT_CANDIDATE, "blocked"), SECOND));
+        Assertions.assertEquals("in-use", getErrorTag(process(new CommitRequestProcessor(), "<commit/>", SECOND)));
+
+        Assertions.assertEquals(1, services.getDatastoreLocks().unlockAll(FIRST).size());
+        assertOk(process(new CommitRequestProcessor(), "<commit/>", SECOND));
+        Assertions.assertTrue(topologyExists("blocked"));
+    }
+
+    @Test
+    public void testCandidateIsAliasOfRunningUnlessEnabled() throws Exception {
+        services.setCandidateEnabled(false);
+        assertOk(process(new EditConfigRequestProcessor(), String.format(EDIT_CANDIDATE, "aliased"), FIRST));
+        Assertions.assertTrue(topologyExists("aliased"));
+        Assertions.assertFalse(services.getCandidateDatastore().isModified());
+        final Element candidate = process(new GetConfigRequestProcessor(), GET_CANDIDATE, SECOND);
+        Assertions.assertEquals(1, candidate.getElementsByTagNameNS(NT_NAMESPACE, "topology").getLength());
+        assertOk(process(new CommitRequestProcessor(), "<commit/>", SECOND));
+
+        assertOk(process(new LockRequestProcessor(), lock("lock", "candidate"), FIRST));
+        Assertions.assertEquals("in-use", getErrorTag(process(new EditConfigRequestProcessor(),
+            String.format(EDIT_CANDIDATE, "blocked"), SECOND)));
+    }
+
+    @Test
+    public void testConfirmedCommitIsNotSupportedUnlessEnabled() throws Exception {
+        Assertions.assertEquals("operation-not-supported", getErrorTag(process(new CommitRequestProcessor(),
+            "<commit><confirmed/></commit>", FIRST)));
+    }
+
+    private Element process(final RequestProcessor processor, final String request,
+            final @Nullable SessionIdType sessionId) throws Exception {
+        processor.init(services);
+        final Element rpc = XmlUtil.readXmlToElement(String.format(RPC, request));
+        final Element requestElement = (Element) rpc.getFirstChild();
+        final Element rpcReply = processor.processRequest(requestElement, RequestContext.of(requestElement,
+            sessionId)).getDocumentElement();
+        Assertions.assertEquals("rpc-reply", rpcReply.getLocalName());
+        return rpcReply;
+    }
+
+    private boolean topologyExists(final String topologyId) throws Exception {
+        try (ReadTransaction readTransaction = services.getDataBroker().newReadOnlyTransaction()) {
+            return readTransaction.exists(LogicalDatastoreType.CONFIGURATION,
+                DataObjectIdentifier.builder(NetworkTopology.class)
+                    .child(Topology.class, new TopologyKey(new TopologyId(topologyId)))
+                    .build()).get(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private static String lock(final String operation, final String datastore) {
+        return "<" + operation + "><target><" + datastore + "/></target></" + operation + ">";
+    }
+
+    private static void assertOk(final Element rpcReply) {
+        Assertions.assertEquals(1, rpcReply.getElementsByTagNameNS(RPCUtil.NETCONF_BASE_NAMESPACE, "ok").getLength(),
+            () -> XmlUtil.toString(rpcReply));
+    }
+
+    private static String getErrorTag(final Element rpcReply) {
+        return rpcReply.getElementsByTagNameNS(RPCUtil.NETCONF_BASE_NAMESPACE, "error-tag").item(0)
+            .getTextContent();
+    }
+}
@@ -0,0 +1,57 @@
+/*
+ * Copyright (c) 2024 PANTHEON.tech, s.r.o. and others. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at https://www.eclipse.org/legal/epl-v10.html
+ */
+package io.lighty.netconf.device.requests;
+
+import io.lighty.netconf.device.utils.RPCUtil;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.opendaylight.netconf.api.xml.XmlUtil;
+import org.opendaylight.yang.gen.v1.urn.ietf.params.xml.ns.netmod.notification.rev080714.Netconf;
+import org.opendaylight.yang.gen.v1.urn.ietf.params.xml.ns.yang.ietf.netconf.monitoring.rev101004.NetconfState;
+import org.w3c.dom.Element;
+
+public class RpcHandlerImplTest {
+
+    private static final String MONITORING_NAMESPACE = NetconfState.QNAME.getNamespace().toString();
+
+    @Test
+    public void testGetWithoutFilterSelectsState() throws Exception {
+        final Element get = get("");
+        Assertions.assertTrue(RpcHandlerImpl.selects(get, NetconfState.QNAME));
+        Assertions.assertTrue(RpcHandlerImpl.selects(get, Netconf.QNAME));
+    }
+
+    @Test
+    public void testSubtreeFilter() throws Exception {
+        final Element stateGet = get("<filter type=\"subtree\"><netconf-state xmlns=\"" + MONITORING_NAMESPACE
+            + "\"><sessions/></netconf-state></filter>");
+        Assertions.assertTrue(RpcHandlerImpl.selects(stateGet, NetconfState.QNAME));
+        Assertions.assertFalse(RpcHandlerImpl.selects(stateGet, Netconf.QNAME));
+
+        final Element dataGet = get("<filter type=\"subtree\"><network-topology xmlns=\""
+            + "urn:TBD:params:xml:ns:yang:network-topology\"/></filter>");
+        Assertions.assertFalse(RpcHandlerImpl.selects(dataGet, NetconfState.QNAME));
+        Assertions.assertFalse(RpcHandlerImpl.selects(dataGet, Netconf.QNAME));
+    }
+
+    @Test
+    public void testXpathFilter() throws Exception {
+        final Element stateGet = get("<filter type=\"xpath\" xmlns:ncm=\"" + MONITORING_NAMESPACE
+            + "\" select=\"/ncm:netconf-state/ncm:statistics\"/>");
+        Assertions.assertTrue(RpcHandlerImpl.selects(stateGet, NetconfState.QNAME));
+
+        final Element dataGet = get("<filter type=\"xpath\" xmlns:t=\"urn:TBD:params:xml:ns:yang:network-topology\""
+            + " select=\"/t:network-topology\"/>");
+        Assertions.assertFalse(RpcHandlerImpl.selects(dataGet, NetconfState.QNAME));
+    }
+
+    private static Element get(final String filter) throws Exception {
+        return XmlUtil.readXmlToElement("<get xmlns=\"" + RPCUtil.NETCONF_BASE_NAMESPACE + "\">" + filter
+            + "</get>");
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright (c) 2024 PANTHEON.tech, s.r.o. and others. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at https://www.eclipse.org/legal/epl-v10.html
+ */
+package io.lighty.netconf.device.requests.notification;
+
+import io.lighty.netconf.device.requests.RequestContext;
+import io.lighty.netconf.device.utils.RPCUtil;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.opendaylight.netconf.api.xml.XmlUtil;
+import org.opendaylight.yang.gen.v1.urn.ietf.params.xml.ns.netconf.base._1._0.rev110601.SessionIdType;
+import org.opendaylight.yangtools.yang.common.Uint32;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+
+public class CreateSubscriptionRequestProcessorTest {
+
+    private static final String REQUEST = "<rpc xmlns=\"" + RPCUtil.NETCONF_BASE_NAMESPACE + "\" message-id=\"%s\">"
+        + "<create-subscription xmlns=\"" + RPCUtil.CREATE_SUBSCRIPTION_NAMESPACE + "\"/></rpc>";
+    private static final int THREADS = 8;
+    private static final int REQUESTS = 500;
+
+    @Test
+    public void testRequestContext() throws Exception {
+        final Element request = createSubscription("m-1");
+        final SessionIdType sessionId = new SessionIdType(Uint32.valueOf(5));
+        final RequestContext context = RequestContext.of(request, sessionId);
+        Assertions.assertEquals("m-1", context.getMessageId());
+        Assertions.assertEquals(sessionId, context.getSessionId());
+
+        final Element withoutId = XmlUtil.readXmlToElement("<create-subscription xmlns=\""
+            + RPCUtil.CREATE_SUBSCRIPTION_NAMESPACE + "\"/>");
+        Assertions.assertNull(RequestContext.of(withoutId).getMessageId());
+        Assertions.assertNull(RequestContext.of(withoutId).getSessionId());
+    }
+
+    @Test
+    public void testConcurrentRequestsKeepTheirMessageIds() throws Exception {
+        final CreateSubscriptionRequestProcessor processor = new CreateSubscriptionRequestProcessor();
+        final ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        final CountDownLatch start = new CountDownLatch(1);
+        try {
+            final List<Future<?>> futures = new ArrayList<>();
+            for (int thread = 0; thread < THREADS; thread++) {
+                final int threadId = thread;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < REQUESTS; i++) {
+                        final String messageId = threadId + "-" + i;
+                        final Document reply = processor.processRequest(createSubscription(messageId));
+                        final Element rpcReply = reply.getDocumentElement();
+                        Assertions.assertEquals("rpc-reply", rpcReply.getLocalName());
+                        Assertions.assertEquals(messageId, rpcReply.getAttribute("message-id"));
+                        Assertions.assertEquals(1, rpcReply.getElementsByTagNameNS(RPCUtil.NETCONF_BASE_NAMESPACE,
+                            "ok").getLength());
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (final Future<?> future : futures) {
+                future.get(1, TimeUnit.MINUTES);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static Element createSubscription(final String messageId) throws Exception {
+        return (Element) XmlUtil.readXmlToElement(String.format(REQUEST, messageId)).getFirstChild();
+    }
+}
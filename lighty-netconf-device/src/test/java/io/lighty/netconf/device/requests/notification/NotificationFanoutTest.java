@@ -0,0 +1,187 @@
+/*
+ * Copyright (c) 2024 PANTHEON.tech, s.r.o. and others. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at https://www.eclipse.org/legal/epl-v10.html
+ */
+package io.lighty.netconf.device.requests.notification;
+
+import com.google.common.util.concurrent.MoreExecutors;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelPromise;
+import io.netty.channel.embedded.EmbeddedChannel;
+import java.nio.channels.ClosedChannelException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.opendaylight.netconf.api.NetconfSession;
+import org.opendaylight.netconf.api.messages.NetconfMessage;
+import org.opendaylight.netconf.api.xml.XmlUtil;
+import org.opendaylight.yang.gen.v1.urn.ietf.params.xml.ns.netconf.base._1._0.rev110601.SessionIdType;
+import org.opendaylight.yangtools.yang.common.Uint32;
+
+public class NotificationFanoutTest {
+
+    private static final int CAPACITY = 10;
+    private static final int PUBLISHED = 100;
+
+    private EmbeddedChannel channel;
+    private List<NetconfMessage> messages;
+
+    @BeforeEach
+    public void setUp() {
+        channel = new EmbeddedChannel();
+        messages = IntStream.range(0, PUBLISHED)
+            .mapToObj(i -> new NetconfMessage(XmlUtil.newDocument()))
+            .collect(Collectors.toList());
+    }
+
+    @AfterEach
+    public void tearDown() {
+        channel.close();
+    }
+
+    @Test
+    public void testOrderIsKeptForEachSession() {
+        final NotificationFanout fanout =
+            new NotificationFanout(MoreExecutors.directExecutor(), PUBLISHED, SlowConsumerPolicy.DROP_NEWEST);
+        final TestSession first = new TestSession(1, true);
+        final TestSession second = new TestSession(2, true);
+        messages.forEach(message -> fanout.publish(message, List.of(first, second)));
+
+        Assertions.assertEquals(messages, first.sent);
+        Assertions.assertEquals(messages, second.sent);
+        Assertions.assertEquals(0, fanout.getDroppedNotifications());
+    }
+
+    @Test
+    public void testDropNewest() {
+        final NotificationFanout fanout =
+            new NotificationFanout(MoreExecutors.directExecutor(), CAPACITY, SlowConsumerPolicy.DROP_NEWEST);
+        final TestSession slow = new TestSession(1, false);
+        messages.forEach(message -> fanout.publish(message, List.of(slow)));
+        // the first notification is being written, the queue holds the following ones
+        Assertions.assertEquals(messages.subList(0, 1), slow.sent);
+        Assertions.assertEquals(PUBLISHED - CAPACITY - 1, fanout.getDroppedNotifications());
+
+        slow.completeWrites();
+        Assertions.assertEquals(messages.subList(0, CAPACITY + 1), slow.sent);
+    }
+
+    @Test
+    public void testDropOldest() {
+        final NotificationFanout fanout =
+            new NotificationFanout(MoreExecutors.directExecutor(), CAPACITY, SlowConsumerPolicy.DROP_OLDEST);
+        final TestSession slow = new TestSession(1, false);
+        final TestSession fast = new TestSession(2, true);
+        messages.forEach(message -> fanout.publish(message, List.of(slow, fast)));
+        Assertions.assertEquals(messages, fast.sent);
+
+        slow.completeWrites();
+        final List<NetconfMessage> expected = new ArrayList<>(messages.subList(0, 1));
+        expected.addAll(messages.subList(PUBLISHED - CAPACITY, PUBLISHED));
+        Assertions.assertEquals(expected, slow.sent);
+        Assertions.assertEquals(PUBLISHED - CAPACITY - 1, fanout.getDroppedNotifications());
+    }
+
+    @Test
+    public void testDisconnect() {
+        final NotificationFanout fanout =
+            new NotificationFanout(MoreExecutors.directExecutor(), CAPACITY, SlowConsumerPolicy.DISCONNECT);
+        final TestSession slow = new TestSession(1, false);
+        final TestSession fast = new TestSession(2, true);
+        messages.forEach(message -> fanout.publish(message, List.of(slow, fast)));
+
+        Assertions.assertTrue(slow.closed);
+        Assertions.assertFalse(fast.closed);
+        Assertions.assertEquals(messages, fast.sent);
+        slow.completeWrites();
+        Assertions.assertEquals(messages.subList(0, 1), slow.sent);
+        Assertions.assertEquals(PUBLISHED - 1, fanout.getDroppedNotifications());
+    }
+
+    @Test
+    public void testReleasedMessagesAreSentFirst() {
+        final NotificationFanout fanout =
+            new NotificationFanout(MoreExecutors.directExecutor(), CAPACITY, SlowConsumerPolicy.DROP_NEWEST);
+        final TestSession session = new TestSession(1, true);
+        fanout.hold(session);
+        final List<NetconfMessage> live = messages.subList(0, CAPACITY);
+        live.forEach(message -> fanout.publish(message, List.of(session)));
+        Assertions.assertTrue(session.sent.isEmpty());
+
+        // released messages do not count to the capacity of the queue
+        final List<NetconfMessage> released = messages.subList(CAPACITY, PUBLISHED);
+        fanout.release(session, released.iterator());
+        final List<NetconfMessage> expected = new ArrayList<>(released);
+        expected.addAll(live);
+        Assertions.assertEquals(expected, session.sent);
+        Assertions.assertEquals(0, fanout.getDroppedNotifications());
+    }
+
+    @Test
+    public void testQueueOfClosedSessionIsRemoved() {
+        final NotificationFanout fanout =
+            new NotificationFanout(MoreExecutors.directExecutor(), CAPACITY, SlowConsumerPolicy.DROP_NEWEST);
+        final TestSession session = new TestSession(1, true);
+        fanout.publish(messages.get(0), List.of(session));
+        Assertions.assertEquals(1, fanout.getSessionCount());
+
+        // publish holding the subscribers from before the removal creates the queue again
+        session.closed = true;
+        fanout.removeSession(session);
+        fanout.publish(messages.get(1), List.of(session));
+        Assertions.assertEquals(0, fanout.getSessionCount());
+        Assertions.assertEquals(messages.subList(0, 2), session.sent);
+    }
+
+    private final class TestSession implements NetconfSession {
+
+        private final SessionIdType sessionId;
+        private final boolean writable;
+        private final List<NetconfMessage> sent = new ArrayList<>();
+        private final List<ChannelPromise> pendingWrites = new ArrayList<>();
+        private boolean closed;
+
+        TestSession(final long sessionId, final boolean writable) {
+            this.sessionId = new SessionIdType(Uint32.valueOf(sessionId));
+            this.writable = writable;
+        }
+
+        @Override
+        public SessionIdType sessionId() {
+            return sessionId;
+        }
+
+        @Override
+        public ChannelFuture sendMessage(final NetconfMessage message) {
+            sent.add(message);
+            if (closed) {
+                return channel.newFailedFuture(new ClosedChannelException());
+            }
+            if (writable) {
+                return channel.newSucceededFuture();
+            }
+            final ChannelPromise promise = channel.newPromise();
+            pendingWrites.add(promise);
+            return promise;
+        }
+
+        void completeWrites() {
+            while (!pendingWrites.isEmpty()) {
+                pendingWrites.remove(0).setSuccess();
+            }
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+    }
+}
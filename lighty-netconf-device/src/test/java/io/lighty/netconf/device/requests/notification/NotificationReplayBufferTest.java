@@ -0,0 +1,92 @@
+/*
+ * Copyright (c) 2024 PANTHEON.tech, s.r.o. and others. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at https://www.eclipse.org/legal/epl-v10.html
+ */
+package io.lighty.netconf.device.requests.notification;
+
+import io.lighty.netconf.device.requests.notification.NotificationReplayBuffer.BufferedNotification;
+import java.time.Instant;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.opendaylight.netconf.api.messages.NotificationMessage;
+import org.opendaylight.netconf.api.xml.XmlUtil;
+import org.opendaylight.yangtools.yang.common.QName;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+
+public class NotificationReplayBufferTest {
+
+    private static final String NAMESPACE = "urn:test:notifications";
+    private static final QName FIRST = QName.create(NAMESPACE, "first");
+    private static final QName SECOND = QName.create(NAMESPACE, "second");
+    private static final Instant START = Instant.parse("2024-01-01T00:00:00Z");
+
+    @Test
+    public void testEvictionByCount() {
+        final NotificationReplayBuffer buffer = new NotificationReplayBuffer(3, Long.MAX_VALUE, false);
+        for (int i = 0; i < 5; i++) {
+            append(buffer, FIRST, i);
+        }
+        Assertions.assertEquals(3, buffer.size());
+        Assertions.assertEquals(START.plusSeconds(2), buffer.getOldestEventTime().orElseThrow());
+        Assertions.assertEquals(List.of(2, 3, 4), sequences(buffer.getNotifications(List.of(FIRST), START, null)));
+    }
+
+    @Test
+    public void testEvictionByBytes() {
+        final NotificationReplayBuffer buffer = new NotificationReplayBuffer(Integer.MAX_VALUE, Long.MAX_VALUE, false);
+        append(buffer, FIRST, 0);
+        final long size = buffer.getBytes();
+
+        final NotificationReplayBuffer bounded = new NotificationReplayBuffer(Integer.MAX_VALUE, 2 * size, true);
+        for (int i = 0; i < 5; i++) {
+            append(bounded, FIRST, i);
+        }
+        Assertions.assertEquals(2, bounded.size());
+        Assertions.assertEquals(2 * size, bounded.getBytes());
+        Assertions.assertEquals(List.of(3, 4), sequences(bounded.getNotifications(List.of(FIRST), START, null)));
+
+        final NotificationReplayBuffer tooSmall = new NotificationReplayBuffer(Integer.MAX_VALUE, size - 1, false);
+        append(tooSmall, FIRST, 0);
+        Assertions.assertEquals(0, tooSmall.size());
+        Assertions.assertTrue(tooSmall.getOldestEventTime().isEmpty());
+    }
+
+    @Test
+    public void testTimeAndNameFilter() throws Exception {
+        final NotificationReplayBuffer buffer = new NotificationReplayBuffer(100, Long.MAX_VALUE, true);
+        for (int i = 0; i < 10; i++) {
+            append(buffer, i % 2 == 0 ? FIRST : SECOND, i);
+        }
+        final List<BufferedNotification> replayed =
+            buffer.getNotifications(List.of(FIRST), START.plusSeconds(3), START.plusSeconds(8));
+        Assertions.assertEquals(List.of(4, 6, 8), sequences(replayed));
+        Assertions.assertEquals(List.of(1, 3, 5, 7, 9),
+            sequences(buffer.getNotifications(List.of(SECOND), START, null)));
+
+        final NotificationMessage message = replayed.get(0).toMessage();
+        Assertions.assertEquals(START.plusSeconds(4), message.getEventTime());
+        final Element content = (Element) message.getDocument().getDocumentElement()
+            .getElementsByTagNameNS(NAMESPACE, FIRST.getLocalName()).item(0);
+        Assertions.assertEquals("4", content.getTextContent());
+    }
+
+    private static void append(final NotificationReplayBuffer buffer, final QName name, final int sequence) {
+        final Document content = XmlUtil.newDocument();
+        final Element element = content.createElementNS(NAMESPACE, name.getLocalName());
+        element.setTextContent(Integer.toString(sequence));
+        content.appendChild(element);
+        buffer.append(buffer.serialize(name, START.plusSeconds(sequence), content));
+    }
+
+    private static List<Integer> sequences(final List<BufferedNotification> notifications) {
+        return notifications.stream()
+            .map(notification -> (int) (notification.getEventTime().getEpochSecond() - START.getEpochSecond()))
+            .collect(Collectors.toList());
+    }
+}
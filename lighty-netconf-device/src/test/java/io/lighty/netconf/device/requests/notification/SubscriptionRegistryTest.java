@@ -0,0 +1,143 @@
+/*
+ * Copyright (c) 2024 PANTHEON.tech, s.r.o. and others. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at https://www.eclipse.org/legal/epl-v10.html
+ */
+package io.lighty.netconf.device.requests.notification;
+
+import io.netty.channel.ChannelFuture;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.opendaylight.netconf.api.NetconfSession;
+import org.opendaylight.netconf.api.messages.NetconfMessage;
+import org.opendaylight.yang.gen.v1.urn.ietf.params.xml.ns.netconf.base._1._0.rev110601.SessionIdType;
+import org.opendaylight.yangtools.yang.common.QName;
+import org.opendaylight.yangtools.yang.common.Uint32;
+
+public class SubscriptionRegistryTest {
+
+    private static final String NAMESPACE = "urn:test:notifications";
+    private static final List<QName> NOTIFICATIONS = IntStream.range(0, 5)
+        .mapToObj(i -> QName.create(NAMESPACE, "notification-" + i))
+        .collect(Collectors.toList());
+    private static final int SUBSCRIBERS = 8;
+    private static final int PUBLISHERS = 4;
+    private static final int ROUNDS = 2_000;
+
+    @Test
+    public void testSubscribeAndUnsubscribe() {
+        final SubscriptionRegistry registry = new SubscriptionRegistry();
+        final NetconfSession first = new TestSession(1);
+        final NetconfSession second = new TestSession(2);
+        registry.subscribe(first, NOTIFICATIONS);
+        registry.subscribe(first, NOTIFICATIONS);
+        registry.subscribe(second, NOTIFICATIONS.subList(0, 1));
+
+        Assertions.assertEquals(2, registry.getSubscribers(NOTIFICATIONS.get(0)).size());
+        Assertions.assertEquals(1, registry.getSubscribers(NOTIFICATIONS.get(1)).size());
+        Assertions.assertTrue(registry.unsubscribe(first));
+        Assertions.assertFalse(registry.unsubscribe(first));
+        Assertions.assertEquals(List.of(second), List.copyOf(registry.getSubscribers(NOTIFICATIONS.get(0))));
+        Assertions.assertTrue(registry.getSubscribers(NOTIFICATIONS.get(1)).isEmpty());
+        Assertions.assertTrue(registry.getSubscribers(QName.create(NAMESPACE, "unknown")).isEmpty());
+    }
+
+    @Test
+    public void testConcurrentSubscriptionsAndPublishing() throws Exception {
+        final SubscriptionRegistry registry = new SubscriptionRegistry();
+        final List<NetconfSession> sessions = IntStream.range(0, SUBSCRIBERS)
+            .mapToObj(i -> (NetconfSession) new TestSession(i + 1))
+            .collect(Collectors.toList());
+        final ExecutorService executor = Executors.newFixedThreadPool(SUBSCRIBERS + PUBLISHERS);
+        final CountDownLatch start = new CountDownLatch(1);
+        final AtomicBoolean subscribing = new AtomicBoolean(true);
+        try {
+            final List<Future<?>> subscribers = new ArrayList<>();
+            for (final NetconfSession session : sessions) {
+                subscribers.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < ROUNDS; i++) {
+                        registry.subscribe(session, NOTIFICATIONS);
+                        Assertions.assertTrue(registry.getSubscribers(NOTIFICATIONS.get(i % NOTIFICATIONS.size()))
+                            .contains(session));
+                        Assertions.assertTrue(registry.unsubscribe(session));
+                    }
+                    // leave the session subscribed, so the final state is known
+                    registry.subscribe(session, NOTIFICATIONS);
+                    return null;
+                }));
+            }
+            final List<Future<Long>> publishers = new ArrayList<>();
+            for (int i = 0; i < PUBLISHERS; i++) {
+                publishers.add(executor.submit(() -> {
+                    start.await();
+                    long iterated = 0;
+                    while (subscribing.get()) {
+                        for (final QName notification : NOTIFICATIONS) {
+                            for (final NetconfSession session : registry.getSubscribers(notification)) {
+                                Assertions.assertNotNull(session);
+                                iterated++;
+                            }
+                        }
+                    }
+                    return iterated;
+                }));
+            }
+
+            start.countDown();
+            for (final Future<?> subscriber : subscribers) {
+                subscriber.get(1, TimeUnit.MINUTES);
+            }
+            subscribing.set(false);
+            for (final Future<Long> publisher : publishers) {
+                publisher.get(1, TimeUnit.MINUTES);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        for (final QName notification : NOTIFICATIONS) {
+            Assertions.assertEquals(SUBSCRIBERS, registry.getSubscribers(notification).size());
+        }
+        sessions.forEach(registry::unsubscribe);
+        for (final QName notification : NOTIFICATIONS) {
+            Assertions.assertTrue(registry.getSubscribers(notification).isEmpty());
+        }
+    }
+
+    private static final class TestSession implements NetconfSession {
+
+        private final SessionIdType sessionId;
+
+        TestSession(final long sessionId) {
+            this.sessionId = new SessionIdType(Uint32.valueOf(sessionId));
+        }
+
+        @Override
+        public SessionIdType sessionId() {
+            return sessionId;
+        }
+
+        @Override
+        public ChannelFuture sendMessage(final NetconfMessage message) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void close() {
+            // nothing to close
+        }
+    }
+}
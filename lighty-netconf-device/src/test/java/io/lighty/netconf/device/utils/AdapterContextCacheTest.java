@@ -0,0 +1,53 @@
+/*
+ * Copyright (c) 2024 PANTHEON.tech, s.r.o. and others. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at https://www.eclipse.org/legal/epl-v10.html
+ */
+package io.lighty.netconf.device.utils;
+
+import io.lighty.core.common.models.ModuleId;
+import java.util.HashSet;
+import java.util.Set;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.opendaylight.mdsal.binding.dom.adapter.AdapterContext;
+import org.opendaylight.yangtools.binding.meta.YangModuleInfo;
+
+public class AdapterContextCacheTest {
+
+    private static final Set<YangModuleInfo> MODULES = ModelUtils.getModelsFromClasspath(
+        ModuleId.from("urn:TBD:params:xml:ns:yang:network-topology", "network-topology", "2013-10-21"));
+    // models not used by any other test, so no other lease keeps them cached
+    private static final Set<YangModuleInfo> MONITORING_MODULES = ModelUtils.getModelsFromClasspath(
+        ModuleId.from("urn:ietf:params:xml:ns:yang:ietf-netconf-monitoring", "ietf-netconf-monitoring",
+            "2010-10-04"));
+
+    @Test
+    public void testSameModelsShareContext() {
+        try (AdapterContextCache.Lease first = AdapterContextCache.acquire(MODULES);
+             AdapterContextCache.Lease second = AdapterContextCache.acquire(new HashSet<>(MODULES))) {
+            Assertions.assertSame(first.getAdapterContext(), second.getAdapterContext());
+            Assertions.assertSame(first.getXmlNodeConverter(), second.getXmlNodeConverter());
+        }
+    }
+
+    @Test
+    public void testContextIsReleasedWithLastLease() {
+        final AdapterContextCache.Lease first = AdapterContextCache.acquire(MONITORING_MODULES);
+        final AdapterContext released = first.getAdapterContext();
+        final AdapterContextCache.Lease second = AdapterContextCache.acquire(MONITORING_MODULES);
+        first.close();
+        // closing the lease twice must not release the context of the other lease
+        first.close();
+        try (AdapterContextCache.Lease third = AdapterContextCache.acquire(MONITORING_MODULES)) {
+            Assertions.assertSame(released, third.getAdapterContext());
+        }
+        second.close();
+
+        try (AdapterContextCache.Lease fresh = AdapterContextCache.acquire(MONITORING_MODULES)) {
+            Assertions.assertNotSame(released, fresh.getAdapterContext());
+        }
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright (c) 2024 PANTHEON.tech, s.r.o. and others. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at https://www.eclipse.org/legal/epl-v10.html
+ */
+package io.lighty.netconf.device.utils;
+
+import io.lighty.core.common.models.ModuleId;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.opendaylight.mdsal.binding.dom.adapter.AdapterContext;
+import org.opendaylight.yangtools.binding.meta.YangModuleInfo;
+import org.opendaylight.yangtools.yang.model.api.EffectiveModelContext;
+import org.opendaylight.yangtools.yang.model.api.Module;
+import org.opendaylight.yangtools.yang.parser.impl.DefaultYangParserFactory;
+
+public class CachingYangParserFactoryTest {
+
+    private static final Set<YangModuleInfo> MODULES = ModelUtils.getModelsFromClasspath(
+        ModuleId.from("urn:TBD:params:xml:ns:yang:network-topology", "network-topology", "2013-10-21"));
+
+    @TempDir
+    Path cacheDirectory;
+
+    @Test
+    public void testSourcesAreReused() throws IOException {
+        final CachingYangParserFactory factory =
+            new CachingYangParserFactory(new DefaultYangParserFactory(), cacheDirectory);
+        final Set<String> coldModules = moduleNames(AdapterContextCache.createAdapterContext(MODULES, factory));
+        final List<Path> entries = listEntries();
+        Assertions.assertEquals(MODULES.size(), entries.size());
+        final long modified = Files.getLastModifiedTime(entries.get(0)).toMillis();
+
+        final Set<String> warmModules = moduleNames(AdapterContextCache.createAdapterContext(MODULES, factory));
+        Assertions.assertEquals(coldModules, warmModules);
+        Assertions.assertEquals(entries, listEntries());
+        Assertions.assertEquals(modified, Files.getLastModifiedTime(entries.get(0)).toMillis());
+    }
+
+    @Test
+    public void testCorruptedEntryIsParsedAgain() throws IOException {
+        final CachingYangParserFactory factory =
+            new CachingYangParserFactory(new DefaultYangParserFactory(), cacheDirectory);
+        final Set<String> expected = moduleNames(AdapterContextCache.createAdapterContext(MODULES, factory));
+        for (final Path entry : listEntries()) {
+            Files.writeString(entry, "corrupted", StandardCharsets.UTF_8);
+        }
+
+        Assertions.assertEquals(expected, moduleNames(AdapterContextCache.createAdapterContext(MODULES, factory)));
+        for (final Path entry : listEntries()) {
+            Assertions.assertNotEquals("corrupted", new String(Files.readAllBytes(entry), StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    public void testTemporaryFileIsDeletedWhenEntryIsNotStored() throws IOException {
+        final CachingYangParserFactory factory =
+            new CachingYangParserFactory(new DefaultYangParserFactory(), cacheDirectory);
+        final Set<String> expected = moduleNames(AdapterContextCache.createAdapterContext(MODULES, factory));
+        // non-empty directories in place of the entries can not be replaced
+        final List<Path> entries = listEntries();
+        for (final Path entry : entries) {
+            Files.delete(entry);
+            Files.createDirectories(entry.resolve("blocker"));
+        }
+
+        Assertions.assertEquals(expected, moduleNames(AdapterContextCache.createAdapterContext(MODULES, factory)));
+        Assertions.assertEquals(entries, listEntries());
+    }
+
+    private List<Path> listEntries() throws IOException {
+        try (Stream<Path> files = Files.list(cacheDirectory)) {
+            return files.sorted().collect(Collectors.toList());
+        }
+    }
+
+    private static Set<String> moduleNames(final AdapterContext adapterContext) {
+        final EffectiveModelContext modelContext =
+            adapterContext.currentSerializer().getRuntimeContext().modelContext();
+        return modelContext.getModules().stream().map(Module::getName).collect(Collectors.toSet());
+    }
+}
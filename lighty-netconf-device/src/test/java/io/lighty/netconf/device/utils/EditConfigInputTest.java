@@ -0,0 +1,50 @@
+/*
+ * Copyright (c) 2024 PANTHEON.tech, s.r.o. and others. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at https://www.eclipse.org/legal/epl-v10.html
+ */
+package io.lighty.netconf.device.utils;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.opendaylight.netconf.api.xml.XmlUtil;
+import org.w3c.dom.Element;
+
+public class EditConfigInputTest {
+
+    private static final String EDIT_CONFIG_REQUEST = "<edit-config xmlns=\"urn:ietf:params:xml:ns:netconf:base:1.0\">"
+        + "<target><running/></target>"
+        + "<default-operation>replace</default-operation>"
+        + "<config><network-topology xmlns=\"urn:TBD:params:xml:ns:yang:network-topology\">"
+        + "<topology xmlns:nc=\"urn:ietf:params:xml:ns:netconf:base:1.0\" nc:operation=\"delete\">"
+        + "<topology-id>first</topology-id></topology>"
+        + "<topology xmlns:nc=\"urn:ietf:params:xml:ns:netconf:base:1.0\" nc:operation=\"create\">"
+        + "<topology-id>second</topology-id></topology>"
+        + "</network-topology></config></edit-config>";
+
+    @Test
+    public void testParse() throws Exception {
+        final Element request = XmlUtil.readXmlToElement(EDIT_CONFIG_REQUEST);
+        final EditConfigInput input = EditConfigInput.parse(request);
+
+        Assertions.assertEquals(DefaultOperation.REPLACE, input.getDefaultOperation().orElseThrow());
+        Assertions.assertEquals("config", input.getConfig().orElseThrow().getLocalName());
+        Assertions.assertEquals(Operation.DELETE, input.getOperation().orElseThrow());
+        Assertions.assertEquals("first", input.getOperationElement().orElseThrow().getTextContent());
+        Assertions.assertEquals(Operation.DELETE, RPCUtil.retrieveOperation(request).orElseThrow());
+        Assertions.assertEquals(DefaultOperation.REPLACE, RPCUtil.retrieveDefaultOperation(request).orElseThrow());
+    }
+
+    @Test
+    public void testParseWithoutOperations() throws Exception {
+        final EditConfigInput input = EditConfigInput.parse(XmlUtil.readXmlToElement(
+            "<edit-config xmlns=\"urn:ietf:params:xml:ns:netconf:base:1.0\"><config/></edit-config>"));
+
+        Assertions.assertTrue(input.getConfig().isPresent());
+        Assertions.assertTrue(input.getOperation().isEmpty());
+        Assertions.assertTrue(input.getOperationElement().isEmpty());
+        Assertions.assertTrue(input.getDefaultOperation().isEmpty());
+    }
+}
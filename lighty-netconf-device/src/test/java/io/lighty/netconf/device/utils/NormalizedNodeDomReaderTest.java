@@ -0,0 +1,61 @@
+/*
+ * Copyright (c) 2024 PANTHEON.tech, s.r.o. and others. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at https://www.eclipse.org/legal/epl-v10.html
+ */
+package io.lighty.netconf.device.utils;
+
+import io.lighty.codecs.util.exception.DeserializationException;
+import io.lighty.core.common.models.ModuleId;
+import io.lighty.netconf.device.NetconfDeviceServices;
+import io.lighty.netconf.device.NetconfDeviceServicesImpl;
+import java.io.StringReader;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.opendaylight.netconf.api.xml.XmlUtil;
+import org.opendaylight.yangtools.yang.data.api.schema.NormalizedNode;
+import org.w3c.dom.Element;
+
+public class NormalizedNodeDomReaderTest {
+
+    private static final String NT_NAMESPACE = "urn:TBD:params:xml:ns:yang:network-topology";
+    private static final String CONFIG = "<config xmlns=\"urn:ietf:params:xml:ns:netconf:base:1.0\">\n"
+        + "  <network-topology xmlns=\"" + NT_NAMESPACE + "\"\n"
+        + "      xmlns:nc=\"urn:ietf:params:xml:ns:netconf:base:1.0\">\n"
+        + "    <topology nc:operation=\"replace\">\n"
+        + "      <topology-id>topology</topology-id>\n"
+        + "      <node><node-id>node-1</node-id></node>\n"
+        + "      <node><node-id>node-2</node-id></node>\n"
+        + "    </topology>\n"
+        + "  </network-topology>\n"
+        + "</config>";
+
+    private static NetconfDeviceServices netconfDeviceServices;
+
+    @BeforeAll
+    public static void setUp() {
+        netconfDeviceServices = new NetconfDeviceServicesImpl(ModelUtils.getModelsFromClasspath(
+            ModuleId.from(NT_NAMESPACE, "network-topology", "2013-10-21")), null);
+    }
+
+    @Test
+    public void testReadDataMatchesStringDeserialization() throws Exception {
+        final Element config = XmlUtil.readXmlToElement(CONFIG);
+        final NormalizedNode fromString = netconfDeviceServices.getXmlNodeConverter()
+            .deserialize(netconfDeviceServices.getRootInference(), new StringReader(RPCUtil.formatXml(config)));
+        final NormalizedNode fromDom = NormalizedNodeDomReader.readData(netconfDeviceServices.getRootInference(),
+            config);
+        Assertions.assertEquals(fromString, fromDom);
+    }
+
+    @Test
+    public void testUnknownElement() throws Exception {
+        final Element config = XmlUtil.readXmlToElement("<config xmlns=\"urn:ietf:params:xml:ns:netconf:base:1.0\">"
+            + "<unknown xmlns=\"urn:unknown\"/></config>");
+        Assertions.assertThrows(DeserializationException.class,
+            () -> NormalizedNodeDomReader.readData(netconfDeviceServices.getRootInference(), config));
+    }
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright (c) 2024 PANTHEON.tech, s.r.o. and others. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at https://www.eclipse.org/legal/epl-v10.html
+ */
+package io.lighty.netconf.device.utils;
+
+import io.lighty.core.common.models.ModuleId;
+import io.lighty.netconf.device.NetconfDeviceServices;
+import io.lighty.netconf.device.NetconfDeviceServicesImpl;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.opendaylight.netconf.api.xml.XmlUtil;
+import org.opendaylight.yangtools.util.xml.UntrustedXML;
+import org.opendaylight.yangtools.yang.data.api.schema.ContainerNode;
+import org.opendaylight.yangtools.yang.data.api.schema.NormalizedNode;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+
+public class NormalizedNodeDomWriterTest {
+
+    private static final String NT_NAMESPACE = "urn:TBD:params:xml:ns:yang:network-topology";
+    private static final String CONFIG = "<config xmlns=\"urn:ietf:params:xml:ns:netconf:base:1.0\">"
+        + "<network-topology xmlns=\"" + NT_NAMESPACE + "\">"
+        + "<topology><topology-id>topology</topology-id>"
+        + "<node><node-id>node-1</node-id></node>"
+        + "<node><node-id>node-2</node-id></node>"
+        + "</topology></network-topology></config>";
+
+    private static NetconfDeviceServices netconfDeviceServices;
+
+    @BeforeAll
+    public static void setUp() {
+        netconfDeviceServices = new NetconfDeviceServicesImpl(ModelUtils.getModelsFromClasspath(
+            ModuleId.from(NT_NAMESPACE, "network-topology", "2013-10-21")), null);
+    }
+
+    @Test
+    public void testCountElementsOfWrittenData() throws Exception {
+        final NormalizedNode data = NormalizedNodeDomReader.readData(netconfDeviceServices.getRootInference(),
+            XmlUtil.readXmlToElement(CONFIG));
+        final Document document = UntrustedXML.newDocumentBuilder().newDocument();
+        final Element reply = document.createElementNS(RPCUtil.NETCONF_BASE_NAMESPACE, "rpc-reply");
+        final Element dataElement = document.createElementNS(RPCUtil.NETCONF_BASE_NAMESPACE, "data");
+        reply.appendChild(dataElement);
+        document.appendChild(reply);
+        for (NormalizedNode child : ((ContainerNode) data).body()) {
+            NormalizedNodeDomWriter.writeData(netconfDeviceServices.getRootInference(), child, dataElement);
+        }
+
+        Assertions.assertEquals(reply.getElementsByTagName("*").getLength() + 1,
+            NormalizedNodeDomWriter.countElements(reply));
+        Assertions.assertEquals(9, NormalizedNodeDomWriter.countElements(reply));
+
+        // written subtrees are not traversed again
+        dataElement.getFirstChild().appendChild(document.createElementNS(NT_NAMESPACE, "topology"));
+        Assertions.assertEquals(9, NormalizedNodeDomWriter.countElements(reply));
+    }
+
+    @Test
+    public void testCountElementsOfParsedTree() throws Exception {
+        final Element config = XmlUtil.readXmlToElement(CONFIG);
+        Assertions.assertEquals(8, NormalizedNodeDomWriter.countElements(config));
+    }
+}
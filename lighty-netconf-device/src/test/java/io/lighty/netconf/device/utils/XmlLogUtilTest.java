@@ -0,0 +1,48 @@
+/*
+ * Copyright (c) 2024 PANTHEON.tech, s.r.o. and others. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at https://www.eclipse.org/legal/epl-v10.html
+ */
+package io.lighty.netconf.device.utils;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.opendaylight.netconf.api.xml.XmlUtil;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+
+public class XmlLogUtilTest {
+
+    @Test
+    public void testSmallPayloadIsNotTruncated() {
+        final Document document = createDocument(3);
+        final String formatted = XmlLogUtil.lazyFormat(document).toString();
+        Assertions.assertTrue(formatted.contains("<item>2</item>"));
+        Assertions.assertFalse(formatted.contains("truncated"));
+        Assertions.assertEquals(RPCUtil.formatXml(document.getDocumentElement()), formatted);
+    }
+
+    @Test
+    public void testBigPayloadIsTruncated() {
+        final Document document = createDocument(10_000);
+        final String formatted = XmlLogUtil.format(document, 1_000);
+        Assertions.assertTrue(formatted.endsWith("... [truncated, payload exceeds 1000 characters]"));
+        Assertions.assertTrue(formatted.length() < 1_100);
+        // transformer must stay usable after the serialization was aborted
+        Assertions.assertFalse(RPCUtil.formatXml(createDocument(1).getDocumentElement()).isEmpty());
+    }
+
+    private static Document createDocument(final int items) {
+        final Document document = XmlUtil.newDocument();
+        final Element root = document.createElementNS(RPCUtil.NETCONF_BASE_NAMESPACE, "data");
+        for (int i = 0; i < items; i++) {
+            final Element item = document.createElementNS(RPCUtil.NETCONF_BASE_NAMESPACE, "item");
+            item.setTextContent(String.valueOf(i));
+            root.appendChild(item);
+        }
+        document.appendChild(root);
+        return document;
+    }
+}